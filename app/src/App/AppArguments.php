@@ -21,6 +21,7 @@ final class AppArguments
         private readonly int $serverCanvasWidth,
         private readonly int $serverCanvasHeight,
         private readonly String $serverPipesDir, 
+        private readonly string $serverTransport,
     )
     {
     }
@@ -91,4 +92,9 @@ final class AppArguments
         return $this->serverPipesDir;
     }
 
+    public function serverTransport(): string
+    {
+        return $this->serverTransport;
+    }
+
 }
\ No newline at end of file
@@ -18,8 +18,10 @@ final class AppArgumentsFactory
         $serverCanvasWidth = 0;
         $serverCanvasHeight = 0;
         $serverPipesDir = "";
+        $serverTransport = "";
         if ($this->isServer($argv)) {
             $serverPipesDir = $additional['pipesDir'];
+            $serverTransport = getenv('PHP_SNOW_TRANSPORT') ?: 'fifo';
             $this->read($argv);
             $serverSessionId = $this->read($argv);
             $serverCanvasWidth = (int)$this->read($argv);
@@ -39,7 +41,7 @@ final class AppArgumentsFactory
             $windForces, $presetName, $customScene,
             $targetFps, $animationDurationSec,
             $serverSessionId, $serverCanvasWidth, $serverCanvasHeight, 
-            $serverPipesDir);
+            $serverPipesDir, $serverTransport);
     }
 
     private function isResource(array $argv): bool
@@ -4,11 +4,16 @@ namespace TechBit\Snow\App;
 
 use TechBit\Snow\App;
 use TechBit\Snow\App\Exception\AppUserException;
+use TechBit\Snow\Server\IStreamPipe;
 use TechBit\Snow\Server\MockConsole;
+use TechBit\Snow\Server\NamedPipe;
+use TechBit\Snow\Server\SharedMemoryPipe;
+use TechBit\Snow\Server\SocketPipe;
 use TechBit\Snow\Server\StreamFramePainter;
 use TechBit\Snow\SnowFallAnimation\AnimationFactory;
 use TechBit\Snow\SnowFallAnimation\Config\StartupConfigFactory;
 use TechBit\Snow\SnowFallAnimation\Snow\SnowFlakeShape;
+use InvalidArgumentException;
 use Throwable;
 
 final class Bootstrap
@@ -26,8 +31,7 @@ final class Bootstrap
             $flakeShapes = new SnowFlakeShape();
             return new App(new AnimationFactory(
                 renderer : new StreamFramePainter(
-                    $appArguments->serverSessionId(),
-                    $appArguments->serverPipesDir(),
+                    self::createStreamPipe($appArguments),
                     $startupConfig,
                     $appArguments->serverCanvasWidth(),
                     $appArguments->serverCanvasHeight(),
@@ -44,6 +48,17 @@ final class Bootstrap
         return new App();
     }
 
+    private static function createStreamPipe(AppArguments $appArguments): IStreamPipe
+    {
+        $pipeFile = $appArguments->serverPipesDir() . "/" . $appArguments->serverSessionId();
+        return match ($appArguments->serverTransport()) {
+            'fifo' => new NamedPipe($pipeFile),
+            'shm' => new SharedMemoryPipe($pipeFile),
+            'socket' => new SocketPipe($pipeFile),
+            default => throw new InvalidArgumentException("Unknown transport: {$appArguments->serverTransport()}"),
+        };
+    }
+
     public static function run(IApp $app, AppArguments $appArguments): int
     {
         try {
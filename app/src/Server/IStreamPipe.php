@@ -0,0 +1,14 @@
+<?php declare(strict_types=1);
+
+namespace TechBit\Snow\Server;
+
+interface IStreamPipe
+{
+
+    public function open(): void;
+
+    public function write(string $data): void;
+
+    public function close(): void;
+
+}
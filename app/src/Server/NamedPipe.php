@@ -0,0 +1,48 @@
+<?php declare(strict_types=1);
+
+namespace TechBit\Snow\Server;
+
+use Exception;
+
+final class NamedPipe implements IStreamPipe
+{
+
+    /**
+     * @var resource
+     */
+    private $pipe;
+
+    public function __construct(
+        private readonly string $pipeFile,
+    ) {
+    }
+
+    /**
+     * @throws Exception
+     */
+    public function open(): void
+    {
+        if (file_exists($this->pipeFile) && !unlink($this->pipeFile)) {
+            throw new Exception("Cannot delete: $this->pipeFile");
+        }
+
+        if (!posix_mkfifo($this->pipeFile, 0777)) {
+            throw new Exception("Cannot create a named pipe: $this->pipeFile");
+        }
+
+        $this->pipe = fopen($this->pipeFile, "w");
+
+        stream_set_blocking($this->pipe, true);
+    }
+
+    public function write(string $data): void
+    {
+        fwrite($this->pipe, $data);
+    }
+
+    public function close(): void
+    {
+        fclose($this->pipe);
+    }
+
+}
@@ -0,0 +1,109 @@
+<?php declare(strict_types=1);
+
+namespace TechBit\Snow\Server;
+
+use Exception;
+
+final class SharedMemoryPipe implements IStreamPipe
+{
+
+    private const CAPACITY_OFFSET = 8;
+
+    private const HEAD_OFFSET = 64;
+
+    private const TAIL_OFFSET = 128;
+
+    private const CLOSED_OFFSET = 192;
+
+    private const DATA_OFFSET = 256;
+
+    private const WAIT_FOR_SPACE_MICROSECONDS = 200;
+
+    /**
+     * @var resource
+     */
+    private $file;
+
+    private int $head = 0;
+
+    private int $tail = 0;
+
+    public function __construct(
+        private readonly string $pipeFile,
+        private readonly int $capacity = 4 * 1024 * 1024,
+    ) {
+    }
+
+    /**
+     * @throws Exception
+     */
+    public function open(): void
+    {
+        if (file_exists($this->pipeFile) && !unlink($this->pipeFile)) {
+            throw new Exception("Cannot delete: $this->pipeFile");
+        }
+
+        $tmpFile = $this->pipeFile . '.tmp';
+        $this->file = fopen($tmpFile, 'c+');
+        if (!$this->file || !ftruncate($this->file, self::DATA_OFFSET + $this->capacity)) {
+            throw new Exception("Cannot create a shared memory file: $tmpFile");
+        }
+        stream_set_read_buffer($this->file, 0);
+        stream_set_write_buffer($this->file, 0);
+
+        $this->writeAt(self::CAPACITY_OFFSET, pack('N', $this->capacity));
+
+        // the consumer maps the file as soon as it appears, so it must be complete by then
+        if (!rename($tmpFile, $this->pipeFile)) {
+            throw new Exception("Cannot create a shared memory file: $this->pipeFile");
+        }
+    }
+
+    public function write(string $data): void
+    {
+        $length = strlen($data);
+        $written = 0;
+        while ($written < $length) {
+            $free = $this->capacity - ($this->head - $this->tail);
+            if ($free <= 0) {
+                $this->publishHead();
+                $this->tail = $this->readTail();
+                if ($this->tail === $this->head - $this->capacity) {
+                    usleep(self::WAIT_FOR_SPACE_MICROSECONDS);
+                }
+                continue;
+            }
+
+            $offset = $this->head % $this->capacity;
+            $chunk = min($length - $written, $free, $this->capacity - $offset);
+            $this->writeAt(self::DATA_OFFSET + $offset, substr($data, $written, $chunk));
+            $this->head += $chunk;
+            $written += $chunk;
+        }
+        $this->publishHead();
+    }
+
+    public function close(): void
+    {
+        $this->writeAt(self::CLOSED_OFFSET, pack('J', 1));
+        fclose($this->file);
+    }
+
+    private function publishHead(): void
+    {
+        $this->writeAt(self::HEAD_OFFSET, pack('J', $this->head));
+    }
+
+    private function readTail(): int
+    {
+        fseek($this->file, self::TAIL_OFFSET);
+        return unpack('J', fread($this->file, 8))[1];
+    }
+
+    private function writeAt(int $offset, string $data): void
+    {
+        fseek($this->file, $offset);
+        fwrite($this->file, $data);
+    }
+
+}
@@ -0,0 +1,60 @@
+<?php declare(strict_types=1);
+
+namespace TechBit\Snow\Server;
+
+use Exception;
+
+final class SocketPipe implements IStreamPipe
+{
+
+    private const CONNECT_ATTEMPTS = 100;
+
+    private const WAIT_BETWEEN_ATTEMPTS_MICROSECONDS = 50000;
+
+    /**
+     * @var resource
+     */
+    private $socket;
+
+    public function __construct(
+        private readonly string $socketFile,
+    ) {
+    }
+
+    /**
+     * @throws Exception
+     */
+    public function open(): void
+    {
+        for ($attempt = 0; $attempt < self::CONNECT_ATTEMPTS; ++$attempt) {
+            $socket = @stream_socket_client("unix://$this->socketFile", $errorCode, $errorMessage);
+            if ($socket) {
+                $this->socket = $socket;
+                stream_set_blocking($this->socket, true);
+                return;
+            }
+            usleep(self::WAIT_BETWEEN_ATTEMPTS_MICROSECONDS);
+        }
+        throw new Exception("Cannot connect to a socket: $this->socketFile ($errorMessage)");
+    }
+
+    /**
+     * @throws Exception
+     */
+    public function write(string $data): void
+    {
+        while ($data !== '') {
+            $written = fwrite($this->socket, $data);
+            if (!$written) {
+                throw new Exception("Cannot write to a socket: $this->socketFile");
+            }
+            $data = substr($data, $written);
+        }
+    }
+
+    public function close(): void
+    {
+        fclose($this->socket);
+    }
+
+}
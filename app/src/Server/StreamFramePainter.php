@@ -15,12 +15,9 @@ use TechBit\Snow\Console\ConsoleColor;
 final class StreamFramePainter implements IFramePainter, IAnimationObject
 {
 
-    private readonly SnowParticles $particles;
+    private const PROTOCOL_VERSION = 2;
 
-    /**
-     * @var resource
-     */
-    private $pipe;
+    private readonly SnowParticles $particles;
 
     private int $frameCounter = 0;
 
@@ -30,13 +27,10 @@ final class StreamFramePainter implements IFramePainter, IAnimationObject
 
     private array $basisPixels = [];
 
-    private int $basisPixelsCount = 0;
-
     private bool $debugToScreen = false;
 
     public function __construct(
-        private readonly string $sessionId,
-        private readonly string $pipesDir,
+        private readonly IStreamPipe $pipe,
         private readonly StartupConfig $startupConfig,
         private readonly int $canvasWidth,
         private readonly int $canvasHeight,
@@ -54,22 +48,9 @@ final class StreamFramePainter implements IFramePainter, IAnimationObject
     {
         $this->particles = $context->snowParticles();
 
-        $pipeFile = $this->pipesDir . "/" . $this->sessionId;
-
-        if (file_exists($pipeFile) && !unlink($pipeFile)) {
-            throw new Exception("Cannot delete: $pipeFile");
-        }
-
-        if (!posix_mkfifo($pipeFile, 0777)) {
-            throw new Exception("Cannot create a named pipe: $pipeFile");
-        }
-
         if (!$this->debugToScreen) {
-            $this->pipe = fopen($pipeFile, "w");
-
-            stream_set_blocking($this->pipe, true);
-
-            fwrite($this->pipe, "hello-php-snow");
+            $this->pipe->open();
+            $this->pipe->write("hello-php-snow" . pack('aC', 'v', self::PROTOCOL_VERSION));
         }
     }
 
@@ -109,7 +90,6 @@ final class StreamFramePainter implements IFramePainter, IAnimationObject
     {
         $this->particlesBuffer = [];
         $this->basisPixels = [];
-        $this->basisPixelsCount = 0;
     }
 
     public function renderParticle(int $idx): void
@@ -131,7 +111,6 @@ final class StreamFramePainter implements IFramePainter, IAnimationObject
 
     public function renderBasisParticle(float $x, float $y, string $shape): void
     {
-        ++$this->basisPixelsCount;
         $this->basisPixels[(int)$x][(int)$y] = $this->flakes->shapeIdx($shape);
     }
 
@@ -147,14 +126,14 @@ final class StreamFramePainter implements IFramePainter, IAnimationObject
     public function endFrame(): void
     {
         // frame num
-        $this->writeData('NN',
+        $frame = pack('NN',
             ++$this->frameCounter,
             count($this->particlesBuffer),
         );
 
         // particles
         foreach($this->particlesBuffer as $particle) {
-            $this->writeData('GGC',
+            $frame .= pack('GGC',
                 $particle[0], // X
                 $particle[1], // Y
                 $particle[2]  // c
@@ -162,17 +141,39 @@ final class StreamFramePainter implements IFramePainter, IAnimationObject
         }
 
         // basis
-        $this->writeData('N', $this->basisPixelsCount);
+        $basis = '';
+        $basisPixelsCount = 0;
         foreach($this->basisPixels as $x => $colum) {
             foreach($colum as $y => $pixel) {
-                $this->writeData('NNC', $x, $y, $pixel);
+                $basis .= pack('NNC', $x, $y, $pixel);
+                ++$basisPixelsCount;
             }
         }
+
+        $this->writeBlocks($frame, pack('N', $basisPixelsCount) . $basis);
     }
 
     public function stopAnimation(): void
     {
         $this->writeData('N', 0xffffffff);
+
+        if (!$this->debugToScreen) {
+            $this->pipe->close();
+        }
+    }
+
+    private function writeBlocks(string... $blocks): void
+    {
+        $data = '';
+        foreach ($blocks as $block) {
+            $data .= pack('N', strlen($block)) . $block;
+        }
+
+        if ($this->debugToScreen) {
+            var_dump(bin2hex($data));
+            return;
+        }
+        $this->pipe->write($data);
     }
 
     private function writeData(string $code, mixed... $args): void
@@ -181,7 +182,7 @@ final class StreamFramePainter implements IFramePainter, IAnimationObject
             var_dump($args);
             return;
         }
-        fwrite($this->pipe, pack($code, ...$args));
+        $this->pipe->write(pack($code, ...$args));
     }
 
 }
\ No newline at end of file
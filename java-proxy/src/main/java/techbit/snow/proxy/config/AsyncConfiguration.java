@@ -4,11 +4,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import techbit.snow.proxy.lang.Threads;
 
 import java.time.Duration;
 
@@ -20,22 +22,34 @@ public class AsyncConfiguration implements AsyncConfigurer {
     private final int threadMaxPoolSize;
     private final int threadCorePoolSize;
     private final int threadQueueCapacity;
+    private final int maxWebsocketStreams;
+    private final int reactivePoolSize;
+    private final boolean virtualThreads;
 
     public AsyncConfiguration(
             @Value("#{ ${phpsnow.threads.timeout} * 1000 }") Duration timeout,
             @Value("${phpsnow.threads.max-pool-size}") int threadMaxPoolSize,
             @Value("${phpsnow.threads.core-pool-size}") int threadCorePoolSize,
-            @Value("${phpsnow.threads.queue-capacity}") int threadQueueCapacity
+            @Value("${phpsnow.threads.queue-capacity}") int threadQueueCapacity,
+            @Value("${phpsnow.threads.max-websocket-streams}") int maxWebsocketStreams,
+            @Value("${phpsnow.threads.reactive-pool-size}") int reactivePoolSize,
+            @Value("${phpsnow.threads.virtual}") boolean virtualThreads
     ) {
         this.timeout = timeout;
         this.threadMaxPoolSize = threadMaxPoolSize;
         this.threadCorePoolSize = threadCorePoolSize;
         this.threadQueueCapacity = threadQueueCapacity;
+        this.maxWebsocketStreams = maxWebsocketStreams;
+        this.reactivePoolSize = reactivePoolSize;
+        this.virtualThreads = Threads.virtualIfSupported(virtualThreads);
     }
 
     @Override
     @Bean("streamAsyncTaskExecutor")
     public AsyncTaskExecutor getAsyncExecutor() {
+        if (virtualThreads) {
+            return new SimpleAsyncTaskExecutor(Threads.factory("snow-async-stream-", true));
+        }
         final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setMaxPoolSize(threadMaxPoolSize);
         executor.setCorePoolSize(threadCorePoolSize);
@@ -43,6 +57,28 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return executor;
     }
 
+    @Bean("websocketStreamExecutor")
+    public AsyncTaskExecutor websocketStreamExecutor() {
+        if (virtualThreads) {
+            return new SimpleAsyncTaskExecutor(Threads.factory("snow-websocket-stream-", true));
+        }
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("snow-websocket-stream-");
+        executor.setCorePoolSize(threadCorePoolSize);
+        executor.setMaxPoolSize(maxWebsocketStreams);
+        executor.setQueueCapacity(0);
+        return executor;
+    }
+
+    @Bean("reactiveStreamExecutor")
+    public AsyncTaskExecutor reactiveStreamExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("snow-reactive-stream-");
+        executor.setCorePoolSize(reactivePoolSize);
+        executor.setMaxPoolSize(reactivePoolSize);
+        return executor;
+    }
+
     @Bean
     public WebMvcConfigurer webMvcConfigurer(
             AsyncTaskExecutor streamAsyncTaskExecutor
@@ -8,6 +8,8 @@ import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import lombok.extern.jackson.Jacksonized;
 import techbit.snow.proxy.config.validation.MinDuration;
+import techbit.snow.proxy.snow.php.PipeTransport;
+import techbit.snow.proxy.snow.stream.SlowConsumerPolicy;
 
 import java.time.Duration;
 
@@ -34,9 +36,22 @@ public record PhpSnowConfig(
 
         @Min(value = 1, message = "Invalid animation FPS. Please provide a number in between 1 and 60")
         @Max(value = 60, message = "Invalid animation FPS. Please provide a number in between 1 and 60")
-        int fps
+        int fps,
+
+        @Nonnull
+        PipeTransport transport,
+
+        @Nonnull
+        SlowConsumerPolicy slowConsumerPolicy,
+
+        @Min(value = 1, message = "Invalid slow consumer threshold. Please provide a positive number of frames!")
+        int slowConsumerFrames
 
 ) {
+    public PhpSnowConfig(String presetName, @Nullable String scene, int width, int height, Duration duration, int fps) {
+        this(presetName, scene, width, height, duration, fps, PipeTransport.FIFO, SlowConsumerPolicy.CATCH_UP, fps);
+    }
+
     public long durationInSeconds() {
         return duration.getSeconds();
     }
@@ -31,6 +31,12 @@ public final class PhpSnowConfigConverter {
     private final Duration duration;
     @JsonProperty
     private final int fps;
+    @JsonProperty
+    private final String transport;
+    @JsonProperty
+    private final String slowConsumerPolicy;
+    @JsonProperty
+    private final int slowConsumerFrames;
     private final Validator validator;
     private final ObjectMapper mapper;
     private final Map<String, Object> defaults;
@@ -41,6 +47,9 @@ public final class PhpSnowConfigConverter {
             @Value("${phpsnow.default.height}") int height,
             @Value("#{ ${phpsnow.default.animation-duration-sec} * 1000 }") Duration duration,
             @Value("${phpsnow.default.fps}") int fps,
+            @Value("${phpsnow.default.transport}") String transport,
+            @Value("${phpsnow.default.slow-consumer-policy}") String slowConsumerPolicy,
+            @Value("${phpsnow.default.slow-consumer-frames}") int slowConsumerFrames,
             Validator validator
     ) {
         this.presetName = presetName;
@@ -49,6 +58,9 @@ public final class PhpSnowConfigConverter {
         this.height = height;
         this.duration = duration;
         this.fps = fps;
+        this.transport = transport;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.slowConsumerFrames = slowConsumerFrames;
         this.mapper = new ObjectMapper();
         this.mapper.registerModule(new JavaTimeModule());
         this.defaults = mapper.convertValue(this, new TypeReference<>() {});
@@ -0,0 +1,105 @@
+package techbit.snow.proxy.dto;
+
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Encodings shared by clients of a frame. Once charged to an accounting, every stored encoding reserves its size
+ * there and all of it is given back on {@link #release()}, after which encodings are no longer kept.
+ */
+public final class EncodedFrameCache {
+
+    private final Map<Object, byte[]> encodings = new ConcurrentHashMap<>(4);
+    private @Nullable LongConsumer accounting;
+    private long chargedBytes;
+    private boolean released;
+    private volatile @Nullable SnowDataFrame repeatedView;
+
+    public byte[] computeIfAbsent(Object key, Encoding encoding) throws IOException {
+        final byte[] cached = encodings.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final byte[] encoded = encoding.encode();
+        synchronized (this) {
+            if (released) {
+                return encoded;
+            }
+            final byte[] previous = encodings.putIfAbsent(key, encoded);
+            if (previous != null) {
+                return previous;
+            }
+            charge(encoded.length);
+        }
+        return encoded;
+    }
+
+    public synchronized void chargeTo(LongConsumer accounting) {
+        if (released || this.accounting != null) {
+            return;
+        }
+        this.accounting = accounting;
+        for (byte[] encoded : encodings.values()) {
+            charge(encoded.length);
+        }
+    }
+
+    public synchronized void release() {
+        released = true;
+        encodings.clear();
+        if (repeatedView != null) {
+            repeatedView.encoded().release();
+            repeatedView = null;
+        }
+        if (accounting != null && chargedBytes > 0) {
+            accounting.accept(-chargedBytes);
+        }
+        chargedBytes = 0;
+    }
+
+    SnowDataFrame repeatedView(Supplier<SnowDataFrame> view) {
+        final SnowDataFrame cached = repeatedView;
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (this) {
+            if (repeatedView != null) {
+                return repeatedView;
+            }
+            final SnowDataFrame created = view.get();
+            if (!released) {
+                if (accounting != null) {
+                    created.encoded().chargeTo(accounting);
+                }
+                repeatedView = created;
+            }
+            return created;
+        }
+    }
+
+    public int size() {
+        return encodings.size();
+    }
+
+    public synchronized long chargedBytes() {
+        return chargedBytes;
+    }
+
+    private void charge(int numOfBytes) {
+        if (accounting != null) {
+            accounting.accept(numOfBytes);
+            chargedBytes += numOfBytes;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Encoding {
+        byte[] encode() throws IOException;
+    }
+
+}
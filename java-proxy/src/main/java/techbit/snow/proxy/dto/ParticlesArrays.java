@@ -0,0 +1,45 @@
+package techbit.snow.proxy.dto;
+
+import java.util.function.Consumer;
+
+public final class ParticlesArrays extends PooledParticles {
+
+    private final float[] particlesX;
+    private final float[] particlesY;
+    private final byte[] flakeShapes;
+    private final Consumer<ParticlesArrays> recycler;
+
+    public ParticlesArrays(int capacity, Consumer<ParticlesArrays> recycler) {
+        this.particlesX = new float[capacity];
+        this.particlesY = new float[capacity];
+        this.flakeShapes = new byte[capacity];
+        this.recycler = recycler;
+    }
+
+    public ParticlesArrays lease() {
+        leased();
+        return this;
+    }
+
+    public float[] particlesX() {
+        return particlesX;
+    }
+
+    public float[] particlesY() {
+        return particlesY;
+    }
+
+    public byte[] flakeShapes() {
+        return flakeShapes;
+    }
+
+    public int capacity() {
+        return flakeShapes.length;
+    }
+
+    @Override
+    protected void recycle() {
+        recycler.accept(this);
+    }
+
+}
@@ -0,0 +1,53 @@
+package techbit.snow.proxy.dto;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+public final class ParticlesSlab extends PooledParticles {
+
+    private static final int PARTICLE_SIZE = 4 + 4 + 1;
+
+    private final ByteBuffer memory;
+    private final Consumer<ParticlesSlab> recycler;
+
+    public ParticlesSlab(ByteBuffer memory, Consumer<ParticlesSlab> recycler) {
+        this.memory = memory;
+        this.recycler = recycler;
+    }
+
+    public ParticlesSlab fill(int chunkSize, float[] x, float[] y, byte[] flakeShapes) {
+        if (chunkSize * PARTICLE_SIZE > memory.capacity()) {
+            throw new IllegalArgumentException("Slab of " + memory.capacity() + " bytes cannot hold "
+                    + chunkSize + " particles!");
+        }
+        for (int i = 0, ptr = 0; i < chunkSize; ++i, ptr += PARTICLE_SIZE) {
+            memory.putFloat(ptr, x[i]);
+            memory.putFloat(ptr + 4, y[i]);
+            memory.put(ptr + 8, flakeShapes[i]);
+        }
+        leased();
+        return this;
+    }
+
+    public float x(int idx) {
+        return memory.getFloat(idx * PARTICLE_SIZE);
+    }
+
+    public float y(int idx) {
+        return memory.getFloat(idx * PARTICLE_SIZE + 4);
+    }
+
+    public byte flakeShape(int idx) {
+        return memory.get(idx * PARTICLE_SIZE + 8);
+    }
+
+    public int capacity() {
+        return memory.capacity();
+    }
+
+    @Override
+    protected void recycle() {
+        recycler.accept(this);
+    }
+
+}
@@ -0,0 +1,30 @@
+package techbit.snow.proxy.dto;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public abstract class PooledParticles {
+
+    private final AtomicInteger references = new AtomicInteger();
+
+    protected final void leased() {
+        references.set(1);
+    }
+
+    public boolean tryRetain() {
+        for (int count = references.get(); count > 0; count = references.get()) {
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            recycle();
+        }
+    }
+
+    protected abstract void recycle();
+
+}
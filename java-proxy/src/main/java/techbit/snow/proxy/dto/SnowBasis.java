@@ -1,5 +1,7 @@
 package techbit.snow.proxy.dto;
 
+import jakarta.annotation.Nullable;
+
 import java.util.Arrays;
 
 import static techbit.snow.proxy.lang.EmptyArray.NO;
@@ -8,10 +10,38 @@ public record SnowBasis(
         int numOfPixels,
         int[] x,
         int[] y,
-        byte[] pixels
+        byte[] pixels,
+        @Nullable SnowBasisDelta delta
 ) {
     public static final SnowBasis NONE = new SnowBasis(0, NO.INTEGERS, NO.INTEGERS, NO.BYTES);
 
+    /** Number of pixels of a basis that carries only {@link #delta} against the basis sent before. */
+    public static final int DELTA = -1;
+
+    public SnowBasis(int numOfPixels, int[] x, int[] y, byte[] pixels) {
+        this(numOfPixels, x, y, pixels, null);
+    }
+
+    public SnowBasis withDeltaFrom(SnowBasis previous) {
+        final SnowBasisDelta delta = SnowBasisDelta.between(previous, this);
+        if (delta == null) {
+            return this;
+        }
+        return new SnowBasis(numOfPixels, x, y, pixels, delta);
+    }
+
+    public boolean hasDeltaFrom(SnowBasis previous) {
+        return delta != null && delta.appliesTo(previous);
+    }
+
+    public SnowBasis asDelta() {
+        return new SnowBasis(DELTA, NO.INTEGERS, NO.INTEGERS, NO.BYTES, delta);
+    }
+
+    public boolean isDelta() {
+        return numOfPixels == DELTA;
+    }
+
     public int x(int i) {
         return x[i];
     }
@@ -24,11 +54,18 @@ public record SnowBasis(
         return pixels[i];
     }
 
+    public int sizeInBytes() {
+        return 4 * x.length + 4 * y.length + pixels.length + (delta != null ? delta.sizeInBytes() : 0);
+    }
+
     @Override
     public String toString() {
         if (this == NONE) {
             return "Basis.NONE";
         }
+        if (isDelta()) {
+            return String.valueOf(delta);
+        }
         return "Basis{" +
                 "numOfPixels=" + numOfPixels +
                 ",\n    particlesX=" + Arrays.toString(x) +
@@ -0,0 +1,87 @@
+package techbit.snow.proxy.dto;
+
+import jakarta.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public record SnowBasisDelta(
+        int[] baseX,
+        int numOfChanged,
+        int[] x,
+        int[] y,
+        byte[] pixels,
+        int numOfRemoved,
+        int[] removedX,
+        int[] removedY
+) {
+
+    /**
+     * Returns pixels added, changed and removed between given bases,
+     * or null when sending the delta would not be cheaper than sending the whole next basis.
+     */
+    public static @Nullable SnowBasisDelta between(SnowBasis previous, SnowBasis next) {
+        if (previous == SnowBasis.NONE || next == SnowBasis.NONE) {
+            return null;
+        }
+
+        final Map<Long, Integer> previousPixels = new HashMap<>(previous.x().length * 2);
+        for (int i = 0; i < previous.x().length; ++i) {
+            previousPixels.put(key(previous.x(i), previous.y(i)), i);
+        }
+
+        int numOfChanged = 0;
+        final int[] x = new int[next.x().length];
+        final int[] y = new int[next.x().length];
+        final byte[] pixels = new byte[next.x().length];
+        for (int i = 0; i < next.x().length; ++i) {
+            final Integer idx = previousPixels.remove(key(next.x(i), next.y(i)));
+            if (idx == null || previous.pixel(idx) != next.pixel(i)) {
+                x[numOfChanged] = next.x(i);
+                y[numOfChanged] = next.y(i);
+                pixels[numOfChanged++] = next.pixel(i);
+            }
+        }
+
+        int numOfRemoved = 0;
+        final int[] removedX = new int[previousPixels.size()];
+        final int[] removedY = new int[previousPixels.size()];
+        for (int i : previousPixels.values()) {
+            removedX[numOfRemoved] = previous.x(i);
+            removedY[numOfRemoved++] = previous.y(i);
+        }
+
+        final SnowBasisDelta delta = new SnowBasisDelta(previous.x(),
+                numOfChanged, Arrays.copyOf(x, numOfChanged), Arrays.copyOf(y, numOfChanged), Arrays.copyOf(pixels, numOfChanged),
+                numOfRemoved, removedX, removedY);
+
+        return delta.sizeInBytes() < next.sizeInBytes() ? delta : null;
+    }
+
+    private static long key(int x, int y) {
+        return (long) x << 32 | Integer.toUnsignedLong(y);
+    }
+
+    public boolean appliesTo(SnowBasis basis) {
+        // pixel arrays identify the base instance without retaining it together with its own delta
+        return basis.x() == baseX;
+    }
+
+    public int sizeInBytes() {
+        return 4 * x.length + 4 * y.length + pixels.length + 4 * removedX.length + 4 * removedY.length;
+    }
+
+    @Override
+    public String toString() {
+        return "BasisDelta{" +
+                "numOfChanged=" + numOfChanged +
+                ",\n    particlesX=" + Arrays.toString(x) +
+                ",\n    particlesY=" + Arrays.toString(y) +
+                ",\n    pixels=" + Arrays.toString(pixels) +
+                ",\n    numOfRemoved=" + numOfRemoved +
+                ",\n    removedX=" + Arrays.toString(removedX) +
+                ",\n    removedY=" + Arrays.toString(removedY) +
+                '}';
+    }
+}
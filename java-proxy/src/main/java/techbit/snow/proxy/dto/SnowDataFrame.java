@@ -1,6 +1,10 @@
 package techbit.snow.proxy.dto;
 
-import java.util.Arrays;
+import jakarta.annotation.Nullable;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.IntFunction;
 
 import static techbit.snow.proxy.lang.EmptyArray.NO;
 
@@ -10,17 +14,37 @@ public record SnowDataFrame(
         float[] particlesX,
         float[] particlesY,
         byte[] flakeShapes,
-        SnowBasis basis
+        SnowBasis basis,
+        byte[] rawBytes,
+        @Nullable PooledParticles pooled,
+        int payloadFrameNum,
+        EncodedFrameCache encoded
 ) {
 
     public static final SnowDataFrame LAST = new SnowDataFrame(
             -1, 0, NO.FLOATS, NO.FLOATS, NO.BYTES, SnowBasis.NONE);
 
+    /** Chunk size of a frame that carries no particles, because they are the same as in frame {@link #payloadFrameNum}. */
+    public static final int REPEATED = -1;
+
 
     public SnowDataFrame(int frameNum, int chunkSize, float[] x, float[] y, byte[] flakeShapes) {
         this(frameNum, chunkSize, x, y, flakeShapes, SnowBasis.NONE);
     }
 
+    public SnowDataFrame(int frameNum, int chunkSize, float[] x, float[] y, byte[] flakeShapes, SnowBasis basis) {
+        this(frameNum, chunkSize, x, y, flakeShapes, basis, NO.BYTES);
+    }
+
+    public SnowDataFrame(int frameNum, int chunkSize, float[] x, float[] y, byte[] flakeShapes, SnowBasis basis, byte[] rawBytes) {
+        this(frameNum, chunkSize, x, y, flakeShapes, basis, rawBytes, null);
+    }
+
+    public SnowDataFrame(int frameNum, int chunkSize, float[] x, float[] y, byte[] flakeShapes, SnowBasis basis, byte[] rawBytes,
+                         @Nullable PooledParticles pooled) {
+        this(frameNum, chunkSize, x, y, flakeShapes, basis, rawBytes, pooled, frameNum, new EncodedFrameCache());
+    }
+
     public SnowDataFrame withBasis(SnowBasis basis) {
         if (this == LAST) {
             return LAST;
@@ -28,19 +52,118 @@ public record SnowDataFrame(
         if (basis() == basis) {
             return this;
         }
-        return new SnowDataFrame(frameNum, chunkSize, particlesX, particlesY, flakeShapes, basis);
+        return new SnowDataFrame(frameNum, chunkSize, particlesX, particlesY, flakeShapes, basis, rawBytes, pooled,
+                payloadFrameNum, new EncodedFrameCache());
+    }
+
+    public SnowDataFrame movedTo(ParticlesSlab slab) {
+        if (this == LAST || isOffHeap()) {
+            return this;
+        }
+        return new SnowDataFrame(frameNum, chunkSize, NO.FLOATS, NO.FLOATS, NO.BYTES, basis, rawBytes,
+                slab.fill(chunkSize, particlesX, particlesY, flakeShapes), payloadFrameNum, new EncodedFrameCache());
+    }
+
+    public SnowDataFrame withPayloadOf(int payloadFrameNum) {
+        if (this == LAST || payloadFrameNum() == payloadFrameNum) {
+            return this;
+        }
+        return new SnowDataFrame(frameNum, chunkSize, particlesX, particlesY, flakeShapes, basis, rawBytes, pooled,
+                payloadFrameNum, new EncodedFrameCache());
+    }
+
+    /** Same view is shared by all clients of this frame, so are its encodings. */
+    public SnowDataFrame asRepeated() {
+        return encoded.repeatedView(() -> new SnowDataFrame(frameNum, REPEATED, NO.FLOATS, NO.FLOATS, NO.BYTES, basis, NO.BYTES, null,
+                payloadFrameNum, new EncodedFrameCache()));
+    }
+
+    public boolean isRepeated() {
+        return chunkSize == REPEATED;
+    }
+
+    public long particlesHash() {
+        long hash = chunkSize;
+        for (int i = 0; i < chunkSize; ++i) {
+            hash = hash * 0x9E3779B97F4A7C15L + Float.floatToRawIntBits(x(i));
+            hash = hash * 0x9E3779B97F4A7C15L + Float.floatToRawIntBits(y(i));
+            hash = hash * 0x9E3779B97F4A7C15L + flakeShape(i);
+        }
+        return hash ^ hash >>> 31;
+    }
+
+    public boolean hasSameParticlesAs(SnowDataFrame other) {
+        if (chunkSize != other.chunkSize) {
+            return false;
+        }
+        for (int i = 0; i < chunkSize; ++i) {
+            if (Float.floatToRawIntBits(x(i)) != Float.floatToRawIntBits(other.x(i))
+                    || Float.floatToRawIntBits(y(i)) != Float.floatToRawIntBits(other.y(i))
+                    || flakeShape(i) != other.flakeShape(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isOffHeap() {
+        return pooled instanceof ParticlesSlab;
+    }
+
+    public boolean isPooled() {
+        return pooled != null;
+    }
+
+    public boolean tryRetain() {
+        return pooled == null || pooled.tryRetain();
+    }
+
+    public void release() {
+        if (pooled != null) {
+            pooled.release();
+        }
+    }
+
+    public boolean hasRawBytes() {
+        return rawBytes.length > 0;
+    }
+
+    public int sizeInBytes() {
+        return 4 * particlesX.length + 4 * particlesY.length + flakeShapes.length + rawBytes.length
+                + (pooled instanceof ParticlesSlab slab ? slab.capacity() : 0);
     }
 
     public float x(int idx) {
-        return particlesX[idx];
+        return pooled instanceof ParticlesSlab slab ? slab.x(idx) : particlesX[idx];
     }
 
     public float y(int idx) {
-        return particlesY[idx];
+        return pooled instanceof ParticlesSlab slab ? slab.y(idx) : particlesY[idx];
     }
 
     public byte flakeShape(int idx) {
-        return flakeShapes[idx];
+        return pooled instanceof ParticlesSlab slab ? slab.flakeShape(idx) : flakeShapes[idx];
+    }
+
+    // encoded cache is not part of frame identity
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SnowDataFrame frame
+                && frameNum == frame.frameNum
+                && chunkSize == frame.chunkSize
+                && particlesX == frame.particlesX
+                && particlesY == frame.particlesY
+                && flakeShapes == frame.flakeShapes
+                && basis.equals(frame.basis)
+                && rawBytes == frame.rawBytes
+                && Objects.equals(pooled, frame.pooled)
+                && payloadFrameNum == frame.payloadFrameNum;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frameNum, chunkSize, particlesX, particlesY, flakeShapes, basis, rawBytes, pooled,
+                payloadFrameNum);
     }
 
     @Override
@@ -48,10 +171,19 @@ public record SnowDataFrame(
         return "SnowDataFrame{\n" +
                 "  frameNum=" + frameNum +
                 ", chunkSize=" + chunkSize +
-                ", particlesX=" + Arrays.toString(particlesX) +
-                ", particlesY=" + Arrays.toString(particlesY) +
-                ", flakeShapes=" + Arrays.toString(flakeShapes) +
+                (isRepeated() ? ", sameAsFrame=" + payloadFrameNum : "") +
+                ", particlesX=" + particlesToString(this::x) +
+                ", particlesY=" + particlesToString(this::y) +
+                ", flakeShapes=" + particlesToString(this::flakeShape) +
                 "\n}";
     }
 
+    private String particlesToString(IntFunction<?> particle) {
+        final StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < chunkSize; ++i) {
+            joiner.add(String.valueOf(particle.apply(i)));
+        }
+        return joiner.toString();
+    }
+
 }
@@ -0,0 +1,7 @@
+package techbit.snow.proxy.error;
+
+import lombok.experimental.StandardException;
+
+@StandardException
+public final class MemoryBudgetExceededException extends UserException {
+}
@@ -0,0 +1,48 @@
+package techbit.snow.proxy.lang;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads are looked up reflectively, so the same build runs on Java 17 with platform threads
+ * and switches to virtual ones when started on Java 21.
+ */
+@Log4j2
+public class Threads {
+
+    public static ThreadFactory factory(String namePrefix, boolean virtual) {
+        if (virtual) {
+            try {
+                return virtualFactory(namePrefix);
+            } catch (ReflectiveOperationException e) {
+                log.debug("factory( {} ) | Falling back to platform threads: {}", namePrefix, e.getMessage());
+            }
+        }
+        return new ThreadFactoryBuilder().setNameFormat(namePrefix + "%d").build();
+    }
+
+    public static boolean virtualIfSupported(boolean requested) {
+        if (!requested) {
+            return false;
+        }
+        try {
+            virtualFactory("probe-");
+            return true;
+        } catch (ReflectiveOperationException e) {
+            log.warn("virtualIfSupported() | Virtual threads are not available on Java {}, using platform threads",
+                    Runtime.version().feature());
+            return false;
+        }
+    }
+
+    private static ThreadFactory virtualFactory(String namePrefix) throws ReflectiveOperationException {
+        final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        final Object namedBuilder = builderClass.getMethod("name", String.class, long.class)
+                .invoke(builder, namePrefix, 0L);
+        return (ThreadFactory) builderClass.getMethod("factory").invoke(namedBuilder);
+    }
+
+}
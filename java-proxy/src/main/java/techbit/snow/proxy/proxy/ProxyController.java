@@ -1,21 +1,34 @@
 package techbit.snow.proxy.proxy;
 
 import com.google.common.collect.Maps;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.log4j.Log4j2;
 import org.apache.catalina.connector.ClientAbortException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import techbit.snow.proxy.error.InvalidRequestException;
 import techbit.snow.proxy.snow.stream.SnowStream;
-import techbit.snow.proxy.snow.transcoding.PlainTextStreamEncoder;
+import techbit.snow.proxy.snow.stream.SnowStreamChunkedClient;
+import techbit.snow.proxy.snow.transcoding.NdjsonStreamEncoder;
+import techbit.snow.proxy.snow.transcoding.StreamCodec;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 import static java.util.Arrays.stream;
 
@@ -23,15 +36,26 @@ import static java.util.Arrays.stream;
 @RestController
 public class ProxyController {
 
-    private final ProxyService streaming;
-    private final PlainTextStreamEncoder textStreamEncoder;
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
 
-    public ProxyController(ProxyService streaming, PlainTextStreamEncoder textStreamEncoder) {
+    private final ProxyService streaming;
+    private final NdjsonStreamEncoder textStreamEncoder;
+    private final TaskExecutor reactiveExecutor;
+    private final Duration timeout;
+
+    public ProxyController(
+            ProxyService streaming,
+            NdjsonStreamEncoder textStreamEncoder,
+            @Qualifier("reactiveStreamExecutor") TaskExecutor reactiveExecutor,
+            @Value("#{ ${phpsnow.threads.timeout} * 1000 }") Duration timeout
+    ) {
         this.streaming = streaming;
         this.textStreamEncoder = textStreamEncoder;
+        this.reactiveExecutor = reactiveExecutor;
+        this.timeout = timeout;
     }
 
-    @GetMapping({"/", "/start", "/start/", "/text", "/text/", "/stop", "/stop/", "/details/", "/details"})
+    @GetMapping({"/", "/start", "/start/", "/text", "/text/", "/binary", "/binary/", "/stop", "/stop/", "/details/", "/details"})
     public void insufficientParams() {
         throw new InvalidRequestException(
                 "Invalid url! Url Should follow pattern: https://domain.com/<action>/<session-id>");
@@ -49,7 +73,7 @@ public class ProxyController {
     }
 
     @Async("streamAsyncTaskExecutor")
-    @GetMapping("/text/{sessionId}/{*configuration}")
+    @GetMapping(value = "/text/{sessionId}/{*configuration}", produces = NDJSON_CONTENT_TYPE)
     public CompletableFuture<StreamingResponseBody> streamTextToClient(
             @PathVariable String sessionId,
             @PathVariable String configuration
@@ -72,6 +96,74 @@ public class ProxyController {
         });
     }
 
+    @Async("streamAsyncTaskExecutor")
+    @GetMapping("/binary/{sessionId}/{*configuration}")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamBinaryToClient(
+            @PathVariable String sessionId,
+            @PathVariable String configuration,
+            @RequestParam(defaultValue = "binary") String codec
+    ) {
+        log.debug("streamBinaryToClient( {}, {}, {} )", sessionId, configuration, codec);
+
+        final StreamEncoder encoder = StreamCodec.fromId(codec).createEncoder();
+
+        return CompletableFuture.supplyAsync(() -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(out -> {
+                    try {
+                        log.debug("streamBinaryToClient( {} ) | Async Start ", sessionId);
+
+                        streaming.streamSessionTo(sessionId, new SnowStreamChunkedClient(encoder, out),
+                                toConfMap(configuration));
+
+                        log.debug("streamBinaryToClient( {} ) | Async Finished", sessionId);
+                    } catch (ClientAbortException e) {
+                        log.debug("streamBinaryToClient( {} ) | Client aborted", sessionId);
+                    } catch (InterruptedException | SnowStream.ConsumerThreadException e) {
+                        log.error("streamBinaryToClient( {} ) | Error occurred", sessionId);
+                        throw new IOException("Streaming interrupted ", e);
+                    }
+                }));
+    }
+
+    @GetMapping("/reactive/text/{sessionId}/{*configuration}")
+    public void streamTextReactively(
+            @PathVariable String sessionId,
+            @PathVariable String configuration,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException, InterruptedException {
+        log.debug("streamTextReactively( {}, {} )", sessionId, configuration);
+
+        streamReactively(streaming.sessionPublisher(
+                sessionId, textStreamEncoder, reactiveExecutor, toConfMap(configuration)
+        ), NDJSON_CONTENT_TYPE, request, response);
+    }
+
+    @GetMapping("/reactive/binary/{sessionId}/{*configuration}")
+    public void streamBinaryReactively(
+            @PathVariable String sessionId,
+            @PathVariable String configuration,
+            @RequestParam(defaultValue = "binary") String codec,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException, InterruptedException {
+        log.debug("streamBinaryReactively( {}, {}, {} )", sessionId, configuration, codec);
+
+        final StreamEncoder encoder = StreamCodec.fromId(codec).createEncoder();
+        streamReactively(streaming.sessionPublisher(
+                sessionId, encoder, reactiveExecutor, toConfMap(configuration)
+        ), MediaType.APPLICATION_OCTET_STREAM_VALUE, request, response);
+    }
+
+    private void streamReactively(Flow.Publisher<byte[]> publisher, String contentType,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(contentType);
+        final AsyncContext context = request.startAsync(request, response);
+        context.setTimeout(timeout.toMillis());
+        new ServletStreamSubscriber(context).subscribeTo(publisher);
+    }
+
     @GetMapping({"/stop/{sessionId}", "/stop/{sessionId}/"})
     public Map<String, Object> stopStreaming(@PathVariable String sessionId) throws IOException, InterruptedException {
         log.debug("stopStreaming( {} )", sessionId);
@@ -91,14 +183,19 @@ public class ProxyController {
 
         Map<String, Object> map = Maps.newHashMap(streaming.sessionDetails(sessionId));
 
-        map.putAll(Map.of(
-                "status", true,
-                "sessionId", sessionId,
-                "exists", streaming.hasSession(sessionId),
-                "running", streaming.isSessionRunning(sessionId),
-                "streamTextUrl", urlTo(request, "/text/" + sessionId),
-                "streamWebsocketsStompBrokerUrl", urlTo("ws://", request, "/ws/"),
-                "streamWebsocketsUrl", "/app/stream/" + sessionId
+        map.putAll(Map.ofEntries(
+                Map.entry("status", true),
+                Map.entry("sessionId", sessionId),
+                Map.entry("exists", streaming.hasSession(sessionId)),
+                Map.entry("running", streaming.isSessionRunning(sessionId)),
+                Map.entry("streamTextUrl", urlTo(request, "/text/" + sessionId)),
+                Map.entry("streamBinaryUrl", urlTo(request, "/binary/" + sessionId)),
+                Map.entry("streamSseUrl", urlTo(request, "/sse/" + sessionId)),
+                Map.entry("streamWebsocketsStompBrokerUrl", urlTo("ws://", request, "/ws/")),
+                Map.entry("streamWebsocketsUrl", "/app/stream/" + sessionId),
+                Map.entry("streamWebsocketsBroadcastUrl", "/app/broadcast/" + sessionId),
+                Map.entry("streamWebsocketsBroadcastTopic", "/topic/session/" + sessionId + "/"),
+                Map.entry("streamWebsocketsRawUrl", urlTo("ws://", request, "/ws-raw/" + sessionId))
         ));
 
         return map;
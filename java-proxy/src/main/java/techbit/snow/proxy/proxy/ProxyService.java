@@ -18,12 +18,15 @@ import techbit.snow.proxy.snow.transcoding.StreamEncoder;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Log4j2
 @Service
 public final class ProxyService implements ApplicationListener<SnowStreamFinishedEvent> {
 
-    private final Map<String, Object> sessionLocks = Maps.newConcurrentMap();
+    private final Map<String, ReentrantLock> sessionLocks = Maps.newConcurrentMap();
     private final PhpSnowConfigConverter configConverter;
     private final SnowStreamFactory snowStreamProvider;
     private final Map<String, SnowStream> streams;
@@ -57,17 +60,31 @@ public final class ProxyService implements ApplicationListener<SnowStreamFinishe
     public void streamSessionTo(String sessionId, OutputStream out, StreamEncoder encoder, Map<String, String> config)
             throws IOException, InterruptedException, ConsumerThreadException
     {
-        snowStream(sessionId, config).streamTo(new SnowStreamSimpleClient(encoder, out));
+        streamSessionTo(sessionId, new SnowStreamSimpleClient(encoder, out), config);
     }
 
     public void streamSessionTo(String sessionId, SnowStreamClient client)
             throws IOException, InterruptedException, ConsumerThreadException
     {
-        snowStream(sessionId, Map.of()).streamTo(client);
+        streamSessionTo(sessionId, client, Map.of());
+    }
+
+    public void streamSessionTo(String sessionId, SnowStreamClient client, Map<String, String> config)
+            throws IOException, InterruptedException, ConsumerThreadException
+    {
+        snowStream(sessionId, config).streamTo(client);
+    }
+
+    public Flow.Publisher<byte[]> sessionPublisher(String sessionId, StreamEncoder encoder, Executor executor,
+                                                   Map<String, String> config) throws IOException, InterruptedException
+    {
+        return snowStream(sessionId, config).publisher(encoder, executor);
     }
 
     public void stopSession(String sessionId) throws IOException, InterruptedException {
-        synchronized (sessionLock(sessionId)) {
+        final ReentrantLock lock = sessionLock(sessionId);
+        lock.lockInterruptibly();
+        try {
             if (!session.exists(sessionId)) {
                 log.debug("stopStream( {} ) | Nothing to stop!", sessionId);
                 return;
@@ -76,6 +93,8 @@ public final class ProxyService implements ApplicationListener<SnowStreamFinishe
             final SnowStream snowStream = streams.get(sessionId);
             removeStream(sessionId);
             snowStream.stop();
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -87,16 +106,22 @@ public final class ProxyService implements ApplicationListener<SnowStreamFinishe
         if (stream == null) {
             return Map.of();
         }
-        return configConverter.toMap(stream.config());
+        final Map<String, Object> details = Maps.newHashMap(configConverter.toMap(stream.config()));
+        details.put("clients", stream.clientLags());
+        return details;
     }
 
     private SnowStream snowStream(String sessionId, Map<String, String> config) throws IOException, InterruptedException {
-        synchronized (sessionLock(sessionId)) {
+        final ReentrantLock lock = sessionLock(sessionId);
+        lock.lockInterruptibly();
+        try {
             if (session.exists(sessionId)) {
                 return existingStream(sessionId, config);
             } else {
                 return createStream(sessionId, config);
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -146,7 +171,7 @@ public final class ProxyService implements ApplicationListener<SnowStreamFinishe
         }
     }
 
-    private Object sessionLock(String sessionId) {
-        return sessionLocks.computeIfAbsent(sessionId, k -> new Object());
+    private ReentrantLock sessionLock(String sessionId) {
+        return sessionLocks.computeIfAbsent(sessionId, k -> new ReentrantLock());
     }
 }
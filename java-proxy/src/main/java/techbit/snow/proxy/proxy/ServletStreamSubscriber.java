@@ -0,0 +1,144 @@
+package techbit.snow.proxy.proxy;
+
+import jakarta.annotation.Nullable;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+
+/**
+ * Writes chunks with servlet non-blocking I/O and asks for the next chunk only when output is ready,
+ * so a client that cannot keep up holds no thread, just its place in the snow buffer.
+ */
+@Log4j2
+final class ServletStreamSubscriber implements Flow.Subscriber<byte[]>, WriteListener, AsyncListener {
+
+    private final AsyncContext context;
+    private final ServletOutputStream output;
+    private @Nullable Flow.Subscription subscription;
+    private @Nullable byte[] pending;
+    private boolean requested;
+    private boolean completed;
+    private boolean closed;
+
+    ServletStreamSubscriber(AsyncContext context) throws IOException {
+        this.context = context;
+        this.output = context.getResponse().getOutputStream();
+    }
+
+    void subscribeTo(Flow.Publisher<byte[]> publisher) {
+        context.addListener(this);
+        output.setWriteListener(this);
+        publisher.subscribe(this);
+    }
+
+    @Override
+    public synchronized void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        writeWhileReady();
+    }
+
+    @Override
+    public synchronized void onNext(byte[] chunk) {
+        requested = false;
+        pending = chunk;
+        writeWhileReady();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        completed = true;
+        writeWhileReady();
+    }
+
+    @Override
+    public synchronized void onWritePossible() {
+        writeWhileReady();
+    }
+
+    @Override
+    public synchronized void onError(Throwable throwable) {
+        log.debug("onError() | Streaming stopped: {}", throwable.getMessage());
+        cancel();
+        close();
+    }
+
+    @Override
+    public synchronized void onTimeout(AsyncEvent event) {
+        cancel();
+        close();
+    }
+
+    @Override
+    public synchronized void onError(AsyncEvent event) {
+        cancel();
+        close();
+    }
+
+    @Override
+    public synchronized void onComplete(AsyncEvent event) {
+        closed = true;
+        cancel();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private void writeWhileReady() {
+        if (closed || subscription == null) {
+            return;
+        }
+        try {
+            while (output.isReady()) {
+                if (pending != null) {
+                    final byte[] chunk = pending;
+                    pending = null;
+                    output.write(chunk);
+                    if (output.isReady()) {
+                        output.flush();
+                    }
+                } else if (completed) {
+                    close();
+                    return;
+                } else {
+                    if (!requested) {
+                        requested = true;
+                        subscription.request(1);
+                    }
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            onError(e);
+        }
+    }
+
+    private void cancel() {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            context.complete();
+        } catch (IllegalStateException e) {
+            log.debug("close() | Already completed: {}", e.getMessage());
+        }
+    }
+
+}
@@ -10,7 +10,7 @@ import static org.springframework.beans.factory.config.ConfigurableBeanFactory.S
 
 @Service
 @Scope(SCOPE_PROTOTYPE)
-public final class NamedPipe {
+public final class NamedPipe implements SnowPipe {
 
     private final File pipeFile;
 
@@ -18,10 +18,12 @@ public final class NamedPipe {
         pipeFile = pipesDir.resolve(sessionId).toFile();
     }
 
+    @Override
     public boolean isMissing() {
         return !pipeFile.exists();
     }
 
+    @Override
     public InputStream inputStream() throws IOException {
         if (isMissing()) {
             throw new FileNotFoundException("File not found: " + pipeFile.getAbsolutePath());
@@ -29,6 +31,7 @@ public final class NamedPipe {
         return new FileInputStream(pipeFile);
     }
 
+    @Override
     public void destroy() throws IOException {
         if (pipeFile.exists() && !pipeFile.delete()) {
             throw new IOException("Cannot delete pipe file: " + pipeFile);
@@ -7,9 +7,13 @@ import techbit.snow.proxy.config.PhpSnowConfig;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 import static com.google.common.io.Files.simplifyPath;
 
@@ -17,12 +21,15 @@ import static com.google.common.io.Files.simplifyPath;
 @RequiredArgsConstructor
 public final class PhpSnowApp {
 
+    private static final int MAX_SIGNAL_ATTEMPTS = 3;
+
     private final String sessionId;
     private final PhpSnowConfig config;
     private final String applicationPid;
     private final ProcessBuilder builder;
     private final String bootstrapLocation;
     private @Nullable Process process;
+    private volatile boolean paused;
 
     public void start() throws IOException {
         stop();
@@ -46,6 +53,7 @@ public final class PhpSnowApp {
 
         builder.command(command);
         builder.environment().put("SCRIPT_OWNER_PID", applicationPid);
+        builder.environment().put("PHP_SNOW_TRANSPORT", config.transport().id());
 
         String cmd = String.join(" ", builder.command());
         log.debug("start( {} ) | Starting process: {}", sessionId, cmd);
@@ -73,8 +81,62 @@ public final class PhpSnowApp {
         }
 
         log.debug("stop( {} ) | Killing process", sessionId);
+        final ProcessHandle handle = process.toHandle();
+        handle.descendants().forEach(ProcessHandle::destroyForcibly);
         process.destroyForcibly();
         process = null;
+        paused = false;
+    }
+
+    public void pause() throws IOException {
+        if (paused || !isAlive()) {
+            return;
+        }
+
+        log.debug("pause( {} ) | Stopping process", sessionId);
+        signal("STOP");
+        paused = true;
+    }
+
+    public void resume() throws IOException {
+        if (!paused || !isAlive()) {
+            return;
+        }
+
+        log.debug("resume( {} ) | Continuing process", sessionId);
+        signal("CONT");
+        paused = false;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    private void signal(String signal) throws IOException {
+        // started process is only a wrapper script, php runs in its subshell
+        final ProcessHandle handle = Objects.requireNonNull(process).toHandle();
+        List<Long> pids = List.of();
+        try {
+            for (int attempt = 0; attempt < MAX_SIGNAL_ATTEMPTS; ++attempt) {
+                // short-lived children may exit before kill reaches them, STOP and CONT are safe to repeat
+                pids = Stream.concat(Stream.of(handle), handle.descendants())
+                        .map(ProcessHandle::pid)
+                        .toList();
+                if (createSignalSender(signal, pids).start().waitFor() == 0) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending SIG" + signal + " to processes " + pids);
+        }
+        throw new IOException("Cannot send SIG" + signal + " to processes " + pids);
+    }
+
+    ProcessBuilder createSignalSender(String signal, List<Long> pids) {
+        final List<String> command = new ArrayList<>(List.of("kill", "-" + signal));
+        pids.forEach(pid -> command.add(String.valueOf(pid)));
+        return new ProcessBuilder(command);
     }
 
     public boolean isAlive() {
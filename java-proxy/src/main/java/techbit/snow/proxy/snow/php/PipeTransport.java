@@ -0,0 +1,22 @@
+package techbit.snow.proxy.snow.php;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum PipeTransport {
+
+    FIFO("fifo"),
+    SHARED_MEMORY("shm"),
+    SOCKET("socket");
+
+    private final String id;
+
+    PipeTransport(String id) {
+        this.id = id;
+    }
+
+    @JsonValue
+    public String id() {
+        return id;
+    }
+
+}
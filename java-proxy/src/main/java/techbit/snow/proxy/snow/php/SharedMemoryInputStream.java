@@ -0,0 +1,142 @@
+package techbit.snow.proxy.snow.php;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+final class SharedMemoryInputStream extends InputStream implements ReadableByteChannel {
+
+    static final int CAPACITY_OFFSET = 8;
+    static final int HEAD_OFFSET = 64;
+    static final int TAIL_OFFSET = 128;
+    static final int CLOSED_OFFSET = 192;
+    static final int DATA_OFFSET = 256;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final int SPINS_BEFORE_PARKING = 1000;
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    private final ByteBuffer memory;
+    private final int capacity;
+    private final BooleanSupplier isProducerAlive;
+    private long tail;
+    private boolean open = true;
+
+    SharedMemoryInputStream(ByteBuffer memory, BooleanSupplier isProducerAlive) {
+        this.memory = memory;
+        this.capacity = memory.getInt(CAPACITY_OFFSET);
+        this.isProducerAlive = isProducerAlive;
+        this.tail = (long) LONGS.getAcquire(memory, TAIL_OFFSET);
+        if (capacity <= 0 || DATA_OFFSET + capacity > memory.capacity()) {
+            throw new IllegalStateException("Invalid shared memory ring capacity: " + capacity);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        final int available = awaitData();
+        if (available < 0) {
+            return -1;
+        }
+        final int position = (int) (tail % capacity);
+        final int numOfBytes = Math.min(length, Math.min(available, capacity - position));
+        memory.get(DATA_OFFSET + position, bytes, offset, numOfBytes);
+        consume(numOfBytes);
+        return numOfBytes;
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        if (!destination.hasRemaining()) {
+            return 0;
+        }
+        final int available = awaitData();
+        if (available < 0) {
+            return -1;
+        }
+        final int position = (int) (tail % capacity);
+        final int numOfBytes = Math.min(destination.remaining(), Math.min(available, capacity - position));
+        destination.put(destination.position(), memory, DATA_OFFSET + position, numOfBytes);
+        destination.position(destination.position() + numOfBytes);
+        consume(numOfBytes);
+        return numOfBytes;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, head() - tail);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    private int awaitData() throws IOException {
+        // idle or paused sessions back off to a few wakeups per millisecond, every read starts eager again
+        long parkNanos = MIN_PARK_NANOS;
+        for (int spins = 0; ; ++spins) {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+
+            final long head = head();
+            if (head > tail) {
+                return (int) Math.min(Integer.MAX_VALUE, head - tail);
+            }
+
+            if (spins < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            if (isClosedByProducer() || !isProducerAlive.getAsBoolean()) {
+                return head() > tail ? awaitData() : -1;
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Interrupted while waiting for shared memory data!");
+            }
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+        }
+    }
+
+    private long head() {
+        return (long) LONGS.getAcquire(memory, HEAD_OFFSET);
+    }
+
+    private boolean isClosedByProducer() {
+        return (long) LONGS.getAcquire(memory, CLOSED_OFFSET) != 0;
+    }
+
+    private void consume(int numOfBytes) {
+        tail += numOfBytes;
+        LONGS.setRelease(memory, TAIL_OFFSET, tail);
+    }
+
+}
@@ -0,0 +1,54 @@
+package techbit.snow.proxy.snow.php;
+
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
+
+@Service
+@Scope(SCOPE_PROTOTYPE)
+public final class SharedMemoryPipe implements SnowPipe {
+
+    private final File pipeFile;
+    private final BooleanSupplier isProducerAlive;
+
+    public SharedMemoryPipe(String sessionId, Path pipesDir, BooleanSupplier isProducerAlive) {
+        this.pipeFile = pipesDir.resolve(sessionId).toFile();
+        this.isProducerAlive = isProducerAlive;
+    }
+
+    @Override
+    public boolean isMissing() {
+        return !pipeFile.exists();
+    }
+
+    @Override
+    public InputStream inputStream() throws IOException {
+        if (isMissing()) {
+            throw new FileNotFoundException("File not found: " + pipeFile.getAbsolutePath());
+        }
+        try (FileChannel channel = FileChannel.open(pipeFile.toPath(), READ, WRITE)) {
+            final MappedByteBuffer memory = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            return new SharedMemoryInputStream(memory, isProducerAlive);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (pipeFile.exists() && !pipeFile.delete()) {
+            throw new IOException("Cannot delete pipe file: " + pipeFile);
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package techbit.snow.proxy.snow.php;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface SnowPipe {
+
+    default void open() throws IOException {
+    }
+
+    boolean isMissing();
+
+    InputStream inputStream() throws IOException;
+
+    void destroy() throws IOException;
+
+}
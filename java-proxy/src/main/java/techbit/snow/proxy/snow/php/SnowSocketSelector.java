@@ -0,0 +1,153 @@
+package techbit.snow.proxy.snow.php;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_READ;
+
+@Log4j2
+@Component
+public final class SnowSocketSelector {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("snow-socket-selector-thread-%d").build()
+    );
+    private final ExecutorService decodePool;
+    private final Selector selector;
+    private volatile boolean running;
+
+    /**
+     * Messages of all sessions are consumed on a fixed decode pool, so number of threads does not grow with sessions.
+     */
+    public SnowSocketSelector(@Value("${phpsnow.threads.socket-decode-pool-size}") int decodePoolSize) throws IOException {
+        selector = Selector.open();
+        decodePool = Executors.newFixedThreadPool(decodePoolSize,
+                new ThreadFactoryBuilder().setNameFormat("snow-socket-decode-thread-%d").build());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        executor.submit(this::selectLoop);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        selector.wakeup();
+        executor.shutdownNow();
+        decodePool.shutdownNow();
+        selector.close();
+    }
+
+    Executor decodePool() {
+        return decodePool;
+    }
+
+    void accept(ServerSocketChannel server, SocketPipeInputStream stream) {
+        execute(() -> server.register(selector, OP_ACCEPT, stream));
+    }
+
+    void execute(SelectorTask task) {
+        tasks.add(() -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("execute() | Selector task failed", e);
+            }
+        });
+        selector.wakeup();
+    }
+
+    private void selectLoop() {
+        log.debug("selectLoop() | Start");
+        while (running) {
+            try {
+                selector.select();
+                runPendingTasks();
+                handleSelectedKeys();
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (Throwable e) {
+                log.error("selectLoop() | ERROR", e);
+            }
+        }
+        log.debug("selectLoop() | Stop");
+    }
+
+    private void runPendingTasks() {
+        for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+            task.run();
+        }
+    }
+
+    private void handleSelectedKeys() {
+        for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+            final SelectionKey key = it.next();
+            it.remove();
+
+            final SocketPipeInputStream stream = (SocketPipeInputStream) key.attachment();
+            try {
+                if (key.isValid() && key.isAcceptable()) {
+                    acceptProducer(key, stream);
+                } else if (key.isValid() && key.isReadable()) {
+                    readFromProducer(key, stream);
+                }
+            } catch (Throwable e) {
+                log.error("handleSelectedKeys() | Socket pipe failed", e);
+                key.cancel();
+                stream.endOfStream();
+            }
+            stream.deliver();
+        }
+    }
+
+    private void acceptProducer(SelectionKey key, SocketPipeInputStream stream) throws IOException {
+        final ServerSocketChannel server = (ServerSocketChannel) key.channel();
+        final SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        server.close();
+
+        channel.configureBlocking(false);
+        channel.register(selector, OP_READ, stream);
+        stream.connected(channel);
+    }
+
+    private void readFromProducer(SelectionKey key, SocketPipeInputStream stream) throws IOException {
+        final SocketChannel channel = (SocketChannel) key.channel();
+        readBuffer.clear();
+        if (channel.read(readBuffer) < 0) {
+            channel.close();
+            stream.endOfStream();
+            return;
+        }
+        stream.append(readBuffer.flip());
+    }
+
+    @FunctionalInterface
+    interface SelectorTask {
+        void run() throws IOException;
+    }
+
+}
@@ -0,0 +1,77 @@
+package techbit.snow.proxy.snow.php;
+
+import jakarta.annotation.Nullable;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
+
+@Service
+@Scope(SCOPE_PROTOTYPE)
+public final class SocketPipe implements SnowPipe {
+
+    private final Path socketFile;
+    private final SnowSocketSelector selector;
+    private @Nullable ServerSocketChannel server;
+    private @Nullable SocketPipeInputStream stream;
+
+    public SocketPipe(String sessionId, Path pipesDir, SnowSocketSelector selector) {
+        this.socketFile = pipesDir.resolve(sessionId);
+        this.selector = selector;
+    }
+
+    @Override
+    public void open() throws IOException {
+        destroy();
+
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketFile));
+        server.configureBlocking(false);
+        stream = new SocketPipeInputStream(selector);
+        selector.accept(server, stream);
+    }
+
+    @Override
+    public boolean isMissing() {
+        return stream == null || !stream.isConnected();
+    }
+
+    public void awaitProducer(Duration timeout) throws InterruptedIOException {
+        final SocketPipeInputStream current = stream;
+        if (current != null) {
+            current.awaitConnected(timeout);
+        }
+    }
+
+    @Override
+    public InputStream inputStream() throws IOException {
+        if (stream == null || isMissing()) {
+            throw new IOException("Snow producer is not connected to: " + socketFile);
+        }
+        return stream;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+        if (server != null) {
+            server.close();
+            server = null;
+        }
+        Files.deleteIfExists(socketFile);
+    }
+
+}
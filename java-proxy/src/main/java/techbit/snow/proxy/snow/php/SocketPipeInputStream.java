@@ -0,0 +1,332 @@
+package techbit.snow.proxy.snow.php;
+
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static techbit.snow.proxy.snow.transcoding.BinaryStreamDecoder.GREETING_MARKER;
+import static techbit.snow.proxy.snow.transcoding.BinaryStreamDecoder.VERSION_MARKER;
+
+public final class SocketPipeInputStream extends InputStream implements ReadableByteChannel {
+
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final int VERSION_OFFSET = GREETING_MARKER.length();
+    private static final int METADATA_SIZE = VERSION_OFFSET + 2 + 3 * 4 + 1;
+    private static final int BACKGROUND_HEADER_SIZE = 2 * 4;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_MESSAGES_PER_DRAIN = 32;
+
+    private final SnowSocketSelector selector;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition bytesReleased = lock.newCondition();
+    private final AtomicBoolean delivering = new AtomicBoolean();
+    private final CountDownLatch connectedLatch = new CountDownLatch(1);
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int readPosition;
+    private int releasedPosition;
+    private int writePosition;
+    private int pendingMessages;
+    private boolean metadataReleased;
+    private boolean lastMessageReleased;
+    private boolean ended;
+    private boolean endDelivered;
+    private @Nullable SocketChannel channel;
+    private volatile @Nullable Runnable listener;
+    private volatile boolean open = true;
+
+    SocketPipeInputStream(SnowSocketSelector selector) {
+        this.selector = selector;
+    }
+
+    public boolean isConnected() {
+        return connectedLatch.getCount() == 0;
+    }
+
+    boolean awaitConnected(Duration timeout) throws InterruptedIOException {
+        try {
+            return connectedLatch.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for snow producer!");
+        }
+    }
+
+    /**
+     * Listener is notified once per complete message on decode pool of the selector, never concurrently.
+     * Selector thread only hands notifications off, a busy session yields the pool after a batch of messages.
+     */
+    public void listen(Runnable listener) {
+        selector.execute(() -> {
+            this.listener = listener;
+            deliver();
+        });
+    }
+
+    public void stopListening() {
+        listener = null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            if (!awaitReleasedBytes()) {
+                return -1;
+            }
+            final int numOfBytes = Math.min(length, releasedPosition - readPosition);
+            System.arraycopy(data, readPosition, bytes, offset, numOfBytes);
+            readPosition += numOfBytes;
+            return numOfBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        if (!destination.hasRemaining()) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            if (!awaitReleasedBytes()) {
+                return -1;
+            }
+            final int numOfBytes = Math.min(destination.remaining(), releasedPosition - readPosition);
+            destination.put(data, readPosition, numOfBytes);
+            readPosition += numOfBytes;
+            return numOfBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int available() {
+        lock.lock();
+        try {
+            return releasedPosition - readPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        endOfStream();
+        selector.execute(() -> {
+            if (channel != null) {
+                channel.close();
+            }
+            deliver();
+        });
+    }
+
+    void connected(SocketChannel channel) {
+        this.channel = channel;
+        connectedLatch.countDown();
+    }
+
+    void append(ByteBuffer bytes) {
+        lock.lock();
+        try {
+            final int numOfBytes = bytes.remaining();
+            ensureCapacity(numOfBytes);
+            bytes.get(data, writePosition, numOfBytes);
+            writePosition += numOfBytes;
+            releaseCompleteMessages();
+            bytesReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void endOfStream() {
+        lock.lock();
+        try {
+            ended = true;
+            bytesReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void deliver() {
+        if (hasNotification() && delivering.compareAndSet(false, true)) {
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        try {
+            selector.decodePool().execute(this::drainNotifications);
+        } catch (RejectedExecutionException e) {
+            // selector is going down, nobody is left to consume the messages
+            delivering.set(false);
+        }
+    }
+
+    private void drainNotifications() {
+        do {
+            int drained = 0;
+            for (Runnable current = listener; current != null && takeNotification(); current = listener) {
+                current.run();
+                if (++drained == MAX_MESSAGES_PER_DRAIN) {
+                    scheduleDrain();
+                    return;
+                }
+            }
+            delivering.set(false);
+        } while (hasNotification() && delivering.compareAndSet(false, true));
+    }
+
+    private boolean hasNotification() {
+        if (listener == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return pendingMessages > 0 || (ended && !endDelivered);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean takeNotification() {
+        lock.lock();
+        try {
+            if (pendingMessages > 0) {
+                --pendingMessages;
+                return true;
+            }
+            if (ended && !endDelivered) {
+                endDelivered = true;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean awaitReleasedBytes() throws InterruptedIOException {
+        while (releasedPosition == readPosition) {
+            if (ended) {
+                return false;
+            }
+            try {
+                bytesReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for socket data!");
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int numOfBytes) {
+        if (writePosition + numOfBytes <= data.length) {
+            return;
+        }
+        System.arraycopy(data, readPosition, data, 0, writePosition - readPosition);
+        writePosition -= readPosition;
+        releasedPosition -= readPosition;
+        readPosition = 0;
+        if (writePosition + numOfBytes > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, writePosition + numOfBytes));
+        }
+    }
+
+    private void releaseCompleteMessages() {
+        for (int size; !lastMessageReleased && (size = nextMessageSize()) > 0; ) {
+            releasedPosition += size;
+            if (metadataReleased) {
+                ++pendingMessages;
+            } else {
+                metadataReleased = true;
+            }
+        }
+    }
+
+    private int nextMessageSize() {
+        final int available = writePosition - releasedPosition;
+        if (!metadataReleased) {
+            return metadataAndBackgroundSize(available);
+        }
+
+        if (available < 4) {
+            return 0;
+        }
+        final int frameSize = intAt(releasedPosition);
+        if (frameSize == -1) {
+            lastMessageReleased = true;
+            return 4;
+        }
+        if (frameSize < 0) {
+            throw new IllegalStateException("Binary stream protocol issues! Invalid block size: " + frameSize);
+        }
+        if (available < 4 + frameSize + 4) {
+            return 0;
+        }
+        final int messageSize = 4 + frameSize + 4 + intAt(releasedPosition + 4 + frameSize);
+        return available < messageSize ? 0 : messageSize;
+    }
+
+    private int metadataAndBackgroundSize(int available) {
+        if (available < METADATA_SIZE) {
+            return 0;
+        }
+        if (data[releasedPosition + VERSION_OFFSET] != VERSION_MARKER) {
+            throw new IllegalStateException("Socket pipe requires versioned binary stream protocol!");
+        }
+        if (data[releasedPosition + METADATA_SIZE - 1] == 0) {
+            return METADATA_SIZE;
+        }
+        if (available < METADATA_SIZE + BACKGROUND_HEADER_SIZE) {
+            return 0;
+        }
+        final int canvasWidth = intAt(releasedPosition + METADATA_SIZE);
+        final int canvasHeight = intAt(releasedPosition + METADATA_SIZE + 4);
+        final int size = METADATA_SIZE + BACKGROUND_HEADER_SIZE + canvasWidth * canvasHeight;
+        return available < size ? 0 : size;
+    }
+
+    private int intAt(int position) {
+        return (int) INTS.get(data, position);
+    }
+
+}
@@ -0,0 +1,43 @@
+package techbit.snow.proxy.snow.stream;
+
+import techbit.snow.proxy.dto.ParticlesSlab;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.stream.IntStream;
+
+final class ParticlesSlabPool {
+
+    private static final int PARTICLE_SIZE = 4 + 4 + 1;
+    private static final int NUM_OF_SIZE_CLASSES = 31;
+
+    private final List<ArrayBlockingQueue<ParticlesSlab>> freeSlabs;
+
+    ParticlesSlabPool(int maxFreeSlabsPerSize) {
+        freeSlabs = IntStream.range(0, NUM_OF_SIZE_CLASSES)
+                .mapToObj(i -> new ArrayBlockingQueue<ParticlesSlab>(maxFreeSlabsPerSize))
+                .toList();
+    }
+
+    ParticlesSlab acquire(int chunkSize) {
+        final int sizeClass = sizeClassOf(Math.max(1, chunkSize * PARTICLE_SIZE));
+        final ParticlesSlab slab = freeSlabs.get(sizeClass).poll();
+        return slab != null
+                ? slab
+                : new ParticlesSlab(ByteBuffer.allocateDirect(1 << sizeClass), this::recycle);
+    }
+
+    private void recycle(ParticlesSlab slab) {
+        freeSlabs.get(sizeClassOf(slab.capacity())).offer(slab);
+    }
+
+    int numOfFreeSlabs() {
+        return freeSlabs.stream().mapToInt(ArrayBlockingQueue::size).sum();
+    }
+
+    private static int sizeClassOf(int bytes) {
+        return 32 - Integer.numberOfLeadingZeros(bytes - 1);
+    }
+
+}
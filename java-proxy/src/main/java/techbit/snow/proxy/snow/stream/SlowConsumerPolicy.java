@@ -0,0 +1,31 @@
+package techbit.snow.proxy.snow.stream;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum SlowConsumerPolicy {
+
+    /** Client that fell out of the buffer continues from the oldest buffered frame. */
+    CATCH_UP("catch-up"),
+    /** Client lagging more than N frames jumps straight to the newest frame. */
+    SKIP_TO_HEAD("skip-to-head"),
+    /** Every Nth frame is dropped for as long as the client has more than one frame waiting. */
+    DROP_EVERY_NTH("drop-every-nth"),
+    /** Client lagging more than N frames is disconnected. */
+    DISCONNECT("disconnect");
+
+    private final String id;
+
+    SlowConsumerPolicy(String id) {
+        this.id = id;
+    }
+
+    @JsonValue
+    public String id() {
+        return id;
+    }
+
+    boolean startsAtHead() {
+        return this == SKIP_TO_HEAD || this == DISCONNECT;
+    }
+
+}
@@ -1,37 +1,82 @@
 package techbit.snow.proxy.snow.stream;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import lombok.SneakyThrows;
+import jakarta.annotation.Nullable;
+import lombok.experimental.StandardException;
 import org.springframework.context.annotation.Scope;
+import techbit.snow.proxy.dto.SnowBasis;
 import techbit.snow.proxy.dto.SnowDataFrame;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
 
 import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
 
 @Scope(SCOPE_PROTOTYPE)
 public final class SnowDataBuffer {
 
-    private final BlockingBag<Integer, SnowDataFrame> frames;
-    private final Set<Object> clients = Sets.newHashSet();
-    private final Object noMoreClientsLock = new Object();
-    private final Object removeFramesLock = new Object();
-    private final Object framesLock = new Object();
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicReferenceArray<SnowDataFrame> frames;
+    private final int[] frameSizes;
+    private final Set<Thread> parkedReaders = Sets.newConcurrentHashSet();
+    private final Map<Object, ClientCursor> clients = Maps.newConcurrentMap();
+    private final ReentrantLock clientsLock = new ReentrantLock();
+    private final Condition noMoreClients = clientsLock.newCondition();
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final int slowConsumerFrames;
+    private final SnowMemoryBudget memoryBudget;
+    private final LongConsumer encodingsAccounting;
+    private final @Nullable ParticlesSlabPool slabPool;
     private final int maxNumOfFrames;
+    private SnowBasis lastPushedBasis = SnowBasis.NONE;
+    private volatile long bufferedBytes;
     private volatile int lastValidFrameNum = Integer.MAX_VALUE;
-    private volatile int numOfFrames;
     private volatile int tailFrameNum;
     private volatile int headFrameNum;
+    private volatile long noClientsSinceNanos = System.nanoTime();
     private volatile boolean destroyed;
 
 
-    public SnowDataBuffer(int maxNumOfFrames, BlockingBag<Integer, SnowDataFrame> frames) {
-        this.frames = frames;
-        this.maxNumOfFrames = maxNumOfFrames;
+    public SnowDataBuffer(int maxNumOfFrames) {
+        this(maxNumOfFrames, SlowConsumerPolicy.CATCH_UP, maxNumOfFrames);
+    }
+
+    public SnowDataBuffer(int maxNumOfFrames, SlowConsumerPolicy slowConsumerPolicy, int slowConsumerFrames) {
+        this(maxNumOfFrames, slowConsumerPolicy, slowConsumerFrames, SnowMemoryBudget.UNLIMITED);
+    }
+
+    public SnowDataBuffer(int maxNumOfFrames, SlowConsumerPolicy slowConsumerPolicy, int slowConsumerFrames,
+                          SnowMemoryBudget memoryBudget) {
+        this(maxNumOfFrames, slowConsumerPolicy, slowConsumerFrames, memoryBudget, false);
+    }
+
+    public SnowDataBuffer(int maxNumOfFrames, SlowConsumerPolicy slowConsumerPolicy, int slowConsumerFrames,
+                          SnowMemoryBudget memoryBudget, boolean offHeapFrames) {
         if (maxNumOfFrames < 1) {
             throw new IllegalArgumentException("Buffer must have a positive size!");
         }
+        if (slowConsumerFrames < 1) {
+            throw new IllegalArgumentException("Slow consumer threshold must be a positive number of frames!");
+        }
+        this.maxNumOfFrames = maxNumOfFrames;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.slowConsumerFrames = slowConsumerFrames;
+        this.memoryBudget = memoryBudget;
+        this.encodingsAccounting = memoryBudget::reserve;
+        this.frames = new AtomicReferenceArray<>(maxNumOfFrames);
+        this.frameSizes = new int[maxNumOfFrames];
+        this.slabPool = offHeapFrames ? new ParticlesSlabPool(maxNumOfFrames) : null;
     }
 
     public void push(SnowDataFrame frame) {
@@ -49,27 +94,66 @@ public final class SnowDataBuffer {
             throw new IllegalArgumentException("Expected frames in sequence!");
         }
 
-        if (numOfFrames == 0) {
-            tailFrameNum = numOfFrames = 1;
-            synchronized (framesLock) {
-                frames.put(++headFrameNum, frame);
-                framesLock.notifyAll();
-            }
-        } else if (numOfFrames < maxNumOfFrames) {
-            synchronized (framesLock) {
-                ++numOfFrames;
-                frames.put(++headFrameNum, frame);
-            }
-        } else {
-            synchronized (framesLock) {
-                frames.put(++headFrameNum, frame);
-                synchronized (removeFramesLock) {
-                    frames.remove(tailFrameNum++);
-                }
+        if (slabPool != null && frame != SnowDataFrame.LAST && !frame.isOffHeap()) {
+            final SnowDataFrame heapFrame = frame;
+            frame = heapFrame.movedTo(slabPool.acquire(heapFrame.chunkSize()));
+            heapFrame.release();
+        }
+
+        final int frameNum = headFrameNum + 1;
+        final int slot = slotOf(frameNum);
+        tailFrameNum = Math.max(tailFrameNum, Math.max(1, frameNum - maxNumOfFrames + 1));
+        account(slot, sizeOf(frame));
+        if (frame != SnowDataFrame.LAST) {
+            // encodings cached for clients may outgrow the particles, they are charged as they get encoded
+            frame.encoded().chargeTo(encodingsAccounting);
+        }
+        releaseEvicted(frames.getAndSet(slot, frame));
+        headFrameNum = frameNum;
+        shrinkWhileOverBudget();
+
+        unparkReaders();
+    }
+
+    private int sizeOf(SnowDataFrame frame) {
+        int size = frame.sizeInBytes();
+        if (frame.basis() != lastPushedBasis) {
+            // basis is shared by the frames that follow, so only the frame introducing it pays for it
+            lastPushedBasis = frame.basis();
+            size += lastPushedBasis.sizeInBytes();
+        }
+        return size;
+    }
+
+    private void account(int slot, int size) {
+        final int delta = size - frameSizes[slot];
+        frameSizes[slot] = size;
+        bufferedBytes += delta;
+        memoryBudget.reserve(delta);
+    }
+
+    private void shrinkWhileOverBudget() {
+        while (memoryBudget.isExceeded() && tailFrameNum < headFrameNum) {
+            final int evictedFrameNum = tailFrameNum;
+            tailFrameNum = evictedFrameNum + 1;
+            account(slotOf(evictedFrameNum), 0);
+            releaseEvicted(frames.getAndSet(slotOf(evictedFrameNum), null));
+        }
+    }
+
+    private void releaseEvicted(@Nullable SnowDataFrame evicted) {
+        if (evicted != null) {
+            if (evicted != SnowDataFrame.LAST) {
+                evicted.encoded().release();
             }
+            evicted.release();
         }
     }
 
+    public long bufferedBytes() {
+        return bufferedBytes;
+    }
+
     public SnowDataFrame firstFrame() throws InterruptedException {
         return nextFrameAfter(0);
     }
@@ -80,70 +164,259 @@ public final class SnowDataBuffer {
                 : nextFrameAfter(frame.frameNum());
     }
 
-    @SuppressWarnings("RedundantThrows")
+    public SnowDataFrame firstFrame(Object client) throws InterruptedException {
+        final ClientCursor cursor = cursorOf(client);
+        final SnowDataFrame first = slowConsumerPolicy.startsAtHead()
+                ? nextFrameAfter(Math.max(0, liveHeadFrameNum() - 1))
+                : firstFrame();
+        cursor.moveTo(first);
+        return first;
+    }
+
+    /**
+     * Continues after given frame when it is still buffered, otherwise starts like a brand-new client.
+     */
+    public SnowDataFrame firstFrame(Object client, int afterFrameNum) throws InterruptedException {
+        if (afterFrameNum < 1 || isBehind(afterFrameNum + 1) || afterFrameNum > liveHeadFrameNum()) {
+            return firstFrame(client);
+        }
+        final ClientCursor cursor = cursorOf(client);
+        final SnowDataFrame first = nextFrameAfter(afterFrameNum);
+        cursor.moveTo(first);
+        return first;
+    }
+
+    public SnowDataFrame nextFrame(Object client, SnowDataFrame frame) throws InterruptedException {
+        if (frame == SnowDataFrame.LAST) {
+            return SnowDataFrame.LAST;
+        }
+
+        final ClientCursor cursor = cursorOf(client);
+        final SnowDataFrame next = nextFrameAfter(previousFrameOf(client, frame));
+        cursor.moveTo(frame, next);
+        return next;
+    }
+
+    /**
+     * Same as {@link #firstFrame(Object)}, but returns null instead of waiting for the frame to be pushed.
+     */
+    public @Nullable SnowDataFrame pollFirstFrame(Object client) {
+        final ClientCursor cursor = cursorOf(client);
+        final SnowDataFrame first = pollFrameAfter(slowConsumerPolicy.startsAtHead()
+                ? Math.max(0, liveHeadFrameNum() - 1)
+                : 0);
+        if (first != null) {
+            cursor.moveTo(first);
+        }
+        return first;
+    }
+
+    /**
+     * Same as {@link #nextFrame(Object, SnowDataFrame)}, but returns null instead of waiting for the frame to be pushed.
+     */
+    public @Nullable SnowDataFrame pollNextFrame(Object client, SnowDataFrame frame) {
+        if (frame == SnowDataFrame.LAST) {
+            return SnowDataFrame.LAST;
+        }
+
+        final ClientCursor cursor = cursorOf(client);
+        final SnowDataFrame next = pollFrameAfter(previousFrameOf(client, frame));
+        if (next != null) {
+            cursor.moveTo(frame, next);
+        }
+        return next;
+    }
+
+    private int previousFrameOf(Object client, SnowDataFrame frame) {
+        final int lag = lagAfter(frame.frameNum());
+        int previousFrame = frame.frameNum();
+        switch (slowConsumerPolicy) {
+            case CATCH_UP -> {
+            }
+            case SKIP_TO_HEAD -> {
+                if (lag > slowConsumerFrames) {
+                    previousFrame = liveHeadFrameNum() - 1;
+                }
+            }
+            case DROP_EVERY_NTH -> {
+                if (lag > 1 && (previousFrame + 1) % slowConsumerFrames == 0) {
+                    ++previousFrame;
+                }
+            }
+            case DISCONNECT -> {
+                if (lag > slowConsumerFrames) {
+                    throw new SlowConsumerException("Client " + client + " is " + lag + " frames behind!");
+                }
+            }
+        }
+        return previousFrame;
+    }
+
+    public int lagOf(Object client) {
+        return lagAfter(cursorOf(client).frameNum);
+    }
+
+    public long droppedFramesOf(Object client) {
+        return cursorOf(client).droppedFrames;
+    }
+
+    public List<ClientLag> clientLags() {
+        return clients.values().stream()
+                .map(cursor -> new ClientLag(lagAfter(cursor.frameNum), cursor.droppedFrames))
+                .toList();
+    }
+
+    private ClientCursor cursorOf(Object client) {
+        final ClientCursor cursor = clients.get(client);
+        if (cursor == null) {
+            throw new IllegalArgumentException("Unknown client. Register it first! Got: " + client);
+        }
+        return cursor;
+    }
+
+    private int lagAfter(int frameNum) {
+        return Math.max(0, liveHeadFrameNum() - frameNum);
+    }
+
+    private int liveHeadFrameNum() {
+        return Math.min(headFrameNum, lastValidFrameNum);
+    }
+
     private SnowDataFrame nextFrameAfter(int frame) throws InterruptedException {
+        final SnowDataFrame result = pollFrameAfter(frame);
+        return result != null ? result : waitForFrame(frame + 1);
+    }
+
+    private @Nullable SnowDataFrame pollFrameAfter(int frame) {
         final int nextFrame = frame + 1;
+        if (destroyed || nextFrame > lastValidFrameNum) {
+            return SnowDataFrame.LAST;
+        }
 
-        return destroyed || nextFrame > lastValidFrameNum
-                ? SnowDataFrame.LAST
-                : quickGetFrame(nextFrame).orElseGet(() -> waitForFrame(nextFrame));
+        return frameAt(isBehind(nextFrame) ? tailFrameNum : nextFrame);
     }
 
-    private Optional<SnowDataFrame> quickGetFrame(int frame) {
-        return isBehind(frame)
-                ? frames.get(tailFrameNum)
-                : frames.get(frame);
-    }
+    private SnowDataFrame waitForFrame(int frame) throws InterruptedException {
+        for (int spins = 0; ; ++spins) {
+            if (destroyed) {
+                throw new ItemNoLongerExistsException("Buffer has been destroyed while waiting for frame: " + frame);
+            }
+
+            if (frame > lastValidFrameNum) {
+                return SnowDataFrame.LAST;
+            }
 
-    @SneakyThrows
-    private SnowDataFrame waitForFrame(int frame) {
-        waitForInitialFrame();
-        synchronized (removeFramesLock) {
-            return isBehind(frame)
-                    ? frames.take(tailFrameNum)
-                    : frames.take(frame);
+            if (frame <= headFrameNum) {
+                final SnowDataFrame result = frameAt(isBehind(frame) ? tailFrameNum : frame);
+                if (result != null) {
+                    return result;
+                }
+                continue;
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (spins < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+            } else {
+                parkUntilPushed(frame);
+            }
         }
     }
 
-    private void waitForInitialFrame() throws InterruptedException {
-        synchronized (framesLock) {
-            if (numOfFrames == 0) {
-                framesLock.wait();
+    private void parkUntilPushed(int frame) {
+        // reader is registered before the check, so a push in between always unparks it
+        final Thread reader = Thread.currentThread();
+        parkedReaders.add(reader);
+        try {
+            if (frame > headFrameNum && !destroyed) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
             }
+        } finally {
+            parkedReaders.remove(reader);
         }
     }
 
+    private void unparkReaders() {
+        if (parkedReaders.isEmpty()) {
+            return;
+        }
+        for (Thread reader : parkedReaders) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    private @Nullable SnowDataFrame frameAt(int frameNum) {
+        if (frameNum < 1) {
+            return null;
+        }
+        final int slot = slotOf(frameNum);
+        final SnowDataFrame frame = frames.getAcquire(slot);
+        if (frame == null || frame.frameNum() != frameNum || !frame.tryRetain()) {
+            return null;
+        }
+        if (frame.isPooled() && frames.getAcquire(slot) != frame) {
+            // evicted in the meantime, so its particles may already belong to another frame
+            frame.release();
+            return null;
+        }
+        return frame;
+    }
+
+    private int slotOf(int frameNum) {
+        return frameNum % maxNumOfFrames;
+    }
+
     public void destroy() {
         destroyed = true;
-        synchronized (framesLock) {
-            numOfFrames = headFrameNum = tailFrameNum = 0;
-            frames.removeAll();
-            framesLock.notifyAll();
+        headFrameNum = tailFrameNum = 0;
+        for (int i = 0; i < maxNumOfFrames; ++i) {
+            releaseEvicted(frames.getAndSet(i, null));
+            account(i, 0);
         }
+        unparkReaders();
     }
 
     public void registerClient(Object client) {
-        synchronized (noMoreClientsLock) {
-            clients.add(client);
+        clientsLock.lock();
+        try {
+            clients.put(client, new ClientCursor());
+        } finally {
+            clientsLock.unlock();
         }
     }
 
     public void unregisterClient(Object client) {
-        synchronized (noMoreClientsLock) {
-            if (!clients.remove(client)) {
+        clientsLock.lock();
+        try {
+            final ClientCursor cursor = clients.remove(client);
+            if (cursor == null) {
                 throw new IllegalArgumentException("Unknown client. Cannot unregister! Got: " + client);
             }
+            cursor.moveTo(SnowDataFrame.LAST);
             if (clients.isEmpty()) {
-                noMoreClientsLock.notifyAll();
+                noClientsSinceNanos = System.nanoTime();
+                noMoreClients.signalAll();
             }
+        } finally {
+            clientsLock.unlock();
         }
     }
 
+    public boolean hasNoClientsFor(Duration duration) {
+        return clients.isEmpty() && System.nanoTime() - noClientsSinceNanos >= duration.toNanos();
+    }
+
     public void waitUntilAllClientsUnregister() throws InterruptedException {
-        synchronized (noMoreClientsLock) {
+        clientsLock.lock();
+        try {
             if (!clients.isEmpty()) {
-                noMoreClientsLock.wait();
+                noMoreClients.await();
             }
+        } finally {
+            clientsLock.unlock();
         }
     }
 
@@ -151,4 +424,38 @@ public final class SnowDataBuffer {
         return frameNum < tailFrameNum;
     }
 
+    private static final class ClientCursor {
+
+        private volatile int frameNum;
+        private volatile long droppedFrames;
+        private SnowDataFrame heldFrame = SnowDataFrame.LAST;
+
+        private void moveTo(SnowDataFrame frame) {
+            heldFrame.release();
+            heldFrame = frame;
+            if (frame != SnowDataFrame.LAST) {
+                frameNum = frame.frameNum();
+            }
+        }
+
+        private void moveTo(SnowDataFrame previous, SnowDataFrame next) {
+            if (next != SnowDataFrame.LAST) {
+                droppedFrames += next.frameNum() - previous.frameNum() - 1;
+            }
+            moveTo(next);
+        }
+
+    }
+
+    public record ClientLag(int lagInFrames, long droppedFrames) {
+    }
+
+    @StandardException
+    public static class ItemNoLongerExistsException extends RuntimeException {
+    }
+
+    @StandardException
+    public static class SlowConsumerException extends RuntimeException {
+    }
+
 }
@@ -0,0 +1,66 @@
+package techbit.snow.proxy.snow.stream;
+
+import techbit.snow.proxy.dto.EncodedFrameCache;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+public final class SnowHandshake {
+
+    public static final SnowHandshake NONE = new SnowHandshake(SnowAnimationMetadata.NONE, SnowBackground.NONE, false);
+
+    private final SnowAnimationMetadata metadata;
+    private final SnowBackground background;
+    private final boolean deflate;
+    private final EncodedFrameCache encoded = new EncodedFrameCache();
+
+    public SnowHandshake(SnowAnimationMetadata metadata, SnowBackground background, boolean deflate) {
+        this.metadata = metadata;
+        this.background = background;
+        this.deflate = deflate;
+    }
+
+    public SnowAnimationMetadata metadata() {
+        return metadata;
+    }
+
+    public SnowBackground background() {
+        return background;
+    }
+
+    public boolean isDeflated() {
+        return deflate;
+    }
+
+    /**
+     * Metadata followed by background, encoded once per encoder type. Returned array must not be modified.
+     */
+    public byte[] encodedWith(StreamEncoder encoder) throws IOException {
+        return encoded.computeIfAbsent(encoder.getClass(), () -> encode(encoder));
+    }
+
+    private byte[] encode(StreamEncoder encoder) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(
+                5 * 4 + 2 * 4 + background.width() * background.height());
+        if (!deflate) {
+            encoder.encodeMetadata(metadata, output);
+            encoder.encodeBackground(background, output);
+            return output.toByteArray();
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream deflated = new DeflaterOutputStream(output, deflater)) {
+            encoder.encodeMetadata(metadata, deflated);
+            encoder.encodeBackground(background, deflated);
+        } finally {
+            deflater.end();
+        }
+        return output.toByteArray();
+    }
+
+}
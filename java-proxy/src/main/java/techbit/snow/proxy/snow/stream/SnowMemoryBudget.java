@@ -0,0 +1,43 @@
+package techbit.snow.proxy.snow.stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public final class SnowMemoryBudget {
+
+    public static final SnowMemoryBudget UNLIMITED = new SnowMemoryBudget(0);
+
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final long maxBytes;
+
+    public SnowMemoryBudget(@Value("${phpsnow.memory-budget-in-megabytes}") int maxMegabytes) {
+        if (maxMegabytes < 0) {
+            throw new IllegalArgumentException("Memory budget cannot be negative!");
+        }
+        this.maxBytes = maxMegabytes * 1024L * 1024L;
+    }
+
+    public void reserve(long bytes) {
+        usedBytes.addAndGet(bytes);
+    }
+
+    public void release(long bytes) {
+        usedBytes.addAndGet(-bytes);
+    }
+
+    public boolean isExceeded() {
+        return maxBytes > 0 && usedBytes.get() > maxBytes;
+    }
+
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+}
@@ -1,6 +1,5 @@
 package techbit.snow.proxy.snow.stream;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import jakarta.annotation.Nullable;
 import lombok.experimental.StandardException;
 import lombok.extern.log4j.Log4j2;
@@ -9,26 +8,31 @@ import org.springframework.context.ApplicationEventPublisher;
 import techbit.snow.proxy.config.PhpSnowConfig;
 import techbit.snow.proxy.dto.*;
 import techbit.snow.proxy.error.IncompatibleConfigException;
+import techbit.snow.proxy.lang.Threads;
 import techbit.snow.proxy.lang.Wait;
-import techbit.snow.proxy.snow.php.NamedPipe;
 import techbit.snow.proxy.snow.php.PhpSnowApp;
+import techbit.snow.proxy.snow.php.SnowPipe;
+import techbit.snow.proxy.snow.php.SocketPipe;
+import techbit.snow.proxy.snow.php.SocketPipeInputStream;
+import techbit.snow.proxy.snow.stream.SnowDataBuffer.ClientLag;
 import techbit.snow.proxy.snow.transcoding.StreamDecoder;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.text.MessageFormat;
 import java.time.Duration;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 @Log4j2
 public final class SnowStream {
 
-    private final NamedPipe pipe;
+    private final SnowPipe pipe;
     private final String sessionId;
     private final PhpSnowApp phpSnowApp;
     private final SnowDataBuffer buffer;
@@ -38,23 +42,40 @@ public final class SnowStream {
     private final Semaphore consumerGoingDownLock = new Semaphore(0);
     private final Semaphore consumerGoingUpLock = new Semaphore(0);
     private final ApplicationEventPublisher applicationEventPublisher;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(
-            new ThreadFactoryBuilder().setNameFormat("snow-stream-consumer-thread-%d").build()
-    );
+    private final ExecutorService executor;
     private @Nullable
     volatile ConsumerThreadException consumerException;
     private volatile boolean destroyed = false;
     private volatile boolean running = false;
-    private SnowAnimationMetadata metadata = SnowAnimationMetadata.NONE;
-    private SnowBackground background = SnowBackground.NONE;
+    private SnowBasis currentBasis = SnowBasis.NONE;
+    private SnowHandshake handshake = SnowHandshake.NONE;
+    private long lastParticlesHash;
+    private @Nullable SnowDataFrame lastPayloadFrame;
+    private @Nullable SocketPipeInputStream selectorStream;
     private final Duration maxWaitForStartPhpCli;
     private final Duration maxWaitForStop;
+    private final Duration pauseWhenIdleFor;
+    private final boolean deflateHandshake;
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Set<SnowStreamSubscription> subscriptions = ConcurrentHashMap.newKeySet();
 
     public SnowStream(String sessionId, PhpSnowConfig phpSnowConfig,
-                      ServerMetadata serverMetadata, NamedPipe pipe, PhpSnowApp phpSnowApp,
+                      ServerMetadata serverMetadata, SnowPipe pipe, PhpSnowApp phpSnowApp,
                       SnowDataBuffer buffer, StreamDecoder decoder, 
-                      Duration maxWaitForStartPhpCli, Duration maxWaitForStop,
-                      ApplicationEventPublisher applicationEventPublisher
+                      Duration maxWaitForStartPhpCli, Duration maxWaitForStop, Duration pauseWhenIdleFor,
+                      boolean deflateHandshake, ApplicationEventPublisher applicationEventPublisher
+    ) {
+        this(sessionId, phpSnowConfig, serverMetadata, pipe, phpSnowApp, buffer, decoder,
+                maxWaitForStartPhpCli, maxWaitForStop, pauseWhenIdleFor, deflateHandshake, applicationEventPublisher,
+                Threads.factory("snow-stream-consumer-thread-", false));
+    }
+
+    public SnowStream(String sessionId, PhpSnowConfig phpSnowConfig,
+                      ServerMetadata serverMetadata, SnowPipe pipe, PhpSnowApp phpSnowApp,
+                      SnowDataBuffer buffer, StreamDecoder decoder,
+                      Duration maxWaitForStartPhpCli, Duration maxWaitForStop, Duration pauseWhenIdleFor,
+                      boolean deflateHandshake, ApplicationEventPublisher applicationEventPublisher,
+                      ThreadFactory consumerThreadFactory
     ) {
         this.sessionId = sessionId;
         this.pipe = pipe;
@@ -66,6 +87,9 @@ public final class SnowStream {
         this.applicationEventPublisher = applicationEventPublisher;
         this.maxWaitForStartPhpCli = maxWaitForStartPhpCli;
         this.maxWaitForStop = maxWaitForStop;
+        this.pauseWhenIdleFor = pauseWhenIdleFor;
+        this.deflateHandshake = deflateHandshake;
+        this.executor = Executors.newSingleThreadExecutor(consumerThreadFactory);
     }
 
     public boolean isActive() {
@@ -78,6 +102,7 @@ public final class SnowStream {
         }
 
         pipe.destroy();
+        pipe.open();
 
         phpSnowApp.start();
     }
@@ -95,56 +120,154 @@ public final class SnowStream {
 
         log.debug("startConsumingSnowData( {} ) | Opening pipe stream", sessionId);
         final InputStream stream = pipe.inputStream();
-        final DataInputStream dataStream = new DataInputStream(stream);
 
         log.debug("startConsumingSnowData( {} ) | Reading metadata", sessionId);
-        metadata = decoder.decodeMetadata(dataStream, serverMetadata, phpSnowConfig.duration());
+        final SnowAnimationMetadata metadata = decoder.decodeMetadata(stream, serverMetadata, phpSnowConfig.duration());
 
         log.debug("startConsumingSnowData( {} ) | Reading background", sessionId);
-        background = decoder.decodeBackground(dataStream);
-
-        log.debug("startConsumingSnowData( {} ) | Running worker thread", sessionId);
-        executor.submit(() -> consumePhpSnowInAThread(stream));
-        running = true;
+        final SnowBackground background = decoder.decodeBackground(stream);
+        handshake = new SnowHandshake(metadata, background, deflateHandshake);
+
+        if (stream instanceof SocketPipeInputStream socketStream) {
+            log.debug("startConsumingSnowData( {} ) | Listening on socket selector", sessionId);
+            running = true;
+            selectorStream = socketStream;
+            socketStream.listen(() -> consumePhpSnowMessage(socketStream));
+            consumerGoingUpLock.release(Integer.MAX_VALUE);
+        } else {
+            log.debug("startConsumingSnowData( {} ) | Running worker thread", sessionId);
+            executor.submit(() -> consumePhpSnowInAThread(stream));
+            running = true;
+        }
     }
 
     private void consumePhpSnowInAThread(InputStream stream) {
         consumerGoingUpLock.release(Integer.MAX_VALUE);
-        try (stream) {
-            log.debug("consumeSnowFromPipeThread( {} ) | Start pipe", sessionId);
-            final DataInputStream dataStream = new DataInputStream(stream);
-            SnowBasis currentBasis = SnowBasis.NONE;
+        log.debug("consumeSnowFromPipeThread( {} ) | Start pipe", sessionId);
+        try {
             while (isActive()) {
-                final SnowDataFrame frame = decoder.decodeFrame(dataStream);
-                if (frame == SnowDataFrame.LAST) {
+                if (!consumeFrame(stream)) {
                     break;
                 }
-                final SnowBasis basis = decoder.decodeBasis(dataStream);
-                if (basis == SnowBasis.NONE) {
-                    log.trace("consumeSnowFromPipeThread( {} ) | Frame {}",
-                            sessionId, frame.frameNum());
-                } else {
-                    log.trace("consumeSnowFromPipeThread( {} ) | Frame {} ( with basis update )",
-                            sessionId, frame.frameNum());
-                    currentBasis = basis;
-                }
+            }
+        } catch (Throwable e) {
+            consumerFailed(e);
+        }
+        finishConsumingPhpSnow(stream);
+    }
+
+    private void consumePhpSnowMessage(SocketPipeInputStream stream) {
+        try {
+            if (isActive() && consumeFrame(stream)) {
+                return;
+            }
+        } catch (Throwable e) {
+            consumerFailed(e);
+        }
+        stream.stopListening();
+        executor.submit(() -> finishConsumingPhpSnow(stream));
+    }
+
+    private boolean consumeFrame(InputStream stream) throws IOException {
+        final SnowDataFrame frame = withPayloadOfPreviousIfSame(decoder.decodeFrame(stream));
+        if (frame == SnowDataFrame.LAST) {
+            return false;
+        }
+        final SnowBasis basis = decoder.decodeBasis(stream);
+        if (basis == SnowBasis.NONE) {
+            log.trace("consumeSnowFromPipeThread( {} ) | Frame {}",
+                    sessionId, frame.frameNum());
+        } else {
+            log.trace("consumeSnowFromPipeThread( {} ) | Frame {} ( with basis update )",
+                    sessionId, frame.frameNum());
+            currentBasis = basis.withDeltaFrom(currentBasis);
+        }
+
+        buffer.push(frame.withBasis(currentBasis));
+        notifySubscriptions();
+        pauseWhenIdle();
+        return true;
+    }
+
+    private SnowDataFrame withPayloadOfPreviousIfSame(SnowDataFrame frame) {
+        if (frame == SnowDataFrame.LAST || frame.chunkSize() == 0) {
+            return frame;
+        }
+        final long particlesHash = frame.particlesHash();
+        if (lastPayloadFrame != null && particlesHash == lastParticlesHash && frame.hasSameParticlesAs(lastPayloadFrame)) {
+            return frame.withPayloadOf(lastPayloadFrame.frameNum());
+        }
+        releaseLastPayloadFrame();
+        if (frame.tryRetain()) {
+            // retained, so pooled particles are not recycled while next frame is compared with them
+            lastParticlesHash = particlesHash;
+            lastPayloadFrame = frame;
+        }
+        return frame;
+    }
+
+    private void releaseLastPayloadFrame() {
+        if (lastPayloadFrame != null) {
+            lastPayloadFrame.release();
+            lastPayloadFrame = null;
+        }
+    }
+
+    private void pauseWhenIdle() {
+        if (pauseWhenIdleFor.isZero() || phpSnowApp.isPaused() || !buffer.hasNoClientsFor(pauseWhenIdleFor)) {
+            return;
+        }
+        idleLock.lock();
+        try {
+            if (buffer.hasNoClientsFor(pauseWhenIdleFor) && !phpSnowApp.isPaused()) {
+                log.debug("consumeSnowFromPipeThread( {} ) | No clients for {}, pausing PhpSnow App",
+                        sessionId, pauseWhenIdleFor);
+                phpSnowApp.pause();
+            }
+        } catch (IOException e) {
+            log.warn("consumeSnowFromPipeThread( {} ) | Cannot pause PhpSnow App: {}", sessionId, e.getMessage());
+        } finally {
+            idleLock.unlock();
+        }
+    }
 
-                buffer.push(frame.withBasis(currentBasis));
+    private void resumeIfPaused() throws IOException {
+        idleLock.lock();
+        try {
+            if (phpSnowApp.isPaused()) {
+                log.debug("streamTo( {} ) | Resuming PhpSnow App", sessionId);
+                phpSnowApp.resume();
+            }
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    private void finishConsumingPhpSnow(InputStream stream) {
+        try (stream) {
+            if (consumerException == null) {
+                log.trace("consumeSnowFromPipeThread( {} ) | Last Frame", sessionId);
+                buffer.push(SnowDataFrame.LAST);
+                notifySubscriptions();
+                buffer.waitUntilAllClientsUnregister();
+                log.trace("consumeSnowFromPipeThread( {} ) | Stop pipe", sessionId);
             }
-            log.trace("consumeSnowFromPipeThread( {} ) | Last Frame", sessionId);
-            buffer.push(SnowDataFrame.LAST);
-            buffer.waitUntilAllClientsUnregister();
-            log.trace("consumeSnowFromPipeThread( {} ) | Stop pipe", sessionId);
         } catch (Throwable e) {
-            log.error("consumeSnowFromPipeThread( {} ) | ERROR", sessionId, e);
-            consumerException = new ConsumerThreadException(e);
+            consumerFailed(e);
         } finally {
+            releaseLastPayloadFrame();
             buffer.destroy();
+            notifySubscriptions();
             finishStreaming();
             consumerGoingDownLock.release(Integer.MAX_VALUE);
         }
     }
 
+    private void consumerFailed(Throwable e) {
+        log.error("consumeSnowFromPipeThread( {} ) | ERROR", sessionId, e);
+        consumerException = new ConsumerThreadException(e);
+    }
+
     public void streamTo(SnowStreamClient client)
             throws IOException, InterruptedException, ConsumerThreadException {
         throwConsumerExceptionIfAny();
@@ -156,26 +279,35 @@ public final class SnowStream {
         log.debug("streamTo( {} ) | Start ({})", sessionId, phpSnowConfig);
 
         log.debug("streamTo( {} ) | Register To Buffer", sessionId);
-        buffer.registerClient(client.identifier());
+        final Object clientId = client.identifier();
+        buffer.registerClient(clientId);
 
         try {
+            resumeIfPaused();
+
             log.debug("streamTo( {} ) | Metadata & Background", sessionId);
-            client.startStreaming(metadata, background);
+            client.startStreaming(handshake);
 
             log.debug("streamTo( {} ) | Start Streaming Frames", sessionId);
             SnowBasis currentBasis = SnowBasis.NONE;
-            for (SnowDataFrame frame = buffer.firstFrame(); frame != SnowDataFrame.LAST; frame = buffer.nextFrame(frame)) {
+            int sentPayloadFrameNum = 0;
+            for (SnowDataFrame frame = firstFrameOf(client); frame != SnowDataFrame.LAST; frame = buffer.nextFrame(clientId, frame)) {
                 log.trace("streamTo( {} ) | Frame {}", sessionId, frame.frameNum());
 
                 if (!client.continueStreaming()) {
                     break;
                 }
 
+                final SnowDataFrame frameToSend = client.acceptsRepeatedFrames()
+                        && frame.payloadFrameNum() == sentPayloadFrameNum ? frame.asRepeated() : frame;
                 if (frame.basis() == currentBasis) {
-                    client.streamFrame(frame, SnowBasis.NONE);
+                    client.streamFrame(frameToSend, SnowBasis.NONE);
+                } else if (client.acceptsBasisDelta() && frame.basis().hasDeltaFrom(currentBasis)) {
+                    client.streamFrame(frameToSend, (currentBasis = frame.basis()).asDelta());
                 } else {
-                    client.streamFrame(frame, currentBasis = frame.basis());
+                    client.streamFrame(frameToSend, currentBasis = frame.basis());
                 }
+                sentPayloadFrameNum = frame.payloadFrameNum();
             }
 
             client.streamFrame(SnowDataFrame.LAST, SnowBasis.NONE);
@@ -184,12 +316,61 @@ public final class SnowStream {
 
             log.debug("streamTo( {} ) | Last frame", sessionId);
             client.stopStreaming();
+        } catch (SnowDataBuffer.SlowConsumerException e) {
+            log.warn("streamTo( {} ) | Disconnecting slow client {}", sessionId, clientId);
+            throw new IOException("Client cannot keep up with the stream!", e);
         } finally {
-            log.debug("streamTo( {} ) | Unregister From Buffer", sessionId);
-            buffer.unregisterClient(client.identifier());
+            log.debug("streamTo( {} ) | Unregister From Buffer ( {} frames dropped )",
+                    sessionId, buffer.droppedFramesOf(clientId));
+            buffer.unregisterClient(clientId);
         }
     }
 
+    private SnowDataFrame firstFrameOf(SnowStreamClient client) throws InterruptedException {
+        final int resumeAfterFrameNum = client.resumeAfterFrameNum();
+        return resumeAfterFrameNum > 0
+                ? buffer.firstFrame(client.identifier(), resumeAfterFrameNum)
+                : buffer.firstFrame(client.identifier());
+    }
+
+    /**
+     * Demand-driven alternative to {@link #streamTo(SnowStreamClient)}: no thread is held while subscriber waits
+     * for frames or is not ready for more, deliveries triggered by new frames run on given executor.
+     */
+    public Flow.Publisher<byte[]> publisher(StreamEncoder encoder, Executor executor) {
+        return subscriber -> subscribe(new SnowStreamSubscription(buffer, handshake, encoder, subscriber, executor,
+                () -> consumerException, this::unsubscribe));
+    }
+
+    private void subscribe(SnowStreamSubscription subscription) {
+        try {
+            throwConsumerExceptionIfAny();
+            if (!isActive()) {
+                throw new IOException("Stream is not active!");
+            }
+            resumeIfPaused();
+        } catch (IOException | ConsumerThreadException e) {
+            subscription.failBeforeStart(e);
+            return;
+        }
+
+        log.debug("subscribe( {} ) | Register To Buffer", sessionId);
+        buffer.registerClient(subscription);
+        subscriptions.add(subscription);
+        subscription.subscribed();
+    }
+
+    private void unsubscribe(SnowStreamSubscription subscription) {
+        log.debug("unsubscribe( {} ) | Unregister From Buffer ( {} frames dropped )",
+                sessionId, buffer.droppedFramesOf(subscription));
+        subscriptions.remove(subscription);
+        buffer.unregisterClient(subscription);
+    }
+
+    private void notifySubscriptions() {
+        subscriptions.forEach(SnowStreamSubscription::framePushed);
+    }
+
     private void waitForInputStream() throws IOException {
         long counter = maxWaitForStartPhpCli.toSeconds() * 10;
         while (pipe.isMissing()) {
@@ -198,6 +379,15 @@ public final class SnowStream {
             }
 
             phpSnowApp.catchErrors();
+            waitForProducer();
+        }
+    }
+
+    private void waitForProducer() throws InterruptedIOException {
+        if (pipe instanceof SocketPipe socketPipe) {
+            // woken up by the selector as soon as producer connects
+            socketPipe.awaitProducer(Duration.ofMillis(100));
+        } else {
             wait100ms();
         }
     }
@@ -232,6 +422,10 @@ public final class SnowStream {
         return phpSnowConfig;
     }
 
+    public List<ClientLag> clientLags() {
+        return buffer.clientLags();
+    }
+
     public void ensureCompatibleWithConfig(String sessionId, PhpSnowConfig config) {
         if (!phpSnowConfig.equals(config)) {
             throw new IncompatibleConfigException(MessageFormat.format(
@@ -245,6 +439,9 @@ public final class SnowStream {
             return;
         }
         running = false;
+        if (selectorStream != null) {
+            selectorStream.close();
+        }
         if (!consumerGoingDownLock.tryAcquire(maxWaitForStop.toMillis() / 2, TimeUnit.MILLISECONDS)) {
             executor.shutdownNow();
             if (!executor.awaitTermination(maxWaitForStop.toMillis() / 2, TimeUnit.MILLISECONDS)) {
@@ -0,0 +1,60 @@
+package techbit.snow.proxy.snow.stream;
+
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes whole encoded frames and flushes after each, so every chunk of the response ends on a frame boundary.
+ */
+public final class SnowStreamChunkedClient implements SnowStreamClient {
+
+    private final StreamEncoder encoder;
+    private final OutputStream output;
+
+    public SnowStreamChunkedClient(StreamEncoder encoder, OutputStream output) {
+        this.encoder = encoder;
+        this.output = output;
+    }
+
+    @Override
+    public void startStreaming(SnowAnimationMetadata metadata, SnowBackground background) throws IOException {
+        encoder.encodeMetadata(metadata, output);
+        encoder.encodeBackground(background, output);
+        output.flush();
+    }
+
+    @Override
+    public void startStreaming(SnowHandshake handshake) throws IOException {
+        output.write(handshake.encodedWith(encoder));
+        output.flush();
+    }
+
+    @Override
+    public void streamFrame(SnowDataFrame frame, SnowBasis basis) throws IOException {
+        output.write(encoder.encodeShared(frame, basis));
+        output.flush();
+    }
+
+    @Override
+    public void stopStreaming() throws IOException {
+        encoder.encodeFrame(SnowDataFrame.LAST, output);
+        output.flush();
+    }
+
+    @Override
+    public boolean acceptsRepeatedFrames() {
+        return true;
+    }
+
+    @Override
+    public boolean acceptsBasisDelta() {
+        return true;
+    }
+
+}
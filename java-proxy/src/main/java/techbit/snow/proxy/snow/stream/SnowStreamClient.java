@@ -17,8 +17,24 @@ public interface SnowStreamClient {
         return true;
     }
 
+    default boolean acceptsRepeatedFrames() {
+        return false;
+    }
+
+    default boolean acceptsBasisDelta() {
+        return false;
+    }
+
+    default int resumeAfterFrameNum() {
+        return 0;
+    }
+
     void startStreaming(SnowAnimationMetadata metadata, SnowBackground background) throws IOException;
 
+    default void startStreaming(SnowHandshake handshake) throws IOException {
+        startStreaming(handshake.metadata(), handshake.background());
+    }
+
     void streamFrame(SnowDataFrame frame, SnowBasis basis) throws IOException;
 
     void stopStreaming() throws IOException;
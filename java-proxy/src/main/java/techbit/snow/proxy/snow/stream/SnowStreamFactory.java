@@ -8,10 +8,11 @@ import org.springframework.stereotype.Service;
 import techbit.snow.proxy.config.PhpSnowConfig;
 import techbit.snow.proxy.config.PhpSnowConfigConverter;
 import techbit.snow.proxy.dto.ServerMetadata;
-import techbit.snow.proxy.dto.SnowDataFrame;
-import techbit.snow.proxy.snow.php.NamedPipe;
-import techbit.snow.proxy.snow.php.PhpSnowApp;
-import techbit.snow.proxy.snow.transcoding.BinaryStreamDecoder;
+import techbit.snow.proxy.error.MemoryBudgetExceededException;
+import techbit.snow.proxy.lang.Threads;
+import techbit.snow.proxy.snow.php.*;
+import techbit.snow.proxy.snow.transcoding.ChannelStreamDecoder;
+import techbit.snow.proxy.snow.transcoding.StreamDecoder;
 
 import java.nio.file.Path;
 import java.time.Duration;
@@ -29,9 +30,17 @@ public final class SnowStreamFactory {
     private final Duration bufferSize;
     private final String bootstrapLocation;
     private final PhpSnowConfigConverter configProvider;
+    private final SnowSocketSelector socketSelector;
+    private final SnowMemoryBudget memoryBudget;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final int maxWaitForStartPhpCliSec;
     private final int maxWaitForStopSec;
+    private final int pauseWhenIdleForSec;
+    private final boolean rawPassthrough;
+    private final boolean offHeapFrames;
+    private final boolean recycleFrameArrays;
+    private final boolean deflateHandshake;
+    private final boolean virtualThreads;
 
 
     public SnowStreamFactory(
@@ -39,8 +48,16 @@ public final class SnowStreamFactory {
             @Value("${phpsnow.bootstrap}") String bootstrapLocation,
             @Value("${phpsnow.max-wait-for-php-cli-in-seconds}") int maxWaitForStartPhpCliSec,
             @Value("${phpsnow.max-wait-for-stop-in-seconds}") int maxWaitForStopSec,
+            @Value("${phpsnow.pause-when-idle-for-seconds}") int pauseWhenIdleForSec,
+            @Value("${phpsnow.raw-passthrough}") boolean rawPassthrough,
+            @Value("${phpsnow.off-heap-frames}") boolean offHeapFrames,
+            @Value("${phpsnow.recycle-frame-arrays}") boolean recycleFrameArrays,
+            @Value("${phpsnow.deflate-handshake}") boolean deflateHandshake,
+            @Value("${phpsnow.threads.virtual}") boolean virtualThreads,
             ApplicationEventPublisher applicationEventPublisher,
             PhpSnowConfigConverter configProvider,
+            SnowSocketSelector socketSelector,
+            SnowMemoryBudget memoryBudget,
             String applicationPid,
             Path pipesDir
     ) {
@@ -48,44 +65,61 @@ public final class SnowStreamFactory {
         this.bufferSize = Duration.ofMillis(bufferSize);
         this.maxWaitForStartPhpCliSec = maxWaitForStartPhpCliSec;
         this.maxWaitForStopSec = maxWaitForStopSec;
+        this.pauseWhenIdleForSec = pauseWhenIdleForSec;
+        this.rawPassthrough = rawPassthrough;
+        this.offHeapFrames = offHeapFrames;
+        this.recycleFrameArrays = recycleFrameArrays;
+        this.deflateHandshake = deflateHandshake;
+        this.virtualThreads = Threads.virtualIfSupported(virtualThreads);
         this.bootstrapLocation = bootstrapLocation;
         this.applicationPid = applicationPid;
         this.configProvider = configProvider;
+        this.socketSelector = socketSelector;
+        this.memoryBudget = memoryBudget;
         this.pipesDir = pipesDir;
     }
 
     public SnowStream create(String sessionId, Map<String, String> config) {
+        if (memoryBudget.isExceeded()) {
+            throw new MemoryBudgetExceededException("Server is out of memory for new animations. Please try again later.");
+        }
         final PhpSnowConfig phpSnowConfig = configProvider.fromMap(config);
         final ServerMetadata serverMetadata = createServerMetadata();
+        final PhpSnowApp phpSnowApp = createPhpSnowApp(sessionId, phpSnowConfig, applicationPid, new ProcessBuilder());
         return createSnowStream(sessionId,
                 phpSnowConfig,
-                createPipe(sessionId, pipesDir),
-                createPhpSnowApp(sessionId, phpSnowConfig, applicationPid, new ProcessBuilder()),
-                createSnowDataBuffer(serverMetadata.bufferSizeInFrames(phpSnowConfig.fps()), new BlockingBag<>()),
+                createPipe(sessionId, phpSnowConfig.transport(), pipesDir, phpSnowApp),
+                phpSnowApp,
+                createSnowDataBuffer(serverMetadata.bufferSizeInFrames(phpSnowConfig.fps()),
+                        phpSnowConfig.slowConsumerPolicy(), phpSnowConfig.slowConsumerFrames()),
                 createBinaryStreamDecoder(),
                 serverMetadata,
                 applicationEventPublisher,
                 maxWaitForStartPhpCliSec,
-                maxWaitForStopSec);
+                maxWaitForStopSec,
+                pauseWhenIdleForSec);
     }
 
     SnowStream createSnowStream(
-            String sessionId, PhpSnowConfig phpSnowConfig, NamedPipe pipe,
+            String sessionId, PhpSnowConfig phpSnowConfig, SnowPipe pipe,
             PhpSnowApp phpSnowApp, SnowDataBuffer snowDataBuffer,
-            BinaryStreamDecoder binaryStreamDecoder,
+            StreamDecoder streamDecoder,
             ServerMetadata serverMetadata,
             ApplicationEventPublisher applicationEventPublisher,
-            int maxWaitForStartPhpCliSec, int maxWaitForStopSec) {
+            int maxWaitForStartPhpCliSec, int maxWaitForStopSec, int pauseWhenIdleForSec) {
         return new SnowStream(sessionId,
                 phpSnowConfig,
                 serverMetadata,
                 pipe,
                 phpSnowApp,
                 snowDataBuffer,
-                binaryStreamDecoder,
+                streamDecoder,
                 Duration.ofSeconds(maxWaitForStartPhpCliSec),
                 Duration.ofSeconds(maxWaitForStopSec),
-                applicationEventPublisher
+                Duration.ofSeconds(pauseWhenIdleForSec),
+                deflateHandshake,
+                applicationEventPublisher,
+                Threads.factory("snow-stream-consumer-thread-", virtualThreads)
         );
     }
 
@@ -93,16 +127,21 @@ public final class SnowStreamFactory {
         return new PhpSnowApp(sessionId, phpSnowConfig, applicationPid, processBuilder, bootstrapLocation);
     }
 
-    SnowDataBuffer createSnowDataBuffer(int maxNumOfFrames, BlockingBag<Integer, SnowDataFrame> frames) {
-        return new SnowDataBuffer(maxNumOfFrames, frames);
+    SnowDataBuffer createSnowDataBuffer(int maxNumOfFrames, SlowConsumerPolicy slowConsumerPolicy, int slowConsumerFrames) {
+        return new SnowDataBuffer(maxNumOfFrames, slowConsumerPolicy, slowConsumerFrames, memoryBudget, offHeapFrames);
     }
 
-    NamedPipe createPipe(String sessionId, Path pipesDir) {
-        return new NamedPipe(sessionId, pipesDir);
+    SnowPipe createPipe(String sessionId, PipeTransport transport, Path pipesDir, PhpSnowApp phpSnowApp) {
+        return switch (transport) {
+            case FIFO -> new NamedPipe(sessionId, pipesDir);
+            case SHARED_MEMORY -> new SharedMemoryPipe(sessionId, pipesDir, phpSnowApp::isAlive);
+            case SOCKET -> new SocketPipe(sessionId, pipesDir, socketSelector);
+        };
     }
 
-    BinaryStreamDecoder createBinaryStreamDecoder() {
-        return new BinaryStreamDecoder();
+    StreamDecoder createBinaryStreamDecoder() {
+        // off-heap frames are copied into slabs on push, so their heap arrays are only worth it when recycled
+        return new ChannelStreamDecoder(rawPassthrough, recycleFrameArrays || offHeapFrames);
     }
 
     ServerMetadata createServerMetadata() {
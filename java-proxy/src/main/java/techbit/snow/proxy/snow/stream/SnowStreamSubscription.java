@@ -0,0 +1,170 @@
+package techbit.snow.proxy.snow.stream;
+
+import jakarta.annotation.Nullable;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hands encoded chunks (handshake, then frames with basis) to the subscriber only as far as it requested them.
+ * Never waits for frames: whenever buffer has nothing new, delivery continues when next frame is pushed.
+ * Deliveries are serialized, but may happen on the requesting thread or on given executor.
+ */
+final class SnowStreamSubscription implements Flow.Subscription {
+
+    private final SnowDataBuffer buffer;
+    private final SnowAnimationMetadata metadata;
+    private final SnowBackground background;
+    private final StreamEncoder encoder;
+    private final Flow.Subscriber<? super byte[]> subscriber;
+    private final Executor executor;
+    private final Supplier<? extends Exception> consumerException;
+    private final Consumer<SnowStreamSubscription> onFinished;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+    private boolean handshakeSent;
+    private @Nullable SnowDataFrame lastFrame;
+    private SnowBasis currentBasis = SnowBasis.NONE;
+    private int sentPayloadFrameNum;
+
+    SnowStreamSubscription(SnowDataBuffer buffer, SnowHandshake handshake, StreamEncoder encoder,
+                           Flow.Subscriber<? super byte[]> subscriber, Executor executor,
+                           Supplier<? extends Exception> consumerException,
+                           Consumer<SnowStreamSubscription> onFinished) {
+        this.buffer = buffer;
+        this.metadata = handshake.metadata();
+        this.background = handshake.background();
+        this.encoder = encoder;
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.consumerException = consumerException;
+        this.onFinished = onFinished;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            cancelled = true;
+            drain();
+            subscriber.onError(new IllegalArgumentException("Requested non-positive number of chunks: " + n));
+            return;
+        }
+        demand.getAndAccumulate(n, (current, requested) -> current + requested < 0 ? Long.MAX_VALUE : current + requested);
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        drain();
+    }
+
+    void framePushed() {
+        if (!finished && demand.get() > 0) {
+            executor.execute(this::drain);
+        }
+    }
+
+    void subscribed() {
+        subscriber.onSubscribe(this);
+    }
+
+    void failBeforeStart(Exception e) {
+        finished = true;
+        subscriber.onSubscribe(this);
+        subscriber.onError(e);
+    }
+
+    private void drain() {
+        if (pendingDrains.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            deliver();
+        } while (pendingDrains.decrementAndGet() != 0);
+    }
+
+    private void deliver() {
+        if (finished) {
+            return;
+        }
+        try {
+            while (!cancelled && demand.get() > 0) {
+                final byte[] chunk = nextChunk();
+                if (chunk == null) {
+                    return;
+                }
+                demand.decrementAndGet();
+                subscriber.onNext(chunk);
+
+                if (lastFrame == SnowDataFrame.LAST) {
+                    finish();
+                    final Exception exception = consumerException.get();
+                    if (exception != null) {
+                        subscriber.onError(exception);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+            }
+            if (cancelled) {
+                finish();
+            }
+        } catch (Exception e) {
+            finish();
+            subscriber.onError(e);
+        }
+    }
+
+    private @Nullable byte[] nextChunk() throws IOException {
+        if (!handshakeSent) {
+            handshakeSent = true;
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            encoder.encodeMetadata(metadata, output);
+            encoder.encodeBackground(background, output);
+            return output.toByteArray();
+        }
+
+        final SnowDataFrame frame = lastFrame == null
+                ? buffer.pollFirstFrame(this)
+                : buffer.pollNextFrame(this, lastFrame);
+        if (frame == null) {
+            return null;
+        }
+        lastFrame = frame;
+        if (frame == SnowDataFrame.LAST) {
+            return encoder.encodeShared(SnowDataFrame.LAST, SnowBasis.NONE);
+        }
+
+        final SnowDataFrame frameToSend = frame.payloadFrameNum() == sentPayloadFrameNum ? frame.asRepeated() : frame;
+        sentPayloadFrameNum = frame.payloadFrameNum();
+        if (frame.basis() == currentBasis) {
+            return encoder.encodeShared(frameToSend, SnowBasis.NONE);
+        } else if (frame.basis().hasDeltaFrom(currentBasis)) {
+            return encoder.encodeShared(frameToSend, (currentBasis = frame.basis()).asDelta());
+        }
+        return encoder.encodeShared(frameToSend, currentBasis = frame.basis());
+    }
+
+    private void finish() {
+        if (!finished) {
+            finished = true;
+            onFinished.accept(this);
+        }
+    }
+
+}
@@ -6,6 +6,7 @@ import techbit.snow.proxy.dto.*;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 
 @Primary
@@ -13,14 +14,20 @@ import java.time.Duration;
 public final class BinaryStreamDecoder implements StreamDecoder {
 
     public static final String GREETING_MARKER = "hello-php-snow";
+    public static final byte VERSION_MARKER = 'v';
+    public static final int LATEST_PROTOCOL_VERSION = 2;
+    public static final int PARTICLE_SIZE = 4 + 4 + 1;
+    public static final int BASIS_PIXEL_SIZE = 4 + 4 + 1;
 
+    private int protocolVersion = 1;
     private int framesCounter;
 
     @Override
-    public SnowAnimationMetadata decodeMetadata(DataInputStream dataStream, ServerMetadata serverMetadata, Duration duration) throws IOException {
+    public SnowAnimationMetadata decodeMetadata(InputStream stream, ServerMetadata serverMetadata, Duration duration) throws IOException {
+        final DataInputStream dataStream = dataStreamOf(stream);
         readHelloMarker(dataStream);
 
-        final int width = dataStream.readInt();
+        final int width = readProtocolVersionFollowedByWidth(dataStream);
         final int height = dataStream.readInt();
         final int fps = dataStream.readInt();
         final int bufferSizeInFrames = serverMetadata.bufferSizeInFrames(fps);
@@ -37,7 +44,26 @@ public final class BinaryStreamDecoder implements StreamDecoder {
         }
     }
 
-    public SnowBackground decodeBackground(DataInputStream dataStream) throws IOException {
+    private int readProtocolVersionFollowedByWidth(DataInputStream inputStream) throws IOException {
+        final int firstByte = inputStream.readUnsignedByte();
+        if (firstByte != VERSION_MARKER) {
+            return firstByte << 24 | inputStream.readUnsignedByte() << 16 | inputStream.readUnsignedShort();
+        }
+
+        protocolVersion = inputStream.readUnsignedByte();
+        if (protocolVersion < 2 || protocolVersion > LATEST_PROTOCOL_VERSION) {
+            throw new IllegalStateException("Unsupported binary stream protocol version: " + protocolVersion);
+        }
+        return inputStream.readInt();
+    }
+
+    public int protocolVersion() {
+        return protocolVersion;
+    }
+
+    @Override
+    public SnowBackground decodeBackground(InputStream stream) throws IOException {
+        final DataInputStream dataStream = dataStreamOf(stream);
         byte hasBackground = dataStream.readByte();
         if (hasBackground == 0) {
             return SnowBackground.NONE;
@@ -55,7 +81,13 @@ public final class BinaryStreamDecoder implements StreamDecoder {
     }
 
     @Override
-    public SnowDataFrame decodeFrame(DataInputStream dataStream) throws IOException {
+    public SnowDataFrame decodeFrame(InputStream stream) throws IOException {
+        final DataInputStream dataStream = dataStreamOf(stream);
+        final int blockSize = protocolVersion >= 2 ? dataStream.readInt() : 0;
+        if (blockSize == -1) {
+            return SnowDataFrame.LAST;
+        }
+
         // frame num
         final int frameNum = dataStream.readInt();
         if (frameNum == -1) {
@@ -68,6 +100,7 @@ public final class BinaryStreamDecoder implements StreamDecoder {
 
         // particles
         final int chunkSize = dataStream.readInt();
+        ensureBlockSize(blockSize, 2 * 4 + chunkSize * PARTICLE_SIZE);
         final float[] particlesX = new float[chunkSize];
         final float[] particlesY = new float[chunkSize];
         final byte[] flakeShapes = new byte[chunkSize];
@@ -80,8 +113,12 @@ public final class BinaryStreamDecoder implements StreamDecoder {
         return new SnowDataFrame(frameNum, chunkSize, particlesX, particlesY, flakeShapes);
     }
 
-    public SnowBasis decodeBasis(DataInputStream dataStream) throws IOException {
+    @Override
+    public SnowBasis decodeBasis(InputStream stream) throws IOException {
+        final DataInputStream dataStream = dataStreamOf(stream);
+        final int blockSize = protocolVersion >= 2 ? dataStream.readInt() : 0;
         final int numOfPixels = dataStream.readInt();
+        ensureBlockSize(blockSize, 4 + numOfPixels * BASIS_PIXEL_SIZE);
         if (numOfPixels == 0) {
             return SnowBasis.NONE;
         }
@@ -98,4 +135,17 @@ public final class BinaryStreamDecoder implements StreamDecoder {
         return new SnowBasis(numOfPixels, x, y, pixels);
     }
 
+    private void ensureBlockSize(int blockSize, int expectedSize) {
+        if (protocolVersion >= 2 && blockSize != expectedSize) {
+            throw new IllegalStateException("Binary stream protocol issues! Expected block of " + expectedSize
+                    + " bytes but got " + blockSize + "!");
+        }
+    }
+
+    private DataInputStream dataStreamOf(InputStream stream) {
+        return stream instanceof DataInputStream dataStream
+                ? dataStream
+                : new DataInputStream(stream);
+    }
+
 }
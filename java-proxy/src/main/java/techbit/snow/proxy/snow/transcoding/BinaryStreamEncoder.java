@@ -4,6 +4,7 @@ import org.springframework.stereotype.Component;
 import techbit.snow.proxy.dto.SnowAnimationMetadata;
 import techbit.snow.proxy.dto.SnowBackground;
 import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowBasisDelta;
 import techbit.snow.proxy.dto.SnowDataFrame;
 
 import java.io.DataOutputStream;
@@ -44,6 +45,15 @@ public final class BinaryStreamEncoder implements StreamEncoder {
 
     @Override
     public void encodeFrame(SnowDataFrame frame, OutputStream out) throws IOException {
+        if (frame.isRepeated()) {
+            encodeRepeatedFrame(frame, out);
+            return;
+        }
+        if (frame.hasRawBytes()) {
+            out.write(frame.rawBytes());
+            return;
+        }
+
         final DataOutputStream data = new DataOutputStream(out);
 
         data.writeInt(frame.frameNum());
@@ -56,9 +66,21 @@ public final class BinaryStreamEncoder implements StreamEncoder {
         }
     }
 
+    static void encodeRepeatedFrame(SnowDataFrame frame, OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(out);
+
+        data.writeInt(frame.frameNum());
+        data.writeInt(SnowDataFrame.REPEATED);
+        data.writeInt(frame.payloadFrameNum());
+    }
+
     @Override
     public void encodeBasis(SnowBasis basis, OutputStream out) throws IOException {
         final DataOutputStream data = new DataOutputStream(out);
+        if (basis.isDelta() && basis.delta() != null) {
+            encodeBasisDelta(basis.delta(), data);
+            return;
+        }
 
         data.writeInt(basis.numOfPixels());
         data.write(toBytes(basis.x()));
@@ -66,6 +88,17 @@ public final class BinaryStreamEncoder implements StreamEncoder {
         out.write(basis.pixels());
     }
 
+    private void encodeBasisDelta(SnowBasisDelta delta, DataOutputStream data) throws IOException {
+        data.writeInt(SnowBasis.DELTA);
+        data.writeInt(delta.numOfChanged());
+        data.write(toBytes(delta.x()));
+        data.write(toBytes(delta.y()));
+        data.write(delta.pixels());
+        data.writeInt(delta.numOfRemoved());
+        data.write(toBytes(delta.removedX()));
+        data.write(toBytes(delta.removedY()));
+    }
+
     private byte[] toBytes(int[] integers) {
         if (integers.length == 0) {
             return new byte[]{};
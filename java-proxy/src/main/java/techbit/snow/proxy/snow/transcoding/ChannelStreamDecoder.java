@@ -0,0 +1,267 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import jakarta.annotation.Nullable;
+import techbit.snow.proxy.dto.*;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+
+import static techbit.snow.proxy.lang.EmptyArray.NO;
+import static techbit.snow.proxy.snow.transcoding.BinaryStreamDecoder.*;
+
+public final class ChannelStreamDecoder implements StreamDecoder {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_FREE_ARRAYS_PER_SIZE = 128;
+    static final int MAX_CHUNK_SIZE = 1 << 22;
+    static final int MAX_BLOCK_SIZE = 2 * 4 + MAX_CHUNK_SIZE * PARTICLE_SIZE;
+
+    private final boolean keepRawFrames;
+    private final @Nullable ParticlesArraysPool arraysPool;
+    private ByteBuffer buffer;
+    private @Nullable InputStream source;
+    private @Nullable ReadableByteChannel channel;
+    private int protocolVersion = 1;
+    private int framesCounter;
+
+    public ChannelStreamDecoder() {
+        this(false);
+    }
+
+    public ChannelStreamDecoder(boolean keepRawFrames) {
+        this(keepRawFrames, false);
+    }
+
+    public ChannelStreamDecoder(boolean keepRawFrames, boolean recycleFrameArrays) {
+        this(INITIAL_CAPACITY, keepRawFrames, recycleFrameArrays);
+    }
+
+    ChannelStreamDecoder(int initialCapacity, boolean keepRawFrames) {
+        this(initialCapacity, keepRawFrames, false);
+    }
+
+    ChannelStreamDecoder(int initialCapacity, boolean keepRawFrames, boolean recycleFrameArrays) {
+        this.keepRawFrames = keepRawFrames;
+        this.buffer = ByteBuffer.allocateDirect(initialCapacity).flip();
+        this.arraysPool = recycleFrameArrays ? new ParticlesArraysPool(MAX_FREE_ARRAYS_PER_SIZE) : null;
+    }
+
+    @Override
+    public SnowAnimationMetadata decodeMetadata(InputStream stream, ServerMetadata serverMetadata, Duration duration) throws IOException {
+        readHelloMarker(stream);
+        readProtocolVersion(stream);
+
+        final ByteBuffer data = require(stream, 3 * 4);
+        final int width = data.getInt();
+        final int height = data.getInt();
+        final int fps = data.getInt();
+        final int bufferSizeInFrames = serverMetadata.bufferSizeInFrames(fps);
+        final int totalNumberOfFrames = fps * (int) duration.toSeconds();
+
+        return new SnowAnimationMetadata(width, height, fps, bufferSizeInFrames, totalNumberOfFrames);
+    }
+
+    private void readHelloMarker(InputStream stream) throws IOException {
+        for (char c : GREETING_MARKER.toCharArray()) {
+            if (require(stream, 1).get() != c) {
+                throw new IllegalStateException("Expected greeting in the stream!");
+            }
+        }
+    }
+
+    private void readProtocolVersion(InputStream stream) throws IOException {
+        if (require(stream, 1).get(buffer.position()) != VERSION_MARKER) {
+            return;
+        }
+
+        final ByteBuffer data = require(stream, 2);
+        data.get(); // version marker
+        protocolVersion = data.get() & 0xFF;
+        if (protocolVersion < 2 || protocolVersion > LATEST_PROTOCOL_VERSION) {
+            throw new IllegalStateException("Unsupported binary stream protocol version: " + protocolVersion);
+        }
+    }
+
+    public int protocolVersion() {
+        return protocolVersion;
+    }
+
+    @Override
+    public SnowBackground decodeBackground(InputStream stream) throws IOException {
+        final byte hasBackground = require(stream, 1).get();
+        if (hasBackground == 0) {
+            return SnowBackground.NONE;
+        }
+
+        ByteBuffer data = require(stream, 2 * 4);
+        final int canvasWidth = data.getInt();
+        final int canvasHeight = data.getInt();
+
+        data = require(stream, canvasWidth * canvasHeight);
+        final byte[][] pixels = new byte[canvasWidth][canvasHeight];
+        for (int y = 0; y < canvasHeight; ++y) {
+            for (int x = 0; x < canvasWidth; ++x) {
+                pixels[x][y] = data.get();
+            }
+        }
+        return new SnowBackground(canvasWidth, canvasHeight, pixels);
+    }
+
+    @Override
+    public SnowDataFrame decodeFrame(InputStream stream) throws IOException {
+        final int blockSize = readBlockSize(stream, !keepRawFrames);
+        if (blockSize == -1) {
+            return SnowDataFrame.LAST;
+        }
+
+        // frame num
+        final int frameNum = require(stream, 4).getInt();
+        if (frameNum == -1) {
+            return SnowDataFrame.LAST;
+        }
+
+        if (frameNum != ++framesCounter) {
+            throw new IllegalStateException("Binary stream protocol issues! Expected frames in sequence!");
+        }
+
+        // particles
+        final int chunkSize = require(stream, 4).getInt();
+        if (chunkSize < 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalStateException("Binary stream protocol issues! Invalid chunk size: " + chunkSize + "!");
+        }
+        ensureBlockSize(blockSize, 2 * 4 + chunkSize * PARTICLE_SIZE);
+        final byte[] rawBytes = keepRawFrames
+                ? readRawFrame(stream, frameNum, chunkSize)
+                : NO.BYTES;
+        final ByteBuffer data = keepRawFrames
+                ? ByteBuffer.wrap(rawBytes, 2 * 4, chunkSize * PARTICLE_SIZE)
+                : require(stream, chunkSize * PARTICLE_SIZE);
+        final ParticlesArrays arrays = arraysPool != null ? arraysPool.acquire(chunkSize) : null;
+        final float[] particlesX = arrays != null ? arrays.particlesX() : new float[chunkSize];
+        final float[] particlesY = arrays != null ? arrays.particlesY() : new float[chunkSize];
+        final byte[] flakeShapes = arrays != null ? arrays.flakeShapes() : new byte[chunkSize];
+
+        int ptr = data.position();
+        for (int i = 0; i < chunkSize; ++i, ptr += PARTICLE_SIZE) {
+            particlesX[i] = data.getFloat(ptr);
+            particlesY[i] = data.getFloat(ptr + 4);
+            flakeShapes[i] = data.get(ptr + 8);
+        }
+        data.position(ptr);
+
+        return new SnowDataFrame(frameNum, chunkSize, particlesX, particlesY, flakeShapes, SnowBasis.NONE, rawBytes, arrays);
+    }
+
+    private byte[] readRawFrame(InputStream stream, int frameNum, int chunkSize) throws IOException {
+        final ReadableByteChannel input = channelOf(stream);
+        final int particlesSize = chunkSize * PARTICLE_SIZE;
+        final byte[] rawBytes = new byte[2 * 4 + particlesSize];
+        final ByteBuffer raw = ByteBuffer.wrap(rawBytes)
+                .putInt(frameNum)
+                .putInt(chunkSize);
+
+        // particles read ahead are taken from the buffer, the rest goes straight into the frame
+        final int buffered = Math.min(buffer.remaining(), particlesSize);
+        raw.put(raw.position(), buffer, buffer.position(), buffered);
+        raw.position(raw.position() + buffered);
+        buffer.position(buffer.position() + buffered);
+
+        while (raw.hasRemaining()) {
+            if (input.read(raw) < 0) {
+                throw new EOFException("Unexpected end of snow stream!");
+            }
+        }
+        return rawBytes;
+    }
+
+    @Override
+    public SnowBasis decodeBasis(InputStream stream) throws IOException {
+        final int blockSize = readBlockSize(stream, true);
+        final int numOfPixels = require(stream, 4).getInt();
+        ensureBlockSize(blockSize, 4 + numOfPixels * BASIS_PIXEL_SIZE);
+        if (numOfPixels == 0) {
+            return SnowBasis.NONE;
+        }
+
+        final ByteBuffer data = require(stream, numOfPixels * BASIS_PIXEL_SIZE);
+        final int[] x = new int[numOfPixels];
+        final int[] y = new int[numOfPixels];
+        final byte[] pixels = new byte[numOfPixels];
+
+        int ptr = data.position();
+        for (int i = 0; i < numOfPixels; ++i, ptr += BASIS_PIXEL_SIZE) {
+            x[i] = data.getInt(ptr);
+            y[i] = data.getInt(ptr + 4);
+            pixels[i] = data.get(ptr + 8);
+        }
+        data.position(ptr);
+
+        return new SnowBasis(numOfPixels, x, y, pixels);
+    }
+
+    private int readBlockSize(InputStream stream, boolean bufferBlock) throws IOException {
+        if (protocolVersion < 2) {
+            return 0;
+        }
+        final int blockSize = require(stream, 4).getInt();
+        if (blockSize > MAX_BLOCK_SIZE) {
+            // checked before buffering the block, so a corrupted length cannot allocate gigabytes
+            throw new IllegalStateException("Binary stream protocol issues! Block of " + blockSize
+                    + " bytes exceeds the limit of " + MAX_BLOCK_SIZE + " bytes!");
+        }
+        if (blockSize > 0 && bufferBlock) {
+            require(stream, blockSize);
+        }
+        return blockSize;
+    }
+
+    private void ensureBlockSize(int blockSize, int expectedSize) {
+        if (protocolVersion >= 2 && blockSize != expectedSize) {
+            throw new IllegalStateException("Binary stream protocol issues! Expected block of " + expectedSize
+                    + " bytes but got " + blockSize + "!");
+        }
+    }
+
+    private ByteBuffer require(InputStream stream, int numOfBytes) throws IOException {
+        final ReadableByteChannel input = channelOf(stream);
+        if (buffer.remaining() >= numOfBytes) {
+            return buffer;
+        }
+
+        if (buffer.capacity() < numOfBytes) {
+            buffer = ByteBuffer.allocateDirect(Math.max(numOfBytes, buffer.capacity() * 2))
+                    .put(buffer);
+        } else {
+            buffer.compact();
+        }
+
+        while (buffer.position() < numOfBytes) {
+            if (input.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of snow stream!");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private ReadableByteChannel channelOf(InputStream stream) {
+        if (stream != source || channel == null) {
+            source = stream;
+            if (stream instanceof ReadableByteChannel readableChannel) {
+                channel = readableChannel;
+            } else if (stream instanceof FileInputStream fileStream) {
+                channel = fileStream.getChannel();
+            } else {
+                channel = Channels.newChannel(stream);
+            }
+            buffer.clear().flip();
+        }
+        return channel;
+    }
+
+}
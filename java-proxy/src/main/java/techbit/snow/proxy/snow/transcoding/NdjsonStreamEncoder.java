@@ -0,0 +1,239 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.springframework.stereotype.Component;
+import techbit.snow.proxy.dto.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes one JSON object per line through a small fixed buffer that is flushed to the output whenever it fills up,
+ * so encoding a big frame never grows it. Particle coordinates are written with up to {@value #FRACTION_DIGITS}
+ * fractional digits.
+ */
+@Component
+public final class NdjsonStreamEncoder implements StreamEncoder {
+
+    static final int FRACTION_DIGITS = 3;
+    private static final long FRACTION_SCALE = 1000;
+    private static final long MAX_FIXED_POINT = Long.MAX_VALUE / FRACTION_SCALE / 10;
+    static final int LINE_BUFFER_SIZE = 8 * 1024;
+
+    @Override
+    public void encodeMetadata(SnowAnimationMetadata metadata, OutputStream out) throws IOException {
+        new JsonLine(out)
+                .begin("metadata")
+                .field("width").value(metadata.width())
+                .field("height").value(metadata.height())
+                .field("fps").value(metadata.fps())
+                .field("bufferSizeInFrames").value(metadata.bufferSizeInFrames())
+                .field("totalNumberOfFrames").value(metadata.totalNumberOfFrames())
+                .end();
+    }
+
+    @Override
+    public void encodeBackground(SnowBackground background, OutputStream out) throws IOException {
+        final JsonLine line = new JsonLine(out)
+                .begin("background")
+                .field("width").value(background.width())
+                .field("height").value(background.height())
+                .field("pixels").put('[');
+        for (int y = 0; y < background.height(); ++y) {
+            line.separator(y).put('[');
+            for (int x = 0; x < background.width(); ++x) {
+                line.separator(x).value(background.pixels()[x][y] & 0xFF);
+            }
+            line.put(']');
+        }
+        line.put(']').end();
+    }
+
+    @Override
+    public void encodeFrame(SnowDataFrame frame, OutputStream out) throws IOException {
+        if (frame == SnowDataFrame.LAST) {
+            new JsonLine(out).begin("end").end();
+            return;
+        }
+
+        final JsonLine line = new JsonLine(out)
+                .begin("frame")
+                .field("frameNum").value(frame.frameNum());
+        if (frame.isRepeated()) {
+            line.field("sameAsFrame").value(frame.payloadFrameNum()).end();
+            return;
+        }
+
+        final int chunkSize = frame.chunkSize();
+        line.field("chunkSize").value(chunkSize);
+        line.field("x").put('[');
+        for (int i = 0; i < chunkSize; ++i) {
+            line.separator(i).value(frame.x(i));
+        }
+        line.put(']').field("y").put('[');
+        for (int i = 0; i < chunkSize; ++i) {
+            line.separator(i).value(frame.y(i));
+        }
+        line.put(']').field("shapes").put('[');
+        for (int i = 0; i < chunkSize; ++i) {
+            line.separator(i).value(frame.flakeShape(i) & 0xFF);
+        }
+        line.put(']').end();
+    }
+
+    @Override
+    public void encodeBasis(SnowBasis basis, OutputStream out) throws IOException {
+        if (basis == SnowBasis.NONE) {
+            return;
+        }
+
+        final SnowBasisDelta delta = basis.delta();
+        if (basis.isDelta() && delta != null) {
+            new JsonLine(out)
+                    .begin("basisDelta")
+                    .field("x").values(delta.x())
+                    .field("y").values(delta.y())
+                    .field("pixels").values(delta.pixels())
+                    .field("removedX").values(delta.removedX())
+                    .field("removedY").values(delta.removedY())
+                    .end();
+            return;
+        }
+
+        new JsonLine(out)
+                .begin("basis")
+                .field("x").values(basis.x())
+                .field("y").values(basis.y())
+                .field("pixels").values(basis.pixels())
+                .end();
+    }
+
+    static final class JsonLine {
+
+        private final byte[] bytes = new byte[LINE_BUFFER_SIZE];
+        private final OutputStream out;
+        private int size;
+
+        JsonLine(OutputStream out) {
+            this.out = out;
+        }
+
+        JsonLine begin(String type) throws IOException {
+            return put("{\"type\":\"").put(type).put('"');
+        }
+
+        JsonLine field(String name) throws IOException {
+            return put(",\"").put(name).put("\":");
+        }
+
+        JsonLine separator(int idx) throws IOException {
+            return idx > 0 ? put(',') : this;
+        }
+
+        JsonLine values(int[] values) throws IOException {
+            put('[');
+            for (int i = 0; i < values.length; ++i) {
+                separator(i).value(values[i]);
+            }
+            return put(']');
+        }
+
+        JsonLine values(byte[] values) throws IOException {
+            put('[');
+            for (int i = 0; i < values.length; ++i) {
+                separator(i).value(values[i] & 0xFF);
+            }
+            return put(']');
+        }
+
+        JsonLine value(long value) throws IOException {
+            ensureCapacity(20);
+            if (value < 0) {
+                bytes[size++] = '-';
+                if (value == Long.MIN_VALUE) {
+                    return put("9223372036854775808");
+                }
+                value = -value;
+            }
+            final int start = size;
+            do {
+                bytes[size++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            reverse(start, size - 1);
+            return this;
+        }
+
+        JsonLine value(float value) throws IOException {
+            if (!Float.isFinite(value)) {
+                return put("null");
+            }
+
+            long fixedPoint = Math.round((double) value * FRACTION_SCALE);
+            if (Math.abs(fixedPoint) > MAX_FIXED_POINT) {
+                return put(Float.toString(value));
+            }
+            if (fixedPoint < 0) {
+                put('-');
+                fixedPoint = -fixedPoint;
+            }
+            value(fixedPoint / FRACTION_SCALE);
+
+            long fraction = fixedPoint % FRACTION_SCALE;
+            if (fraction == 0) {
+                return this;
+            }
+            int digits = FRACTION_DIGITS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                --digits;
+            }
+            ensureCapacity(1 + FRACTION_DIGITS);
+            bytes[size++] = '.';
+            for (int i = digits - 1; i >= 0; --i) {
+                bytes[size + i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            size += digits;
+            return this;
+        }
+
+        JsonLine put(char c) throws IOException {
+            ensureCapacity(1);
+            bytes[size++] = (byte) c;
+            return this;
+        }
+
+        JsonLine put(String ascii) throws IOException {
+            ensureCapacity(ascii.length());
+            for (int i = 0; i < ascii.length(); ++i) {
+                bytes[size++] = (byte) ascii.charAt(i);
+            }
+            return this;
+        }
+
+        void end() throws IOException {
+            put("}\n");
+            flush();
+        }
+
+        private void flush() throws IOException {
+            out.write(bytes, 0, size);
+            size = 0;
+        }
+
+        private void reverse(int from, int to) {
+            for (; from < to; ++from, --to) {
+                final byte tmp = bytes[from];
+                bytes[from] = bytes[to];
+                bytes[to] = tmp;
+            }
+        }
+
+        private void ensureCapacity(int numOfBytes) throws IOException {
+            if (size + numOfBytes > bytes.length) {
+                flush();
+            }
+        }
+    }
+
+}
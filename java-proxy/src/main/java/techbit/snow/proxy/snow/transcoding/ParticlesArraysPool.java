@@ -0,0 +1,41 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import techbit.snow.proxy.dto.ParticlesArrays;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.stream.IntStream;
+
+final class ParticlesArraysPool {
+
+    private static final int NUM_OF_SIZE_CLASSES = 31;
+
+    private final List<ArrayBlockingQueue<ParticlesArrays>> freeArrays;
+
+    ParticlesArraysPool(int maxFreeArraysPerSize) {
+        freeArrays = IntStream.range(0, NUM_OF_SIZE_CLASSES)
+                .mapToObj(i -> new ArrayBlockingQueue<ParticlesArrays>(maxFreeArraysPerSize))
+                .toList();
+    }
+
+    ParticlesArrays acquire(int chunkSize) {
+        final int sizeClass = sizeClassOf(Math.max(1, chunkSize));
+        final ParticlesArrays arrays = freeArrays.get(sizeClass).poll();
+        return arrays != null
+                ? arrays.lease()
+                : new ParticlesArrays(1 << sizeClass, this::recycle).lease();
+    }
+
+    private void recycle(ParticlesArrays arrays) {
+        freeArrays.get(sizeClassOf(arrays.capacity())).offer(arrays);
+    }
+
+    int numOfFreeArrays() {
+        return freeArrays.stream().mapToInt(ArrayBlockingQueue::size).sum();
+    }
+
+    private static int sizeClassOf(int length) {
+        return 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+
+}
@@ -0,0 +1,134 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.springframework.stereotype.Component;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Frames with coordinates as 16-bit fixed point numbers and flake shapes packed as indices into a per-frame palette.
+ * Number of fraction bits is picked per frame, so that the farthest particle still fits into 16 bits.
+ * Non-finite coordinates do not take precision from the other particles, NaN is encoded as 0 and infinities
+ * are saturated like any other coordinate out of 16-bit range.
+ * Metadata, background and basis are encoded the same way as in {@link BinaryStreamEncoder}.
+ */
+@Component
+public final class QuantizedStreamEncoder implements StreamEncoder {
+
+    static final int MAX_FRACTION_BITS = 15;
+
+    private final BinaryStreamEncoder binaryEncoder = new BinaryStreamEncoder();
+
+    @Override
+    public void encodeMetadata(SnowAnimationMetadata metadata, OutputStream out) throws IOException {
+        binaryEncoder.encodeMetadata(metadata, out);
+    }
+
+    @Override
+    public void encodeBackground(SnowBackground background, OutputStream out) throws IOException {
+        binaryEncoder.encodeBackground(background, out);
+    }
+
+    @Override
+    public void encodeFrame(SnowDataFrame frame, OutputStream out) throws IOException {
+        if (frame.isRepeated()) {
+            BinaryStreamEncoder.encodeRepeatedFrame(frame, out);
+            return;
+        }
+
+        final DataOutputStream data = new DataOutputStream(out);
+        final int chunkSize = frame.chunkSize();
+
+        data.writeInt(frame.frameNum());
+        data.writeInt(chunkSize);
+        if (chunkSize == 0) {
+            return;
+        }
+
+        final int fractionBits = fractionBitsOf(frame);
+        final float scale = 1 << fractionBits;
+        data.writeByte(fractionBits);
+        for (int i = 0; i < chunkSize; ++i) {
+            data.writeShort(quantized(frame.x(i), scale));
+        }
+        for (int i = 0; i < chunkSize; ++i) {
+            data.writeShort(quantized(frame.y(i), scale));
+        }
+
+        writeShapes(frame, data);
+    }
+
+    private void writeShapes(SnowDataFrame frame, DataOutputStream data) throws IOException {
+        final int[] paletteIndices = new int[256];
+        final byte[] palette = new byte[256];
+        int paletteSize = 0;
+
+        Arrays.fill(paletteIndices, -1);
+        for (int i = 0; i < frame.chunkSize(); ++i) {
+            final int shape = frame.flakeShape(i) & 0xFF;
+            if (paletteIndices[shape] == -1) {
+                paletteIndices[shape] = paletteSize;
+                palette[paletteSize++] = (byte) shape;
+            }
+        }
+
+        data.writeByte(paletteSize - 1);
+        data.write(palette, 0, paletteSize);
+
+        final int bitsPerShape = 32 - Integer.numberOfLeadingZeros(paletteSize - 1);
+        if (bitsPerShape == 0) {
+            return;
+        }
+
+        int bits = 0;
+        int numOfBits = 0;
+        for (int i = 0; i < frame.chunkSize(); ++i) {
+            bits = bits << bitsPerShape | paletteIndices[frame.flakeShape(i) & 0xFF];
+            numOfBits += bitsPerShape;
+            if (numOfBits >= 8) {
+                numOfBits -= 8;
+                data.writeByte(bits >>> numOfBits);
+                bits &= (1 << numOfBits) - 1;
+            }
+        }
+        if (numOfBits > 0) {
+            data.writeByte(bits << (8 - numOfBits));
+        }
+    }
+
+    static int fractionBitsOf(SnowDataFrame frame) {
+        float maxAbs = 0;
+        for (int i = 0; i < frame.chunkSize(); ++i) {
+            maxAbs = Math.max(maxAbs, Math.max(finiteAbs(frame.x(i)), finiteAbs(frame.y(i))));
+        }
+        final int integerBits = 32 - Integer.numberOfLeadingZeros((int) Math.ceil(maxAbs));
+        return Math.max(0, MAX_FRACTION_BITS - integerBits);
+    }
+
+    private static float finiteAbs(float value) {
+        return Float.isFinite(value) ? Math.abs(value) : 0;
+    }
+
+    private static short quantized(float value, float scale) {
+        return (short) saturated(value, scale);
+    }
+
+    static int saturated(float value, float scale) {
+        if (Float.isNaN(value)) {
+            return 0;
+        }
+        return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value * scale)));
+    }
+
+    @Override
+    public void encodeBasis(SnowBasis basis, OutputStream out) throws IOException {
+        binaryEncoder.encodeBasis(basis, out);
+    }
+
+}
@@ -0,0 +1,135 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.springframework.stereotype.Component;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static techbit.snow.proxy.snow.transcoding.QuantizedStreamEncoder.fractionBitsOf;
+import static techbit.snow.proxy.snow.transcoding.QuantizedStreamEncoder.saturated;
+
+/**
+ * Frames with particles sorted in Morton (Z-order) of their fixed point coordinates, coordinates written as zig-zag
+ * varint deltas from the previous particle and flake shapes run-length encoded in the same order.
+ * Metadata, background and basis are encoded the same way as in {@link BinaryStreamEncoder}.
+ */
+@Component
+public final class SortedDeltaStreamEncoder implements StreamEncoder {
+
+    private final BinaryStreamEncoder binaryEncoder = new BinaryStreamEncoder();
+
+    @Override
+    public void encodeMetadata(SnowAnimationMetadata metadata, OutputStream out) throws IOException {
+        binaryEncoder.encodeMetadata(metadata, out);
+    }
+
+    @Override
+    public void encodeBackground(SnowBackground background, OutputStream out) throws IOException {
+        binaryEncoder.encodeBackground(background, out);
+    }
+
+    @Override
+    public void encodeFrame(SnowDataFrame frame, OutputStream out) throws IOException {
+        if (frame.isRepeated()) {
+            BinaryStreamEncoder.encodeRepeatedFrame(frame, out);
+            return;
+        }
+
+        final DataOutputStream data = new DataOutputStream(out);
+        final int chunkSize = frame.chunkSize();
+
+        data.writeInt(frame.frameNum());
+        data.writeInt(chunkSize);
+        if (chunkSize == 0) {
+            return;
+        }
+
+        final int fractionBits = fractionBitsOf(frame);
+        final float scale = 1 << fractionBits;
+        final int[] x = new int[chunkSize];
+        final int[] y = new int[chunkSize];
+        for (int i = 0; i < chunkSize; ++i) {
+            x[i] = saturated(frame.x(i), scale);
+            y[i] = saturated(frame.y(i), scale);
+        }
+        final int[] order = mortonOrderOf(x, y);
+
+        data.writeByte(fractionBits);
+        int prevX = 0;
+        int prevY = 0;
+        for (int idx : order) {
+            writeVarInt(data, zigZag(x[idx] - prevX));
+            writeVarInt(data, zigZag(y[idx] - prevY));
+            prevX = x[idx];
+            prevY = y[idx];
+        }
+
+        int runLength = 0;
+        byte runShape = frame.flakeShape(order[0]);
+        for (int idx : order) {
+            final byte shape = frame.flakeShape(idx);
+            if (shape != runShape) {
+                writeVarInt(data, runLength);
+                data.writeByte(runShape);
+                runShape = shape;
+                runLength = 0;
+            }
+            ++runLength;
+        }
+        writeVarInt(data, runLength);
+        data.writeByte(runShape);
+    }
+
+    static int[] mortonOrderOf(int[] x, int[] y) {
+        final int minX = Arrays.stream(x).min().orElse(0);
+        final int minY = Arrays.stream(y).min().orElse(0);
+        final long[] keys = new long[x.length];
+        for (int i = 0; i < x.length; ++i) {
+            keys[i] = Integer.toUnsignedLong(morton(x[i] - minX, y[i] - minY)) << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        final int[] order = new int[x.length];
+        for (int i = 0; i < keys.length; ++i) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    static int morton(int x, int y) {
+        return spreadBits(x) | spreadBits(y) << 1;
+    }
+
+    private static int spreadBits(int value) {
+        int bits = value & 0xFFFF;
+        bits = (bits | bits << 8) & 0x00FF00FF;
+        bits = (bits | bits << 4) & 0x0F0F0F0F;
+        bits = (bits | bits << 2) & 0x33333333;
+        bits = (bits | bits << 1) & 0x55555555;
+        return bits;
+    }
+
+    static int zigZag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    static void writeVarInt(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    @Override
+    public void encodeBasis(SnowBasis basis, OutputStream out) throws IOException {
+        binaryEncoder.encodeBasis(basis, out);
+    }
+
+}
@@ -0,0 +1,42 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import techbit.snow.proxy.error.InvalidRequestException;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+public enum StreamCodec {
+
+    /** Particles as two 32-bit floats and a shape byte. */
+    BINARY("binary", BinaryStreamEncoder::new),
+    /** Particles as two 16-bit fixed point numbers and a shape index into per-frame palette. */
+    QUANTIZED("quantized", QuantizedStreamEncoder::new),
+    /** Particles in Morton order as zig-zag varint deltas and run-length encoded shapes. */
+    SORTED_DELTA("sorted-delta", SortedDeltaStreamEncoder::new);
+
+    private final String id;
+    private final Supplier<StreamEncoder> encoderFactory;
+
+    StreamCodec(String id, Supplier<StreamEncoder> encoderFactory) {
+        this.id = id;
+        this.encoderFactory = encoderFactory;
+    }
+
+    @JsonValue
+    public String id() {
+        return id;
+    }
+
+    public StreamEncoder createEncoder() {
+        return encoderFactory.get();
+    }
+
+    public static StreamCodec fromId(String id) {
+        return Arrays.stream(values())
+                .filter(codec -> codec.id.equals(id))
+                .findFirst()
+                .orElseThrow(() -> new InvalidRequestException("Unknown stream codec: " + id));
+    }
+
+}
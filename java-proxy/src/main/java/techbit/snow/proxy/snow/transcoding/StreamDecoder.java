@@ -2,18 +2,18 @@ package techbit.snow.proxy.snow.transcoding;
 
 import techbit.snow.proxy.dto.*;
 
-import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 
 public interface StreamDecoder {
 
-    SnowAnimationMetadata decodeMetadata(DataInputStream dataStream, ServerMetadata serverMetadata, Duration duration) throws IOException;
+    SnowAnimationMetadata decodeMetadata(InputStream stream, ServerMetadata serverMetadata, Duration duration) throws IOException;
 
-    SnowBackground decodeBackground(DataInputStream dataInputStream) throws IOException;
+    SnowBackground decodeBackground(InputStream stream) throws IOException;
 
-    SnowDataFrame decodeFrame(DataInputStream dataStream) throws IOException;
+    SnowDataFrame decodeFrame(InputStream stream) throws IOException;
 
-    SnowBasis decodeBasis(DataInputStream dataStream) throws IOException;
+    SnowBasis decodeBasis(InputStream stream) throws IOException;
 
 }
@@ -5,6 +5,7 @@ import techbit.snow.proxy.dto.SnowBackground;
 import techbit.snow.proxy.dto.SnowBasis;
 import techbit.snow.proxy.dto.SnowDataFrame;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -18,4 +19,29 @@ public interface StreamEncoder {
 
     void encodeBasis(SnowBasis basis, OutputStream out) throws IOException;
 
+    /**
+     * Encodes frame followed by basis once per encoder type and shares the bytes with other clients.
+     * Returned array must not be modified.
+     */
+    default byte[] encodeShared(SnowDataFrame frame, SnowBasis basis) throws IOException {
+        final boolean basisOfFrame = basis == frame.basis()
+                || basis.isDelta() && basis.delta() == frame.basis().delta();
+        if (basis != SnowBasis.NONE && !basisOfFrame) {
+            return encodeFrameWithBasis(frame, basis);
+        }
+        return frame.encoded().computeIfAbsent(
+                new SharedEncodingKey(getClass(), basis != SnowBasis.NONE, basis.isDelta()),
+                () -> encodeFrameWithBasis(frame, basis));
+    }
+
+    private byte[] encodeFrameWithBasis(SnowDataFrame frame, SnowBasis basis) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(frame.sizeInBytes() + 2 * 4);
+        encodeFrame(frame, output);
+        encodeBasis(basis, output);
+        return output.toByteArray();
+    }
+
+    record SharedEncodingKey(Class<?> encoderType, boolean withBasis, boolean basisDelta) {
+    }
+
 }
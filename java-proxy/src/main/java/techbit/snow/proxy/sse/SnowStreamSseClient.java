@@ -0,0 +1,109 @@
+package techbit.snow.proxy.sse;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.stream.SnowHandshake;
+import techbit.snow.proxy.snow.stream.SnowStreamClient;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Sends handshake, frames and end of the stream as "handshake", "frame" and "end" events.
+ * Frame events have frame number as their id, so reconnecting EventSource can resume from it.
+ * Textual encoders have their lines sent as separate data fields, other encoders are sent as base64.
+ */
+public final class SnowStreamSseClient implements SnowStreamClient {
+
+    private final SseEmitter emitter;
+    private final StreamEncoder encoder;
+    private final boolean textual;
+    private final int resumeAfterFrameNum;
+    private volatile boolean isActive = true;
+
+    public SnowStreamSseClient(SseEmitter emitter, StreamEncoder encoder, boolean textual, int resumeAfterFrameNum) {
+        this.emitter = emitter;
+        this.encoder = encoder;
+        this.textual = textual;
+        this.resumeAfterFrameNum = resumeAfterFrameNum;
+    }
+
+    @Override
+    public void startStreaming(SnowAnimationMetadata metadata, SnowBackground background) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        encoder.encodeMetadata(metadata, output);
+        encoder.encodeBackground(background, output);
+        send(withData(SseEmitter.event().name("handshake"), output.toByteArray()));
+    }
+
+    @Override
+    public void startStreaming(SnowHandshake handshake) throws IOException {
+        send(withData(SseEmitter.event().name("handshake"), handshake.encodedWith(encoder)));
+    }
+
+    @Override
+    public void streamFrame(SnowDataFrame frame, SnowBasis basis) throws IOException {
+        if (frame == SnowDataFrame.LAST) {
+            send(SseEmitter.event().name("end").data(""));
+            return;
+        }
+        send(withData(SseEmitter.event().id(Integer.toString(frame.frameNum())).name("frame"),
+                encoder.encodeShared(frame, basis)));
+    }
+
+    @Override
+    public void stopStreaming() {
+        isActive = false;
+        emitter.complete();
+    }
+
+    @Override
+    public boolean continueStreaming() {
+        return isActive;
+    }
+
+    @Override
+    public boolean acceptsRepeatedFrames() {
+        return true;
+    }
+
+    @Override
+    public boolean acceptsBasisDelta() {
+        return true;
+    }
+
+    @Override
+    public int resumeAfterFrameNum() {
+        return resumeAfterFrameNum;
+    }
+
+    public void deactivate() {
+        isActive = false;
+    }
+
+    private SseEventBuilder withData(SseEventBuilder event, byte[] bytes) {
+        if (!textual) {
+            return event.data(Base64.getEncoder().encodeToString(bytes));
+        }
+        for (String line : new String(bytes, StandardCharsets.UTF_8).split("\n")) {
+            event.data(line);
+        }
+        return event;
+    }
+
+    private void send(SseEventBuilder event) throws IOException {
+        try {
+            emitter.send(event);
+        } catch (IllegalStateException e) {
+            throw new IOException("Event stream is already closed!", e);
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package techbit.snow.proxy.sse;
+
+import jakarta.annotation.Nullable;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import techbit.snow.proxy.error.InvalidRequestException;
+import techbit.snow.proxy.error.InvalidSessionException;
+import techbit.snow.proxy.proxy.ProxyService;
+import techbit.snow.proxy.snow.stream.SnowStream;
+import techbit.snow.proxy.snow.transcoding.NdjsonStreamEncoder;
+import techbit.snow.proxy.snow.transcoding.StreamCodec;
+
+import java.io.IOException;
+
+/**
+ * Url follows pattern: https://domain.com/sse/<session-id>?codec=<json|binary|quantized|sorted-delta>
+ */
+@Log4j2
+@RestController
+public final class SseController {
+
+    static final String JSON_CODEC = "json";
+
+    private final ProxyService streaming;
+    private final NdjsonStreamEncoder jsonEncoder;
+    private final TaskExecutor executor;
+
+    public SseController(ProxyService streaming, NdjsonStreamEncoder jsonEncoder,
+                         @Qualifier("streamAsyncTaskExecutor") TaskExecutor executor) {
+        this.streaming = streaming;
+        this.jsonEncoder = jsonEncoder;
+        this.executor = executor;
+    }
+
+    @GetMapping({"/sse/{sessionId}", "/sse/{sessionId}/"})
+    public SseEmitter streamEvents(
+            @PathVariable String sessionId,
+            @RequestParam(defaultValue = JSON_CODEC) String codec,
+            @RequestHeader(name = "Last-Event-ID", required = false) @Nullable String lastEventId
+    ) {
+        log.debug("streamEvents( {}, {}, {} )", sessionId, codec, lastEventId);
+
+        if (!streaming.hasSession(sessionId)) {
+            throw new InvalidSessionException("Please start session first. Unknown session: " + sessionId);
+        }
+
+        final SseEmitter emitter = new SseEmitter();
+        final SnowStreamSseClient client = createClient(emitter, codec, toFrameNum(lastEventId));
+        emitter.onCompletion(client::deactivate);
+        emitter.onTimeout(client::deactivate);
+        emitter.onError(e -> client.deactivate());
+
+        executor.execute(() -> stream(sessionId, emitter, client));
+        return emitter;
+    }
+
+    private void stream(String sessionId, SseEmitter emitter, SnowStreamSseClient client) {
+        try {
+            streaming.streamSessionTo(sessionId, client);
+        } catch (IOException | SnowStream.ConsumerThreadException e) {
+            log.debug("streamEvents( {} ) | Streaming failed: {}", sessionId, e.getMessage());
+            emitter.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    SnowStreamSseClient createClient(SseEmitter emitter, String codec, int resumeAfterFrameNum) {
+        if (JSON_CODEC.equals(codec)) {
+            return new SnowStreamSseClient(emitter, jsonEncoder, true, resumeAfterFrameNum);
+        }
+        return new SnowStreamSseClient(emitter, StreamCodec.fromId(codec).createEncoder(), false, resumeAfterFrameNum);
+    }
+
+    private int toFrameNum(@Nullable String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Last-Event-ID should be a frame number, got: " + lastEventId);
+        }
+    }
+
+}
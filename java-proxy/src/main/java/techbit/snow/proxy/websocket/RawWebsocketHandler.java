@@ -0,0 +1,119 @@
+package techbit.snow.proxy.websocket;
+
+import com.google.common.collect.Maps;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import techbit.snow.proxy.error.InvalidRequestException;
+import techbit.snow.proxy.proxy.ProxyService;
+import techbit.snow.proxy.snow.stream.SnowStream;
+import techbit.snow.proxy.snow.transcoding.StreamCodec;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Streams encoded frames as plain binary messages, without STOMP framing and broker routing.
+ * Url follows pattern: ws://domain.com/ws-raw/<session-id>?codec=<codec>
+ */
+@Log4j2
+@Component
+public final class RawWebsocketHandler extends BinaryWebSocketHandler {
+
+    private final ProxyService streaming;
+    private final TaskExecutor executor;
+    private final int sendTimeLimitMillis;
+    private final int sendBufferSizeLimit;
+    private final Map<String, SnowStreamRawWebsocketClient> clients = Maps.newConcurrentMap();
+
+    public RawWebsocketHandler(
+            ProxyService streaming,
+            @Qualifier("websocketStreamExecutor") TaskExecutor executor,
+            @Value("#{ ${phpsnow.raw-websocket.send-time-limit-in-seconds} * 1000 }") int sendTimeLimitMillis,
+            @Value("#{ ${phpsnow.raw-websocket.send-buffer-size-in-kilobytes} * 1024 }") int sendBufferSizeLimit
+    ) {
+        this.streaming = streaming;
+        this.executor = executor;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        final UriComponents uri = UriComponentsBuilder.fromUri(Objects.requireNonNullElse(session.getUri(), URI.create("/")))
+                .build();
+        final List<String> path = uri.getPathSegments();
+        final String sessionId = path.isEmpty() ? "" : path.get(path.size() - 1);
+        log.debug("afterConnectionEstablished( {} )", sessionId);
+
+        if (!streaming.hasSession(sessionId)) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Unknown session: " + sessionId));
+            return;
+        }
+
+        final StreamCodec codec;
+        try {
+            codec = StreamCodec.fromId(Objects.requireNonNullElse(uri.getQueryParams().getFirst("codec"), "binary"));
+        } catch (InvalidRequestException e) {
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+
+        final SnowStreamRawWebsocketClient client = createClient(
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, sendBufferSizeLimit), codec);
+        clients.put(session.getId(), client);
+        try {
+            executor.execute(() -> stream(sessionId, session, client));
+        } catch (TaskRejectedException e) {
+            clients.remove(session.getId());
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason("Too many viewers, try again later."));
+        }
+    }
+
+    private void stream(String sessionId, WebSocketSession session, SnowStreamRawWebsocketClient client) {
+        try {
+            streaming.streamSessionTo(sessionId, client);
+        } catch (IOException | SnowStream.ConsumerThreadException e) {
+            log.debug("stream( {} ) | Streaming to {} failed: {}", sessionId, session.getId(), e.getMessage());
+            closeQuietly(session, CloseStatus.SERVER_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeQuietly(session, CloseStatus.GOING_AWAY);
+        } finally {
+            clients.remove(session.getId());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        final SnowStreamRawWebsocketClient client = clients.remove(session.getId());
+        if (client != null) {
+            client.deactivate();
+        }
+    }
+
+    SnowStreamRawWebsocketClient createClient(WebSocketSession session, StreamCodec codec) {
+        return new SnowStreamRawWebsocketClient(session, codec.createEncoder());
+    }
+
+    private void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("closeQuietly( {} ) | {}", session.getId(), e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package techbit.snow.proxy.websocket;
+
+import jakarta.annotation.Nullable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.stream.SnowHandshake;
+import techbit.snow.proxy.snow.stream.SnowStreamClient;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes frames of a session once to a shared topic, so the broker fans them out to all viewers.
+ * Viewers joining late first get handshake and latest frame with its full basis on their user queue,
+ * everything published to the topic before that should be ignored by them.
+ */
+public final class SnowStreamBroadcastClient implements SnowStreamClient {
+
+    private final String topic;
+    private final StreamEncoder encoder;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<String> viewers = new HashSet<>();
+    private SnowHandshake handshake = SnowHandshake.NONE;
+    private @Nullable SnowDataFrame latestPayloadFrame;
+    private SnowBasis latestBasis = SnowBasis.NONE;
+    private volatile boolean isActive = true;
+
+    public SnowStreamBroadcastClient(String topic, SimpMessagingTemplate messagingTemplate, StreamEncoder encoder) {
+        this.topic = topic;
+        this.messagingTemplate = messagingTemplate;
+        this.encoder = encoder;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public boolean join(String viewer) throws IOException {
+        lock.lock();
+        try {
+            if (!isActive) {
+                return false;
+            }
+            viewers.add(viewer);
+            if (handshake != SnowHandshake.NONE) {
+                catchUp(viewer);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void leave(String viewer) {
+        lock.lock();
+        try {
+            viewers.remove(viewer);
+            if (viewers.isEmpty()) {
+                isActive = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void startStreaming(SnowAnimationMetadata metadata, SnowBackground background) throws IOException {
+        startStreaming(new SnowHandshake(metadata, background, false));
+    }
+
+    @Override
+    public void startStreaming(SnowHandshake handshake) throws IOException {
+        lock.lock();
+        try {
+            this.handshake = handshake;
+            for (String viewer : viewers) {
+                catchUp(viewer);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void streamFrame(SnowDataFrame frame, SnowBasis basis) throws IOException {
+        lock.lock();
+        try {
+            if (viewers.isEmpty()) {
+                // topic may be already taken over by next broadcast of the session
+                return;
+            }
+            messagingTemplate.convertAndSend(topic, encoder.encodeShared(frame, basis));
+            if (frame != SnowDataFrame.LAST) {
+                latestBasis = frame.basis();
+                if (!frame.isRepeated()) {
+                    latestPayloadFrame = frame;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stopStreaming() {
+        isActive = false;
+    }
+
+    @Override
+    public boolean continueStreaming() {
+        return isActive;
+    }
+
+    @Override
+    public boolean acceptsRepeatedFrames() {
+        return true;
+    }
+
+    @Override
+    public boolean acceptsBasisDelta() {
+        return true;
+    }
+
+    public void deactivate() {
+        isActive = false;
+    }
+
+    private void catchUp(String viewer) throws IOException {
+        messagingTemplate.convertAndSendToUser(viewer, "/stream/", handshake.encodedWith(encoder));
+        if (latestPayloadFrame != null) {
+            messagingTemplate.convertAndSendToUser(viewer, "/stream/",
+                    encoder.encodeShared(latestPayloadFrame, latestBasis));
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package techbit.snow.proxy.websocket;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.stream.SnowHandshake;
+import techbit.snow.proxy.snow.stream.SnowStreamClient;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public final class SnowStreamRawWebsocketClient implements SnowStreamClient {
+
+    private final WebSocketSession session;
+    private final StreamEncoder encoder;
+    private volatile boolean isActive = true;
+
+    public SnowStreamRawWebsocketClient(WebSocketSession session, StreamEncoder encoder) {
+        this.session = session;
+        this.encoder = encoder;
+    }
+
+    @Override
+    public Object identifier() {
+        return session.getId();
+    }
+
+    @Override
+    public void startStreaming(SnowAnimationMetadata metadata, SnowBackground background) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        encoder.encodeMetadata(metadata, output);
+        encoder.encodeBackground(background, output);
+        send(output.toByteArray());
+    }
+
+    @Override
+    public void startStreaming(SnowHandshake handshake) throws IOException {
+        send(handshake.encodedWith(encoder));
+    }
+
+    @Override
+    public void streamFrame(SnowDataFrame frame, SnowBasis basis) throws IOException {
+        send(encoder.encodeShared(frame, basis));
+    }
+
+    @Override
+    public void stopStreaming() throws IOException {
+        isActive = false;
+        session.close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public boolean continueStreaming() {
+        return isActive && session.isOpen();
+    }
+
+    @Override
+    public boolean acceptsRepeatedFrames() {
+        return true;
+    }
+
+    @Override
+    public boolean acceptsBasisDelta() {
+        return true;
+    }
+
+    public void deactivate() {
+        isActive = false;
+    }
+
+    private void send(byte[] bytes) throws IOException {
+        try {
+            session.sendMessage(new BinaryMessage(bytes));
+        } catch (SessionLimitExceededException e) {
+            throw new IOException("Websocket client is not keeping up with the stream!", e);
+        }
+    }
+
+}
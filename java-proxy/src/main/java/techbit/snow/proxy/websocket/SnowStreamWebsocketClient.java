@@ -5,6 +5,7 @@ import techbit.snow.proxy.dto.SnowAnimationMetadata;
 import techbit.snow.proxy.dto.SnowBackground;
 import techbit.snow.proxy.dto.SnowBasis;
 import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.stream.SnowHandshake;
 import techbit.snow.proxy.snow.stream.SnowStreamClient;
 import techbit.snow.proxy.snow.transcoding.StreamEncoder;
 
@@ -17,7 +18,7 @@ public final class SnowStreamWebsocketClient implements SnowStreamClient {
     private final StreamEncoder encoder;
     private final ByteArrayOutputStream output;
     private final SimpMessagingTemplate messagingTemplate;
-    private boolean isActive = true;
+    private volatile boolean isActive = true;
 
     public SnowStreamWebsocketClient(String clientId, SimpMessagingTemplate messagingTemplate, StreamEncoder encoder) {
         this(clientId, messagingTemplate, encoder, new ByteArrayOutputStream());
@@ -39,11 +40,14 @@ public final class SnowStreamWebsocketClient implements SnowStreamClient {
         sendToWebsocketClient();
     }
 
+    @Override
+    public void startStreaming(SnowHandshake handshake) throws IOException {
+        messagingTemplate.convertAndSendToUser(clientId, "/stream/", handshake.encodedWith(encoder));
+    }
+
     @Override
     public void streamFrame(SnowDataFrame frame, SnowBasis basis) throws IOException {
-        encoder.encodeFrame(frame, output);
-        encoder.encodeBasis(basis, output);
-        sendToWebsocketClient();
+        messagingTemplate.convertAndSendToUser(clientId, "/stream/", encoder.encodeShared(frame, basis));
     }
 
     @Override
@@ -57,6 +61,16 @@ public final class SnowStreamWebsocketClient implements SnowStreamClient {
         return isActive;
     }
 
+    @Override
+    public boolean acceptsRepeatedFrames() {
+        return true;
+    }
+
+    @Override
+    public boolean acceptsBasisDelta() {
+        return true;
+    }
+
     private void sendToWebsocketClient() {
         messagingTemplate.convertAndSendToUser(clientId, "/stream/", output.toByteArray());
         output.reset();
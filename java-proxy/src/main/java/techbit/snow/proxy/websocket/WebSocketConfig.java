@@ -3,19 +3,20 @@ package techbit.snow.proxy.websocket;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
-import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
-import org.springframework.web.socket.config.annotation.StompWebSocketEndpointRegistration;
-import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.*;
 
 @Configuration
+@EnableWebSocket
 @EnableWebSocketMessageBroker
-public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer, WebSocketConfigurer {
 
     private final String[] allowedOrigins;
+    private final RawWebsocketHandler rawWebsocketHandler;
 
-    public WebSocketConfig(@Value("${phpsnow.allowed-origins}") String allowedOrigins) {
+    public WebSocketConfig(@Value("${phpsnow.allowed-origins}") String allowedOrigins,
+                           RawWebsocketHandler rawWebsocketHandler) {
         this.allowedOrigins = allowedOrigins.trim().replaceAll(" +", " ").split(" ");
+        this.rawWebsocketHandler = rawWebsocketHandler;
     }
 
 
@@ -26,9 +27,15 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         endpoint.setAllowedOrigins(allowedOrigins);
     }
 
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(rawWebsocketHandler, "/ws-raw/*")
+                .setAllowedOrigins(allowedOrigins);
+    }
+
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
-        registry.enableSimpleBroker("/user/");
+        registry.enableSimpleBroker("/user/", "/topic/");
         registry.setUserDestinationPrefix("/user/");
         registry.setPreservePublishOrder(true);
     }
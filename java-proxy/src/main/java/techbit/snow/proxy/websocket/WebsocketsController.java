@@ -1,8 +1,13 @@
 package techbit.snow.proxy.websocket;
 
 import com.google.common.collect.Maps;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
@@ -10,36 +15,115 @@ import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 import techbit.snow.proxy.error.InvalidSessionException;
 import techbit.snow.proxy.proxy.ProxyService;
 import techbit.snow.proxy.snow.stream.SnowStream;
-import techbit.snow.proxy.snow.transcoding.BinaryStreamEncoder;
+import techbit.snow.proxy.snow.transcoding.StreamCodec;
 
 import java.io.IOException;
 import java.security.Principal;
 import java.util.Map;
 
+@Log4j2
 @Controller
 public final class WebsocketsController implements ApplicationListener<SessionDisconnectEvent> {
 
     private final ProxyService streaming;
     private final SimpMessagingTemplate messagingTemplate;
+    private final TaskExecutor executor;
     private final Map<Principal, SnowStreamWebsocketClient> clients = Maps.newConcurrentMap();
+    private final Map<String, SnowStreamBroadcastClient> broadcasts = Maps.newConcurrentMap();
+    private final Map<Principal, SnowStreamBroadcastClient> viewers = Maps.newConcurrentMap();
 
-    public WebsocketsController(SimpMessagingTemplate messagingTemplate, ProxyService streaming) {
+    public WebsocketsController(SimpMessagingTemplate messagingTemplate, ProxyService streaming,
+                                @Qualifier("websocketStreamExecutor") TaskExecutor executor) {
         this.messagingTemplate = messagingTemplate;
         this.streaming = streaming;
+        this.executor = executor;
     }
 
     @MessageMapping("/stream/{sessionId}")
-    public void stream(@DestinationVariable String sessionId, Principal user)
-            throws InterruptedException, IOException, SnowStream.ConsumerThreadException
+    public void stream(@DestinationVariable String sessionId,
+                       @Header(name = "codec", defaultValue = "binary") String codec, Principal user)
     {
         if (!streaming.hasSession(sessionId)) {
             throw new InvalidSessionException("Please start session first. Unknown session: " + sessionId);
         }
 
-        final SnowStreamWebsocketClient client = createClient(user.getName());
+        final SnowStreamWebsocketClient client = createClient(user.getName(), StreamCodec.fromId(codec));
         clients.put(user, client);
 
-        streaming.streamSessionTo(sessionId, client);
+        // inbound channel threads are left for control messages only
+        try {
+            executor.execute(() -> streamToClient(sessionId, user, client));
+        } catch (TaskRejectedException e) {
+            client.deactivate();
+            clients.remove(user, client);
+            throw e;
+        }
+    }
+
+    @MessageMapping("/broadcast/{sessionId}")
+    public void broadcast(@DestinationVariable String sessionId,
+                          @Header(name = "codec", defaultValue = "binary") String codec, Principal user)
+            throws IOException
+    {
+        if (!streaming.hasSession(sessionId)) {
+            throw new InvalidSessionException("Please start session first. Unknown session: " + sessionId);
+        }
+
+        final StreamCodec streamCodec = StreamCodec.fromId(codec);
+        final String topic = "/topic/session/" + sessionId + "/" + streamCodec.id();
+        while (true) {
+            final SnowStreamBroadcastClient created = createBroadcastClient(topic, streamCodec);
+            final SnowStreamBroadcastClient existing = broadcasts.putIfAbsent(topic, created);
+            final SnowStreamBroadcastClient broadcast = existing == null ? created : existing;
+            if (!broadcast.join(user.getName())) {
+                // last viewer has just left, broadcast is going down
+                broadcasts.remove(topic, broadcast);
+                continue;
+            }
+            final SnowStreamBroadcastClient previous = viewers.put(user, broadcast);
+            if (previous != null && previous != broadcast) {
+                previous.leave(user.getName());
+            }
+            if (existing == null) {
+                try {
+                    executor.execute(() -> streamBroadcast(sessionId, broadcast));
+                } catch (TaskRejectedException e) {
+                    endBroadcast(broadcast);
+                    throw e;
+                }
+            }
+            return;
+        }
+    }
+
+    private void streamToClient(String sessionId, Principal user, SnowStreamWebsocketClient client) {
+        try {
+            streaming.streamSessionTo(sessionId, client);
+        } catch (IOException | SnowStream.ConsumerThreadException e) {
+            log.debug("streamToClient( {} ) | Streaming to {} failed: {}", sessionId, user.getName(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clients.remove(user, client);
+        }
+    }
+
+    private void streamBroadcast(String sessionId, SnowStreamBroadcastClient broadcast) {
+        try {
+            streaming.streamSessionTo(sessionId, broadcast);
+        } catch (IOException | SnowStream.ConsumerThreadException e) {
+            log.debug("streamBroadcast( {} ) | Broadcasting to {} failed: {}", sessionId, broadcast.topic(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            endBroadcast(broadcast);
+        }
+    }
+
+    private void endBroadcast(SnowStreamBroadcastClient broadcast) {
+        broadcast.deactivate();
+        broadcasts.remove(broadcast.topic(), broadcast);
+        viewers.values().removeIf(viewed -> viewed == broadcast);
     }
 
     @Override
@@ -49,10 +133,18 @@ public final class WebsocketsController implements ApplicationListener<SessionDi
             clients.get(user).deactivate();
             clients.remove(user);
         }
+        final SnowStreamBroadcastClient broadcast = viewers.remove(user);
+        if (broadcast != null) {
+            broadcast.leave(user.getName());
+        }
+    }
+
+    SnowStreamWebsocketClient createClient(String clientId, StreamCodec codec) {
+        return new SnowStreamWebsocketClient(clientId, messagingTemplate, codec.createEncoder());
     }
 
-    SnowStreamWebsocketClient createClient(String clientId) {
-        return new SnowStreamWebsocketClient(clientId, messagingTemplate, new BinaryStreamEncoder());
+    SnowStreamBroadcastClient createBroadcastClient(String topic, StreamCodec codec) {
+        return new SnowStreamBroadcastClient(topic, messagingTemplate, codec.createEncoder());
     }
 
 }
@@ -6,12 +6,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.MockedConstruction;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.time.Duration;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,7 +28,10 @@ class AsyncConfigurationTest {
                 Duration.ofHours(1),
                 119,
                 19,
-                99
+                99,
+                999,
+                3,
+                false
         );
     }
 
@@ -42,6 +48,41 @@ class AsyncConfigurationTest {
         }
     }
 
+    @Test
+    void whenProvidingWebsocketStreamExecutor_thenItDoesNotQueueStreams() {
+        try (MockedConstruction<?> mocked = mockConstruction(ThreadPoolTaskExecutor.class)) {
+
+            conf.websocketStreamExecutor();
+
+            ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) mocked.constructed().get(0);
+            verify(executor).setCorePoolSize(19);
+            verify(executor).setMaxPoolSize(999);
+            verify(executor).setQueueCapacity(0);
+        }
+    }
+
+    @Test
+    void whenProvidingReactiveStreamExecutor_thenItHasFixedNumberOfThreads() {
+        try (MockedConstruction<?> mocked = mockConstruction(ThreadPoolTaskExecutor.class)) {
+
+            conf.reactiveStreamExecutor();
+
+            ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) mocked.constructed().get(0);
+            verify(executor).setCorePoolSize(3);
+            verify(executor).setMaxPoolSize(3);
+        }
+    }
+
+    @Test
+    void givenVirtualThreadsRequested_whenProvidingStreamExecutors_thenPoolsAreUsedOnlyWithoutVirtualThreads() {
+        conf = new AsyncConfiguration(Duration.ofHours(1), 119, 19, 99, 999, 3, true);
+        boolean virtualSupported = Runtime.version().feature() >= 21;
+
+        assertEquals(virtualSupported, conf.getAsyncExecutor() instanceof SimpleAsyncTaskExecutor);
+        assertEquals(virtualSupported, conf.websocketStreamExecutor() instanceof SimpleAsyncTaskExecutor);
+        assertInstanceOf(ThreadPoolTaskExecutor.class, conf.reactiveStreamExecutor());
+    }
+
     @Test
     void whenProvidingMvcConfig_thenItIsProperlyConfigured() {
         AsyncTaskExecutor taskExecutor = mock(AsyncTaskExecutor.class);
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import techbit.snow.proxy.snow.php.PipeTransport;
+import techbit.snow.proxy.snow.stream.SlowConsumerPolicy;
 
 import java.math.BigDecimal;
 import java.time.Duration;
@@ -33,7 +35,7 @@ class PhpSnowConfigConverterTest {
     @BeforeEach
     void setup() {
         converter = new PhpSnowConfigConverter(
-                "somePreset", 101, 53, Duration.ofMinutes(3), 23, validator);
+                "somePreset", 101, 53, Duration.ofMinutes(3), 23, "fifo", "catch-up", 23, validator);
     }
 
     @Test
@@ -45,6 +47,27 @@ class PhpSnowConfigConverterTest {
         assertEquals(101, config.width());
         assertEquals(53, config.height());
         assertEquals(23, config.fps());
+        assertEquals(PipeTransport.FIFO, config.transport());
+        assertEquals(SlowConsumerPolicy.CATCH_UP, config.slowConsumerPolicy());
+        assertEquals(23, config.slowConsumerFrames());
+    }
+
+    @Test
+    void givenTransport_whenConvertFromMap_thenReturnsValidConfigObject() {
+        PhpSnowConfig config = converter.fromMap(Map.of("transport", "shm"));
+
+        assertEquals(PipeTransport.SHARED_MEMORY, config.transport());
+    }
+
+    @Test
+    void givenSlowConsumerPolicy_whenConvertFromMap_thenReturnsValidConfigObject() {
+        PhpSnowConfig config = converter.fromMap(Map.of(
+                "slowConsumerPolicy", "drop-every-nth",
+                "slowConsumerFrames", "4"
+        ));
+
+        assertEquals(SlowConsumerPolicy.DROP_EVERY_NTH, config.slowConsumerPolicy());
+        assertEquals(4, config.slowConsumerFrames());
     }
 
     @Test
@@ -140,6 +163,9 @@ class PhpSnowConfigConverterTest {
         assertEquals(888, map.get("height"));
         assertEquals(66, map.get("fps"));
         assertEquals(86400L, ((BigDecimal) map.get("duration")).longValue());
+        assertEquals("fifo", map.get("transport"));
+        assertEquals("catch-up", map.get("slowConsumerPolicy"));
+        assertEquals(66, map.get("slowConsumerFrames"));
     }
 
 
@@ -0,0 +1,85 @@
+package techbit.snow.proxy.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncodedFrameCacheTest {
+
+    private final EncodedFrameCache cache = new EncodedFrameCache();
+
+    @Test
+    void givenEncodedKey_whenComputingAgain_thenCachedBytesAreReturned() throws IOException {
+        byte[] encoded = cache.computeIfAbsent("key", () -> new byte[]{1, 2});
+
+        byte[] again = cache.computeIfAbsent("key", () -> fail("Should not encode twice!"));
+
+        assertSame(encoded, again);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void givenDifferentKeys_whenComputing_thenEachKeyIsEncodedSeparately() throws IOException {
+        byte[] first = cache.computeIfAbsent("first", () -> new byte[]{1});
+        byte[] second = cache.computeIfAbsent("second", () -> new byte[]{2});
+
+        assertArrayEquals(new byte[]{1}, first);
+        assertArrayEquals(new byte[]{2}, second);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void givenFailingEncoding_whenComputing_thenNothingIsCached() {
+        assertThrows(IOException.class, () -> cache.computeIfAbsent("key", () -> {
+            throw new IOException("failed");
+        }));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void givenChargedCache_whenEncodingIsStored_thenItsSizeIsCharged() throws IOException {
+        AtomicLong charged = new AtomicLong();
+        cache.computeIfAbsent("first", () -> new byte[3]);
+
+        cache.chargeTo(charged::addAndGet);
+        cache.computeIfAbsent("second", () -> new byte[5]);
+        cache.computeIfAbsent("second", () -> fail("Should not encode twice!"));
+
+        assertEquals(8, charged.get());
+        assertEquals(8, cache.chargedBytes());
+    }
+
+    @Test
+    void givenChargedCache_whenReleased_thenChargedBytesAreGivenBackAndNothingIsStoredAnymore() throws IOException {
+        AtomicLong charged = new AtomicLong();
+        cache.chargeTo(charged::addAndGet);
+        cache.computeIfAbsent("first", () -> new byte[3]);
+
+        cache.release();
+        byte[] encoded = cache.computeIfAbsent("second", () -> new byte[5]);
+
+        assertEquals(5, encoded.length);
+        assertEquals(0, charged.get());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.chargedBytes());
+    }
+
+    @Test
+    void givenChargedCacheWithRepeatedView_whenReleased_thenViewEncodingsAreGivenBackToo() throws IOException {
+        AtomicLong charged = new AtomicLong();
+        cache.chargeTo(charged::addAndGet);
+        SnowDataFrame view = cache.repeatedView(() -> new SnowDataFrame(2, 0, new float[0], new float[0], new byte[0]));
+        view.encoded().computeIfAbsent("codec", () -> new byte[4]);
+        assertEquals(4, charged.get());
+
+        cache.release();
+
+        assertEquals(0, charged.get());
+        assertNotSame(view, cache.repeatedView(() -> new SnowDataFrame(2, 0, new float[0], new float[0], new byte[0])));
+    }
+
+}
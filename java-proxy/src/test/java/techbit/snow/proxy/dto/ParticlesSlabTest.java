@@ -0,0 +1,62 @@
+package techbit.snow.proxy.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ParticlesSlabTest {
+
+    @SuppressWarnings("unchecked")
+    private final Consumer<ParticlesSlab> recycler = mock(Consumer.class);
+
+    @Test
+    void whenSlabIsFilled_thenParticlesCanBeRead() {
+        ParticlesSlab slab = new ParticlesSlab(ByteBuffer.allocateDirect(32), recycler);
+
+        slab.fill(2, new float[]{1.5f, 2.5f}, new float[]{3.5f, 4.5f}, new byte[]{7, 8});
+
+        assertEquals(1.5f, slab.x(0));
+        assertEquals(2.5f, slab.x(1));
+        assertEquals(3.5f, slab.y(0));
+        assertEquals(4.5f, slab.y(1));
+        assertEquals(7, slab.flakeShape(0));
+        assertEquals(8, slab.flakeShape(1));
+        assertEquals(32, slab.capacity());
+    }
+
+    @Test
+    void givenTooManyParticles_whenSlabIsFilled_thenExceptionIsThrown() {
+        ParticlesSlab slab = new ParticlesSlab(ByteBuffer.allocateDirect(16), recycler);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> slab.fill(2, new float[2], new float[2], new byte[2]));
+    }
+
+    @Test
+    void whenLastReferenceIsReleased_thenSlabIsRecycled() {
+        ParticlesSlab slab = new ParticlesSlab(ByteBuffer.allocateDirect(16), recycler)
+                .fill(1, new float[1], new float[1], new byte[1]);
+
+        assertTrue(slab.tryRetain());
+        slab.release();
+        verify(recycler, never()).accept(any());
+
+        slab.release();
+        verify(recycler).accept(slab);
+    }
+
+    @Test
+    void givenRecycledSlab_whenRetaining_thenItFails() {
+        ParticlesSlab slab = new ParticlesSlab(ByteBuffer.allocateDirect(16), recycler)
+                .fill(1, new float[1], new float[1], new byte[1]);
+
+        slab.release();
+
+        assertFalse(slab.tryRetain());
+    }
+
+}
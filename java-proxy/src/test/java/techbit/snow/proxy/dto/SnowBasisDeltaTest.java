@@ -0,0 +1,83 @@
+package techbit.snow.proxy.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowBasisDeltaTest {
+
+    private final SnowBasis previous = new SnowBasis(4,
+            new int[]{1, 2, 3, 4},
+            new int[]{10, 20, 30, 40},
+            new byte[]{5, 5, 5, 5}
+    );
+
+    @Test
+    void givenAddedChangedAndRemovedPixels_whenDiffing_thenOnlyTheseAreInDelta() {
+        SnowBasis next = new SnowBasis(4,
+                new int[]{1, 2, 3, 9},
+                new int[]{10, 20, 30, 90},
+                new byte[]{5, 6, 5, 7}
+        );
+
+        SnowBasisDelta delta = SnowBasisDelta.between(previous, next);
+
+        assertNotNull(delta);
+        assertEquals(2, delta.numOfChanged());
+        assertArrayEquals(new int[]{2, 9}, delta.x());
+        assertArrayEquals(new int[]{20, 90}, delta.y());
+        assertArrayEquals(new byte[]{6, 7}, delta.pixels());
+        assertEquals(1, delta.numOfRemoved());
+        assertArrayEquals(new int[]{4}, delta.removedX());
+        assertArrayEquals(new int[]{40}, delta.removedY());
+    }
+
+    @Test
+    void givenCompletelyDifferentBasis_whenDiffing_thenNoDeltaIsReturned() {
+        SnowBasis next = new SnowBasis(2, new int[]{7, 8}, new int[]{7, 8}, new byte[]{1, 1});
+
+        assertNull(SnowBasisDelta.between(previous, next));
+    }
+
+    @Test
+    void givenNoPreviousBasis_whenDiffing_thenNoDeltaIsReturned() {
+        assertNull(SnowBasisDelta.between(SnowBasis.NONE, previous));
+    }
+
+    @Test
+    void givenBasisWithDelta_whenCheckingBase_thenDeltaAppliesOnlyToPreviousBasis() {
+        SnowBasis next = new SnowBasis(4,
+                new int[]{1, 2, 3, 4},
+                new int[]{10, 20, 30, 40},
+                new byte[]{5, 5, 5, 6}
+        ).withDeltaFrom(previous);
+
+        assertTrue(next.hasDeltaFrom(previous));
+        assertFalse(next.hasDeltaFrom(next));
+        assertFalse(next.hasDeltaFrom(SnowBasis.NONE));
+    }
+
+    @Test
+    void givenBasisWithDelta_whenTurnedIntoDelta_thenOnlyDeltaIsCarried() {
+        SnowBasis next = new SnowBasis(4,
+                new int[]{1, 2, 3, 4},
+                new int[]{10, 20, 30, 40},
+                new byte[]{5, 5, 5, 6}
+        ).withDeltaFrom(previous);
+
+        SnowBasis delta = next.asDelta();
+
+        assertTrue(delta.isDelta());
+        assertFalse(next.isDelta());
+        assertSame(next.delta(), delta.delta());
+        assertEquals(0, delta.x().length);
+    }
+
+    @Test
+    void givenNoCheaperDelta_whenAttachingDelta_thenSameBasisIsReturned() {
+        SnowBasis next = new SnowBasis(1, new int[]{7}, new int[]{7}, new byte[]{1});
+
+        assertSame(next, next.withDeltaFrom(previous));
+        assertSame(next, next.withDeltaFrom(SnowBasis.NONE));
+    }
+}
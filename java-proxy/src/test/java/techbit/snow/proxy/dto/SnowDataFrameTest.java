@@ -4,8 +4,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import static org.junit.jupiter.api.Assertions.assertNotSame;
-import static org.junit.jupiter.api.Assertions.assertSame;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static techbit.snow.proxy.snow.stream.TestingFrames.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,8 +34,95 @@ class SnowDataFrameTest {
         assertSame(frame, newFrame);
     }
 
+    @Test
+    void givenFrameWithParticles_whenAskedForSize_thenParticlesAreCounted() {
+        assertEquals(0, SnowDataFrame.LAST.sizeInBytes());
+        assertEquals(3 * (4 + 4 + 1), frameWithParticles(1, 3).sizeInBytes());
+    }
+
+    @Test
+    void givenHeapFrame_whenMovedToSlab_thenParticlesAreReadFromSlab() {
+        SnowDataFrame frame = new SnowDataFrame(3, 2, new float[]{1, 2}, new float[]{3, 4}, new byte[]{5, 6}, basis(1));
+        ParticlesSlab slab = new ParticlesSlab(ByteBuffer.allocateDirect(32), s -> {});
+
+        SnowDataFrame moved = frame.movedTo(slab);
+
+        assertTrue(moved.isOffHeap());
+        assertEquals(3, moved.frameNum());
+        assertEquals(2, moved.chunkSize());
+        assertSame(frame.basis(), moved.basis());
+        assertEquals(0, moved.particlesX().length);
+        assertEquals(2f, moved.x(1));
+        assertEquals(4f, moved.y(1));
+        assertEquals(6, moved.flakeShape(1));
+        assertEquals(32, moved.sizeInBytes());
+    }
+
+    @Test
+    void givenLastFrame_whenMovedToSlab_thenLastFrameIsReturned() {
+        assertSame(SnowDataFrame.LAST, SnowDataFrame.LAST.movedTo(new ParticlesSlab(ByteBuffer.allocate(1), s -> {})));
+    }
+
     @Test
     void givenLastFrame_whenAttachingBasis_thenBasisIsIgnoredAndReferenceToLastFrameIsReturned() {
         assertSame(SnowDataFrame.LAST, SnowDataFrame.LAST.withBasis(basis(1)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenFramesWithSameParticles_whenHashing_thenHashesAreEqual() {
+        SnowDataFrame frame1 = new SnowDataFrame(1, 2, new float[]{1, 2}, new float[]{3, 4}, new byte[]{5, 6});
+        SnowDataFrame frame2 = new SnowDataFrame(2, 2, new float[]{1, 2}, new float[]{3, 4}, new byte[]{5, 6}, basis(1));
+        SnowDataFrame frame3 = new SnowDataFrame(3, 2, new float[]{1, 2}, new float[]{3, 4}, new byte[]{5, 7});
+
+        assertEquals(frame1.particlesHash(), frame2.particlesHash());
+        assertNotEquals(frame1.particlesHash(), frame3.particlesHash());
+    }
+
+    @Test
+    void givenFramesWithCollidingHashes_whenComparingParticles_thenTheyDiffer() {
+        SnowDataFrame frame1 = frameWithUnitParticles(1);
+        SnowDataFrame frame2 = frameWithHashOfUnitParticles(2);
+
+        assertEquals(frame1.particlesHash(), frame2.particlesHash());
+        assertFalse(frame1.hasSameParticlesAs(frame2));
+        assertTrue(frame1.hasSameParticlesAs(frameWithUnitParticles(3)));
+    }
+
+    @Test
+    void givenFrame_whenPointingToPayloadOfOtherFrame_thenParticlesAndBasisAreKept() {
+        SnowDataFrame frame = frameWithParticles(2, 3).withBasis(basis(1));
+
+        SnowDataFrame newFrame = frame.withPayloadOf(1);
+
+        assertEquals(2, frame.payloadFrameNum());
+        assertEquals(1, newFrame.payloadFrameNum());
+        assertSame(frame.particlesX(), newFrame.particlesX());
+        assertSame(frame.basis(), newFrame.basis());
+        assertEquals(1, newFrame.withBasis(basis(2)).payloadFrameNum());
+    }
+
+    @Test
+    void givenFramePointingToOtherPayload_whenRepeated_thenParticlesAreDropped() {
+        SnowDataFrame frame = frameWithParticles(2, 3).withBasis(basis(1)).withPayloadOf(1);
+
+        SnowDataFrame repeated = frame.asRepeated();
+
+        assertTrue(repeated.isRepeated());
+        assertFalse(frame.isRepeated());
+        assertEquals(2, repeated.frameNum());
+        assertEquals(1, repeated.payloadFrameNum());
+        assertEquals(0, repeated.sizeInBytes());
+        assertSame(frame.basis(), repeated.basis());
+    }
+
+    @Test
+    void givenRepeatedFrame_whenRepeatedAgain_thenSameViewWithSharedEncodingsIsReturned() throws IOException {
+        SnowDataFrame frame = frameWithParticles(2, 3).withPayloadOf(1);
+        byte[] encoded = frame.asRepeated().encoded().computeIfAbsent("codec", () -> new byte[]{1});
+
+        SnowDataFrame repeated = frame.asRepeated();
+
+        assertSame(frame.asRepeated(), repeated);
+        assertSame(encoded, repeated.encoded().computeIfAbsent("codec", () -> fail("Should not encode twice!")));
+    }
+}
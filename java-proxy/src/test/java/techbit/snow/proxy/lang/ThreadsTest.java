@@ -0,0 +1,42 @@
+package techbit.snow.proxy.lang;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadsTest {
+
+    @Test
+    void givenPlatformThreads_whenCreatingThread_thenItIsNamedWithPrefix() {
+        ThreadFactory factory = Threads.factory("snow-test-", false);
+
+        Thread thread = factory.newThread(() -> {});
+
+        assertTrue(thread.getName().startsWith("snow-test-"));
+    }
+
+    @Test
+    void givenVirtualThreadsRequested_whenCreatingThread_thenItRunsTaskWithPrefixedName() throws InterruptedException {
+        ThreadFactory factory = Threads.factory("snow-test-", true);
+        StringBuilder name = new StringBuilder();
+
+        Thread thread = factory.newThread(() -> name.append(Thread.currentThread().getName()));
+        thread.start();
+        thread.join();
+
+        assertEquals("snow-test-0", name.toString());
+    }
+
+    @Test
+    void givenVirtualThreadsNotRequested_whenAskedIfSupported_thenPlatformThreadsAreUsed() {
+        assertFalse(Threads.virtualIfSupported(false));
+    }
+
+    @Test
+    void givenVirtualThreadsRequested_whenAskedIfSupported_thenAnswerDependsOnJavaVersion() {
+        assertEquals(Runtime.version().feature() >= 21, Threads.virtualIfSupported(true));
+    }
+
+}
@@ -1,21 +1,32 @@
 package techbit.snow.proxy.proxy;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.catalina.connector.ClientAbortException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import techbit.snow.proxy.error.InvalidRequestException;
 import techbit.snow.proxy.snow.stream.SnowStream.ConsumerThreadException;
-import techbit.snow.proxy.snow.transcoding.PlainTextStreamEncoder;
+import techbit.snow.proxy.snow.stream.SnowStreamChunkedClient;
+import techbit.snow.proxy.snow.transcoding.NdjsonStreamEncoder;
+import techbit.snow.proxy.snow.transcoding.QuantizedStreamEncoder;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,9 +41,15 @@ class ProxyControllerTest {
     private OutputStream out;
 
     @Mock
-    private PlainTextStreamEncoder textStreamEncoder;
+    private NdjsonStreamEncoder textStreamEncoder;
     @Mock
     private HttpServletRequest request;
+    @Mock
+    private HttpServletResponse response;
+    @Mock
+    private TaskExecutor reactiveExecutor;
+    @Mock
+    private Flow.Publisher<byte[]> publisher;
     private ProxyController controller;
 
 
@@ -46,7 +63,7 @@ class ProxyControllerTest {
                 "key2", "value2"
         ));
 
-        controller = new ProxyController(streaming, textStreamEncoder);
+        controller = new ProxyController(streaming, textStreamEncoder, reactiveExecutor, Duration.ofMinutes(5));
     }
 
 
@@ -133,6 +150,74 @@ class ProxyControllerTest {
         assertThrows(InvalidRequestException.class, () -> responseBody.writeTo(out));
     }
 
+    @Test
+    void givenNoCodec_whenStreamBinaryToClient_thenStreamOctetsWithChunkedClient() throws IOException, InterruptedException, ExecutionException, ConsumerThreadException {
+        ResponseEntity<StreamingResponseBody> response = controller.streamBinaryToClient(
+                "session-abc", "/key1/value1", "binary").get();
+        Objects.requireNonNull(response.getBody()).writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, response.getHeaders().getContentType());
+        verify(streaming).streamSessionTo(eq("session-abc"), any(SnowStreamChunkedClient.class),
+                eq(Map.of("key1", "value1")));
+    }
+
+    @Test
+    void givenUnknownCodec_whenStreamBinaryToClient_thenThrowException() {
+        assertThrows(InvalidRequestException.class,
+                () -> controller.streamBinaryToClient("session-abc", "", "unknown"));
+    }
+
+    @Test
+    void whenClientAbortDuringBinaryStreaming_thenNoErrorOccurs() throws IOException, InterruptedException, ConsumerThreadException {
+        doThrow(ClientAbortException.class).when(streaming).streamSessionTo(
+                eq("session-abc"), any(SnowStreamChunkedClient.class), eq(Map.of()));
+
+        assertDoesNotThrow(() -> Objects.requireNonNull(
+                controller.streamBinaryToClient("session-abc", "", "quantized").get().getBody()).writeTo(out));
+    }
+
+    @Test
+    void whenThreadInterruptedDuringBinaryStreaming_thenErrorOccurs() throws IOException, InterruptedException, ConsumerThreadException {
+        doThrow(InterruptedException.class).when(streaming).streamSessionTo(
+                eq("session-abc"), any(SnowStreamChunkedClient.class), eq(Map.of()));
+
+        assertThrows(IOException.class, () -> Objects.requireNonNull(
+                controller.streamBinaryToClient("session-abc", "", "binary").get().getBody()).writeTo(out));
+    }
+
+    @Test
+    void whenStreamTextReactively_thenPublisherIsSubscribedWithinAsyncRequest() throws IOException, InterruptedException {
+        AsyncContext context = givenAsyncContext();
+        when(streaming.sessionPublisher("session-abc", textStreamEncoder, reactiveExecutor, Map.of("key1", "value1")))
+                .thenReturn(publisher);
+
+        controller.streamTextReactively("session-abc", "/key1/value1", request, response);
+
+        verify(response).setContentType("application/x-ndjson");
+        verify(context).setTimeout(Duration.ofMinutes(5).toMillis());
+        verify(publisher).subscribe(any(ServletStreamSubscriber.class));
+    }
+
+    @Test
+    void whenStreamBinaryReactively_thenOctetsArePublishedWithRequestedCodec() throws IOException, InterruptedException {
+        givenAsyncContext();
+        when(streaming.sessionPublisher(eq("session-abc"), any(QuantizedStreamEncoder.class), eq(reactiveExecutor), eq(Map.of())))
+                .thenReturn(publisher);
+
+        controller.streamBinaryReactively("session-abc", "", "quantized", request, response);
+
+        verify(response).setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        verify(publisher).subscribe(any(ServletStreamSubscriber.class));
+    }
+
+    @Test
+    void givenInvalidConfiguration_whenStreamReactively_thenThrowExceptionBeforeGoingAsync() {
+        assertThrows(InvalidRequestException.class,
+                () -> controller.streamTextReactively("session-abc", "/key1", request, response));
+
+        verify(request, never()).startAsync(any(), any());
+    }
+
     @Test
     void whenStreamDetails_thenValidDetailsResponded() {
         when(streaming.hasSession("session-abc")).thenReturn(true);
@@ -177,17 +262,30 @@ class ProxyControllerTest {
         assertThrows(IOException.class, () -> controller.streamTextToClient("session-abc", "").get().writeTo(out));
     }
 
+    private AsyncContext givenAsyncContext() throws IOException {
+        AsyncContext context = mock(AsyncContext.class);
+        when(request.startAsync(request, response)).thenReturn(context);
+        when(context.getResponse()).thenReturn(response);
+        when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+        return context;
+    }
+
     private void assertExpectedDetails(Map<?, ?> details) {
-        assertEquals(Map.of(
-                "status", true,
-                "exists", true,
-                "running", true,
-                "sessionId", "session-abc",
-                "streamTextUrl", "https://domain.com:1234/text/session-abc",
-                "streamWebsocketsStompBrokerUrl", "ws://domain.com:1234/ws/",
-                "streamWebsocketsUrl", "/app/stream/session-abc",
-                "key1", "value1",
-                "key2", "value2"
+        assertEquals(Map.ofEntries(
+                Map.entry("status", true),
+                Map.entry("exists", true),
+                Map.entry("running", true),
+                Map.entry("sessionId", "session-abc"),
+                Map.entry("streamTextUrl", "https://domain.com:1234/text/session-abc"),
+                Map.entry("streamBinaryUrl", "https://domain.com:1234/binary/session-abc"),
+                Map.entry("streamSseUrl", "https://domain.com:1234/sse/session-abc"),
+                Map.entry("streamWebsocketsStompBrokerUrl", "ws://domain.com:1234/ws/"),
+                Map.entry("streamWebsocketsUrl", "/app/stream/session-abc"),
+                Map.entry("streamWebsocketsBroadcastUrl", "/app/broadcast/session-abc"),
+                Map.entry("streamWebsocketsBroadcastTopic", "/topic/session/session-abc/"),
+                Map.entry("streamWebsocketsRawUrl", "ws://domain.com:1234/ws-raw/session-abc"),
+                Map.entry("key1", "value1"),
+                Map.entry("key2", "value2")
         ), details);
     }
 }
\ No newline at end of file
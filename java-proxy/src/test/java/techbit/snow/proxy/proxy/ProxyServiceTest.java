@@ -9,6 +9,7 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import techbit.snow.proxy.config.PhpSnowConfig;
 import techbit.snow.proxy.config.PhpSnowConfigConverter;
+import techbit.snow.proxy.snow.stream.SnowDataBuffer.ClientLag;
 import techbit.snow.proxy.snow.stream.SnowStream;
 import techbit.snow.proxy.snow.stream.SnowStream.ConsumerThreadException;
 import techbit.snow.proxy.snow.stream.SnowStreamClient;
@@ -18,6 +19,7 @@ import techbit.snow.proxy.snow.transcoding.StreamEncoder;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -108,6 +110,15 @@ class ProxyServiceTest {
         verify(snowStream).streamTo(snowDataClient);
     }
 
+    @Test
+    void givenCustomClientAndConfig_whenStream_thenStreamWithThatConfig() throws IOException, InterruptedException, ConsumerThreadException {
+        when(snowFactory.create("session-abc", configMap)).thenReturn(snowStream);
+
+        proxyService.streamSessionTo("session-abc", snowDataClient, configMap);
+
+        verify(snowStream).streamTo(snowDataClient);
+    }
+
     @Test
     void givenIssuesWithStartingStream_whenStream_thenStreamIsStopped() throws IOException, InterruptedException, ConsumerThreadException {
         when(session.exists("session-abc")).thenReturn(false, true);
@@ -192,15 +203,16 @@ class ProxyServiceTest {
 
     @Test
     void givenValidSession_whenAskingForDetails_thenProvideThemFromProxyService() {
-        Map<String, Object> expected = Map.of();
+        List<ClientLag> clients = List.of(new ClientLag(3, 7));
         when(session.exists("session-abc")).thenReturn(true);
         when(streams.get("session-abc")).thenReturn(snowStream);
         when(snowStream.config()).thenReturn(config);
-        when(configConverter.toMap(config)).thenReturn(expected);
+        when(snowStream.clientLags()).thenReturn(clients);
+        when(configConverter.toMap(config)).thenReturn(Map.of("fps", 33));
 
         Map<String, Object> details = proxyServiceSpyStreams.sessionDetails("session-abc");
 
-        assertSame(expected, details);
+        assertEquals(Map.of("fps", 33, "clients", clients), details);
     }
 
     @Test
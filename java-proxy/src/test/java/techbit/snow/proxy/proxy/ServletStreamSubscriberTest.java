@@ -0,0 +1,164 @@
+package techbit.snow.proxy.proxy;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServletStreamSubscriberTest {
+    @Mock
+    private AsyncContext context;
+    @Mock
+    private ServletResponse response;
+    @Mock
+    private ServletOutputStream output;
+    @Mock
+    private Flow.Subscription subscription;
+    @Mock
+    private Flow.Publisher<byte[]> publisher;
+    private ServletStreamSubscriber subscriber;
+
+    @BeforeEach
+    void setup() throws IOException {
+        when(context.getResponse()).thenReturn(response);
+        when(response.getOutputStream()).thenReturn(output);
+        subscriber = new ServletStreamSubscriber(context);
+    }
+
+    @Test
+    void whenSubscribing_thenListensForWritesAndAsyncEventsBeforeSubscribing() {
+        subscriber.subscribeTo(publisher);
+
+        InOrder inOrder = inOrder(context, output, publisher);
+        inOrder.verify(context).addListener(subscriber);
+        inOrder.verify(output).setWriteListener(subscriber);
+        inOrder.verify(publisher).subscribe(subscriber);
+    }
+
+    @Test
+    void givenReadyOutput_whenSubscribed_thenSingleChunkIsRequested() {
+        when(output.isReady()).thenReturn(true);
+
+        subscriber.onSubscribe(subscription);
+        subscriber.onWritePossible();
+
+        verify(subscription, times(1)).request(1);
+    }
+
+    @Test
+    void givenNotReadyOutput_whenSubscribed_thenNothingIsRequestedUntilWritePossible() {
+        when(output.isReady()).thenReturn(false, true);
+
+        subscriber.onSubscribe(subscription);
+        verify(subscription, never()).request(anyLong());
+
+        subscriber.onWritePossible();
+        verify(subscription).request(1);
+    }
+
+    @Test
+    void whenChunkArrives_thenItIsWrittenFlushedAndNextChunkIsRequested() throws IOException {
+        when(output.isReady()).thenReturn(true);
+        subscriber.onSubscribe(subscription);
+
+        subscriber.onNext(new byte[]{1, 2});
+
+        InOrder inOrder = inOrder(output, subscription);
+        inOrder.verify(subscription).request(1);
+        inOrder.verify(output).write(new byte[]{1, 2});
+        inOrder.verify(output).flush();
+        inOrder.verify(subscription).request(1);
+    }
+
+    @Test
+    void givenOutputBecomesBusy_whenChunkArrives_thenNextChunkWaitsForWritePossible() throws IOException {
+        when(output.isReady()).thenReturn(true, false);
+        subscriber.onSubscribe(subscription);
+        clearInvocations(subscription);
+        when(output.isReady()).thenReturn(false);
+
+        subscriber.onNext(new byte[]{1, 2});
+
+        verify(output, never()).write(any());
+        verify(subscription, never()).request(anyLong());
+
+        when(output.isReady()).thenReturn(true, false);
+        subscriber.onWritePossible();
+
+        verify(output).write(new byte[]{1, 2});
+        verify(subscription, never()).request(anyLong());
+    }
+
+    @Test
+    void whenPublisherCompletes_thenAsyncRequestIsCompletedAfterPendingChunk() throws IOException {
+        when(output.isReady()).thenReturn(true);
+        subscriber.onSubscribe(subscription);
+        when(output.isReady()).thenReturn(false);
+        subscriber.onNext(new byte[]{3});
+        subscriber.onComplete();
+        verify(context, never()).complete();
+
+        when(output.isReady()).thenReturn(true);
+        subscriber.onWritePossible();
+
+        InOrder inOrder = inOrder(output, context);
+        inOrder.verify(output).write(new byte[]{3});
+        inOrder.verify(context).complete();
+    }
+
+    @Test
+    void givenWriteFails_whenChunkArrives_thenSubscriptionIsCancelledAndRequestCompleted() throws IOException {
+        when(output.isReady()).thenReturn(true);
+        subscriber.onSubscribe(subscription);
+        doThrow(IOException.class).when(output).write(any());
+
+        subscriber.onNext(new byte[]{1});
+
+        verify(subscription).cancel();
+        verify(context).complete();
+    }
+
+    @Test
+    void whenAsyncRequestTimesOut_thenSubscriptionIsCancelled() {
+        subscriber.onSubscribe(subscription);
+
+        subscriber.onTimeout(null);
+
+        verify(subscription).cancel();
+        verify(context).complete();
+    }
+
+    @Test
+    void whenClientGoesAway_thenSubscriptionIsCancelledAndNothingMoreIsWritten() throws IOException {
+        subscriber.onSubscribe(subscription);
+
+        subscriber.onComplete(null);
+        subscriber.onNext(new byte[]{1});
+
+        verify(subscription).cancel();
+        verify(output, never()).write(any());
+        verify(context, never()).complete();
+    }
+
+    @Test
+    void givenAlreadySubscribed_whenSubscribedAgain_thenSecondSubscriptionIsCancelled() {
+        Flow.Subscription second = mock(Flow.Subscription.class);
+        subscriber.onSubscribe(subscription);
+
+        subscriber.onSubscribe(second);
+
+        verify(second).cancel();
+    }
+
+}
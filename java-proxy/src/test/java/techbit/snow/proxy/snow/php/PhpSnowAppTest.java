@@ -2,14 +2,22 @@ package techbit.snow.proxy.snow.php;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import techbit.snow.proxy.config.PhpSnowConfig;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Answers.RETURNS_DEEP_STUBS;
@@ -60,6 +68,13 @@ class PhpSnowAppTest {
         verify(builder.environment()).put("SCRIPT_OWNER_PID", "98765");
     }
 
+    @Test
+    void whenStart_thenTransportIsProvidedInEnvironmentVariable() throws IOException {
+        phpSnowApp.start();
+
+        verify(builder.environment()).put("PHP_SNOW_TRANSPORT", "fifo");
+    }
+
     @Test
     void whenDidNotStart_thenIsNotAlive() {
         assertFalse(phpSnowApp.isAlive());
@@ -119,10 +134,145 @@ class PhpSnowAppTest {
     @Test
     void whenStop_thenProcessIsDestroyed() throws IOException {
         when(builder.start()).thenReturn(process);
+        givenProcessTree(1234L);
 
         phpSnowApp.start();
         phpSnowApp.stop();
 
         verify(process).destroyForcibly();
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenRunningProcess_whenPause_thenStopSignalIsSent() throws Exception {
+        phpSnowApp = spy(phpSnowApp);
+        ProcessBuilder kill = mock(ProcessBuilder.class, RETURNS_DEEP_STUBS);
+        when(builder.start()).thenReturn(process);
+        when(process.isAlive()).thenReturn(true);
+        givenProcessTree(1234L, 1235L);
+        doReturn(kill).when(phpSnowApp).createSignalSender("STOP", List.of(1234L, 1235L));
+
+        phpSnowApp.start();
+        phpSnowApp.pause();
+        phpSnowApp.pause();
+
+        verify(kill, times(1)).start();
+        assertTrue(phpSnowApp.isPaused());
+    }
+
+    @Test
+    void givenPausedProcess_whenResume_thenContinueSignalIsSent() throws Exception {
+        phpSnowApp = spy(phpSnowApp);
+        ProcessBuilder kill = mock(ProcessBuilder.class, RETURNS_DEEP_STUBS);
+        when(builder.start()).thenReturn(process);
+        when(process.isAlive()).thenReturn(true);
+        givenProcessTree(1234L, 1235L);
+        doReturn(kill).when(phpSnowApp).createSignalSender(anyString(), eq(List.of(1234L, 1235L)));
+
+        phpSnowApp.start();
+        phpSnowApp.pause();
+        phpSnowApp.resume();
+
+        verify(phpSnowApp).createSignalSender("CONT", List.of(1234L, 1235L));
+        assertFalse(phpSnowApp.isPaused());
+    }
+
+    @Test
+    void givenSignalCannotBeSent_whenPause_thenExceptionIsThrown() throws Exception {
+        phpSnowApp = spy(phpSnowApp);
+        ProcessBuilder kill = mock(ProcessBuilder.class, RETURNS_DEEP_STUBS);
+        when(builder.start()).thenReturn(process);
+        when(process.isAlive()).thenReturn(true);
+        givenProcessTree(1234L, 1235L);
+        when(kill.start().waitFor()).thenReturn(1);
+        doReturn(kill).when(phpSnowApp).createSignalSender("STOP", List.of(1234L, 1235L));
+
+        phpSnowApp.start();
+
+        assertThrows(IOException.class, phpSnowApp::pause);
+        assertFalse(phpSnowApp.isPaused());
+    }
+
+    @Test
+    void givenNoProcess_whenPauseOrResume_thenNothingHappens() throws IOException {
+        phpSnowApp.pause();
+        phpSnowApp.resume();
+
+        assertFalse(phpSnowApp.isPaused());
+    }
+
+    @Test
+    void givenPausedProcess_whenStop_thenIsNotPaused() throws Exception {
+        phpSnowApp = spy(phpSnowApp);
+        when(builder.start()).thenReturn(process);
+        when(process.isAlive()).thenReturn(true);
+        givenProcessTree(1234L);
+        doReturn(mock(ProcessBuilder.class, RETURNS_DEEP_STUBS)).when(phpSnowApp).createSignalSender(anyString(), anyList());
+
+        phpSnowApp.start();
+        phpSnowApp.pause();
+        phpSnowApp.stop();
+
+        assertFalse(phpSnowApp.isPaused());
+    }
+
+    @Test
+    void whenSignalSenderIsCreated_thenKillCommandIsUsedForAllProcesses() {
+        assertEquals(List.of("kill", "-STOP", "42", "43"), phpSnowApp.createSignalSender("STOP", List.of(42L, 43L)).command());
+    }
+
+    @Test
+    void givenChildProcessesOfWrapper_whenStop_thenChildrenAreDestroyedToo() throws IOException {
+        ProcessHandle child = mock(ProcessHandle.class);
+        ProcessHandle handle = mock(ProcessHandle.class);
+        when(builder.start()).thenReturn(process);
+        when(process.toHandle()).thenReturn(handle);
+        when(handle.descendants()).thenReturn(Stream.of(child));
+
+        phpSnowApp.start();
+        phpSnowApp.stop();
+
+        verify(child).destroyForcibly();
+        verify(process).destroyForcibly();
+    }
+
+    @Test
+    @EnabledOnOs({OS.LINUX, OS.MAC})
+    void givenProducerRunningInSubshellOfWrapper_whenPaused_thenItStopsProducingUntilResumed(@TempDir Path dir)
+            throws IOException, InterruptedException {
+        Path wrapper = dir.resolve("php-cli");
+        Path frames = dir.resolve("frames");
+        Files.writeString(wrapper, "#!/usr/bin/env bash\n( while true; do echo frame >> \"$FRAMES\"; sleep 0.01; done )\n");
+        assertTrue(wrapper.toFile().setExecutable(true));
+        ProcessBuilder processBuilder = new ProcessBuilder();
+        processBuilder.environment().put("FRAMES", frames.toString());
+        phpSnowApp = new PhpSnowApp("session-abc", config, "98765", processBuilder,
+                Path.of("").toAbsolutePath().relativize(wrapper).toString());
+
+        try {
+            phpSnowApp.start();
+            Thread.sleep(300);
+            phpSnowApp.pause();
+            Thread.sleep(100);
+            long framesWhenPaused = Files.size(frames);
+            Thread.sleep(300);
+            assertEquals(framesWhenPaused, Files.size(frames));
+
+            phpSnowApp.resume();
+            Thread.sleep(300);
+            assertTrue(Files.size(frames) > framesWhenPaused);
+        } finally {
+            phpSnowApp.stop();
+        }
+    }
+
+    private void givenProcessTree(long pid, Long... descendantPids) {
+        ProcessHandle handle = mock(ProcessHandle.class);
+        when(process.toHandle()).thenReturn(handle);
+        lenient().when(handle.pid()).thenReturn(pid);
+        when(handle.descendants()).thenAnswer(i -> Arrays.stream(descendantPids).map(descendantPid -> {
+            ProcessHandle descendant = mock(ProcessHandle.class);
+            when(descendant.pid()).thenReturn(descendantPid);
+            return descendant;
+        }));
+    }
+}
@@ -0,0 +1,201 @@
+package techbit.snow.proxy.snow.php;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.*;
+import static techbit.snow.proxy.snow.php.SharedMemoryInputStream.*;
+
+@SuppressWarnings("unused")
+@ExtendWith(MockitoExtension.class)
+class SharedMemoryPipeTest {
+
+    @TempDir
+    public Path folder;
+
+    private boolean isProducerAlive = true;
+
+    @Test
+    void givenRingWithData_whenReadingInputStream_thenProvidesValidContent() throws IOException {
+        writeRing(16, 0, "fake-content", true);
+
+        try (InputStream stream = pipeOf().inputStream()) {
+            assertArrayEquals("fake-content".getBytes(), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void givenRingWithData_whenReading_thenTailIsPublishedToProducer() throws IOException {
+        writeRing(16, 0, "fake-content", true);
+
+        try (InputStream stream = pipeOf().inputStream()) {
+            assertEquals(4, stream.readNBytes(4).length);
+        }
+
+        assertEquals(4, ringHeader().getLong(TAIL_OFFSET));
+    }
+
+    @Test
+    void givenWrappedRing_whenReading_thenProvidesValidContent() throws IOException {
+        final ByteBuffer ring = ByteBuffer.allocate(DATA_OFFSET + 8)
+                .putInt(CAPACITY_OFFSET, 8)
+                .putLong(HEAD_OFFSET, 12)
+                .putLong(TAIL_OFFSET, 4)
+                .putLong(CLOSED_OFFSET, 1)
+                .put(DATA_OFFSET, "efghabcd".getBytes());
+        Files.write(folder.resolve("session-xyz"), ring.array());
+
+        try (InputStream stream = pipeOf().inputStream()) {
+            assertArrayEquals("abcdefgh".getBytes(), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void givenRingWithData_whenReadingAsChannel_thenProvidesValidContent() throws IOException {
+        writeRing(16, 0, "fake-content", true);
+        final ByteBuffer buffer = ByteBuffer.allocate(32);
+
+        try (InputStream stream = pipeOf().inputStream()) {
+            final ReadableByteChannel channel = (ReadableByteChannel) stream;
+            assertEquals(12, channel.read(buffer));
+            assertEquals(-1, channel.read(buffer));
+        }
+
+        assertArrayEquals("fake-content".getBytes(), Arrays.copyOf(buffer.array(), 12));
+    }
+
+    @Test
+    void givenEmptyRing_whenProducerIsDead_thenEndOfStream() throws IOException {
+        writeRing(16, 0, "", false);
+        isProducerAlive = false;
+
+        try (InputStream stream = pipeOf().inputStream()) {
+            assertEquals(-1, stream.read());
+        }
+    }
+
+    @Test
+    void givenEmptyRing_whenInterrupted_thenThrowException() throws IOException {
+        writeRing(16, 0, "", false);
+
+        try (InputStream stream = pipeOf().inputStream()) {
+            Thread.currentThread().interrupt();
+            assertThrows(InterruptedIOException.class, stream::read);
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test
+    void givenEmptyRingForLong_whenWaitingForData_thenProducerIsCheckedWithBackoff() throws IOException {
+        writeRing(16, 0, "", false);
+        final AtomicInteger checks = new AtomicInteger();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+        final SharedMemoryPipe pipe = new SharedMemoryPipe("session-xyz", folder, () -> {
+            checks.incrementAndGet();
+            return System.nanoTime() < deadline;
+        });
+
+        try (InputStream stream = pipe.inputStream()) {
+            assertEquals(-1, stream.read());
+        }
+
+        assertTrue(checks.get() < 200, "Producer checked " + checks.get() + " times");
+    }
+
+    @Test
+    void givenEmptyRing_whenDataArrivesAfterIdling_thenItIsRead() throws Exception {
+        writeRing(16, 0, "", false);
+
+        try (InputStream stream = pipeOf().inputStream()) {
+            final Thread producer = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                    try (FileChannel channel = FileChannel.open(folder.resolve("session-xyz"), WRITE)) {
+                        channel.write(ByteBuffer.wrap("late".getBytes()), DATA_OFFSET);
+                        channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 4), HEAD_OFFSET);
+                    }
+                } catch (IOException | InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            producer.start();
+
+            assertArrayEquals("late".getBytes(), stream.readNBytes(4));
+            producer.join();
+        }
+    }
+
+    @Test
+    void givenInvalidCapacity_whenReading_thenThrowException() throws IOException {
+        writeRing(0, 0, "", false);
+
+        assertThrows(IllegalStateException.class, pipeOf()::inputStream);
+    }
+
+    @Test
+    void givenPipeFile_whenDestroying_thenPipeFileIsDeleted() throws IOException {
+        writeRing(16, 0, "", false);
+
+        pipeOf().destroy();
+
+        assertFalse(folder.resolve("session-xyz").toFile().exists());
+    }
+
+    @Test
+    void givenNoPipeFile_whenDestroying_thenNoErrorOccurs() {
+        assertDoesNotThrow(pipeOf()::destroy);
+    }
+
+    @Test
+    void givenNoPipeFile_whenReading_thenThrowException() {
+        assertThrows(FileNotFoundException.class, pipeOf()::inputStream);
+    }
+
+    @Test
+    void whenPipeFileExists_thenPipeIsNotMissing() throws IOException {
+        writeRing(16, 0, "", false);
+
+        assertFalse(pipeOf().isMissing());
+    }
+
+    @Test
+    void whenNoPipeFileExists_thenPipeIsMissing() {
+        assertTrue(pipeOf().isMissing());
+    }
+
+    private SharedMemoryPipe pipeOf() {
+        return new SharedMemoryPipe("session-xyz", folder, () -> isProducerAlive);
+    }
+
+    private void writeRing(int capacity, long tail, String content, boolean closed) throws IOException {
+        final ByteBuffer ring = ByteBuffer.allocate(DATA_OFFSET + Math.max(capacity, content.length()))
+                .putInt(CAPACITY_OFFSET, capacity)
+                .putLong(HEAD_OFFSET, tail + content.length())
+                .putLong(TAIL_OFFSET, tail)
+                .putLong(CLOSED_OFFSET, closed ? 1 : 0)
+                .put(DATA_OFFSET, content.getBytes());
+        Files.write(folder.resolve("session-xyz"), ring.array());
+    }
+
+    private ByteBuffer ringHeader() throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(folder.resolve("session-xyz")));
+    }
+
+}
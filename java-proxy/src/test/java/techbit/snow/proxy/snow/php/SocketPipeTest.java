@@ -0,0 +1,268 @@
+package techbit.snow.proxy.snow.php;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.junit.jupiter.MockitoExtension;
+import techbit.snow.proxy.dto.ServerMetadata;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.lang.Wait;
+import techbit.snow.proxy.snow.transcoding.ChannelStreamDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+@ExtendWith(MockitoExtension.class)
+class SocketPipeTest {
+
+    private static final byte[] METADATA = {
+            'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w', 'v', 0x2,
+            0x0, 0x0, 0x0, 0x7F, // width
+            0x0, 0x0, 0x0, 0x20, // height
+            0x0, 0x0, 0x0, 0x19, // fps
+            0x0,                 // no background
+    };
+
+    private static final byte[] EMPTY_FRAME = {
+            0x0, 0x0, 0x0, 0x8,  // frame block size
+            0x0, 0x0, 0x0, 0x1,  // frame num
+            0x0, 0x0, 0x0, 0x0,  // chunk size
+            0x0, 0x0, 0x0, 0x4,  // basis block size
+            0x0, 0x0, 0x0, 0x0,  // no basis pixels
+    };
+
+    @TempDir
+    public Path folder;
+
+    private SnowSocketSelector selector;
+
+    private SocketPipe pipe;
+
+    @BeforeEach
+    void setup() throws IOException {
+        selector = new SnowSocketSelector(2);
+        selector.start();
+        pipe = new SocketPipe("session-xyz", folder, selector);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pipe.destroy();
+        selector.stop();
+    }
+
+    @Test
+    void givenOpenedPipe_whenProducerConnects_thenPipeIsNotMissing() throws IOException {
+        pipe.open();
+        assertTrue(pipe.isMissing());
+
+        try (SocketChannel producer = connectProducer()) {
+            awaitProducer(pipe);
+
+            assertTrue(producer.isConnected());
+            assertFalse(pipe.isMissing());
+        }
+    }
+
+    @Test
+    void givenNoProducer_whenReading_thenThrowException() throws IOException {
+        pipe.open();
+
+        assertThrows(IOException.class, pipe::inputStream);
+    }
+
+    @Test
+    void givenOpenedPipe_whenDestroying_thenSocketFileIsDeleted() throws IOException {
+        pipe.open();
+
+        pipe.destroy();
+
+        assertFalse(folder.resolve("session-xyz").toFile().exists());
+    }
+
+    @Test
+    void givenProducerStream_whenDecoding_thenFramesAreDeliveredOnlyWhenComplete() throws Exception {
+        final ChannelStreamDecoder decoder = new ChannelStreamDecoder();
+        final Semaphore messages = new Semaphore(0);
+        pipe.open();
+
+        try (SocketChannel producer = connectProducer()) {
+            awaitProducer(pipe);
+            producer.write(ByteBuffer.wrap(METADATA));
+            producer.write(ByteBuffer.wrap(new byte[]{
+                    0x0, 0x0, 0x0, 0x11, // frame block size
+                    0x0, 0x0, 0x0, 0x1,  // frame num
+                    0x0, 0x0, 0x0, 0x1,  // chunk size
+            }));
+            final InputStream stream = pipe.inputStream();
+
+            SnowAnimationMetadata metadata = decoder.decodeMetadata(stream,
+                    new ServerMetadata(Duration.ofSeconds(1)), Duration.ofSeconds(10));
+            SnowBackground background = decoder.decodeBackground(stream);
+            ((SocketPipeInputStream) stream).listen(messages::release);
+
+            assertEquals(127, metadata.width());
+            assertEquals(32, metadata.height());
+            assertEquals(25, metadata.fps());
+            assertSame(SnowBackground.NONE, background);
+            assertFalse(messages.tryAcquire(100, TimeUnit.MILLISECONDS));
+
+            producer.write(ByteBuffer.wrap(new byte[]{
+                    0x3F, (byte) 0x80, 0x0, 0x0, // x
+                    0x40, 0x0, 0x0, 0x0,         // y
+                    0x3,                         // shape
+                    0x0, 0x0, 0x0, 0x4,          // basis block size
+                    0x0, 0x0, 0x0, 0x0,          // no basis pixels
+                    (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, // last frame
+            }));
+
+            assertTrue(messages.tryAcquire(2, 1, TimeUnit.SECONDS));
+            SnowDataFrame frame = decoder.decodeFrame(stream);
+            decoder.decodeBasis(stream);
+            assertEquals(1, frame.frameNum());
+            assertEquals(1f, frame.x(0));
+            assertEquals(2f, frame.y(0));
+            assertEquals(3, frame.flakeShape(0));
+            assertSame(SnowDataFrame.LAST, decoder.decodeFrame(stream));
+        }
+    }
+
+    @Test
+    void givenListenerOfOneSessionIsBlocked_whenOtherSessionGetsMessage_thenItIsDeliveredOnDecodePool() throws Exception {
+        final SocketPipe otherPipe = new SocketPipe("session-abc", folder, selector);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final Semaphore blocked = new Semaphore(0);
+        final Semaphore messages = new Semaphore(0);
+        final List<String> listenerThreads = new CopyOnWriteArrayList<>();
+        pipe.open();
+        otherPipe.open();
+
+        try (SocketChannel producer = connectProducer("session-xyz");
+             SocketChannel otherProducer = connectProducer("session-abc")) {
+            awaitProducer(pipe);
+            awaitProducer(otherPipe);
+            for (SocketChannel channel : List.of(producer, otherProducer)) {
+                channel.write(ByteBuffer.wrap(METADATA));
+                channel.write(ByteBuffer.wrap(EMPTY_FRAME));
+            }
+
+            ((SocketPipeInputStream) pipe.inputStream()).listen(() -> {
+                blocked.release();
+                Uninterruptibles.awaitUninterruptibly(unblock);
+            });
+            assertTrue(blocked.tryAcquire(1, TimeUnit.SECONDS));
+            ((SocketPipeInputStream) otherPipe.inputStream()).listen(() -> {
+                listenerThreads.add(Thread.currentThread().getName());
+                messages.release();
+            });
+
+            assertTrue(messages.tryAcquire(1, TimeUnit.SECONDS));
+            assertEquals(1, listenerThreads.size());
+            assertTrue(listenerThreads.get(0).startsWith("snow-socket-decode-thread-"));
+        } finally {
+            unblock.countDown();
+            otherPipe.destroy();
+        }
+    }
+
+    @Test
+    void givenSessionWithManyMessages_whenDraining_thenOtherSessionIsNotStarved() throws Exception {
+        selector.stop();
+        selector = new SnowSocketSelector(1);
+        selector.start();
+        pipe = new SocketPipe("session-xyz", folder, selector);
+        final SocketPipe otherPipe = new SocketPipe("session-abc", folder, selector);
+        final List<String> deliveries = new CopyOnWriteArrayList<>();
+        final Semaphore otherMessage = new Semaphore(0);
+        pipe.open();
+        otherPipe.open();
+
+        try (SocketChannel producer = connectProducer("session-xyz");
+             SocketChannel otherProducer = connectProducer("session-abc")) {
+            awaitProducer(pipe);
+            awaitProducer(otherPipe);
+            producer.write(ByteBuffer.wrap(METADATA));
+            for (int i = 0; i < 100; ++i) {
+                producer.write(ByteBuffer.wrap(EMPTY_FRAME));
+            }
+            otherProducer.write(ByteBuffer.wrap(METADATA));
+            otherProducer.write(ByteBuffer.wrap(EMPTY_FRAME));
+            final SocketPipeInputStream stream = (SocketPipeInputStream) pipe.inputStream();
+            while (stream.available() < METADATA.length + 100 * EMPTY_FRAME.length) {
+                Wait.milliseconds(1);
+            }
+
+            stream.listen(() -> deliveries.add("xyz"));
+            ((SocketPipeInputStream) otherPipe.inputStream()).listen(() -> {
+                deliveries.add("abc");
+                otherMessage.release();
+            });
+
+            assertTrue(otherMessage.tryAcquire(1, TimeUnit.SECONDS));
+            assertTrue(deliveries.indexOf("abc") < 100, "Other session waited for " + deliveries.indexOf("abc"));
+        } finally {
+            otherPipe.destroy();
+        }
+    }
+
+    @Test
+    void givenProducerConnectingLater_whenAwaitingProducer_thenWaitEndsOnAccept() throws IOException {
+        pipe.open();
+
+        try (SocketChannel producer = connectProducer()) {
+            final long start = System.nanoTime();
+            pipe.awaitProducer(Duration.ofSeconds(5));
+
+            assertTrue(producer.isConnected());
+            assertFalse(pipe.isMissing());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    @Test
+    void givenProducerDisconnects_whenReading_thenEndOfStream() throws IOException {
+        pipe.open();
+        final SocketChannel producer = connectProducer();
+        awaitProducer(pipe);
+
+        producer.close();
+
+        assertEquals(-1, pipe.inputStream().read());
+    }
+
+    private SocketChannel connectProducer() throws IOException {
+        return connectProducer("session-xyz");
+    }
+
+    private SocketChannel connectProducer(String sessionId) throws IOException {
+        final SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(folder.resolve(sessionId)));
+        return channel;
+    }
+
+    private void awaitProducer(SocketPipe pipe) {
+        for (int i = 0; i < 100 && pipe.isMissing(); ++i) {
+            Wait.milliseconds(10);
+        }
+    }
+
+}
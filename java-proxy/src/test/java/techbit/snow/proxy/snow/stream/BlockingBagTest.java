@@ -1,292 +0,0 @@
-package techbit.snow.proxy.snow.stream;
-
-import edu.umd.cs.mtc.MultithreadedTestCase;
-import edu.umd.cs.mtc.TestFramework;
-import org.junit.jupiter.api.Assertions;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
-import techbit.snow.proxy.snow.stream.BlockingBag.ItemNoLongerExistsException;
-
-import static org.junit.jupiter.api.Assertions.*;
-
-@SuppressWarnings("unused")
-class BlockingBagTest {
-
-    private BlockingBag<Integer, String> bag;
-
-    @BeforeEach
-    void setup() {
-        bag = new BlockingBag<>();
-    }
-
-
-    @Test
-    public void whenValueNotPresent_thenClientGetsEmptyResponse() {
-        assertTrue(bag.get(1234).isEmpty());
-    }
-
-    @Test
-    public void whenItemIsInBag_thenClientCanGetIt() {
-        bag.put(12, "value");
-
-        assertEquals("value", bag.get(12).orElseThrow());
-    }
-
-    @Test
-    public void whenItemIsRemovedFromBag_thenClientGetsEmptyResponse() {
-        bag.put(12, "value");
-        bag.remove(12);
-
-        assertTrue(bag.get(12).isEmpty());
-    }
-
-    @Test
-    public void whenItemIsInBag_thenItCanBeTaken() throws Exception {
-        bag.put(12, "value");
-
-        assertEquals("value", bag.take(12));
-    }
-
-    @Test
-    public void whenItemIsInBag_thenItCanBeTakenMultipleTimes() throws Exception {
-        bag.put(12, "value");
-
-        assertEquals("value", bag.take(12));
-        assertEquals("value", bag.take(12));
-        assertEquals("value", bag.take(12));
-    }
-
-    @Test
-    void whenPuttingTwoItemsToBag_thenNoBlockingOccurs() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void thread1() {
-                bag.put(1, "one");
-                bag.put(2, "two");
-                assertTick(0);
-            }
-        });
-    }
-
-    @Test
-    public void whenSameItemIsPutTwice_thenRecentValueIsProvided() throws Throwable {
-        bag.put(3, "three");
-        bag.put(3, "other");
-
-        assertEquals("other", bag.take(3));
-    }
-
-    @Test
-    void whenNoItemInBag_thenBlockUntilIsAvailable() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void threadProducer() {
-                waitForTick(1);
-                bag.put(1, "one");
-            }
-
-            public void thread1() throws Exception {
-                String element = bag.take(1);
-                assertTick(1);
-                Assertions.assertEquals("one", element);
-            }
-        });
-    }
-
-    @Test
-    void whenMultipleItemsInBag_thenBlockEachUntilIsAvailable() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void threadProducer() {
-                waitForTick(1);
-                bag.put(1, "one");
-                bag.put(2, "two");
-                bag.put(3, "three");
-                waitForTick(2);
-                bag.put(4, "four");
-                bag.put(5, "five");
-            }
-
-            public void thread1() throws Exception {
-                String element3 = bag.take(3);
-                assertTick(1);
-                String element5 = bag.take(5);
-                String element1 = bag.take(1);
-                assertTick(2);
-
-                Assertions.assertEquals("three", element3);
-                Assertions.assertEquals("five", element5);
-                Assertions.assertEquals("one", element1);
-            }
-        });
-    }
-
-    @Test
-    void whenTwoItemsInBag_thenTwoThreadsCanAccessThem() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void threadProducer() {
-                waitForTick(1);
-                bag.put(1, "one");
-                waitForTick(2);
-                bag.put(2, "two");
-            }
-
-            public void thread1() throws Exception {
-                String element1 = bag.take(1);
-                assertTick(1);
-                String element2 = bag.take(2);
-                assertTick(2);
-                Assertions.assertEquals("one", element1);
-                Assertions.assertEquals("two", element2);
-            }
-
-            public void thread2() throws InterruptedException, ItemNoLongerExistsException {
-                String element1 = bag.take(2);
-                assertTick(2);
-                String element2 = bag.take(1);
-                assertTick(2);
-                Assertions.assertEquals("two", element1);
-                Assertions.assertEquals("one", element2);
-            }
-        });
-    }
-
-    @Test
-    void whenTwoItemsInBag_thenMultipleThreadsCanAskForSameElement() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void threadProducer() {
-                waitForTick(1);
-                bag.put(2, "two");
-                bag.put(1, "one");
-            }
-
-            public void thread1() throws Exception {
-                test();
-            }
-
-            public void thread2() throws Exception {
-                test();
-            }
-
-            public void thread3() throws Exception {
-                test();
-            }
-
-            private void test() throws Exception {
-                String element = bag.take(1);
-                assertTick(1);
-                Assertions.assertEquals("one", element);
-            }
-        });
-    }
-
-    @Test
-    public void whenItemIsRemovedTwice_thenNoErrorOccurs() {
-        bag.put(3, "three");
-        assertDoesNotThrow(() -> bag.remove(3));
-        assertDoesNotThrow(() -> bag.remove(3));
-    }
-
-    @Test
-    public void whenItemIsRemovedAndAddedAgain_thenIsAvailableAgainWithNoBlocking() throws Throwable {
-        bag.put(3, "three");
-        bag.remove(3);
-        bag.put(3, "new");
-        assertEquals(bag.take(3), "new");
-    }
-
-    @Test
-    public void whenItemIsRemoved_thenBagIsBlockedDuringRetake() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void thread1() {
-                waitForTick(1);
-                bag.put(3, "other");
-            }
-
-            public void thread2() throws Exception {
-                bag.put(3, "three");
-                bag.remove(3);
-                bag.take(3);
-                assertTick(1);
-            }
-        });
-    }
-
-    @Test
-    public void whenItemIsRemoved_thenCanBeAddedAgain() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void thread1() {
-                waitForTick(1);
-                bag.put(3, "other");
-            }
-
-            public void thread2() throws Exception {
-                bag.put(3, "three");
-                bag.remove(3);
-                String element = bag.take(3);
-
-                Assertions.assertEquals("other", element);
-            }
-        });
-    }
-
-    @Test
-    public void whenListeningForRemovedItem_thenThrowException() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void thread1() {
-                waitForTick(1);
-                bag.remove(3);
-            }
-
-            public void thread2() {
-                Assertions.assertThrows(ItemNoLongerExistsException.class, () -> bag.take(3));
-            }
-        });
-    }
-
-    @Test
-    public void whenRemovingAllItems_thenThrowException() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void thread1() {
-                waitForTick(1);
-                bag.removeAll();
-            }
-
-            public void thread2() {
-                Assertions.assertThrows(ItemNoLongerExistsException.class, () -> bag.take(1));
-            }
-
-            public void thread3() {
-                Assertions.assertThrows(ItemNoLongerExistsException.class, () -> bag.take(2));
-            }
-
-            public void thread4() {
-                Assertions.assertThrows(ItemNoLongerExistsException.class, () -> bag.take(33));
-            }
-        });
-    }
-
-    @Test
-    public void whenRemovingAllItems_thenTheyCanBeAddedAgain() throws Throwable {
-        TestFramework.runOnce(new MultithreadedTestCase() {
-            public void thread1() {
-                waitForTick(1);
-                bag.put(1, "other1");
-                bag.put(2, "other2");
-                bag.put(3, "other3");
-            }
-
-            public void thread2() throws Exception {
-                bag.put(1, "one");
-                bag.put(2, "two");
-                bag.put(3, "three");
-                bag.removeAll();
-                String element1 = bag.take(1);
-                String element2 = bag.take(2);
-                String element3 = bag.take(3);
-
-                Assertions.assertEquals("other1", element1);
-                Assertions.assertEquals("other2", element2);
-                Assertions.assertEquals("other3", element3);
-            }
-        });
-    }
-
-}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package techbit.snow.proxy.snow.stream;
+
+import org.junit.jupiter.api.Test;
+import techbit.snow.proxy.dto.ParticlesSlab;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParticlesSlabPoolTest {
+
+    private final ParticlesSlabPool pool = new ParticlesSlabPool(2);
+
+    @Test
+    void whenSlabIsAcquired_thenItCanHoldRequestedParticles() {
+        assertEquals(16, pool.acquire(1).capacity());
+        assertEquals(128, pool.acquire(10).capacity());
+        assertEquals(1, pool.acquire(0).capacity());
+    }
+
+    @Test
+    void givenReleasedSlab_whenAcquiringSameSize_thenSlabIsReused() {
+        ParticlesSlab slab = pool.acquire(10).fill(0, new float[0], new float[0], new byte[0]);
+        slab.release();
+
+        assertEquals(1, pool.numOfFreeSlabs());
+        assertSame(slab, pool.acquire(12));
+        assertEquals(0, pool.numOfFreeSlabs());
+    }
+
+    @Test
+    void givenFullPool_whenReleasing_thenSlabIsDropped() {
+        for (int i = 0; i < 3; ++i) {
+            pool.acquire(10).fill(0, new float[0], new float[0], new byte[0]);
+        }
+        ParticlesSlab slab1 = pool.acquire(10).fill(0, new float[0], new float[0], new byte[0]);
+        ParticlesSlab slab2 = pool.acquire(10).fill(0, new float[0], new float[0], new byte[0]);
+        ParticlesSlab slab3 = pool.acquire(10).fill(0, new float[0], new float[0], new byte[0]);
+
+        slab1.release();
+        slab2.release();
+        slab3.release();
+
+        assertEquals(2, pool.numOfFreeSlabs());
+    }
+
+}
@@ -6,34 +6,35 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InOrder;
-import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import techbit.snow.proxy.dto.SnowBasis;
 import techbit.snow.proxy.dto.SnowDataFrame;
-import techbit.snow.proxy.snow.stream.BlockingBag.ItemNoLongerExistsException;
+import techbit.snow.proxy.snow.stream.SnowDataBuffer.ClientLag;
+import techbit.snow.proxy.snow.stream.SnowDataBuffer.ItemNoLongerExistsException;
+import techbit.snow.proxy.snow.stream.SnowDataBuffer.SlowConsumerException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
-import static techbit.snow.proxy.snow.stream.TestingFrames.frame;
+import static techbit.snow.proxy.snow.stream.TestingFrames.*;
 
 @SuppressWarnings("unused")
 @ExtendWith(MockitoExtension.class)
 class SnowDataBufferTest {
 
-    @Mock
-    private BlockingBag<Integer, SnowDataFrame> bag;
-
     private SnowDataBuffer buffer;
 
     @BeforeEach
     void setUp() {
-        buffer = new SnowDataBuffer(2, bag);
+        buffer = new SnowDataBuffer(2);
     }
 
     @Test
     void givenNoFramesInBuffer_whenAskedForFrame_thenWaitUntilFrameIsAvailable() throws Throwable {
-        when(bag.take(1)).thenReturn(frame(1));
-
         TestFramework.runOnce(new MultithreadedTestCase() {
             void thread1() {
                 waitForTick(1);
@@ -49,6 +50,54 @@ class SnowDataBufferTest {
         });
     }
 
+    @Test
+    void givenHundredsOfParkedReaders_whenFrameIsPushed_thenEachOfThemIsWokenUp() throws InterruptedException {
+        List<SnowDataFrame> received = new CopyOnWriteArrayList<>();
+        List<Thread> readers = IntStream.range(0, 200)
+                .mapToObj(i -> new Thread(() -> {
+                    try {
+                        received.add(buffer.firstFrame());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }))
+                .toList();
+        readers.forEach(Thread::start);
+        while (readers.stream().anyMatch(reader -> reader.getState() != Thread.State.TIMED_WAITING)) {
+            Thread.onSpinWait();
+        }
+
+        buffer.push(frame(1));
+        for (Thread reader : readers) {
+            reader.join(1000);
+        }
+
+        assertEquals(200, received.size());
+        assertTrue(received.stream().allMatch(frame(1)::equals));
+    }
+
+    @Test
+    void givenParkedReader_whenItIsInterrupted_thenWaitingEndsWithInterruptedException() throws InterruptedException {
+        List<Throwable> thrown = new CopyOnWriteArrayList<>();
+        Thread reader = new Thread(() -> {
+            try {
+                buffer.firstFrame();
+            } catch (Throwable e) {
+                thrown.add(e);
+            }
+        });
+        reader.start();
+        while (reader.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+
+        reader.interrupt();
+        reader.join(1000);
+
+        assertEquals(1, thrown.size());
+        assertInstanceOf(InterruptedException.class, thrown.get(0));
+    }
+
     @Test
     void givenRegisteredClients_whenWaitUntilAllClientsUnregister_thenNoDeadlockOccurs() throws Throwable {
         Object clientId1 = new Object();
@@ -99,68 +148,66 @@ class SnowDataBufferTest {
 
 
     @Test
-    void whenFrameAddedToBuffer_thenItIsStoredInBag() {
+    void whenFrameAddedToBuffer_thenItIsAvailable() throws InterruptedException {
         buffer.push(frame(1));
 
-        verify(bag).put(1, frame(1));
+        assertEquals(frame(1), buffer.firstFrame());
     }
 
     @Test
-    void whenTwoFramesAddedToBuffer_thenBothAreStoredInBag() {
+    void whenTwoFramesAddedToBuffer_thenBothAreAvailable() throws InterruptedException {
         buffer.push(frame(1));
         buffer.push(frame(2));
 
-        verify(bag).put(1, frame(1));
-        verify(bag).put(2, frame(2));
+        assertEquals(frame(1), buffer.firstFrame());
+        assertEquals(frame(2), buffer.nextFrame(frame(1)));
     }
 
     @Test
-    void whenThreeFramesAddedToBuffer_thenFirstOneIsRemoved() {
+    void whenThreeFramesAddedToBuffer_thenFirstOneIsRemoved() throws InterruptedException {
         buffer.push(frame(1));
         buffer.push(frame(2));
         buffer.push(frame(3));
 
-        InOrder inOrder = inOrder(bag);
-
-        inOrder.verify(bag).put(1, frame(1));
-        inOrder.verify(bag).put(2, frame(2));
-        verify(bag).put(3, frame(3));
-        inOrder.verify(bag).remove(1);
+        assertTrue(buffer.isBehind(1));
+        assertFalse(buffer.isBehind(2));
+        assertEquals(frame(2), buffer.firstFrame());
     }
 
     @Test
-    void whenFourFramesAddedToBuffer_thenTwoFirstAreRemoved() {
+    void whenFourFramesAddedToBuffer_thenTwoFirstAreRemoved() throws InterruptedException {
         buffer.push(frame(1));
         buffer.push(frame(2));
         buffer.push(frame(3));
         buffer.push(frame(4));
 
-        InOrder inOrder = inOrder(bag);
+        assertTrue(buffer.isBehind(1));
+        assertTrue(buffer.isBehind(2));
+        assertEquals(frame(3), buffer.firstFrame());
+        assertEquals(frame(4), buffer.nextFrame(frame(3)));
+    }
 
-        inOrder.verify(bag).put(1, frame(1));
-        inOrder.verify(bag).put(2, frame(2));
-        verify(bag).put(3, frame(3));
-        verify(bag).put(4, frame(4));
-        inOrder.verify(bag).remove(1);
-        inOrder.verify(bag).remove(2);
+    @Test
+    void whenManyFramesAddedToBuffer_thenRingIsReusedWithoutMixingFrames() throws InterruptedException {
+        for (int i = 1; i <= 1000; ++i) {
+            buffer.push(frame(i));
+        }
+
+        assertEquals(frame(999), buffer.firstFrame());
+        assertEquals(frame(1000), buffer.nextFrame(frame(999)));
+        assertEquals(frame(999), buffer.nextFrame(frame(500)));
     }
 
     @Test
     void whenFrameAdded_thenItCanBeTakenMultipleTimes() throws Exception {
         buffer.push(frame(1));
 
-        when(bag.take(1)).thenReturn(frame(1));
-
         assertEquals(1, buffer.firstFrame().frameNum());
         assertEquals(1, buffer.firstFrame().frameNum());
     }
 
     @Test
     void whenAddingFrames_thenFirstFrameIsDrifting() throws Exception {
-        when(bag.take(1)).thenReturn(frame(1));
-        when(bag.take(2)).thenReturn(frame(2));
-        when(bag.take(3)).thenReturn(frame(3));
-
         buffer.push(frame(1));
         assertEquals(1, buffer.firstFrame().frameNum());
 
@@ -176,8 +223,6 @@ class SnowDataBufferTest {
 
     @Test
     void givenNextFrame_whenTakingIt_thenItIsAvailableWithNoBlocking() throws Exception {
-        when(bag.take(2)).thenReturn(frame(2));
-
         buffer.push(frame(1));
         buffer.push(frame(2));
         SnowDataFrame nextFrame = buffer.nextFrame(frame(1));
@@ -187,8 +232,6 @@ class SnowDataBufferTest {
 
     @Test
     void givenDeadFrame_whenAskingForNextFrame_thenSkipToNextAlive() throws Exception {
-        when(bag.take(3)).thenReturn(frame(3));
-
         buffer.push(frame(1));
         buffer.push(frame(2));
         buffer.push(frame(3));
@@ -203,7 +246,6 @@ class SnowDataBufferTest {
     @Test
     void givenAliveFrame_whenBecomingDeadDuringAskingForNextFrame_thenSkipToNextAlive() throws Exception {
         buffer = spy(buffer);
-        when(bag.take(3)).thenReturn(frame(3));
 
         when(buffer.isBehind(2)).thenReturn(false, true);
 
@@ -238,8 +280,6 @@ class SnowDataBufferTest {
 
     @Test
     void whenLastFrameIsAdded_thenPreviousFramesAreStillAvailable() throws Exception {
-        when(bag.take(3)).thenReturn(frame(3));
-
         buffer.push(frame(1));
         buffer.push(frame(2));
         buffer.push(frame(3));
@@ -280,13 +320,13 @@ class SnowDataBufferTest {
 
     @Test
     void whenInvalidSizeOfBuffer_thenExceptionITsThrown() {
-        assertThrows(IllegalArgumentException.class, () -> new SnowDataBuffer(0, new BlockingBag<>()));
-        assertThrows(IllegalArgumentException.class, () -> new SnowDataBuffer(-1, new BlockingBag<>()));
+        assertThrows(IllegalArgumentException.class, () -> new SnowDataBuffer(0));
+        assertThrows(IllegalArgumentException.class, () -> new SnowDataBuffer(-1));
     }
 
     @Test
     void givenClientWaitingForNextFrame_whenBufferIsDestroyed_thenThrowException() throws Throwable {
-        buffer = new SnowDataBuffer(10, new BlockingBag<>());
+        buffer = new SnowDataBuffer(10);
 
         TestFramework.runOnce(new MultithreadedTestCase() {
 
@@ -306,4 +346,402 @@ class SnowDataBufferTest {
         }, 10, 100);
     }
 
+    @Test
+    void givenManyReadersWaitingForNextFrame_whenFrameIsPushed_thenAllReadersAreWokenUp() throws Throwable {
+        buffer = new SnowDataBuffer(10);
+
+        TestFramework.runOnce(new MultithreadedTestCase() {
+
+            void thread1() {
+                waitForTick(1);
+                buffer.push(frame(1));
+            }
+
+            void thread2() throws InterruptedException {
+                assertEquals(frame(1), buffer.firstFrame());
+                assertTick(1);
+            }
+
+            void thread3() throws InterruptedException {
+                assertEquals(frame(1), buffer.firstFrame());
+                assertTick(1);
+            }
+
+            void thread4() throws InterruptedException {
+                assertEquals(frame(1), buffer.firstFrame());
+                assertTick(1);
+            }
+        });
+    }
+
+    @Test
+    void givenReaderWaitingForNextFrame_whenLastFrameIsPushed_thenLastFrameIsProvided() throws Throwable {
+        buffer = new SnowDataBuffer(10);
+        buffer.push(frame(1));
+
+        TestFramework.runOnce(new MultithreadedTestCase() {
+
+            void thread1() {
+                waitForTick(1);
+                buffer.push(SnowDataFrame.LAST);
+            }
+
+            void thread2() throws InterruptedException {
+                assertEquals(SnowDataFrame.LAST, buffer.nextFrame(frame(1)));
+                assertTick(1);
+            }
+        });
+    }
+
+    @Test
+    void givenUnregisteredClient_whenAskedForFrame_thenExceptionIsThrown() {
+        buffer.push(frame(1));
+
+        assertThrows(IllegalArgumentException.class, () -> buffer.firstFrame("client"));
+        assertThrows(IllegalArgumentException.class, () -> buffer.nextFrame("client", frame(1)));
+        assertThrows(IllegalArgumentException.class, () -> buffer.lagOf("client"));
+    }
+
+    @Test
+    void whenInvalidSlowConsumerThreshold_thenExceptionIsThrown() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowDataBuffer(5, SlowConsumerPolicy.SKIP_TO_HEAD, 0));
+    }
+
+    @Test
+    void givenCatchUpPolicy_whenClientFallsOutOfBuffer_thenContinuesFromTailAndRecordsDroppedFrames() throws Exception {
+        buffer = new SnowDataBuffer(3, SlowConsumerPolicy.CATCH_UP, 1);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        SnowDataFrame first = buffer.firstFrame("client");
+
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+        buffer.push(frame(4));
+        buffer.push(frame(5));
+
+        assertEquals(4, buffer.lagOf("client"));
+        assertEquals(frame(3), buffer.nextFrame("client", first));
+        assertEquals(1, buffer.droppedFramesOf("client"));
+        assertEquals(2, buffer.lagOf("client"));
+    }
+
+    @Test
+    void givenClientsAtDifferentFrames_whenAskedForClientLags_thenEachClientIsReported() throws Exception {
+        buffer = new SnowDataBuffer(3, SlowConsumerPolicy.CATCH_UP, 1);
+        buffer.registerClient("slow");
+        buffer.registerClient("fast");
+        buffer.push(frame(1));
+        SnowDataFrame first = buffer.firstFrame("slow");
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+        buffer.push(frame(4));
+        buffer.push(frame(5));
+        buffer.nextFrame("slow", first);
+        buffer.firstFrame("fast", 4);
+
+        List<ClientLag> lags = buffer.clientLags();
+
+        assertEquals(2, lags.size());
+        assertTrue(lags.contains(new ClientLag(2, 1)));
+        assertTrue(lags.contains(new ClientLag(0, 0)));
+    }
+
+    @Test
+    void givenFrameStillBuffered_whenClientResumesAfterIt_thenNextFrameIsFirst() throws Exception {
+        buffer = new SnowDataBuffer(10);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+
+        assertEquals(frame(3), buffer.firstFrame("client", 2));
+        assertEquals(0, buffer.lagOf("client"));
+    }
+
+    @Test
+    void givenFrameNoLongerBuffered_whenClientResumesAfterIt_thenStartsAsNewClient() throws Exception {
+        buffer = new SnowDataBuffer(2);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+        buffer.push(frame(4));
+
+        assertEquals(frame(3), buffer.firstFrame("client", 1));
+    }
+
+    @Test
+    void givenFrameFromTheFuture_whenClientResumesAfterIt_thenStartsAsNewClient() throws Exception {
+        buffer = new SnowDataBuffer(10);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+
+        assertEquals(frame(1), buffer.firstFrame("client", 77));
+    }
+
+    @Test
+    void givenNoFramesYet_whenPollingForFrame_thenNullIsReturnedWithoutWaiting() {
+        buffer.registerClient("client");
+
+        assertNull(buffer.pollFirstFrame("client"));
+
+        buffer.push(frame(1));
+        SnowDataFrame first = buffer.pollFirstFrame("client");
+        assertEquals(frame(1), first);
+        assertNull(buffer.pollNextFrame("client", first));
+    }
+
+    @Test
+    void givenCatchUpPolicy_whenPollingAfterClientFellOutOfBuffer_thenContinuesFromTailAndRecordsDroppedFrames() {
+        buffer = new SnowDataBuffer(3, SlowConsumerPolicy.CATCH_UP, 1);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        SnowDataFrame first = buffer.pollFirstFrame("client");
+
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+        buffer.push(frame(4));
+        buffer.push(frame(5));
+
+        assertEquals(frame(3), buffer.pollNextFrame("client", first));
+        assertEquals(1, buffer.droppedFramesOf("client"));
+    }
+
+    @Test
+    void givenLastFramePushed_whenPollingPastIt_thenLastIsReturned() {
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        buffer.push(SnowDataFrame.LAST);
+
+        assertEquals(SnowDataFrame.LAST, buffer.pollNextFrame("client", frame(1)));
+        assertEquals(SnowDataFrame.LAST, buffer.pollNextFrame("client", SnowDataFrame.LAST));
+    }
+
+    @Test
+    void givenSkipToHeadPolicy_whenClientLagsTooMuch_thenJumpsToNewestFrame() throws Exception {
+        buffer = new SnowDataBuffer(10, SlowConsumerPolicy.SKIP_TO_HEAD, 2);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+
+        assertEquals(frame(3), buffer.firstFrame("client"));
+
+        buffer.push(frame(4));
+        buffer.push(frame(5));
+        assertEquals(frame(4), buffer.nextFrame("client", frame(3)));
+
+        buffer.push(frame(6));
+        buffer.push(frame(7));
+        assertEquals(frame(7), buffer.nextFrame("client", frame(4)));
+        assertEquals(2, buffer.droppedFramesOf("client"));
+        assertEquals(0, buffer.lagOf("client"));
+    }
+
+    @Test
+    void givenSkipToHeadPolicy_whenLastFrameIsPushed_thenJumpsToLastValidFrame() throws Exception {
+        buffer = new SnowDataBuffer(10, SlowConsumerPolicy.SKIP_TO_HEAD, 1);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+        buffer.push(SnowDataFrame.LAST);
+
+        assertEquals(frame(3), buffer.nextFrame("client", frame(1)));
+        assertEquals(SnowDataFrame.LAST, buffer.nextFrame("client", frame(3)));
+    }
+
+    @Test
+    void givenDropEveryNthPolicy_whenClientLags_thenEveryNthFrameIsDropped() throws Exception {
+        buffer = new SnowDataBuffer(10, SlowConsumerPolicy.DROP_EVERY_NTH, 3);
+        buffer.registerClient("client");
+        for (int i = 1; i <= 7; ++i) {
+            buffer.push(frame(i));
+        }
+
+        SnowDataFrame frame = buffer.firstFrame("client");
+        assertEquals(frame(1), frame);
+        assertEquals(frame(2), frame = buffer.nextFrame("client", frame));
+        assertEquals(frame(4), frame = buffer.nextFrame("client", frame));
+        assertEquals(frame(5), frame = buffer.nextFrame("client", frame));
+        assertEquals(frame(7), buffer.nextFrame("client", frame));
+        assertEquals(2, buffer.droppedFramesOf("client"));
+    }
+
+    @Test
+    void givenDropEveryNthPolicy_whenClientKeepsUp_thenNoFramesAreDropped() throws Exception {
+        buffer = new SnowDataBuffer(10, SlowConsumerPolicy.DROP_EVERY_NTH, 2);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        SnowDataFrame frame = buffer.firstFrame("client");
+
+        for (int i = 2; i <= 5; ++i) {
+            buffer.push(frame(i));
+            assertEquals(frame(i), frame = buffer.nextFrame("client", frame));
+        }
+        assertEquals(0, buffer.droppedFramesOf("client"));
+    }
+
+    @Test
+    void givenDisconnectPolicy_whenClientLagsTooMuch_thenExceptionIsThrown() throws Exception {
+        buffer = new SnowDataBuffer(10, SlowConsumerPolicy.DISCONNECT, 2);
+        buffer.registerClient("client");
+        buffer.push(frame(1));
+        SnowDataFrame first = buffer.firstFrame("client");
+
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+        assertEquals(frame(2), buffer.nextFrame("client", first));
+
+        buffer.push(frame(4));
+        buffer.push(frame(5));
+        assertEquals(3, buffer.lagOf("client"));
+        assertThrows(SlowConsumerException.class, () -> buffer.nextFrame("client", frame(2)));
+    }
+
+    @Test
+    void givenNoClients_whenAskedIfIdle_thenIdleTimeIsMeasuredSinceLastClientLeft() throws Exception {
+        assertTrue(buffer.hasNoClientsFor(Duration.ZERO));
+
+        buffer.registerClient("client");
+        assertFalse(buffer.hasNoClientsFor(Duration.ZERO));
+
+        buffer.unregisterClient("client");
+        assertTrue(buffer.hasNoClientsFor(Duration.ZERO));
+        assertFalse(buffer.hasNoClientsFor(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void whenFramesArePushed_thenTheirSizeIsAccountedInBudget() {
+        SnowMemoryBudget budget = new SnowMemoryBudget(1);
+        buffer = new SnowDataBuffer(2, SlowConsumerPolicy.CATCH_UP, 1, budget);
+
+        buffer.push(frameWithParticles(1, 10));
+        buffer.push(frameWithParticles(2, 20));
+        assertEquals(30 * 9, buffer.bufferedBytes());
+        assertEquals(30 * 9, budget.usedBytes());
+
+        buffer.push(frameWithParticles(3, 5));
+        assertEquals(25 * 9, buffer.bufferedBytes());
+        assertEquals(25 * 9, budget.usedBytes());
+    }
+
+    @Test
+    void whenBufferIsDestroyed_thenMemoryIsReturnedToBudget() {
+        SnowMemoryBudget budget = new SnowMemoryBudget(1);
+        buffer = new SnowDataBuffer(2, SlowConsumerPolicy.CATCH_UP, 1, budget);
+        buffer.push(frameWithParticles(1, 10));
+
+        buffer.destroy();
+
+        assertEquals(0, buffer.bufferedBytes());
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void givenEncodedFrame_whenItIsEvicted_thenItsEncodingsAreReturnedToBudget() throws Exception {
+        SnowMemoryBudget budget = new SnowMemoryBudget(1);
+        buffer = new SnowDataBuffer(1, SlowConsumerPolicy.CATCH_UP, 1, budget);
+        SnowDataFrame frame = frameWithParticles(1, 10);
+        buffer.push(frame);
+
+        frame.encoded().computeIfAbsent("codec", () -> new byte[100]);
+        assertEquals(10 * 9 + 100, budget.usedBytes());
+
+        buffer.push(frameWithParticles(2, 10));
+        assertEquals(10 * 9, budget.usedBytes());
+        assertEquals(0, frame.encoded().size());
+    }
+
+    @Test
+    void givenEncodedFrame_whenBufferIsDestroyed_thenItsEncodingsAreReturnedToBudget() throws Exception {
+        SnowMemoryBudget budget = new SnowMemoryBudget(1);
+        buffer = new SnowDataBuffer(2, SlowConsumerPolicy.CATCH_UP, 1, budget);
+        SnowDataFrame frame = frameWithParticles(1, 10);
+        frame.encoded().computeIfAbsent("codec", () -> new byte[100]);
+        buffer.push(frame);
+        assertEquals(10 * 9 + 100, budget.usedBytes());
+
+        buffer.destroy();
+
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void givenExceededBudget_whenFrameIsPushed_thenOldestFramesAreEvicted() throws Exception {
+        SnowMemoryBudget budget = new SnowMemoryBudget(1);
+        buffer = new SnowDataBuffer(10, SlowConsumerPolicy.CATCH_UP, 1, budget);
+        buffer.push(frameWithParticles(1, 30_000));
+        buffer.push(frameWithParticles(2, 30_000));
+        buffer.push(frameWithParticles(3, 30_000));
+
+        assertFalse(budget.isExceeded());
+        assertEquals(1, buffer.firstFrame().frameNum());
+
+        buffer.push(frameWithParticles(4, 30_000));
+
+        assertFalse(budget.isExceeded());
+        assertEquals(2, buffer.firstFrame().frameNum());
+        assertEquals(3 * 30_000 * 9, buffer.bufferedBytes());
+    }
+
+    @Test
+    void givenBasisSharedByFrames_whenFramesArePushed_thenBasisIsAccountedOnce() {
+        SnowBasis basis = new SnowBasis(2, new int[2], new int[2], new byte[2]);
+
+        buffer.push(frameWithParticles(1, 1).withBasis(basis));
+        buffer.push(frameWithParticles(2, 1).withBasis(basis));
+
+        assertEquals(2 * 9 + 2 * 9, buffer.bufferedBytes());
+    }
+
+    @Test
+    void givenOffHeapFrames_whenFramesArePushed_thenReadersSeeSameParticles() throws Exception {
+        buffer = new SnowDataBuffer(2, SlowConsumerPolicy.CATCH_UP, 1, SnowMemoryBudget.UNLIMITED, true);
+        buffer.registerClient("client");
+
+        buffer.push(new SnowDataFrame(1, 2, new float[]{1, 2}, new float[]{3, 4}, new byte[]{5, 6}));
+        SnowDataFrame frame = buffer.firstFrame("client");
+
+        assertTrue(frame.isOffHeap());
+        assertEquals(1, frame.frameNum());
+        assertEquals(2f, frame.x(1));
+        assertEquals(4f, frame.y(1));
+        assertEquals(6, frame.flakeShape(1));
+    }
+
+    @Test
+    void givenOffHeapFrames_whenFrameIsHeldByClient_thenItsSlabIsNotReusedUntilClientMovesOn() throws Exception {
+        buffer = new SnowDataBuffer(1, SlowConsumerPolicy.CATCH_UP, 1, SnowMemoryBudget.UNLIMITED, true);
+        buffer.registerClient("client");
+        buffer.push(new SnowDataFrame(1, 1, new float[]{11}, new float[]{12}, new byte[]{13}));
+        SnowDataFrame held = buffer.firstFrame("client");
+
+        buffer.push(new SnowDataFrame(2, 1, new float[]{21}, new float[]{22}, new byte[]{23}));
+        buffer.push(new SnowDataFrame(3, 1, new float[]{31}, new float[]{32}, new byte[]{33}));
+
+        assertEquals(11f, held.x(0));
+        assertEquals(12f, held.y(0));
+        assertEquals(13, held.flakeShape(0));
+
+        SnowDataFrame next = buffer.nextFrame("client", held);
+        assertEquals(3, next.frameNum());
+        assertEquals(31f, next.x(0));
+        assertFalse(held.tryRetain());
+    }
+
+    @Test
+    void givenOffHeapFrames_whenClientUnregisters_thenHeldFrameIsReleased() throws Exception {
+        buffer = new SnowDataBuffer(1, SlowConsumerPolicy.CATCH_UP, 1, SnowMemoryBudget.UNLIMITED, true);
+        buffer.registerClient("client");
+        buffer.push(new SnowDataFrame(1, 1, new float[1], new float[1], new byte[1]));
+        SnowDataFrame held = buffer.firstFrame("client");
+        buffer.push(new SnowDataFrame(2, 1, new float[1], new float[1], new byte[1]));
+
+        buffer.unregisterClient("client");
+
+        assertFalse(held.tryRetain());
+    }
+
 }
@@ -0,0 +1,59 @@
+package techbit.snow.proxy.snow.stream;
+
+import org.junit.jupiter.api.Test;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.snow.transcoding.BinaryStreamEncoder;
+import techbit.snow.proxy.snow.transcoding.NdjsonStreamEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowHandshakeTest {
+
+    private final SnowAnimationMetadata metadata = new SnowAnimationMetadata(10, 20, 5, 7, 100);
+    private final SnowBackground background = new SnowBackground(3, 2, new byte[][]{{0, 1}, {0, 0}, {2, 0}});
+    private final BinaryStreamEncoder encoder = new BinaryStreamEncoder();
+
+    @Test
+    void whenEncodingHandshake_thenMetadataIsFollowedByBackground() throws IOException {
+        SnowHandshake handshake = new SnowHandshake(metadata, background, false);
+
+        assertArrayEquals(encodedDirectly(), handshake.encodedWith(encoder));
+    }
+
+    @Test
+    void givenEncodedHandshake_whenEncodingAgain_thenSameBytesAreReturned() throws IOException {
+        SnowHandshake handshake = new SnowHandshake(metadata, background, false);
+
+        byte[] encoded = handshake.encodedWith(encoder);
+
+        assertSame(encoded, handshake.encodedWith(new BinaryStreamEncoder()));
+        assertNotSame(encoded, handshake.encodedWith(new NdjsonStreamEncoder()));
+    }
+
+    @Test
+    void givenDeflatedHandshake_whenInflated_thenSameAsPlainEncoding() throws IOException {
+        SnowHandshake handshake = new SnowHandshake(metadata, background, true);
+
+        byte[] deflated = handshake.encodedWith(encoder);
+
+        assertTrue(handshake.isDeflated());
+        assertEquals(0x78, deflated[0]);
+        try (InflaterInputStream inflated = new InflaterInputStream(new ByteArrayInputStream(deflated))) {
+            assertArrayEquals(encodedDirectly(), inflated.readAllBytes());
+        }
+    }
+
+    private byte[] encodedDirectly() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encodeMetadata(metadata, out);
+        encoder.encodeBackground(background, out);
+        return out.toByteArray();
+    }
+
+}
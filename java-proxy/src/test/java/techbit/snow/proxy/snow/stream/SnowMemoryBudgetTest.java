@@ -0,0 +1,46 @@
+package techbit.snow.proxy.snow.stream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowMemoryBudgetTest {
+
+    @Test
+    void whenBytesAreReservedAndReleased_thenUsageIsTracked() {
+        SnowMemoryBudget budget = new SnowMemoryBudget(1);
+
+        budget.reserve(1000);
+        budget.reserve(500);
+        budget.release(300);
+
+        assertEquals(1200, budget.usedBytes());
+        assertEquals(1024 * 1024, budget.maxBytes());
+    }
+
+    @Test
+    void whenUsageGoesAboveLimit_thenBudgetIsExceeded() {
+        SnowMemoryBudget budget = new SnowMemoryBudget(1);
+
+        budget.reserve(1024 * 1024);
+        assertFalse(budget.isExceeded());
+
+        budget.reserve(1);
+        assertTrue(budget.isExceeded());
+    }
+
+    @Test
+    void givenUnlimitedBudget_whenReserving_thenNeverExceeded() {
+        SnowMemoryBudget budget = new SnowMemoryBudget(0);
+
+        budget.reserve(Long.MAX_VALUE / 2);
+
+        assertFalse(budget.isExceeded());
+    }
+
+    @Test
+    void whenNegativeBudget_thenExceptionIsThrown() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowMemoryBudget(-1));
+    }
+
+}
@@ -29,7 +29,7 @@ import static techbit.snow.proxy.snow.stream.TestingFrames.frame;
 class SnowStreamAsyncTest extends SnowStreamBaseTest {
 
     public SnowStreamAsyncTest() {
-        super(spy(new SnowDataBuffer(13, new BlockingBag<>())));
+        super(spy(new SnowDataBuffer(13)));
     }
 
     @Test
@@ -45,7 +45,7 @@ class SnowStreamAsyncTest extends SnowStreamBaseTest {
         };
 
         final Answer<SnowDataFrame> countDownLatch = i -> {
-            // buffer.firstFrame|nextFrame(frame)
+            // buffer.firstFrame(client)|nextFrame(client, frame)
             SnowDataFrame frame = (SnowDataFrame) i.callRealMethod();
             latches[frame.frameNum() + 1].countDown();
             latches[frame.frameNum() + 1].await();
@@ -61,8 +61,8 @@ class SnowStreamAsyncTest extends SnowStreamBaseTest {
         };
 
         // each thread signal after frame consumed
-        doAnswer(countDownLatch).when(buffer).firstFrame();
-        doAnswer(countDownLatch).when(buffer).nextFrame(any());
+        doAnswer(countDownLatch).when(buffer).firstFrame(any());
+        doAnswer(countDownLatch).when(buffer).nextFrame(any(), any());
         // wait until previous frame consumed by all threads
         doAnswer(awaitLatch).when(buffer).push(any());
 
@@ -191,7 +191,7 @@ class SnowStreamAsyncTest extends SnowStreamBaseTest {
 
         Answer<SnowDataFrame> countDownLatch = i -> {
             Thread.sleep(100);
-            // buffer.firstFrame|nextFrame(frame)
+            // buffer.firstFrame(client)|nextFrame(client, frame)
             SnowDataFrame frame = (SnowDataFrame) i.callRealMethod();
             firstLoopLatch.countDown();
             remainingLoopsLatch.await();
@@ -199,8 +199,8 @@ class SnowStreamAsyncTest extends SnowStreamBaseTest {
         };
 
         // signal frame consumed
-        doAnswer(countDownLatch).when(buffer).firstFrame();
-        doAnswer(countDownLatch).when(buffer).nextFrame(any());
+        doAnswer(countDownLatch).when(buffer).firstFrame(any());
+        doAnswer(countDownLatch).when(buffer).nextFrame(any(), any());
         // wait until all frames consumed
         doAnswer(awaitLatch).when(buffer).push(any());
 
@@ -72,7 +72,7 @@ abstract public class SnowStreamBaseTest {
 
         snowStream = new SnowStream("session-xyz", snowConfig, serverMetadata,
                 pipe, phpSnow, buffer, decoder,
-                Duration.ofSeconds(1), Duration.ofSeconds(2),
-                eventPublisher);
+                Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ZERO,
+                false, eventPublisher);
     }
 }
@@ -0,0 +1,88 @@
+package techbit.snow.proxy.snow.stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnowStreamChunkedClientTest {
+    @Mock
+    private StreamEncoder encoder;
+    @Mock
+    private OutputStream output;
+    @Mock
+    private SnowDataFrame frame;
+    private SnowStreamChunkedClient client;
+
+    @BeforeEach
+    void setup() {
+        client = new SnowStreamChunkedClient(encoder, output);
+    }
+
+    @Test
+    void whenHandshakeIsStreamed_thenItsSharedBytesAreWrittenAndFlushed() throws IOException {
+        SnowHandshake handshake = mock(SnowHandshake.class);
+        when(handshake.encodedWith(encoder)).thenReturn(new byte[]{1, 2, 3});
+
+        client.startStreaming(handshake);
+
+        InOrder inOrder = inOrder(output);
+        inOrder.verify(output).write(new byte[]{1, 2, 3});
+        inOrder.verify(output).flush();
+    }
+
+    @Test
+    void whenMetadataIsStreamed_thenMetadataAndBackgroundAreFlushedTogether() throws IOException {
+        SnowAnimationMetadata metadata = mock(SnowAnimationMetadata.class);
+        SnowBackground background = mock(SnowBackground.class);
+
+        client.startStreaming(metadata, background);
+
+        InOrder inOrder = inOrder(encoder, output);
+        inOrder.verify(encoder).encodeMetadata(metadata, output);
+        inOrder.verify(encoder).encodeBackground(background, output);
+        inOrder.verify(output).flush();
+    }
+
+    @Test
+    void whenFrameIsStreamed_thenSharedBytesAreWrittenAsOneChunk() throws IOException {
+        when(encoder.encodeShared(frame, SnowBasis.NONE)).thenReturn(new byte[]{4, 5});
+
+        client.streamFrame(frame, SnowBasis.NONE);
+
+        InOrder inOrder = inOrder(output);
+        inOrder.verify(output).write(new byte[]{4, 5});
+        inOrder.verify(output).flush();
+        verifyNoMoreInteractions(output);
+    }
+
+    @Test
+    void whenStreamingEnded_thenLastFrameIsFlushed() throws IOException {
+        client.stopStreaming();
+
+        InOrder inOrder = inOrder(encoder, output);
+        inOrder.verify(encoder).encodeFrame(SnowDataFrame.LAST, output);
+        inOrder.verify(output).flush();
+    }
+
+    @Test
+    void whenBrandNewClient_thenAcceptsRepeatedFramesAndBasisDelta() {
+        assertTrue(client.acceptsRepeatedFrames());
+        assertTrue(client.acceptsBasisDelta());
+    }
+
+}
@@ -9,16 +9,28 @@ import org.springframework.context.ApplicationEventPublisher;
 import techbit.snow.proxy.config.PhpSnowConfig;
 import techbit.snow.proxy.config.PhpSnowConfigConverter;
 import techbit.snow.proxy.dto.ServerMetadata;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.error.MemoryBudgetExceededException;
 import techbit.snow.proxy.snow.php.NamedPipe;
 import techbit.snow.proxy.snow.php.PhpSnowApp;
+import techbit.snow.proxy.snow.php.PipeTransport;
+import techbit.snow.proxy.snow.php.SharedMemoryPipe;
+import techbit.snow.proxy.snow.php.SnowPipe;
+import techbit.snow.proxy.snow.php.SnowSocketSelector;
+import techbit.snow.proxy.snow.php.SocketPipe;
 import techbit.snow.proxy.snow.transcoding.BinaryStreamDecoder;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +56,10 @@ class SnowStreamFactoryTest {
     private NamedPipe namedPipe;
     @Mock
     private Path pipesDir;
+    @Mock
+    private SnowSocketSelector socketSelector;
+    @Mock
+    private SnowMemoryBudget memoryBudget;
     private SnowStreamFactory factory;
     private ServerMetadata serverMetadata;
 
@@ -55,8 +71,16 @@ class SnowStreamFactoryTest {
                 "somewhere",
                 39,
                 2,
+                45,
+                false,
+                false,
+                false,
+                false,
+                false,
                 eventPublisher,
                 configProvider,
+                socketSelector,
+                memoryBudget,
                 "131",
                 pipesDir));
     }
@@ -65,6 +89,9 @@ class SnowStreamFactoryTest {
     void whenSnowStreamIsCreated_thenObjectIsCreated() {
         when(snowConfig.fps()).thenReturn(22);
         when(configProvider.fromMap(configMap)).thenReturn(snowConfig);
+        when(snowConfig.transport()).thenReturn(PipeTransport.FIFO);
+        when(snowConfig.slowConsumerPolicy()).thenReturn(SlowConsumerPolicy.SKIP_TO_HEAD);
+        when(snowConfig.slowConsumerFrames()).thenReturn(5);
         when(pipesDir.resolve("session-xyz")).thenReturn(mock(Path.class));
 
         SnowStream result = factory.create("session-xyz", configMap);
@@ -72,19 +99,74 @@ class SnowStreamFactoryTest {
         assertNotNull(result);
     }
 
+    @Test
+    void givenMemoryBudgetExceeded_whenSnowStreamIsCreated_thenSessionIsRefused() {
+        when(memoryBudget.isExceeded()).thenReturn(true);
+
+        assertThrows(MemoryBudgetExceededException.class, () -> factory.create("session-xyz", configMap));
+        verify(configProvider, never()).fromMap(any());
+    }
+
+    @Test
+    void givenSharedMemoryTransport_whenPipeIsCreated_thenSharedMemoryPipeIsUsed() {
+        when(pipesDir.resolve("session-xyz")).thenReturn(mock(Path.class));
+
+        SnowPipe result = factory.createPipe("session-xyz", PipeTransport.SHARED_MEMORY, pipesDir, phpSnowApp);
+
+        assertInstanceOf(SharedMemoryPipe.class, result);
+    }
+
+    @Test
+    void givenSocketTransport_whenPipeIsCreated_thenSocketPipeIsUsed() {
+        when(pipesDir.resolve("session-xyz")).thenReturn(mock(Path.class));
+
+        SnowPipe result = factory.createPipe("session-xyz", PipeTransport.SOCKET, pipesDir, phpSnowApp);
+
+        assertInstanceOf(SocketPipe.class, result);
+    }
+
+    @Test
+    void givenFifoTransport_whenPipeIsCreated_thenNamedPipeIsUsed() {
+        when(pipesDir.resolve("session-xyz")).thenReturn(mock(Path.class));
+
+        SnowPipe result = factory.createPipe("session-xyz", PipeTransport.FIFO, pipesDir, phpSnowApp);
+
+        assertInstanceOf(NamedPipe.class, result);
+    }
+
+    @Test
+    void givenOffHeapFramesWithoutArraysRecycling_whenDecodingFrame_thenItsArraysAreRecycledAnyway() throws IOException {
+        factory = new SnowStreamFactory(1500, "somewhere", 39, 2, 45, false, true, false, false, false,
+                eventPublisher, configProvider, socketSelector, memoryBudget, "131", pipesDir);
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x30, 0x0, 0x0, // particlesX
+                0x40, 0x20, 0x0, 0x0, // particlesY
+                0x3,                  // flakeShape
+        };
+
+        SnowDataFrame frame = factory.createBinaryStreamDecoder().decodeFrame(new ByteArrayInputStream(binary));
+
+        assertTrue(frame.isPooled());
+    }
+
     @Test
     void whenSnowStreamIsCreated_thenObjectHasProperValues() {
         when(snowConfig.fps()).thenReturn(22);
         when(configProvider.fromMap(configMap)).thenReturn(snowConfig);
+        when(snowConfig.transport()).thenReturn(PipeTransport.FIFO);
+        when(snowConfig.slowConsumerPolicy()).thenReturn(SlowConsumerPolicy.SKIP_TO_HEAD);
+        when(snowConfig.slowConsumerFrames()).thenReturn(5);
         doReturn(streamDecoder).when(factory).createBinaryStreamDecoder();
-        doReturn(namedPipe).when(factory).createPipe("session-xyz", pipesDir);
-        doReturn(snowDataBuffer).when(factory).createSnowDataBuffer(eq(33), any());
+        doReturn(namedPipe).when(factory).createPipe("session-xyz", PipeTransport.FIFO, pipesDir, phpSnowApp);
+        doReturn(snowDataBuffer).when(factory).createSnowDataBuffer(33, SlowConsumerPolicy.SKIP_TO_HEAD, 5);
         doReturn(phpSnowApp).when(factory).createPhpSnowApp(
                 eq("session-xyz"), eq(snowConfig), eq("131"), any(ProcessBuilder.class));
         doReturn(snowStream).when(factory).createSnowStream(
                 "session-xyz", snowConfig, namedPipe, phpSnowApp,
                 snowDataBuffer, streamDecoder, serverMetadata, eventPublisher,
-                39, 2);
+                39, 2, 45);
 
         SnowStream result = factory.create("session-xyz", configMap);
 
@@ -0,0 +1,184 @@
+package techbit.snow.proxy.snow.stream;
+
+import com.google.common.collect.Lists;
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static techbit.snow.proxy.snow.stream.TestingFrames.frame;
+
+@ExtendWith(MockitoExtension.class)
+class SnowStreamSubscriptionTest {
+    @Mock
+    private StreamEncoder encoder;
+    private SnowDataBuffer buffer;
+    private RecordingSubscriber subscriber;
+    private SnowStreamSubscription subscription;
+    private @Nullable Exception consumerException;
+    private boolean finished;
+
+    @BeforeEach
+    void setup() throws IOException {
+        lenient().when(encoder.encodeShared(any(), any()))
+                .thenAnswer(i -> new byte[]{(byte) i.<SnowDataFrame>getArgument(0).frameNum()});
+        buffer = new SnowDataBuffer(10);
+        subscriber = new RecordingSubscriber();
+        subscription = new SnowStreamSubscription(buffer, SnowHandshake.NONE, encoder, subscriber, Runnable::run,
+                () -> consumerException, s -> {
+                    finished = true;
+                    buffer.unregisterClient(s);
+                });
+        buffer.registerClient(subscription);
+        subscription.subscribed();
+    }
+
+    @Test
+    void whenFirstChunkIsRequested_thenHandshakeIsDelivered() throws IOException {
+        subscriber.request(1);
+
+        assertEquals(1, subscriber.chunks.size());
+        verify(encoder).encodeMetadata(eq(SnowAnimationMetadata.NONE), any());
+        verify(encoder).encodeBackground(eq(SnowBackground.NONE), any());
+    }
+
+    @Test
+    void givenMoreFramesBuffered_whenFewAreRequested_thenOnlyRequestedAreDelivered() {
+        buffer.push(frame(1));
+        buffer.push(frame(2));
+        buffer.push(frame(3));
+
+        subscriber.request(2);
+
+        assertEquals(2, subscriber.chunks.size());
+        assertArrayEquals(new byte[]{1}, subscriber.chunks.get(1));
+    }
+
+    @Test
+    void givenNoFramesYet_whenFrameIsPushed_thenPendingDemandIsServed() {
+        subscriber.request(3);
+        assertEquals(1, subscriber.chunks.size());
+
+        buffer.push(frame(1));
+        subscription.framePushed();
+        buffer.push(frame(2));
+        subscription.framePushed();
+
+        assertEquals(3, subscriber.chunks.size());
+        assertArrayEquals(new byte[]{2}, subscriber.chunks.get(2));
+    }
+
+    @Test
+    void givenNoDemand_whenFrameIsPushed_thenNothingIsDelivered() {
+        buffer.push(frame(1));
+        subscription.framePushed();
+
+        assertTrue(subscriber.chunks.isEmpty());
+    }
+
+    @Test
+    void whenLastFrameIsReached_thenSubscriberCompletesAndLeavesBuffer() {
+        buffer.push(frame(1));
+        buffer.push(SnowDataFrame.LAST);
+
+        subscriber.request(Long.MAX_VALUE);
+
+        assertEquals(3, subscriber.chunks.size());
+        assertTrue(subscriber.completed);
+        assertTrue(finished);
+        assertTrue(buffer.hasNoClientsFor(Duration.ZERO));
+    }
+
+    @Test
+    void givenConsumerFailed_whenLastFrameIsReached_thenSubscriberGetsError() {
+        consumerException = new IOException("pipe broken");
+        buffer.push(SnowDataFrame.LAST);
+
+        subscriber.request(5);
+
+        assertSame(consumerException, subscriber.error);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void whenCancelled_thenNoMoreChunksAreDeliveredAndBufferIsLeft() {
+        subscriber.request(1);
+        subscription.cancel();
+        buffer.push(frame(1));
+
+        subscriber.request(1);
+        subscription.framePushed();
+
+        assertEquals(1, subscriber.chunks.size());
+        assertTrue(finished);
+        assertTrue(buffer.hasNoClientsFor(Duration.ZERO));
+    }
+
+    @Test
+    void whenNonPositiveNumberIsRequested_thenSubscriberGetsError() {
+        subscriber.request(0);
+
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertTrue(finished);
+    }
+
+    @Test
+    void whenFailingBeforeStart_thenSubscriberIsToldRightAfterSubscribing() {
+        RecordingSubscriber failed = new RecordingSubscriber();
+        IOException exception = new IOException("Stream is not active!");
+
+        new SnowStreamSubscription(buffer, SnowHandshake.NONE, encoder, failed, Runnable::run,
+                () -> null, s -> fail("Was never registered")).failBeforeStart(exception);
+
+        assertNotNull(failed.subscription);
+        assertSame(exception, failed.error);
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<byte[]> {
+
+        private final List<byte[]> chunks = Lists.newArrayList();
+        private @Nullable Flow.Subscription subscription;
+        private @Nullable Throwable error;
+        private boolean completed;
+
+        void request(long n) {
+            Objects.requireNonNull(subscription).request(n);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(byte[] chunk) {
+            chunks.add(chunk);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+    }
+
+}
@@ -3,14 +3,18 @@ package techbit.snow.proxy.snow.stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import techbit.snow.proxy.config.PhpSnowConfig;
 import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
 import techbit.snow.proxy.dto.SnowBasis;
 import techbit.snow.proxy.dto.SnowDataFrame;
 import techbit.snow.proxy.error.IncompatibleConfigException;
+import techbit.snow.proxy.snow.php.SocketPipe;
+import techbit.snow.proxy.snow.php.SocketPipeInputStream;
 import techbit.snow.proxy.snow.stream.SnowStream.ConsumerThreadException;
 import techbit.snow.proxy.snow.stream.SnowStream.SnowStreamFinishedEvent;
 
@@ -18,6 +22,9 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,6 +45,120 @@ class SnowStreamTest extends SnowStreamBaseTest {
         verify(phpSnow).start();
     }
 
+    @Test
+    void whenStartPhpApp_thenPipeIsOpenedBeforePhpAppStarts() throws IOException {
+        snowStream.startPhpApp();
+
+        InOrder inOrder = inOrder(pipe, phpSnow);
+        inOrder.verify(pipe).destroy();
+        inOrder.verify(pipe).open();
+        inOrder.verify(phpSnow).start();
+    }
+
+    @Test
+    void givenSocketPipe_whenStartConsumingSnowData_thenFramesAreConsumedBySelector() throws IOException {
+        final SocketPipeInputStream socketStream = mock(SocketPipeInputStream.class);
+        final ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        when(pipe.inputStream()).thenReturn(socketStream);
+        when(phpSnow.isAlive()).thenReturn(true);
+
+        snowStream.startConsumingSnowData();
+        verify(socketStream).listen(listener.capture());
+        listener.getValue().run();
+        listener.getValue().run();
+
+        assertTrue(snowStream.isActive());
+        InOrder inOrder = inOrder(buffer);
+        inOrder.verify(buffer).push(frame(1));
+        inOrder.verify(buffer).push(frame(2));
+    }
+
+    @Test
+    void givenNoClientsForTooLong_whenFrameIsConsumedFromSocket_thenPhpAppIsPausedByConsumingThread() throws IOException {
+        final SocketPipeInputStream socketStream = mock(SocketPipeInputStream.class);
+        final ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        final List<String> pausingThreads = new CopyOnWriteArrayList<>();
+        when(pipe.inputStream()).thenReturn(socketStream);
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.hasNoClientsFor(Duration.ofSeconds(5))).thenReturn(true);
+        doAnswer(i -> pausingThreads.add(Thread.currentThread().getName())).when(phpSnow).pause();
+        snowStream = new SnowStream("session-xyz", snowConfig, serverMetadata,
+                pipe, phpSnow, buffer, decoder,
+                Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5),
+                false, eventPublisher);
+
+        snowStream.startConsumingSnowData();
+        verify(socketStream).listen(listener.capture());
+        listener.getValue().run();
+
+        assertEquals(List.of(Thread.currentThread().getName()), pausingThreads);
+    }
+
+    @Test
+    void givenPhpAppCannotBePaused_whenFrameIsConsumed_thenStreamGoesOn() throws IOException {
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.hasNoClientsFor(Duration.ofSeconds(5))).thenReturn(true);
+        doThrow(IOException.class).when(phpSnow).pause();
+        snowStream = new SnowStream("session-xyz", snowConfig, serverMetadata,
+                pipe, phpSnow, buffer, decoder,
+                Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5),
+                false, eventPublisher);
+
+        snowStream.startConsumingSnowData();
+
+        verify(buffer, timeout(1000).atLeast(2)).push(any());
+        verify(phpSnow, atLeastOnce()).pause();
+    }
+
+    @Test
+    void givenIdlePausingDisabled_whenFrameIsConsumed_thenPhpAppIsNotPaused() throws IOException {
+        final SocketPipeInputStream socketStream = mock(SocketPipeInputStream.class);
+        final ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        when(pipe.inputStream()).thenReturn(socketStream);
+        when(phpSnow.isAlive()).thenReturn(true);
+
+        snowStream.startConsumingSnowData();
+        verify(socketStream).listen(listener.capture());
+        listener.getValue().run();
+
+        verify(buffer, never()).hasNoClientsFor(any());
+        verify(phpSnow, never()).pause();
+    }
+
+    @Test
+    void givenPausedPhpApp_whenStreamToClient_thenPhpAppIsResumedAfterClientRegisters() throws Exception {
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(phpSnow.isPaused()).thenReturn(true);
+        when(buffer.firstFrame(any())).thenReturn(SnowDataFrame.LAST);
+
+        snowStream.startConsumingSnowData();
+        snowStream.streamTo(client);
+
+        InOrder inOrder = inOrder(buffer, phpSnow);
+        inOrder.verify(buffer).registerClient(any());
+        inOrder.verify(phpSnow).resume();
+    }
+
+    @Test
+    void givenSocketPipe_whenLastFrameIsConsumed_thenSelectorStopsNotifying() throws IOException, InterruptedException {
+        final SocketPipeInputStream socketStream = mock(SocketPipeInputStream.class);
+        final ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        when(pipe.inputStream()).thenReturn(socketStream);
+        when(phpSnow.isAlive()).thenReturn(true);
+
+        snowStream.startConsumingSnowData();
+        verify(socketStream).listen(listener.capture());
+        for (int i = 0; i < 5; ++i) {
+            listener.getValue().run();
+        }
+        snowStream.waitUntilConsumerThreadFinished();
+
+        verify(socketStream).stopListening();
+        verify(buffer).push(SnowDataFrame.LAST);
+        verify(buffer).destroy();
+        assertFalse(snowStream.isActive());
+    }
+
     @Test
     void whenStartPhpApp_thenItIsNotActive() throws IOException {
         snowStream.startPhpApp();
@@ -213,7 +334,7 @@ class SnowStreamTest extends SnowStreamBaseTest {
     @Test
     void givenCustomClient_whenStream_thenInitializationHookIsInvoked() throws ConsumerThreadException, IOException, InterruptedException {
         when(phpSnow.isAlive()).thenReturn(true);
-        when(buffer.firstFrame()).thenReturn(SnowDataFrame.LAST);
+        when(buffer.firstFrame(any())).thenReturn(SnowDataFrame.LAST);
 
         snowStream.startConsumingSnowData();
         snowStream.streamTo(client);
@@ -224,8 +345,8 @@ class SnowStreamTest extends SnowStreamBaseTest {
     @Test
     void givenCustomClient_whenStream_thenFinishHookIsInvoked() throws ConsumerThreadException, IOException, InterruptedException {
         when(phpSnow.isAlive()).thenReturn(true);
-        when(buffer.firstFrame()).thenReturn(frame(1));
-        when(buffer.nextFrame(frame(1))).thenReturn(SnowDataFrame.LAST);
+        when(buffer.firstFrame(any())).thenReturn(frame(1));
+        when(buffer.nextFrame(any(), eq(frame(1)))).thenReturn(SnowDataFrame.LAST);
 
         snowStream.startConsumingSnowData();
         snowStream.streamTo(client);
@@ -233,12 +354,25 @@ class SnowStreamTest extends SnowStreamBaseTest {
         verify(client).stopStreaming();
     }
 
+    @Test
+    void givenSlowClient_whenBufferDisconnectsIt_thenStreamingFailsAndClientIsUnregistered() throws Exception {
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.firstFrame(any())).thenReturn(frame(1));
+        when(buffer.nextFrame(any(), eq(frame(1)))).thenThrow(new SnowDataBuffer.SlowConsumerException());
+
+        snowStream.startConsumingSnowData();
+
+        assertThrows(IOException.class, () -> snowStream.streamTo(client));
+        verify(buffer).unregisterClient(client.identifier());
+        verify(client, never()).stopStreaming();
+    }
+
     @Test
     void givenCustomClient_whenStream_thenOnFrameEncodedHookInvoked() throws ConsumerThreadException, IOException, InterruptedException {
         when(phpSnow.isAlive()).thenReturn(true);
-        when(buffer.firstFrame()).thenReturn(frame(1));
-        when(buffer.nextFrame(frame(1))).thenReturn(frame(2));
-        when(buffer.nextFrame(frame(2))).thenReturn(SnowDataFrame.LAST);
+        when(buffer.firstFrame(any())).thenReturn(frame(1));
+        when(buffer.nextFrame(any(), eq(frame(1)))).thenReturn(frame(2));
+        when(buffer.nextFrame(any(), eq(frame(2)))).thenReturn(SnowDataFrame.LAST);
 
         snowStream.startConsumingSnowData();
         snowStream.streamTo(client);
@@ -250,10 +384,10 @@ class SnowStreamTest extends SnowStreamBaseTest {
     @Test
     void whenStreamingFrames_thenLastFrameIsStreamedToClient() throws ConsumerThreadException, IOException, InterruptedException {
         when(phpSnow.isAlive()).thenReturn(true);
-        when(buffer.firstFrame()).thenReturn(frame(1));
-        when(buffer.nextFrame(frame(1))).thenReturn(frame(2));
-        when(buffer.nextFrame(frame(2))).thenReturn(frame(3));
-        when(buffer.nextFrame(frame(3))).thenReturn(SnowDataFrame.LAST);
+        when(buffer.firstFrame(any())).thenReturn(frame(1));
+        when(buffer.nextFrame(any(), eq(frame(1)))).thenReturn(frame(2));
+        when(buffer.nextFrame(any(), eq(frame(2)))).thenReturn(frame(3));
+        when(buffer.nextFrame(any(), eq(frame(3)))).thenReturn(SnowDataFrame.LAST);
 
         snowStream.startConsumingSnowData();
         snowStream.streamTo(client);
@@ -269,10 +403,10 @@ class SnowStreamTest extends SnowStreamBaseTest {
     @Test
     void givenCustomClient_whenStreamIsDeactivated_thenFrameLoopBreaks() throws ConsumerThreadException, IOException, InterruptedException {
         when(phpSnow.isAlive()).thenReturn(true);
-        when(buffer.firstFrame()).thenReturn(frame(1));
-        when(buffer.nextFrame(frame(1))).thenReturn(frame(2));
-        when(buffer.nextFrame(frame(2))).thenReturn(frame(3));
-        when(buffer.nextFrame(frame(3))).thenReturn(SnowDataFrame.LAST);
+        when(buffer.firstFrame(any())).thenReturn(frame(1));
+        when(buffer.nextFrame(any(), eq(frame(1)))).thenReturn(frame(2));
+        when(buffer.nextFrame(any(), eq(frame(2)))).thenReturn(frame(3));
+        when(buffer.nextFrame(any(), eq(frame(3)))).thenReturn(SnowDataFrame.LAST);
 
         final AtomicInteger c = new AtomicInteger();
         when(client.continueStreaming()).then((i) -> c.incrementAndGet() < 3);
@@ -303,7 +437,7 @@ class SnowStreamTest extends SnowStreamBaseTest {
     void whenInputDataIsStreamed_thenMetadataIsStreamedToOutput() throws IOException, InterruptedException, ConsumerThreadException {
         SnowAnimationMetadata metadata = mock(SnowAnimationMetadata.class);
         when(decoder.decodeMetadata(any(), any(), any())).thenReturn(metadata);
-        when(buffer.firstFrame()).thenReturn(SnowDataFrame.LAST);
+        when(buffer.firstFrame(any())).thenReturn(SnowDataFrame.LAST);
         when(phpSnow.isAlive()).thenReturn(true);
 
         snowStream.startConsumingSnowData();
@@ -312,14 +446,33 @@ class SnowStreamTest extends SnowStreamBaseTest {
         verify(encoder, times(1)).encodeMetadata(metadata, outputStream);
     }
 
+    @Test
+    void whenInputDataIsStreamed_thenClientGetsHandshakeWithDecodedMetadataAndBackground() throws IOException, InterruptedException, ConsumerThreadException {
+        SnowAnimationMetadata metadata = mock(SnowAnimationMetadata.class);
+        SnowBackground background = mock(SnowBackground.class);
+        ArgumentCaptor<SnowHandshake> handshake = ArgumentCaptor.forClass(SnowHandshake.class);
+        when(decoder.decodeMetadata(any(), any(), any())).thenReturn(metadata);
+        when(decoder.decodeBackground(any())).thenReturn(background);
+        when(buffer.firstFrame(any())).thenReturn(SnowDataFrame.LAST);
+        when(phpSnow.isAlive()).thenReturn(true);
+
+        snowStream.startConsumingSnowData();
+        snowStream.streamTo(client);
+
+        verify(client).startStreaming(handshake.capture());
+        assertSame(metadata, handshake.getValue().metadata());
+        assertSame(background, handshake.getValue().background());
+        assertFalse(handshake.getValue().isDeflated());
+    }
+
     @Test
     void whenFramesInBuffer_thenFramesAreStreamedToOutput() throws IOException, InterruptedException, ConsumerThreadException {
         when(phpSnow.isAlive()).thenReturn(true);
-        when(buffer.firstFrame()).thenReturn(frame(1));
-        when(buffer.nextFrame(frame(1))).thenReturn(frame(2));
-        when(buffer.nextFrame(frame(2))).thenReturn(frame(3));
-        when(buffer.nextFrame(frame(3))).thenReturn(frame(4));
-        when(buffer.nextFrame(frame(4))).thenReturn(SnowDataFrame.LAST);
+        when(buffer.firstFrame(any())).thenReturn(frame(1));
+        when(buffer.nextFrame(any(), eq(frame(1)))).thenReturn(frame(2));
+        when(buffer.nextFrame(any(), eq(frame(2)))).thenReturn(frame(3));
+        when(buffer.nextFrame(any(), eq(frame(3)))).thenReturn(frame(4));
+        when(buffer.nextFrame(any(), eq(frame(4)))).thenReturn(SnowDataFrame.LAST);
 
         snowStream.startConsumingSnowData();
         snowStream.streamTo(client);
@@ -346,16 +499,16 @@ class SnowStreamTest extends SnowStreamBaseTest {
         SnowDataFrame frame9 = frameWithBasis(9, 3);
 
         when(phpSnow.isAlive()).thenReturn(true);
-        when(buffer.firstFrame()).thenReturn(frame1);
-        when(buffer.nextFrame(frame1)).thenReturn(frame2);
-        when(buffer.nextFrame(frame2)).thenReturn(frame3);
-        when(buffer.nextFrame(frame3)).thenReturn(frame4);
-        when(buffer.nextFrame(frame4)).thenReturn(frame5);
-        when(buffer.nextFrame(frame5)).thenReturn(frame6);
-        when(buffer.nextFrame(frame6)).thenReturn(frame7);
-        when(buffer.nextFrame(frame7)).thenReturn(frame8);
-        when(buffer.nextFrame(frame8)).thenReturn(frame9);
-        when(buffer.nextFrame(frame9)).thenReturn(SnowDataFrame.LAST);
+        when(buffer.firstFrame(any())).thenReturn(frame1);
+        when(buffer.nextFrame(any(), eq(frame1))).thenReturn(frame2);
+        when(buffer.nextFrame(any(), eq(frame2))).thenReturn(frame3);
+        when(buffer.nextFrame(any(), eq(frame3))).thenReturn(frame4);
+        when(buffer.nextFrame(any(), eq(frame4))).thenReturn(frame5);
+        when(buffer.nextFrame(any(), eq(frame5))).thenReturn(frame6);
+        when(buffer.nextFrame(any(), eq(frame6))).thenReturn(frame7);
+        when(buffer.nextFrame(any(), eq(frame7))).thenReturn(frame8);
+        when(buffer.nextFrame(any(), eq(frame8))).thenReturn(frame9);
+        when(buffer.nextFrame(any(), eq(frame9))).thenReturn(SnowDataFrame.LAST);
 
 
         snowStream.startConsumingSnowData();
@@ -449,6 +602,167 @@ class SnowStreamTest extends SnowStreamBaseTest {
         inOrder.verify(buffer).push(SnowDataFrame.LAST);
     }
 
+    @Test
+    void givenIdenticalConsecutiveFrames_whenStreamingFrames_thenRepeatedFramesPointToFirstPayload() throws IOException, InterruptedException {
+        SnowDataFrame frame1 = frameWithParticles(1, 3);
+        SnowDataFrame frame2 = frameWithParticles(2, 3);
+        SnowDataFrame frame3 = new SnowDataFrame(3, 3, new float[]{1, 2, 3}, new float[3], new byte[3]);
+        final Iterator<SnowDataFrame> inputFrames = List.of(frame1, frame2, frame3, SnowDataFrame.LAST).iterator();
+        when(decoder.decodeFrame(any())).then(i -> inputFrames.next());
+        when(phpSnow.isAlive()).then(i -> inputFrames.hasNext());
+
+        snowStream.startConsumingSnowData();
+        snowStream.waitUntilConsumerThreadFinished();
+
+        InOrder inOrder = inOrder(buffer);
+        inOrder.verify(buffer).push(frame1);
+        inOrder.verify(buffer).push(frame2.withPayloadOf(1));
+        inOrder.verify(buffer).push(frame3);
+        inOrder.verify(buffer).push(SnowDataFrame.LAST);
+    }
+
+    @Test
+    void givenConsecutiveFramesWithCollidingHashes_whenStreamingFrames_thenBothCarryOwnPayload() throws IOException, InterruptedException {
+        SnowDataFrame frame1 = frameWithUnitParticles(1);
+        SnowDataFrame frame2 = frameWithHashOfUnitParticles(2);
+        final Iterator<SnowDataFrame> inputFrames = List.of(frame1, frame2, SnowDataFrame.LAST).iterator();
+        when(decoder.decodeFrame(any())).then(i -> inputFrames.next());
+        when(phpSnow.isAlive()).then(i -> inputFrames.hasNext());
+
+        snowStream.startConsumingSnowData();
+        snowStream.waitUntilConsumerThreadFinished();
+
+        InOrder inOrder = inOrder(buffer);
+        inOrder.verify(buffer).push(frame1);
+        inOrder.verify(buffer).push(frame2);
+        inOrder.verify(buffer).push(SnowDataFrame.LAST);
+    }
+
+    @Test
+    void givenClientAcceptingRepeatedFrames_whenPayloadWasAlreadySent_thenRepeatedFrameIsStreamed() throws ConsumerThreadException, IOException, InterruptedException {
+        SnowDataFrame frame1 = frameWithParticles(1, 3);
+        SnowDataFrame frame2 = frameWithParticles(2, 3).withPayloadOf(1);
+        SnowDataFrame frame3 = frameWithParticles(3, 3);
+        when(client.acceptsRepeatedFrames()).thenReturn(true);
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.firstFrame(any())).thenReturn(frame1);
+        when(buffer.nextFrame(any(), eq(frame1))).thenReturn(frame2);
+        when(buffer.nextFrame(any(), eq(frame2))).thenReturn(frame3);
+        when(buffer.nextFrame(any(), eq(frame3))).thenReturn(SnowDataFrame.LAST);
+
+        snowStream.startConsumingSnowData();
+        snowStream.streamTo(client);
+
+        InOrder inOrder = inOrder(client);
+        inOrder.verify(client).streamFrame(frame1, SnowBasis.NONE);
+        inOrder.verify(client).streamFrame(frame2.asRepeated(), SnowBasis.NONE);
+        inOrder.verify(client).streamFrame(frame3, SnowBasis.NONE);
+    }
+
+    @Test
+    void givenClientAcceptingRepeatedFrames_whenPayloadWasNotSentToIt_thenFullFrameIsStreamed() throws ConsumerThreadException, IOException, InterruptedException {
+        SnowDataFrame frame2 = frameWithParticles(2, 3).withPayloadOf(1);
+        when(client.acceptsRepeatedFrames()).thenReturn(true);
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.firstFrame(any())).thenReturn(frame2);
+        when(buffer.nextFrame(any(), eq(frame2))).thenReturn(SnowDataFrame.LAST);
+
+        snowStream.startConsumingSnowData();
+        snowStream.streamTo(client);
+
+        verify(client).streamFrame(frame2, SnowBasis.NONE);
+    }
+
+    @Test
+    void givenClientNotAcceptingRepeatedFrames_whenPayloadWasAlreadySent_thenFullFrameIsStreamed() throws ConsumerThreadException, IOException, InterruptedException {
+        SnowDataFrame frame1 = frameWithParticles(1, 3);
+        SnowDataFrame frame2 = frameWithParticles(2, 3).withPayloadOf(1);
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.firstFrame(any())).thenReturn(frame1);
+        when(buffer.nextFrame(any(), eq(frame1))).thenReturn(frame2);
+        when(buffer.nextFrame(any(), eq(frame2))).thenReturn(SnowDataFrame.LAST);
+
+        snowStream.startConsumingSnowData();
+        snowStream.streamTo(client);
+
+        verify(client).streamFrame(frame2, SnowBasis.NONE);
+    }
+
+    @Test
+    void givenBasisChangingSlightly_whenStreamingFrames_thenDeltaFromPreviousBasisIsAttached() throws IOException, InterruptedException {
+        SnowBasis basis1 = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 7});
+        SnowBasis basis2 = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 8});
+        final Iterator<SnowDataFrame> inputFrames = List.of(frame(1), frame(2), SnowDataFrame.LAST).iterator();
+        final Iterator<SnowBasis> inputBasis = List.of(basis1, basis2).iterator();
+        when(decoder.decodeFrame(any())).then(i -> inputFrames.next());
+        when(decoder.decodeBasis(any())).then(i -> inputBasis.next());
+        when(phpSnow.isAlive()).then(i -> inputFrames.hasNext());
+        ArgumentCaptor<SnowDataFrame> pushed = ArgumentCaptor.forClass(SnowDataFrame.class);
+
+        snowStream.startConsumingSnowData();
+        snowStream.waitUntilConsumerThreadFinished();
+
+        verify(buffer, times(3)).push(pushed.capture());
+        assertSame(basis1, pushed.getAllValues().get(0).basis());
+        assertSame(basis2.pixels(), pushed.getAllValues().get(1).basis().pixels());
+        assertTrue(pushed.getAllValues().get(1).basis().hasDeltaFrom(basis1));
+    }
+
+    @Test
+    void givenClientAcceptingBasisDelta_whenItHoldsPreviousBasis_thenOnlyDeltaIsStreamed() throws ConsumerThreadException, IOException, InterruptedException {
+        SnowBasis basis1 = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 7});
+        SnowBasis basis2 = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 8})
+                .withDeltaFrom(basis1);
+        SnowDataFrame frame1 = frame(1).withBasis(basis1);
+        SnowDataFrame frame2 = frame(2).withBasis(basis2);
+        when(client.acceptsBasisDelta()).thenReturn(true);
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.firstFrame(any())).thenReturn(frame1);
+        when(buffer.nextFrame(any(), eq(frame1))).thenReturn(frame2);
+        when(buffer.nextFrame(any(), eq(frame2))).thenReturn(SnowDataFrame.LAST);
+
+        snowStream.startConsumingSnowData();
+        snowStream.streamTo(client);
+
+        InOrder inOrder = inOrder(client);
+        inOrder.verify(client).streamFrame(frame1, basis1);
+        inOrder.verify(client).streamFrame(frame2, basis2.asDelta());
+    }
+
+    @Test
+    void givenClientAcceptingBasisDelta_whenItJoinsAfterBasisChange_thenFullBasisIsStreamed() throws ConsumerThreadException, IOException, InterruptedException {
+        SnowBasis basis1 = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 7});
+        SnowBasis basis2 = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 8})
+                .withDeltaFrom(basis1);
+        SnowDataFrame frame2 = frame(2).withBasis(basis2);
+        when(client.acceptsBasisDelta()).thenReturn(true);
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.firstFrame(any())).thenReturn(frame2);
+        when(buffer.nextFrame(any(), eq(frame2))).thenReturn(SnowDataFrame.LAST);
+
+        snowStream.startConsumingSnowData();
+        snowStream.streamTo(client);
+
+        verify(client).streamFrame(frame2, basis2);
+    }
+
+    @Test
+    void givenClientResumingAfterFrame_whenStreaming_thenBufferContinuesAfterThatFrameWithFullBasis() throws ConsumerThreadException, IOException, InterruptedException {
+        SnowBasis basis = new SnowBasis(1, new int[]{1}, new int[]{2}, new byte[]{3});
+        SnowDataFrame frame42 = frame(42).withBasis(basis);
+        when(client.resumeAfterFrameNum()).thenReturn(41);
+        when(client.acceptsBasisDelta()).thenReturn(true);
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(buffer.firstFrame(any(), eq(41))).thenReturn(frame42);
+        when(buffer.nextFrame(any(), eq(frame42))).thenReturn(SnowDataFrame.LAST);
+
+        snowStream.startConsumingSnowData();
+        snowStream.streamTo(client);
+
+        verify(client).streamFrame(frame42, basis);
+        verify(buffer, never()).firstFrame(any());
+    }
+
     @Test
     void whenPhpAppIsGoingDownAtSomePoint_thenFinishingConsumerThreadGracefully() throws IOException, InterruptedException {
         final Iterator<Boolean> isAliveFlags = List.of(true, true, false, false, false).iterator();
@@ -516,6 +830,23 @@ class SnowStreamTest extends SnowStreamBaseTest {
         assertThrows(IOException.class, () -> snowStream.startConsumingSnowData());
     }
 
+    @Test
+    void givenSocketPipeWaitingForProducer_whenStreamFrames_thenSelectorAcceptIsAwaitedInsteadOfSleeping() throws IOException {
+        final SocketPipe socketPipe = mock(SocketPipe.class);
+        when(socketPipe.isMissing()).thenReturn(true, true, false);
+        when(socketPipe.inputStream()).thenReturn(mock(SocketPipeInputStream.class));
+        when(phpSnow.isAlive()).thenReturn(true);
+        snowStream = spy(new SnowStream("session-xyz", snowConfig, serverMetadata,
+                socketPipe, phpSnow, buffer, decoder,
+                Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ZERO,
+                false, eventPublisher));
+
+        snowStream.startConsumingSnowData();
+
+        verify(socketPipe, times(2)).awaitProducer(Duration.ofMillis(100));
+        verify(snowStream, never()).wait100ms();
+    }
+
     @Test
     void givenInterruptedWaitingForPipe_whenStreamFrames_thenThrowException() {
         snowStream = spy(snowStream);
@@ -525,4 +856,50 @@ class SnowStreamTest extends SnowStreamBaseTest {
         assertThrows(RuntimeException.class, () -> snowStream.startConsumingSnowData());
     }
 
-}
\ No newline at end of file
+    @Test
+    void givenActiveStream_whenSubscribedToPublisher_thenSubscriberIsRegisteredToBuffer() throws IOException {
+        @SuppressWarnings("unchecked") Flow.Subscriber<byte[]> subscriber = mock(Flow.Subscriber.class);
+        when(phpSnow.isAlive()).thenReturn(true);
+        when(pipe.inputStream()).thenReturn(mock(SocketPipeInputStream.class));
+        snowStream.startConsumingSnowData();
+
+        snowStream.publisher(encoder, Runnable::run).subscribe(subscriber);
+
+        verify(buffer).registerClient(any(SnowStreamSubscription.class));
+        verify(subscriber).onSubscribe(any(SnowStreamSubscription.class));
+        verify(subscriber, never()).onError(any());
+    }
+
+    @Test
+    void givenInactiveStream_whenSubscribedToPublisher_thenSubscriberGetsError() {
+        @SuppressWarnings("unchecked") Flow.Subscriber<byte[]> subscriber = mock(Flow.Subscriber.class);
+
+        snowStream.publisher(encoder, Runnable::run).subscribe(subscriber);
+
+        verify(subscriber).onSubscribe(any());
+        verify(subscriber).onError(any(IOException.class));
+        verify(buffer, never()).registerClient(any());
+    }
+
+    @Test
+    void givenSubscriberWaitingForFrames_whenFrameIsConsumed_thenDeliveryIsScheduledOnExecutor() throws IOException {
+        final SocketPipeInputStream socketStream = mock(SocketPipeInputStream.class);
+        final ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        final ArgumentCaptor<Flow.Subscription> subscription = ArgumentCaptor.forClass(Flow.Subscription.class);
+        @SuppressWarnings("unchecked") Flow.Subscriber<byte[]> subscriber = mock(Flow.Subscriber.class);
+        final Executor executor = mock(Executor.class);
+        when(pipe.inputStream()).thenReturn(socketStream);
+        when(phpSnow.isAlive()).thenReturn(true);
+        snowStream.startConsumingSnowData();
+        verify(socketStream).listen(listener.capture());
+
+        snowStream.publisher(encoder, executor).subscribe(subscriber);
+        verify(subscriber).onSubscribe(subscription.capture());
+        subscription.getValue().request(2);
+        listener.getValue().run();
+
+        verify(buffer).push(frame(1));
+        verify(executor).execute(any());
+    }
+
+}
@@ -16,6 +16,22 @@ public class TestingFrames {
         return new SnowDataFrame(frameNum, 0, NO.FLOATS, NO.FLOATS, NO.BYTES);
     }
 
+    public static SnowDataFrame frameWithParticles(int frameNum, int chunkSize) {
+        return new SnowDataFrame(frameNum, chunkSize, new float[chunkSize], new float[chunkSize], new byte[chunkSize]);
+    }
+
+    public static SnowDataFrame frameWithUnitParticles(int frameNum) {
+        return new SnowDataFrame(frameNum, 3, new float[]{1, 1, 1}, new float[]{1, 1, 1}, new byte[3]);
+    }
+
+    /** Particles differ from {@link #frameWithUnitParticles(int)}, but {@link SnowDataFrame#particlesHash()} is the same. */
+    public static SnowDataFrame frameWithHashOfUnitParticles(int frameNum) {
+        return new SnowDataFrame(frameNum, 3,
+                floatsOfBits(0x3f7ffd9f, 0x3f7fff9d, 0x3f7ffe7d),
+                floatsOfBits(0x3f80021e, 0x3f800000, 0x3f8004e1),
+                new byte[3]);
+    }
+
     public static SnowDataFrame frameWithBasis(int frameNum, int basisId) {
         return new SnowDataFrame(frameNum, 0, NO.FLOATS, NO.FLOATS, NO.BYTES, basis(basisId));
     }
@@ -30,4 +46,12 @@ public class TestingFrames {
         return frame(frameNum);
     }
 
+    private static float[] floatsOfBits(int... bits) {
+        final float[] floats = new float[bits.length];
+        for (int i = 0; i < bits.length; ++i) {
+            floats[i] = Float.intBitsToFloat(bits[i]);
+        }
+        return floats;
+    }
+
 }
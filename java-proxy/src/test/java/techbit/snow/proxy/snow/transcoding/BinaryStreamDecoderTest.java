@@ -190,4 +190,115 @@ class BinaryStreamDecoderTest {
         assertSame(SnowDataFrame.LAST, frame);
     }
 
-}
\ No newline at end of file
+    @Test
+    void givenVersionedGreeting_whenDecodingMetadata_thenProtocolVersionIsDetected() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x2,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+        };
+
+        SnowAnimationMetadata metadata = decoder.decodeMetadata(new ByteArrayInputStream(binary),
+                new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+
+        assertEquals(2, decoder.protocolVersion());
+        assertEquals(127, metadata.width());
+        assertEquals(32, metadata.height());
+        assertEquals(16, metadata.fps());
+    }
+
+    @Test
+    void givenUnversionedGreeting_whenDecodingMetadata_thenFirstProtocolVersionIsAssumed() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                0x0, 0x0, 0x1, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+        };
+
+        SnowAnimationMetadata metadata = decoder.decodeMetadata(new ByteArrayInputStream(binary),
+                new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+
+        assertEquals(1, decoder.protocolVersion());
+        assertEquals(383, metadata.width());
+    }
+
+    @Test
+    void givenUnsupportedProtocolVersion_whenDecodingMetadata_thenThrowsException() {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x9,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+        };
+
+        assertThrows(IllegalStateException.class, () -> decoder.decodeMetadata(new ByteArrayInputStream(binary),
+                new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7)));
+    }
+
+    @Test
+    void givenSecondProtocolVersion_whenDecodingFramesAndBasis_thenLengthPrefixedBlocksAreDecoded() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x2,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+                0x0,                  // no background
+                0x0, 0x0, 0x0, 0x11,  // frame block size
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x30, 0x0, 0x0, // particlesX
+                0x40, 0x20, 0x0, 0x0, // particlesY
+                0x3,                  // flakeShape
+                0x0, 0x0, 0x0, 0xD,   // basis block size
+                0x0, 0x0, 0x0, 0x1,   // one basis pixel
+                0x0, 0x0, 0x0, 0x9,   // pixel X
+                0x0, 0x0, 0x0, 0x4,   // pixel Y
+                0x7,                  // pixel
+                -1, -1, -1, -1,       // end of stream
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        decoder.decodeMetadata(stream, new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+        decoder.decodeBackground(stream);
+        SnowDataFrame frame = decoder.decodeFrame(stream);
+        SnowBasis basis = decoder.decodeBasis(stream);
+        SnowDataFrame last = decoder.decodeFrame(stream);
+
+        assertEquals(1, frame.frameNum());
+        assertEquals(2.75f, frame.x(0));
+        assertEquals(2.5f, frame.y(0));
+        assertEquals(3, frame.flakeShape(0));
+        assertEquals(9, basis.x(0));
+        assertEquals(4, basis.y(0));
+        assertEquals(7, basis.pixel(0));
+        assertSame(SnowDataFrame.LAST, last);
+    }
+
+    @Test
+    void givenSecondProtocolVersion_whenBlockSizeDoesNotMatchFrame_thenThrowsException() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x2,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+                0x0, 0x0, 0x0, 0x8,   // invalid frame block size
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x30, 0x0, 0x0, // particlesX
+                0x40, 0x20, 0x0, 0x0, // particlesY
+                0x3,                  // flakeShape
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        decoder.decodeMetadata(stream, new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+
+        assertThrows(IllegalStateException.class, () -> decoder.decodeFrame(stream));
+    }
+
+}
@@ -10,7 +10,7 @@ import techbit.snow.proxy.dto.SnowDataFrame;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 class BinaryStreamEncoderTest {
 
@@ -104,6 +104,29 @@ class BinaryStreamEncoderTest {
         assertArrayEquals(expected, out.toByteArray());
     }
 
+    @Test
+    void givenDataFrameWithRawBytes_whenEncoding_thenRawBytesAreWrittenAsIs() throws IOException {
+        byte[] rawBytes = new byte[]{
+                0, 0, 0, 78,
+                0, 0, 0, 1,
+                66, -50, 0, 0,
+                63, 0, 0, 0,
+                99,
+        };
+        SnowDataFrame frame = new SnowDataFrame(
+                78, 1,
+                new float[]{1, 2},
+                new float[]{3, 4},
+                new byte[]{5, 6},
+                SnowBasis.NONE,
+                rawBytes
+        );
+
+        encoder.encodeFrame(frame, out);
+
+        assertArrayEquals(rawBytes, out.toByteArray());
+    }
+
 
     @Test
     void givenBasis_whenEncoding_thenValidBinaryDataInOutput() throws IOException {
@@ -147,4 +170,94 @@ class BinaryStreamEncoderTest {
         assertArrayEquals(expected, out.toByteArray());
     }
 
-}
\ No newline at end of file
+    @Test
+    void givenBasisDelta_whenEncoding_thenChangedAndRemovedPixelsAreInOutput() throws IOException {
+        SnowBasis previous = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 7});
+        SnowBasis basis = new SnowBasis(2, new int[]{1, 2}, new int[]{4, 5}, new byte[]{7, 8})
+                .withDeltaFrom(previous);
+
+        encoder.encodeBasis(basis.asDelta(), out);
+
+        byte[] expected = new byte[]{
+                -1, -1, -1, -1,
+
+                0, 0, 0, 1,
+                0, 0, 0, 2,
+                0, 0, 0, 5,
+                8,
+
+                0, 0, 0, 1,
+                0, 0, 0, 3,
+                0, 0, 0, 6,
+        };
+
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    void givenFrameWithBasisDelta_whenEncodingShared_thenDeltaBytesAreSharedSeparately() throws IOException {
+        SnowBasis previous = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 7});
+        SnowBasis basis = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 8})
+                .withDeltaFrom(previous);
+        SnowDataFrame frame = new SnowDataFrame(1, 1, new float[]{1}, new float[]{2}, new byte[]{3}, basis);
+
+        byte[] delta = encoder.encodeShared(frame, basis.asDelta());
+
+        assertSame(delta, encoder.encodeShared(frame, basis.asDelta()));
+        assertNotSame(delta, encoder.encodeShared(frame, basis));
+        assertTrue(delta.length < encoder.encodeShared(frame, basis).length);
+        assertEquals(2, frame.encoded().size());
+    }
+
+    @Test
+    void givenFrameWithBasis_whenEncodingShared_thenSameBytesAreReturnedForEachCall() throws IOException {
+        SnowBasis basis = new SnowBasis(1, new int[]{1}, new int[]{2}, new byte[]{3});
+        SnowDataFrame frame = new SnowDataFrame(1, 1, new float[]{1}, new float[]{2}, new byte[]{3}, basis);
+        encoder.encodeFrame(frame, out);
+        encoder.encodeBasis(basis, out);
+
+        byte[] shared = encoder.encodeShared(frame, basis);
+
+        assertArrayEquals(out.toByteArray(), shared);
+        assertSame(shared, new BinaryStreamEncoder().encodeShared(frame, basis));
+        assertNotSame(shared, encoder.encodeShared(frame, SnowBasis.NONE));
+        assertSame(encoder.encodeShared(frame, SnowBasis.NONE), encoder.encodeShared(frame, SnowBasis.NONE));
+        assertEquals(2, frame.encoded().size());
+    }
+
+    @Test
+    void givenBasisOtherThanFramesOne_whenEncodingShared_thenBytesAreNotCached() throws IOException {
+        SnowBasis basis = new SnowBasis(1, new int[]{1}, new int[]{2}, new byte[]{3});
+        SnowDataFrame frame = new SnowDataFrame(1, 1, new float[]{1}, new float[]{2}, new byte[]{3});
+
+        assertNotSame(encoder.encodeShared(frame, basis), encoder.encodeShared(frame, basis));
+        assertEquals(0, frame.encoded().size());
+    }
+
+    @Test
+    void givenDifferentEncoders_whenEncodingShared_thenEachEncoderHasItsOwnBytes() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(1, 1, new float[]{1}, new float[]{2}, new byte[]{3});
+
+        encoder.encodeShared(frame, SnowBasis.NONE);
+        new NdjsonStreamEncoder().encodeShared(frame, SnowBasis.NONE);
+
+        assertEquals(2, frame.encoded().size());
+    }
+
+    @Test
+    void givenRepeatedFrame_whenEncoding_thenOnlyFrameNumAndPayloadFrameNumAreInOutput() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(7, 2, new float[]{1, 2}, new float[]{3, 4}, new byte[]{5, 6})
+                .withPayloadOf(4)
+                .asRepeated();
+
+        encoder.encodeFrame(frame, out);
+
+        byte[] expected = new byte[]{
+                0, 0, 0, 7,
+                -1, -1, -1, -1,
+                0, 0, 0, 4,
+        };
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+}
@@ -0,0 +1,559 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import techbit.snow.proxy.dto.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChannelStreamDecoderTest {
+
+    private ChannelStreamDecoder decoder;
+
+    @BeforeEach
+    void setup() {
+        decoder = new ChannelStreamDecoder();
+    }
+
+
+    @Test
+    void givenBinaryMetadata_whenDecoding_thenCreatesValidEntity() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                0x0, 0x0, 0x0, 0x7F, // width
+                0x0, 0x1, 0x0, 0x0,  // height
+                0x1, 0x0, 0x0, 0x0,  // fps
+        };
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(binary);
+        SnowAnimationMetadata metadata = decoder.decodeMetadata(
+                inputStream,
+                new ServerMetadata(Duration.ofSeconds(3)),
+                Duration.ofSeconds(7));
+
+        assertEquals(127, metadata.width());
+        assertEquals(65536, metadata.height());
+        assertEquals(16777216, metadata.fps());
+        assertEquals(50331648, metadata.bufferSizeInFrames());
+        assertEquals(117440512, metadata.totalNumberOfFrames());
+    }
+
+    @Test
+    void givenMetadataWithoutMarker_whenDecoding_thenExceptionIsThrown() {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x7F, // width
+                0x0, 0x1, 0x0, 0x0,  // height
+                0x1, 0x0, 0x0, 0x0,  // fps
+        };
+
+        assertThrows(IllegalStateException.class, () -> decoder.decodeMetadata(
+                new ByteArrayInputStream(binary),
+                new ServerMetadata(Duration.ofSeconds(8)),
+                Duration.ofMinutes(1)
+        ));
+    }
+
+    @Test
+    void givenEmptyBackground_whenDecoding_thenCreatesValidEntity() throws IOException {
+        byte[] binary = new byte[]{
+                0x0,
+        };
+
+        SnowBackground background = decoder.decodeBackground(
+                new ByteArrayInputStream(binary));
+
+        assertSame(SnowBackground.NONE, background);
+    }
+
+    @Test
+    void givenBinaryBackgroundData_whenDecoding_thenCreatesValidEntity() throws IOException {
+        byte[] binary = new byte[]{
+                0x1,                  // hasBackground
+                0x0, 0x0, 0x0, 0x2,   // canvas width
+                0x0, 0x0, 0x0, 0x2,   // canvas height
+                // pixel matrix
+                0x3, 0x5,
+                0x7, 0x9,
+        };
+
+        SnowBackground background = decoder.decodeBackground(
+                new ByteArrayInputStream(binary));
+
+        assertEquals(2, background.width());
+        assertEquals(2, background.height());
+        assertArrayEquals(new byte[][]{
+                // y0  y1
+                new byte[]{3, 7,}, // x0
+                new byte[]{5, 9,}, // x1
+        }, background.pixels());
+    }
+
+    @Test
+    void givenBinaryFrameData_whenDecoding_thenCreatesValidEntity() throws IOException {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x2,   // chunk size
+                // chunk 0
+                0x0, 0x0, 0x0, 0x0,   // frame1.particlesX
+                0x40, 0x20, 0x0, 0x0, // frame1.particlesY
+                0x3,                  // frame.flakeShape
+                // chunk 1
+                0x40, 0x30, 0x0, 0x0, // frame2.particlesX
+                0x0, 0x0, 0x0, 0x0,   // frame2.particlesY
+                0x4,                  // frame.flakeShape
+        };
+
+        SnowDataFrame frame = decoder.decodeFrame(
+                new ByteArrayInputStream(binary));
+
+        assertEquals(1, frame.frameNum());
+        assertEquals(2, frame.chunkSize());
+        assertEquals(2, frame.particlesX().length);
+        assertEquals(2, frame.particlesY().length);
+        assertEquals(2, frame.flakeShapes().length);
+        assertEquals(0.0f, frame.x(0));
+        assertEquals(2.5f, frame.y(0));
+        assertEquals(3, frame.flakeShape(0));
+        assertEquals(2.75f, frame.x(1));
+        assertEquals(0.0f, frame.y(1));
+        assertEquals(4, frame.flakeShape(1));
+        assertSame(SnowBasis.NONE, frame.basis());
+    }
+
+    @Test
+    void givenFrameNumOutOfSequence_whenDecodingFrame_thenThrowsException() {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x11,  // invalid frame num
+        };
+
+        Assertions.assertThrows(IllegalStateException.class, () -> decoder.decodeFrame(
+                new ByteArrayInputStream(binary)));
+    }
+
+    @Test
+    void givenEmptyBasisData_whenDecoding_thenCreatesValidEntity() throws IOException {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x0,  // zero basis pixels
+        };
+
+        SnowBasis basis = decoder.decodeBasis(
+                new ByteArrayInputStream(binary));
+
+        assertSame(SnowBasis.NONE, basis);
+    }
+
+    @Test
+    void givenBinaryBasisData_whenDecoding_thenCreatesValidEntity() throws IOException {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x2,  // two pixels
+
+                0x0, 0x0, 0x0, 0x9,  // pixel 1 X
+                0x0, 0x0, 0x0, 0x0,  // pixel 1 Y
+                0x7,                 // pixel 1
+
+                0x0, 0x0, 0x3, 0x0,  // pixel 2 X
+                0x0, 0x0, 0x0, 0x3,  // pixel 2 Y
+                0x9,                 // pixel 2
+        };
+
+        SnowBasis basis = decoder.decodeBasis(
+                new ByteArrayInputStream(binary));
+
+        assertEquals(2, basis.numOfPixels());
+        assertEquals(7, basis.pixel(0));
+        assertEquals(9, basis.pixel(1));
+        assertEquals(9, basis.x(0));
+        assertEquals(768, basis.x(1));
+        assertEquals(0, basis.y(0));
+        assertEquals(3, basis.y(1));
+        assertArrayEquals(new int[]{0, 3}, basis.y());
+    }
+
+    @Test
+    void givenLastFrame_whenDecodingFrame_thenCreatesValidEntity() throws IOException {
+        byte[] binary = new byte[]{
+                -1, -1, -1, -1,  // last frame num
+        };
+
+        SnowDataFrame frame = decoder.decodeFrame(
+                new ByteArrayInputStream(binary));
+
+        assertSame(SnowDataFrame.LAST, frame);
+    }
+
+    @Test
+    void givenFrameLargerThanBuffer_whenDecoding_thenCreatesValidEntity() throws IOException {
+        decoder = new ChannelStreamDecoder(4, false);
+
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x2,   // chunk size
+                // chunk 0
+                0x0, 0x0, 0x0, 0x0,   // frame1.particlesX
+                0x40, 0x20, 0x0, 0x0, // frame1.particlesY
+                0x3,                  // frame.flakeShape
+                // chunk 1
+                0x40, 0x30, 0x0, 0x0, // frame2.particlesX
+                0x0, 0x0, 0x0, 0x0,   // frame2.particlesY
+                0x4,                  // frame.flakeShape
+        };
+
+        SnowDataFrame frame = decoder.decodeFrame(new ByteArrayInputStream(binary));
+
+        assertEquals(2, frame.chunkSize());
+        assertEquals(2.5f, frame.y(0));
+        assertEquals(2.75f, frame.x(1));
+        assertEquals(4, frame.flakeShape(1));
+    }
+
+    @Test
+    void givenSequenceOfFramesInOneStream_whenDecoding_thenEachFrameIsDecodedInOrder() throws IOException {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x30, 0x0, 0x0, // particlesX
+                0x40, 0x20, 0x0, 0x0, // particlesY
+                0x3,                  // flakeShape
+                0x0, 0x0, 0x0, 0x0,   // zero basis pixels
+                0x0, 0x0, 0x0, 0x2,   // frame num
+                0x0, 0x0, 0x0, 0x0,   // chunk size
+                0x0, 0x0, 0x0, 0x1,   // one basis pixel
+                0x0, 0x0, 0x0, 0x9,   // pixel X
+                0x0, 0x0, 0x0, 0x4,   // pixel Y
+                0x7,                  // pixel
+                -1, -1, -1, -1,       // last frame num
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        SnowDataFrame frame1 = decoder.decodeFrame(stream);
+        SnowBasis basis1 = decoder.decodeBasis(stream);
+        SnowDataFrame frame2 = decoder.decodeFrame(stream);
+        SnowBasis basis2 = decoder.decodeBasis(stream);
+        SnowDataFrame last = decoder.decodeFrame(stream);
+
+        assertEquals(1, frame1.frameNum());
+        assertEquals(2.75f, frame1.x(0));
+        assertSame(SnowBasis.NONE, basis1);
+        assertEquals(2, frame2.frameNum());
+        assertEquals(0, frame2.chunkSize());
+        assertEquals(9, basis2.x(0));
+        assertEquals(4, basis2.y(0));
+        assertEquals(7, basis2.pixel(0));
+        assertSame(SnowDataFrame.LAST, last);
+    }
+
+    @Test
+    void givenTruncatedStream_whenDecodingFrame_thenThrowsException() {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x2,   // chunk size
+                0x0, 0x0,             // truncated
+        };
+
+        assertThrows(EOFException.class, () -> decoder.decodeFrame(new ByteArrayInputStream(binary)));
+    }
+
+    @Test
+    void givenRawFramesEnabled_whenDecodingFrame_thenRawBytesMatchBinaryEncoding() throws IOException {
+        decoder = new ChannelStreamDecoder(true);
+
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x2,   // chunk size
+                // chunk 0
+                0x0, 0x0, 0x0, 0x0,   // frame1.particlesX
+                0x40, 0x20, 0x0, 0x0, // frame1.particlesY
+                0x3,                  // frame.flakeShape
+                // chunk 1
+                0x40, 0x30, 0x0, 0x0, // frame2.particlesX
+                0x0, 0x0, 0x0, 0x0,   // frame2.particlesY
+                0x4,                  // frame.flakeShape
+        };
+
+        SnowDataFrame frame = decoder.decodeFrame(new ByteArrayInputStream(binary));
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        new BinaryStreamEncoder().encodeFrame(frame.withBasis(SnowBasis.NONE), encoded);
+
+        assertTrue(frame.hasRawBytes());
+        assertArrayEquals(binary, frame.rawBytes());
+        assertArrayEquals(binary, encoded.toByteArray());
+    }
+
+    @Test
+    void givenRawFramesLargerThanBuffer_whenDecodingThemInSequence_thenEachKeepsItsOwnBytes() throws IOException {
+        decoder = new ChannelStreamDecoder(16, true);
+        int chunkSize = 100;
+        ByteBuffer binary = ByteBuffer.allocate(2 * (2 * 4 + chunkSize * 9) + 4);
+        for (int frameNum = 1; frameNum <= 2; ++frameNum) {
+            binary.putInt(frameNum).putInt(chunkSize);
+            for (int i = 0; i < chunkSize; ++i) {
+                binary.putFloat(frameNum * i).putFloat(-i).put((byte) (i % 4));
+            }
+        }
+        binary.putInt(-1);
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary.array());
+
+        SnowDataFrame first = decoder.decodeFrame(stream);
+        SnowDataFrame second = decoder.decodeFrame(stream);
+
+        assertArrayEquals(Arrays.copyOfRange(binary.array(), 0, 2 * 4 + chunkSize * 9), first.rawBytes());
+        assertArrayEquals(Arrays.copyOfRange(binary.array(), 2 * 4 + chunkSize * 9, 2 * (2 * 4 + chunkSize * 9)),
+                second.rawBytes());
+        assertEquals(99f, first.x(99));
+        assertEquals(198f, second.x(99));
+        assertEquals(-99f, second.y(99));
+        assertEquals(3, second.flakeShape(99));
+        assertSame(SnowDataFrame.LAST, decoder.decodeFrame(stream));
+    }
+
+    @Test
+    void givenRawFramesDisabled_whenDecodingFrame_thenNoRawBytesAreKept() throws IOException {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x0,   // chunk size
+        };
+
+        SnowDataFrame frame = decoder.decodeFrame(new ByteArrayInputStream(binary));
+
+        assertFalse(frame.hasRawBytes());
+    }
+
+    @Test
+    void givenVersionedGreeting_whenDecodingMetadata_thenProtocolVersionIsDetected() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x2,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+        };
+
+        SnowAnimationMetadata metadata = decoder.decodeMetadata(new ByteArrayInputStream(binary),
+                new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+
+        assertEquals(2, decoder.protocolVersion());
+        assertEquals(127, metadata.width());
+        assertEquals(32, metadata.height());
+        assertEquals(16, metadata.fps());
+    }
+
+    @Test
+    void givenUnversionedGreeting_whenDecodingMetadata_thenFirstProtocolVersionIsAssumed() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                0x0, 0x0, 0x1, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+        };
+
+        SnowAnimationMetadata metadata = decoder.decodeMetadata(new ByteArrayInputStream(binary),
+                new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+
+        assertEquals(1, decoder.protocolVersion());
+        assertEquals(383, metadata.width());
+    }
+
+    @Test
+    void givenUnsupportedProtocolVersion_whenDecodingMetadata_thenThrowsException() {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x9,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+        };
+
+        assertThrows(IllegalStateException.class, () -> decoder.decodeMetadata(new ByteArrayInputStream(binary),
+                new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7)));
+    }
+
+    @Test
+    void givenSecondProtocolVersion_whenDecodingFramesAndBasis_thenLengthPrefixedBlocksAreDecoded() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x2,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+                0x0,                  // no background
+                0x0, 0x0, 0x0, 0x11,  // frame block size
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x30, 0x0, 0x0, // particlesX
+                0x40, 0x20, 0x0, 0x0, // particlesY
+                0x3,                  // flakeShape
+                0x0, 0x0, 0x0, 0xD,   // basis block size
+                0x0, 0x0, 0x0, 0x1,   // one basis pixel
+                0x0, 0x0, 0x0, 0x9,   // pixel X
+                0x0, 0x0, 0x0, 0x4,   // pixel Y
+                0x7,                  // pixel
+                -1, -1, -1, -1,       // end of stream
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        decoder.decodeMetadata(stream, new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+        decoder.decodeBackground(stream);
+        SnowDataFrame frame = decoder.decodeFrame(stream);
+        SnowBasis basis = decoder.decodeBasis(stream);
+        SnowDataFrame last = decoder.decodeFrame(stream);
+
+        assertEquals(1, frame.frameNum());
+        assertEquals(2.75f, frame.x(0));
+        assertEquals(2.5f, frame.y(0));
+        assertEquals(3, frame.flakeShape(0));
+        assertEquals(9, basis.x(0));
+        assertEquals(4, basis.y(0));
+        assertEquals(7, basis.pixel(0));
+        assertSame(SnowDataFrame.LAST, last);
+    }
+
+    @Test
+    void givenSecondProtocolVersionAndRawFrames_whenDecodingFramesAndBasis_thenFrameBlockIsKeptAsRawBytes() throws IOException {
+        decoder = new ChannelStreamDecoder(true);
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x2,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+                0x0,                  // no background
+                0x0, 0x0, 0x0, 0x11,  // frame block size
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x30, 0x0, 0x0, // particlesX
+                0x40, 0x20, 0x0, 0x0, // particlesY
+                0x3,                  // flakeShape
+                0x0, 0x0, 0x0, 0xD,   // basis block size
+                0x0, 0x0, 0x0, 0x1,   // one basis pixel
+                0x0, 0x0, 0x0, 0x9,   // pixel X
+                0x0, 0x0, 0x0, 0x4,   // pixel Y
+                0x7,                  // pixel
+                -1, -1, -1, -1,       // end of stream
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        decoder.decodeMetadata(stream, new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+        decoder.decodeBackground(stream);
+        SnowDataFrame frame = decoder.decodeFrame(stream);
+        SnowBasis basis = decoder.decodeBasis(stream);
+
+        assertArrayEquals(Arrays.copyOfRange(binary, 33, 33 + 0x11), frame.rawBytes());
+        assertEquals(2.75f, frame.x(0));
+        assertEquals(9, basis.x(0));
+        assertSame(SnowDataFrame.LAST, decoder.decodeFrame(stream));
+    }
+
+    @Test
+    void givenSecondProtocolVersion_whenBlockSizeDoesNotMatchFrame_thenThrowsException() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x2,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+                0x0, 0x0, 0x0, 0x8,   // invalid frame block size
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x30, 0x0, 0x0, // particlesX
+                0x40, 0x20, 0x0, 0x0, // particlesY
+                0x3,                  // flakeShape
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        decoder.decodeMetadata(stream, new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+
+        assertThrows(IllegalStateException.class, () -> decoder.decodeFrame(stream));
+    }
+
+    @Test
+    void givenSecondProtocolVersion_whenBlockSizeExceedsLimit_thenThrowsExceptionBeforeBufferingIt() throws IOException {
+        byte[] binary = new byte[]{
+                'h', 'e', 'l', 'l', 'o', '-', 'p', 'h', 'p', '-', 's', 'n', 'o', 'w',
+                'v', 0x2,             // protocol version
+                0x0, 0x0, 0x0, 0x7F,  // width
+                0x0, 0x0, 0x0, 0x20,  // height
+                0x0, 0x0, 0x0, 0x10,  // fps
+                0x7F, 0x0, 0x0, 0x0,  // corrupted frame block size
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        decoder.decodeMetadata(stream, new ServerMetadata(Duration.ofSeconds(3)), Duration.ofSeconds(7));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> decoder.decodeFrame(stream));
+        assertTrue(exception.getMessage().contains("exceeds the limit"));
+    }
+
+    @Test
+    void givenChunkSizeAboveLimit_whenDecodingFrame_thenThrowsException() {
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x7F, 0x0, 0x0, 0x0,  // corrupted chunk size
+        };
+
+        assertThrows(IllegalStateException.class, () -> decoder.decodeFrame(new ByteArrayInputStream(binary)));
+    }
+
+    @Test
+    void givenRecycledFrameArrays_whenFrameIsReleased_thenNextFrameReusesItsArrays() throws IOException {
+        decoder = new ChannelStreamDecoder(false, true);
+
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x30, 0x0, 0x0, // particlesX
+                0x40, 0x20, 0x0, 0x0, // particlesY
+                0x3,                  // flakeShape
+                0x0, 0x0, 0x0, 0x2,   // frame num
+                0x0, 0x0, 0x0, 0x1,   // chunk size
+                0x40, 0x20, 0x0, 0x0, // particlesX
+                0x40, 0x30, 0x0, 0x0, // particlesY
+                0x4,                  // flakeShape
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        SnowDataFrame frame1 = decoder.decodeFrame(stream);
+        float[] particlesX = frame1.particlesX();
+        assertTrue(frame1.isPooled());
+        assertEquals(2.75f, frame1.x(0));
+        frame1.release();
+
+        SnowDataFrame frame2 = decoder.decodeFrame(stream);
+
+        assertSame(particlesX, frame2.particlesX());
+        assertEquals(1, frame2.chunkSize());
+        assertEquals(2.5f, frame2.x(0));
+        assertEquals(2.75f, frame2.y(0));
+        assertEquals(4, frame2.flakeShape(0));
+    }
+
+    @Test
+    void givenRecycledFrameArrays_whenFrameIsStillHeld_thenNextFrameGetsFreshArrays() throws IOException {
+        decoder = new ChannelStreamDecoder(false, true);
+
+        byte[] binary = new byte[]{
+                0x0, 0x0, 0x0, 0x1,   // frame num
+                0x0, 0x0, 0x0, 0x0,   // chunk size
+                0x0, 0x0, 0x0, 0x2,   // frame num
+                0x0, 0x0, 0x0, 0x0,   // chunk size
+        };
+        ByteArrayInputStream stream = new ByteArrayInputStream(binary);
+
+        SnowDataFrame frame1 = decoder.decodeFrame(stream);
+        SnowDataFrame frame2 = decoder.decodeFrame(stream);
+
+        assertNotSame(frame1.particlesX(), frame2.particlesX());
+    }
+
+}
@@ -0,0 +1,176 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonStreamEncoderTest {
+
+    private NdjsonStreamEncoder encoder;
+    private ByteArrayOutputStream out;
+
+    @BeforeEach
+    void setup() {
+        encoder = new NdjsonStreamEncoder();
+        out = new ByteArrayOutputStream();
+    }
+
+
+    @Test
+    void whenEncodingMetadata_thenJsonLineIsInOutput() throws IOException {
+        SnowAnimationMetadata metadata = new SnowAnimationMetadata(
+                99, 101, 15, 777, 753
+        );
+
+        encoder.encodeMetadata(metadata, out);
+
+        assertEquals("{\"type\":\"metadata\",\"width\":99,\"height\":101,\"fps\":15," +
+                "\"bufferSizeInFrames\":777,\"totalNumberOfFrames\":753}\n", out.toString());
+    }
+
+    @Test
+    void whenEncodingBackground_thenPixelsAreListedRowByRow() throws IOException {
+        SnowBackground background = new SnowBackground(3, 2,
+                new byte[][]{
+                        new byte[]{31, 33},
+                        new byte[]{41, 44},
+                        new byte[]{51, -1}
+                });
+
+        encoder.encodeBackground(background, out);
+
+        assertEquals("{\"type\":\"background\",\"width\":3,\"height\":2," +
+                "\"pixels\":[[31,41,51],[33,44,255]]}\n", out.toString());
+    }
+
+    @Test
+    void whenEncodingEmptyBackground_thenIsAvailableInOutput() throws IOException {
+        encoder.encodeBackground(SnowBackground.NONE, out);
+
+        assertEquals("{\"type\":\"background\",\"width\":0,\"height\":0,\"pixels\":[]}\n", out.toString());
+    }
+
+    @Test
+    void whenEncodingFrame_thenParticlesAreListedInOutput() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(
+                78, 3,
+                new float[]{103, 22.5f, -0.25f},
+                new float[]{0.5f, 11.1234f, -7f},
+                new byte[]{99, 88, -2}
+        );
+
+        encoder.encodeFrame(frame, out);
+
+        assertEquals("{\"type\":\"frame\",\"frameNum\":78,\"chunkSize\":3," +
+                "\"x\":[103,22.5,-0.25],\"y\":[0.5,11.123,-7],\"shapes\":[99,88,254]}\n", out.toString());
+    }
+
+    @Test
+    void whenEncodingTinyOrHugeCoordinates_thenTheyAreStillValidNumbers() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(
+                1, 3,
+                new float[]{-0.0001f, 1e30f, Float.NaN},
+                new float[]{0.0005f, 0.001f, 2.0999f},
+                new byte[3]
+        );
+
+        encoder.encodeFrame(frame, out);
+
+        assertEquals("{\"type\":\"frame\",\"frameNum\":1,\"chunkSize\":3," +
+                "\"x\":[0,1.0E30,null],\"y\":[0.001,0.001,2.1],\"shapes\":[0,0,0]}\n", out.toString());
+    }
+
+    @Test
+    void whenEncodingLastFrame_thenEndIsInOutput() throws IOException {
+        encoder.encodeFrame(SnowDataFrame.LAST, out);
+
+        assertEquals("{\"type\":\"end\"}\n", out.toString());
+    }
+
+    @Test
+    void whenEncodingRepeatedFrame_thenPayloadFrameIsReferenced() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(5, 1, new float[1], new float[1], new byte[1])
+                .withPayloadOf(4)
+                .asRepeated();
+
+        encoder.encodeFrame(frame, out);
+
+        assertEquals("{\"type\":\"frame\",\"frameNum\":5,\"sameAsFrame\":4}\n", out.toString());
+    }
+
+    @Test
+    void whenEncodingBasis_thenIsAvailableInOutput() throws IOException {
+        SnowBasis basis = new SnowBasis(2,
+                new int[]{9971, 9972},
+                new int[]{99711, 99712},
+                new byte[]{97, -98}
+        );
+
+        encoder.encodeBasis(basis, out);
+
+        assertEquals("{\"type\":\"basis\",\"x\":[9971,9972],\"y\":[99711,99712],\"pixels\":[97,158]}\n",
+                out.toString());
+    }
+
+    @Test
+    void whenEncodingBasisDelta_thenOnlyChangesAreInOutput() throws IOException {
+        SnowBasis previous = new SnowBasis(3, new int[]{1, 2, 3}, new int[]{4, 5, 6}, new byte[]{7, 7, 7});
+        SnowBasis basis = new SnowBasis(2, new int[]{1, 2}, new int[]{4, 5}, new byte[]{7, 8})
+                .withDeltaFrom(previous);
+
+        encoder.encodeBasis(basis.asDelta(), out);
+
+        assertEquals("{\"type\":\"basisDelta\",\"x\":[2],\"y\":[5],\"pixels\":[8],\"removedX\":[3],\"removedY\":[6]}\n",
+                out.toString());
+    }
+
+    @Test
+    void whenEncodingEmptyBasis_thenNothingIsInOutput() throws IOException {
+        encoder.encodeBasis(SnowBasis.NONE, out);
+
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void givenFrameLargerThanBuffer_whenEncoding_thenLineIsWrittenInPartsWithoutGrowingBuffer() throws IOException {
+        int chunkSize = 20_000;
+        SnowDataFrame frame = new SnowDataFrame(1, chunkSize, new float[chunkSize], new float[chunkSize], new byte[chunkSize]);
+        List<Integer> writes = new ArrayList<>();
+        OutputStream recordingOut = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writes.add(len);
+                out.write(b, off, len);
+            }
+        };
+
+        encoder.encodeFrame(frame, recordingOut);
+        encoder.encodeFrame(frame, recordingOut);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(lines[0], lines[1]);
+        assertTrue(lines[0].length() > 3 * 2 * chunkSize);
+        assertTrue(lines[0].endsWith("]}"));
+        assertTrue(writes.size() > 2);
+        assertTrue(writes.stream().allMatch(len -> len <= NdjsonStreamEncoder.LINE_BUFFER_SIZE));
+    }
+
+}
@@ -0,0 +1,56 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.junit.jupiter.api.Test;
+import techbit.snow.proxy.dto.ParticlesArrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParticlesArraysPoolTest {
+
+    private final ParticlesArraysPool pool = new ParticlesArraysPool(2);
+
+    @Test
+    void whenArraysAreAcquired_thenTheyCanHoldRequestedParticles() {
+        assertEquals(1, pool.acquire(0).capacity());
+        assertEquals(1, pool.acquire(1).capacity());
+        assertEquals(16, pool.acquire(10).capacity());
+        assertEquals(16, pool.acquire(16).capacity());
+    }
+
+    @Test
+    void givenReleasedArrays_whenAcquiringSameSize_thenArraysAreReused() {
+        ParticlesArrays arrays = pool.acquire(10);
+        arrays.release();
+
+        assertEquals(1, pool.numOfFreeArrays());
+        assertSame(arrays, pool.acquire(12));
+        assertEquals(0, pool.numOfFreeArrays());
+    }
+
+    @Test
+    void givenRetainedArrays_whenReleasedOnce_thenArraysAreNotRecycled() {
+        ParticlesArrays arrays = pool.acquire(10);
+        assertTrue(arrays.tryRetain());
+
+        arrays.release();
+        assertEquals(0, pool.numOfFreeArrays());
+
+        arrays.release();
+        assertEquals(1, pool.numOfFreeArrays());
+        assertFalse(arrays.tryRetain());
+    }
+
+    @Test
+    void givenFullPool_whenReleasing_thenArraysAreDropped() {
+        ParticlesArrays arrays1 = pool.acquire(10);
+        ParticlesArrays arrays2 = pool.acquire(10);
+        ParticlesArrays arrays3 = pool.acquire(10);
+
+        arrays1.release();
+        arrays2.release();
+        arrays3.release();
+
+        assertEquals(2, pool.numOfFreeArrays());
+    }
+
+}
@@ -0,0 +1,187 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantizedStreamEncoderTest {
+
+    private QuantizedStreamEncoder encoder;
+    private ByteArrayOutputStream out;
+
+    @BeforeEach
+    void setup() {
+        encoder = new QuantizedStreamEncoder();
+        out = new ByteArrayOutputStream();
+    }
+
+    @Test
+    void givenDataFrame_whenEncoding_thenCoordinatesAreFixedPointAndShapesArePaletteIndices() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(
+                5, 3,
+                new float[]{1.5f, 100f, -2f},
+                new float[]{0f, 50.25f, 300f},
+                new byte[]{3, 7, 3}
+        );
+
+        encoder.encodeFrame(frame, out);
+
+        byte[] expected = new byte[]{
+                0, 0, 0, 5,           // frame num
+                0, 0, 0, 3,           // chunk size
+                6,                    // fraction bits
+                0, 96, 25, 0, -1, -128, // particlesX
+                0, 0, 12, -112, 75, 0,  // particlesY
+                1,                    // palette size - 1
+                3, 7,                 // palette
+                0b0100_0000,          // shape indices, 1 bit each
+        };
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    void givenThreeShapes_whenEncoding_thenEachShapeTakesTwoBits() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(
+                1, 5, new float[5], new float[5], new byte[]{1, 2, 3, 1, 2}
+        );
+
+        encoder.encodeFrame(frame, out);
+
+        byte[] encoded = out.toByteArray();
+        int shapesAt = 8 + 1 + 2 * 5 * 2;
+        assertEquals(2, encoded[shapesAt]);
+        assertArrayEquals(new byte[]{1, 2, 3, 0b0001_1000, 0b0100_0000},
+                Arrays.copyOfRange(encoded, shapesAt + 1, encoded.length));
+    }
+
+    @Test
+    void givenSingleShape_whenEncoding_thenNoShapeIndicesAreWritten() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(1, 2, new float[2], new float[2], new byte[]{4, 4});
+
+        encoder.encodeFrame(frame, out);
+
+        assertEquals(8 + 1 + 2 * 2 * 2 + 1 + 1, out.size());
+    }
+
+    @Test
+    void givenLastFrame_whenEncoding_thenOnlyHeaderIsWritten() throws IOException {
+        encoder.encodeFrame(SnowDataFrame.LAST, out);
+
+        assertArrayEquals(new byte[]{-1, -1, -1, -1, 0, 0, 0, 0}, out.toByteArray());
+    }
+
+    @Test
+    void givenParticlesOfDifferentExtent_whenAskedForFractionBits_thenFarthestParticleStillFits() {
+        assertEquals(15, QuantizedStreamEncoder.fractionBitsOf(frameAt(0f)));
+        assertEquals(14, QuantizedStreamEncoder.fractionBitsOf(frameAt(0.5f)));
+        assertEquals(6, QuantizedStreamEncoder.fractionBitsOf(frameAt(511f)));
+        assertEquals(5, QuantizedStreamEncoder.fractionBitsOf(frameAt(-512f)));
+        assertEquals(0, QuantizedStreamEncoder.fractionBitsOf(frameAt(1e9f)));
+    }
+
+    @Test
+    void givenParticleOutOfRange_whenEncoding_thenCoordinateIsSaturated() throws IOException {
+        encoder.encodeFrame(frameAt(1e9f), out);
+
+        byte[] encoded = out.toByteArray();
+        assertEquals(0, encoded[8]);
+        assertEquals(0x7F, encoded[9]);
+        assertEquals(-1, encoded[10]);
+    }
+
+    @Test
+    void givenParticlesJustBeyondShortRange_whenEncoding_thenTheyAreSaturatedWithNoFractionBits() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(1, 2, new float[]{40000f, -40000f}, new float[]{32768f, -32769f},
+                new byte[]{1, 1});
+
+        encoder.encodeFrame(frame, out);
+
+        assertEquals(0, QuantizedStreamEncoder.fractionBitsOf(frame));
+        assertArrayEquals(new byte[]{0, 0x7F, -1, -128, 0, 0x7F, -1, -128, 0},
+                Arrays.copyOfRange(out.toByteArray(), 8, 8 + 1 + 2 * 2 * 2));
+    }
+
+    @Test
+    void givenNonFiniteParticles_whenAskedForFractionBits_thenOtherParticlesKeepTheirPrecision() {
+        SnowDataFrame frame = new SnowDataFrame(1, 4, new float[]{Float.NaN, Float.POSITIVE_INFINITY, 0, 1.5f},
+                new float[]{0, 0, Float.NEGATIVE_INFINITY, 0}, new byte[4]);
+
+        assertEquals(QuantizedStreamEncoder.fractionBitsOf(frameAt(1.5f)), QuantizedStreamEncoder.fractionBitsOf(frame));
+        assertEquals(15, QuantizedStreamEncoder.fractionBitsOf(frameAt(Float.NaN)));
+        assertEquals(15, QuantizedStreamEncoder.fractionBitsOf(frameAt(Float.NEGATIVE_INFINITY)));
+    }
+
+    @Test
+    void givenNonFiniteParticles_whenEncoding_thenNaNIsZeroAndInfinitiesAreSaturated() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(1, 3, new float[]{Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY},
+                new float[3], new byte[3]);
+
+        encoder.encodeFrame(frame, out);
+
+        assertArrayEquals(new byte[]{15, 0, 0, 0x7F, -1, -128, 0},
+                Arrays.copyOfRange(out.toByteArray(), 8, 8 + 1 + 3 * 2));
+    }
+
+    @Test
+    void givenSameFrame_whenEncoded_thenQuantizedIsRoughlyHalfOfBinary() throws IOException {
+        int chunkSize = 1000;
+        float[] x = new float[chunkSize];
+        float[] y = new float[chunkSize];
+        byte[] shapes = new byte[chunkSize];
+        for (int i = 0; i < chunkSize; ++i) {
+            x[i] = i * 0.18f;
+            y[i] = i * 0.045f;
+            shapes[i] = (byte) (i % 4);
+        }
+        SnowDataFrame frame = new SnowDataFrame(1, chunkSize, x, y, shapes);
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+        encoder.encodeFrame(frame, out);
+        new BinaryStreamEncoder().encodeFrame(frame, binary);
+
+        assertTrue(out.size() * 2 < binary.size() + 100);
+    }
+
+    @Test
+    void whenEncodingMetadataAndBasis_thenBinaryFormatIsUsed() throws IOException {
+        SnowAnimationMetadata metadata = new SnowAnimationMetadata(99, 101, 15, 73, 987);
+        SnowBasis basis = new SnowBasis(1, new int[]{1}, new int[]{2}, new byte[]{3});
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+        encoder.encodeMetadata(metadata, out);
+        encoder.encodeBasis(basis, out);
+        new BinaryStreamEncoder().encodeMetadata(metadata, binary);
+        new BinaryStreamEncoder().encodeBasis(basis, binary);
+
+        assertArrayEquals(binary.toByteArray(), out.toByteArray());
+    }
+
+    private SnowDataFrame frameAt(float coordinate) {
+        return new SnowDataFrame(1, 1, new float[]{coordinate}, new float[]{0}, new byte[]{1});
+    }
+
+    @Test
+    void givenRepeatedFrame_whenEncoding_thenOnlyFrameNumAndPayloadFrameNumAreInOutput() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(7, 2, new float[]{1, 2}, new float[]{3, 4}, new byte[]{5, 6})
+                .withPayloadOf(4)
+                .asRepeated();
+
+        encoder.encodeFrame(frame, out);
+
+        byte[] expected = new byte[]{
+                0, 0, 0, 7,
+                -1, -1, -1, -1,
+                0, 0, 0, 4,
+        };
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+}
@@ -0,0 +1,173 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import techbit.snow.proxy.dto.SnowDataFrame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedDeltaStreamEncoderTest {
+
+    private SortedDeltaStreamEncoder encoder;
+    private ByteArrayOutputStream out;
+
+    @BeforeEach
+    void setup() {
+        encoder = new SortedDeltaStreamEncoder();
+        out = new ByteArrayOutputStream();
+    }
+
+    @Test
+    void givenDataFrame_whenEncoding_thenParticlesAreSortedDeltaCodedAndShapesRunLengthEncoded() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(
+                7, 3,
+                new float[]{1f, 0f, 1f},
+                new float[]{1f, 0f, 0f},
+                new byte[]{5, 5, 9}
+        );
+
+        encoder.encodeFrame(frame, out);
+
+        byte[] expected = new byte[]{
+                0, 0, 0, 7,           // frame num
+                0, 0, 0, 3,           // chunk size
+                14,                   // fraction bits
+                0, 0,                 // (0, 0)
+                (byte) 0x80, (byte) 0x80, 0x02, 0, // (+16384, 0)
+                0, (byte) 0x80, (byte) 0x80, 0x02, // (0, +16384)
+                1, 5,                 // one particle of shape 5
+                1, 9,                 // one particle of shape 9
+                1, 5,                 // one particle of shape 5
+        };
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    void givenLastFrame_whenEncoding_thenOnlyHeaderIsWritten() throws IOException {
+        encoder.encodeFrame(SnowDataFrame.LAST, out);
+
+        assertArrayEquals(new byte[]{-1, -1, -1, -1, 0, 0, 0, 0}, out.toByteArray());
+    }
+
+    @Test
+    void givenRandomFrame_whenEncodedAndDecoded_thenSameParticlesAreRestored() throws IOException {
+        Random random = new Random(17);
+        int chunkSize = 500;
+        float[] x = new float[chunkSize];
+        float[] y = new float[chunkSize];
+        byte[] shapes = new byte[chunkSize];
+        for (int i = 0; i < chunkSize; ++i) {
+            x[i] = random.nextFloat() * 180 - 10;
+            y[i] = random.nextFloat() * 45 - 10;
+            shapes[i] = (byte) random.nextInt(4);
+        }
+
+        encoder.encodeFrame(new SnowDataFrame(3, chunkSize, x, y, shapes), out);
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(3, data.readInt());
+        assertEquals(chunkSize, data.readInt());
+        float scale = 1 << data.readByte();
+        float[] decodedX = new float[chunkSize];
+        float[] decodedY = new float[chunkSize];
+        byte[] decodedShapes = new byte[chunkSize];
+        int prevX = 0;
+        int prevY = 0;
+        for (int i = 0; i < chunkSize; ++i) {
+            decodedX[i] = (prevX += unZigZag(readVarInt(data))) / scale;
+            decodedY[i] = (prevY += unZigZag(readVarInt(data))) / scale;
+        }
+        for (int i = 0; i < chunkSize; ) {
+            int runLength = readVarInt(data);
+            byte shape = data.readByte();
+            while (runLength-- > 0) {
+                decodedShapes[i++] = shape;
+            }
+        }
+        assertEquals(0, data.available());
+
+        for (int i = 0; i < chunkSize; ++i) {
+            boolean found = false;
+            for (int j = 0; j < chunkSize && !found; ++j) {
+                found = Math.abs(x[i] - decodedX[j]) < 0.01f
+                        && Math.abs(y[i] - decodedY[j]) < 0.01f
+                        && shapes[i] == decodedShapes[j];
+            }
+            assertTrue(found, "Particle " + i + " is missing");
+        }
+    }
+
+    @Test
+    void givenCoordinates_whenSortedInMortonOrder_thenNeighbouringCellsAreNextToEachOther() {
+        int[] x = {3, 0, 1, 0, 2};
+        int[] y = {3, 0, 0, 1, 2};
+
+        assertArrayEquals(new int[]{1, 2, 3, 4, 0}, SortedDeltaStreamEncoder.mortonOrderOf(x, y));
+    }
+
+    @Test
+    void whenComputingMortonCode_thenBitsAreInterleaved() {
+        assertEquals(0b0, SortedDeltaStreamEncoder.morton(0, 0));
+        assertEquals(0b1, SortedDeltaStreamEncoder.morton(1, 0));
+        assertEquals(0b10, SortedDeltaStreamEncoder.morton(0, 1));
+        assertEquals(0b111111, SortedDeltaStreamEncoder.morton(7, 7));
+        assertEquals(0xFFFFFFFF, SortedDeltaStreamEncoder.morton(0xFFFF, 0xFFFF));
+    }
+
+    @Test
+    void whenZigZagging_thenSmallMagnitudesBecomeSmallNumbers() {
+        assertEquals(0, SortedDeltaStreamEncoder.zigZag(0));
+        assertEquals(1, SortedDeltaStreamEncoder.zigZag(-1));
+        assertEquals(2, SortedDeltaStreamEncoder.zigZag(1));
+        assertEquals(3, SortedDeltaStreamEncoder.zigZag(-2));
+    }
+
+    @Test
+    void whenWritingVarInts_thenSevenBitsPerByteAreUsed() throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+
+        SortedDeltaStreamEncoder.writeVarInt(data, 1);
+        SortedDeltaStreamEncoder.writeVarInt(data, 300);
+
+        assertArrayEquals(new byte[]{1, (byte) 0xAC, 0x02}, out.toByteArray());
+    }
+
+    private static int readVarInt(DataInputStream data) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int unZigZag(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    @Test
+    void givenRepeatedFrame_whenEncoding_thenOnlyFrameNumAndPayloadFrameNumAreInOutput() throws IOException {
+        SnowDataFrame frame = new SnowDataFrame(7, 2, new float[]{1, 2}, new float[]{3, 4}, new byte[]{5, 6})
+                .withPayloadOf(4)
+                .asRepeated();
+
+        encoder.encodeFrame(frame, out);
+
+        byte[] expected = new byte[]{
+                0, 0, 0, 7,
+                -1, -1, -1, -1,
+                0, 0, 0, 4,
+        };
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+}
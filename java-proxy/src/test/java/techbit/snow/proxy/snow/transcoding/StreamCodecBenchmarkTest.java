@@ -0,0 +1,97 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.junit.jupiter.api.Test;
+import techbit.snow.proxy.dto.SnowDataFrame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards bytes per particle of every codec, as is and deflated, for frames resembling a 180x45 snow animation.
+ * Frames are generated from a fixed seed, so the ratios are stable.
+ */
+class StreamCodecBenchmarkTest {
+
+    private static final int WIDTH = 180;
+    private static final int HEIGHT = 45;
+    private static final int NUM_OF_FRAMES = 50;
+    private static final int[] CHUNK_SIZES = {100, 1000, 5000};
+    private static final int[] DENSE_CHUNK_SIZES = {1000, 5000};
+    private static final double ABOUT_HALF_MIN = 0.4;
+    private static final double ABOUT_HALF_MAX = 0.55;
+
+    @Test
+    void whenEncodingTypicalFrames_thenQuantizedCodecsTakeAboutHalfOfBinary() throws IOException {
+        for (int chunkSize : CHUNK_SIZES) {
+            final SnowDataFrame[] frames = framesOf(chunkSize);
+            final double binary = bytesPerParticle(StreamCodec.BINARY, frames, false);
+            final double quantized = bytesPerParticle(StreamCodec.QUANTIZED, frames, false);
+            final double sortedDelta = bytesPerParticle(StreamCodec.SORTED_DELTA, frames, false);
+
+            assertTrue(quantized / binary < 0.5, "quantized / binary = " + quantized / binary);
+            assertAboutHalf(quantized / binary, "quantized / binary");
+            assertAboutHalf(sortedDelta / binary, "sorted-delta / binary");
+        }
+    }
+
+    @Test
+    void givenDenseFrames_whenEncodingAndDeflating_thenSortedDeltaCodecIsTheSmallest() throws IOException {
+        for (int chunkSize : DENSE_CHUNK_SIZES) {
+            final SnowDataFrame[] frames = framesOf(chunkSize);
+            final double binary = bytesPerParticle(StreamCodec.BINARY, frames, true);
+            final double quantized = bytesPerParticle(StreamCodec.QUANTIZED, frames, true);
+            final double sortedDelta = bytesPerParticle(StreamCodec.SORTED_DELTA, frames, true);
+
+            assertTrue(sortedDelta / quantized < 0.9, "sorted-delta / quantized = " + sortedDelta / quantized);
+            assertTrue(sortedDelta / binary < 0.45, "sorted-delta / binary = " + sortedDelta / binary);
+        }
+    }
+
+    private void assertAboutHalf(double ratio, String name) {
+        assertTrue(ratio > ABOUT_HALF_MIN && ratio < ABOUT_HALF_MAX, name + " = " + ratio);
+    }
+
+    private double bytesPerParticle(StreamCodec codec, SnowDataFrame[] frames, boolean deflate) throws IOException {
+        final StreamEncoder encoder = codec.createEncoder();
+        long bytes = 0;
+        long particles = 0;
+        for (SnowDataFrame frame : frames) {
+            final ByteArrayOutputStream plain = new ByteArrayOutputStream();
+            encoder.encodeFrame(frame, plain);
+            bytes += deflate ? deflated(plain.toByteArray()).length : plain.size();
+            particles += frame.chunkSize();
+        }
+        return (double) bytes / particles;
+    }
+
+    private SnowDataFrame[] framesOf(int chunkSize) {
+        final Random random = new Random(chunkSize);
+        final SnowDataFrame[] frames = new SnowDataFrame[NUM_OF_FRAMES];
+        for (int f = 0; f < NUM_OF_FRAMES; ++f) {
+            final float[] x = new float[chunkSize];
+            final float[] y = new float[chunkSize];
+            final byte[] shapes = new byte[chunkSize];
+            for (int i = 0; i < chunkSize; ++i) {
+                x[i] = random.nextFloat() * WIDTH;
+                y[i] = random.nextFloat() * HEIGHT;
+                shapes[i] = (byte) (random.nextInt(10) < 7 ? 0 : random.nextInt(4));
+            }
+            frames[f] = new SnowDataFrame(f + 1, chunkSize, x, y, shapes);
+        }
+        return frames;
+    }
+
+    private byte[] deflated(byte[] bytes) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(output, new Deflater(Deflater.DEFAULT_COMPRESSION))) {
+            deflater.write(bytes);
+        }
+        return output.toByteArray();
+    }
+
+}
@@ -0,0 +1,27 @@
+package techbit.snow.proxy.snow.transcoding;
+
+import org.junit.jupiter.api.Test;
+import techbit.snow.proxy.error.InvalidRequestException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamCodecTest {
+
+    @Test
+    void givenCodecId_whenParsed_thenMatchingCodecIsReturned() {
+        assertEquals(StreamCodec.BINARY, StreamCodec.fromId("binary"));
+        assertEquals(StreamCodec.QUANTIZED, StreamCodec.fromId("quantized"));
+    }
+
+    @Test
+    void givenUnknownCodecId_whenParsed_thenExceptionIsThrown() {
+        assertThrows(InvalidRequestException.class, () -> StreamCodec.fromId("gzip"));
+    }
+
+    @Test
+    void whenEncoderIsCreated_thenItMatchesCodec() {
+        assertInstanceOf(BinaryStreamEncoder.class, StreamCodec.BINARY.createEncoder());
+        assertInstanceOf(QuantizedStreamEncoder.class, StreamCodec.QUANTIZED.createEncoder());
+    }
+
+}
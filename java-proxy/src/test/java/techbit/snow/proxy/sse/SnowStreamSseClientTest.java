@@ -0,0 +1,111 @@
+package techbit.snow.proxy.sse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.stream.SnowHandshake;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnowStreamSseClientTest {
+    @Mock
+    private SseEmitter emitter;
+    @Mock
+    private StreamEncoder encoder;
+    @Mock
+    private SnowDataFrame frame;
+
+    @Test
+    void whenBinaryFrameIsStreamed_thenFrameEventWithFrameNumAsIdIsSentInBase64() throws IOException {
+        SnowStreamSseClient client = new SnowStreamSseClient(emitter, encoder, false, 0);
+        when(frame.frameNum()).thenReturn(17);
+        when(encoder.encodeShared(frame, SnowBasis.NONE)).thenReturn(new byte[]{1, 2, 3});
+
+        client.streamFrame(frame, SnowBasis.NONE);
+
+        assertEquals("id:17\nevent:frame\ndata:AQID\n\n", sentEvent());
+    }
+
+    @Test
+    void whenTextualFrameIsStreamed_thenEachLineIsSeparateDataField() throws IOException {
+        SnowStreamSseClient client = new SnowStreamSseClient(emitter, encoder, true, 0);
+        when(frame.frameNum()).thenReturn(3);
+        when(encoder.encodeShared(frame, SnowBasis.NONE)).thenReturn("{\"a\":1}\n{\"b\":2}\n".getBytes());
+
+        client.streamFrame(frame, SnowBasis.NONE);
+
+        assertEquals("id:3\nevent:frame\ndata:{\"a\":1}\ndata:{\"b\":2}\n\n", sentEvent());
+    }
+
+    @Test
+    void whenHandshakeIsStreamed_thenHandshakeEventWithoutIdIsSent() throws IOException {
+        SnowStreamSseClient client = new SnowStreamSseClient(emitter, encoder, false, 0);
+        SnowHandshake handshake = mock(SnowHandshake.class);
+        when(handshake.encodedWith(encoder)).thenReturn(new byte[]{1, 2, 3});
+
+        client.startStreaming(handshake);
+
+        assertEquals("event:handshake\ndata:AQID\n\n", sentEvent());
+    }
+
+    @Test
+    void whenLastFrameIsStreamed_thenEndEventIsSentAndStreamCompletesOnStop() throws IOException {
+        SnowStreamSseClient client = new SnowStreamSseClient(emitter, encoder, false, 0);
+
+        client.streamFrame(SnowDataFrame.LAST, SnowBasis.NONE);
+        client.stopStreaming();
+
+        assertEquals("event:end\ndata:\n\n", sentEvent());
+        verify(emitter).complete();
+        assertFalse(client.continueStreaming());
+    }
+
+    @Test
+    void givenCompletedEmitter_whenFrameIsStreamed_thenIOExceptionIsThrown() throws IOException {
+        SnowStreamSseClient client = new SnowStreamSseClient(emitter, encoder, false, 0);
+        when(encoder.encodeShared(frame, SnowBasis.NONE)).thenReturn(new byte[0]);
+        doThrow(IllegalStateException.class).when(emitter).send(any(SseEventBuilder.class));
+
+        assertThrows(IOException.class, () -> client.streamFrame(frame, SnowBasis.NONE));
+    }
+
+    @Test
+    void whenClientDeactivated_thenHasInactiveStream() {
+        SnowStreamSseClient client = new SnowStreamSseClient(emitter, encoder, false, 0);
+        assertTrue(client.continueStreaming());
+
+        client.deactivate();
+
+        assertFalse(client.continueStreaming());
+    }
+
+    @Test
+    void whenBrandNewClient_thenResumesAfterGivenFrameAndAcceptsCompactFrames() {
+        SnowStreamSseClient client = new SnowStreamSseClient(emitter, encoder, false, 41);
+
+        assertEquals(41, client.resumeAfterFrameNum());
+        assertTrue(client.acceptsRepeatedFrames());
+        assertTrue(client.acceptsBasisDelta());
+    }
+
+    private String sentEvent() throws IOException {
+        ArgumentCaptor<SseEventBuilder> event = ArgumentCaptor.forClass(SseEventBuilder.class);
+        verify(emitter).send(event.capture());
+        return event.getValue().build().stream()
+                .map(data -> data.getData().toString())
+                .collect(Collectors.joining());
+    }
+
+}
@@ -0,0 +1,100 @@
+package techbit.snow.proxy.sse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.error.InvalidRequestException;
+import techbit.snow.proxy.error.InvalidSessionException;
+import techbit.snow.proxy.proxy.ProxyService;
+import techbit.snow.proxy.snow.stream.SnowStream;
+import techbit.snow.proxy.snow.transcoding.NdjsonStreamEncoder;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SseControllerTest {
+    @Mock
+    private ProxyService proxyService;
+    @Mock
+    private NdjsonStreamEncoder jsonEncoder;
+    @Mock
+    private SnowStreamSseClient client;
+    private SseController controller;
+
+    @BeforeEach
+    void setup() {
+        controller = spy(new SseController(proxyService, jsonEncoder, Runnable::run));
+    }
+
+    @Test
+    void givenValidSession_whenStreamEvents_thenSessionIsStreamedToSseClient() throws Exception {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(controller).createClient(any(), eq("json"), eq(0));
+
+        assertNotNull(controller.streamEvents("session-id", "json", null));
+
+        verify(proxyService).streamSessionTo("session-id", client);
+    }
+
+    @Test
+    void givenLastEventId_whenStreamEvents_thenClientResumesAfterThatFrame() throws Exception {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(controller).createClient(any(), eq("binary"), eq(41));
+
+        controller.streamEvents("session-id", "binary", "41");
+
+        verify(proxyService).streamSessionTo("session-id", client);
+    }
+
+    @Test
+    void givenInvalidLastEventId_whenStreamEvents_thenThrowException() {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+
+        assertThrows(InvalidRequestException.class, () -> controller.streamEvents("session-id", "json", "abc"));
+    }
+
+    @Test
+    void givenUnknownSession_whenStreamEvents_thenThrowException() throws Exception {
+        assertThrows(InvalidSessionException.class, () -> controller.streamEvents("session-id", "json", null));
+
+        verify(proxyService, never()).streamSessionTo(any(), any());
+    }
+
+    @Test
+    void givenUnknownCodec_whenStreamEvents_thenThrowException() {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+
+        assertThrows(InvalidRequestException.class, () -> controller.streamEvents("session-id", "unknown", null));
+    }
+
+    @Test
+    void givenStreamingFails_whenStreamEvents_thenEmitterCompletesWithError() throws Exception {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(controller).createClient(any(), any(), anyInt());
+        doThrow(SnowStream.ConsumerThreadException.class).when(proxyService).streamSessionTo("session-id", client);
+
+        SseEmitter emitter = controller.streamEvents("session-id", "json", null);
+
+        assertThrows(IllegalStateException.class, () -> emitter.send("too late"));
+    }
+
+    @Test
+    void whenCreatingClients_thenJsonIsTextualAndOtherCodecsAreBinary() throws IOException {
+        SseEmitter emitter = mock(SseEmitter.class);
+
+        controller.createClient(emitter, "json", 0).startStreaming(
+                mock(SnowAnimationMetadata.class), mock(SnowBackground.class));
+        controller.createClient(emitter, "quantized", 0);
+
+        verify(jsonEncoder).encodeMetadata(any(), any());
+    }
+
+}
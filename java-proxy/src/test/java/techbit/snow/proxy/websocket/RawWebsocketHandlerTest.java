@@ -0,0 +1,142 @@
+package techbit.snow.proxy.websocket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import techbit.snow.proxy.proxy.ProxyService;
+import techbit.snow.proxy.snow.stream.SnowStream;
+import techbit.snow.proxy.snow.transcoding.StreamCodec;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RawWebsocketHandlerTest {
+    @Mock
+    private ProxyService proxyService;
+    @Mock
+    private WebSocketSession session;
+    @Mock
+    private SnowStreamRawWebsocketClient client;
+    private RawWebsocketHandler handler;
+
+    @BeforeEach
+    void setup() {
+        handler = spy(new RawWebsocketHandler(proxyService, Runnable::run, 10_000, 1024 * 1024));
+        lenient().when(session.getId()).thenReturn("ws-session");
+    }
+
+    @Test
+    void givenValidSession_whenConnectionEstablished_thenSessionIsStreamedToClient() throws Exception {
+        when(session.getUri()).thenReturn(URI.create("ws://domain.com/ws-raw/session-id"));
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(handler).createClient(any(ConcurrentWebSocketSessionDecorator.class), eq(StreamCodec.BINARY));
+
+        handler.afterConnectionEstablished(session);
+
+        verify(proxyService).streamSessionTo("session-id", client);
+    }
+
+    @Test
+    void givenCodecInQuery_whenConnectionEstablished_thenClientWithThatCodecIsCreated() throws Exception {
+        when(session.getUri()).thenReturn(URI.create("ws://domain.com/ws-raw/session-id?codec=quantized"));
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(handler).createClient(any(), eq(StreamCodec.QUANTIZED));
+
+        handler.afterConnectionEstablished(session);
+
+        verify(proxyService).streamSessionTo("session-id", client);
+    }
+
+    @Test
+    void givenUnknownSession_whenConnectionEstablished_thenConnectionIsClosed() throws Exception {
+        when(session.getUri()).thenReturn(URI.create("ws://domain.com/ws-raw/session-id"));
+
+        handler.afterConnectionEstablished(session);
+
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.POLICY_VIOLATION.getCode()));
+        verify(proxyService, never()).streamSessionTo(any(), any());
+    }
+
+    @Test
+    void givenUnknownCodec_whenConnectionEstablished_thenConnectionIsClosed() throws Exception {
+        when(session.getUri()).thenReturn(URI.create("ws://domain.com/ws-raw/session-id?codec=unknown"));
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+
+        handler.afterConnectionEstablished(session);
+
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.BAD_DATA.getCode()));
+        verify(proxyService, never()).streamSessionTo(any(), any());
+    }
+
+    @Test
+    void givenStreamingFails_whenConnectionEstablished_thenConnectionIsClosedWithError() throws Exception {
+        when(session.getUri()).thenReturn(URI.create("ws://domain.com/ws-raw/session-id"));
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(handler).createClient(any(), any());
+        doThrow(IOException.class).when(proxyService).streamSessionTo("session-id", client);
+
+        handler.afterConnectionEstablished(session);
+
+        verify(session).close(CloseStatus.SERVER_ERROR);
+    }
+
+    @Test
+    void givenStreamingInProgress_whenConnectionClosed_thenClientIsDeactivated() throws Exception {
+        when(session.getUri()).thenReturn(URI.create("ws://domain.com/ws-raw/session-id"));
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(handler).createClient(any(), any());
+        doAnswer(i -> {
+            handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+            return null;
+        }).when(proxyService).streamSessionTo("session-id", client);
+
+        handler.afterConnectionEstablished(session);
+
+        verify(client).deactivate();
+    }
+
+    @Test
+    void givenNoStreaming_whenConnectionClosed_thenNoErrorOccurs() {
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void givenConsumerThreadFails_whenStreaming_thenConnectionIsClosedWithError() throws Exception {
+        when(session.getUri()).thenReturn(URI.create("ws://domain.com/ws-raw/session-id"));
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(handler).createClient(any(), any());
+        doThrow(SnowStream.ConsumerThreadException.class).when(proxyService).streamSessionTo("session-id", client);
+
+        handler.afterConnectionEstablished(session);
+
+        verify(session).close(CloseStatus.SERVER_ERROR);
+    }
+
+    @Test
+    void givenNoThreadsLeft_whenConnectionEstablished_thenConnectionIsClosedAsOverloaded() throws Exception {
+        handler = spy(new RawWebsocketHandler(proxyService, task -> {
+            throw new TaskRejectedException("full");
+        }, 10_000, 1024 * 1024));
+        when(session.getUri()).thenReturn(URI.create("ws://domain.com/ws-raw/session-id"));
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        doReturn(client).when(handler).createClient(any(), any());
+
+        handler.afterConnectionEstablished(session);
+        handler.afterConnectionClosed(session, CloseStatus.SERVICE_OVERLOAD);
+
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.SERVICE_OVERLOAD.getCode()));
+        verify(client, never()).deactivate();
+    }
+
+}
@@ -0,0 +1,137 @@
+package techbit.snow.proxy.websocket;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.stream.SnowHandshake;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnowStreamBroadcastClientTest {
+    private static final String TOPIC = "/topic/session/session-id/binary";
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+    @Mock
+    private StreamEncoder encoder;
+    @Mock
+    private SnowHandshake handshake;
+    @Mock
+    private SnowDataFrame frame;
+    @Mock
+    private SnowBasis basis;
+    private SnowStreamBroadcastClient client;
+
+    @BeforeEach
+    void setup() {
+        client = new SnowStreamBroadcastClient(TOPIC, messagingTemplate, encoder);
+    }
+
+    @Test
+    void givenViewerJoinedBeforeHandshake_whenStreamingStarts_thenHandshakeIsSentToViewer() throws IOException {
+        when(handshake.encodedWith(encoder)).thenReturn(new byte[]{1, 2});
+
+        Assertions.assertTrue(client.join("viewer-1"));
+        client.startStreaming(handshake);
+
+        verify(messagingTemplate).convertAndSendToUser("viewer-1", "/stream/", new byte[]{1, 2});
+    }
+
+    @Test
+    void givenManyViewers_whenFrameIsStreamed_thenItIsPublishedOnceToTopic() throws IOException {
+        when(handshake.encodedWith(encoder)).thenReturn(new byte[]{1, 2});
+        when(encoder.encodeShared(frame, SnowBasis.NONE)).thenReturn(new byte[]{3});
+        client.join("viewer-1");
+        client.join("viewer-2");
+        client.startStreaming(handshake);
+
+        client.streamFrame(frame, SnowBasis.NONE);
+
+        verify(messagingTemplate).convertAndSend(TOPIC, new byte[]{3});
+        verify(messagingTemplate, never()).convertAndSendToUser(any(), any(), eq(new byte[]{3}));
+    }
+
+    @Test
+    void givenStreamingInProgress_whenViewerJoinsLate_thenHandshakeAndLatestFrameWithFullBasisAreSentFirst() throws IOException {
+        when(handshake.encodedWith(encoder)).thenReturn(new byte[]{1, 2});
+        when(frame.basis()).thenReturn(basis);
+        when(encoder.encodeShared(frame, SnowBasis.NONE)).thenReturn(new byte[]{3});
+        when(encoder.encodeShared(frame, basis)).thenReturn(new byte[]{3, 4});
+        client.join("viewer-1");
+        client.startStreaming(handshake);
+        client.streamFrame(frame, SnowBasis.NONE);
+
+        client.join("viewer-2");
+
+        InOrder inOrder = inOrder(messagingTemplate);
+        inOrder.verify(messagingTemplate).convertAndSendToUser("viewer-2", "/stream/", new byte[]{1, 2});
+        inOrder.verify(messagingTemplate).convertAndSendToUser("viewer-2", "/stream/", new byte[]{3, 4});
+    }
+
+    @Test
+    void givenRepeatedFrameStreamed_whenViewerJoinsLate_thenLatestFrameWithParticlesIsSent() throws IOException {
+        SnowDataFrame repeated = mock(SnowDataFrame.class);
+        when(repeated.isRepeated()).thenReturn(true);
+        when(repeated.basis()).thenReturn(basis);
+        when(handshake.encodedWith(encoder)).thenReturn(new byte[]{1, 2});
+        when(encoder.encodeShared(any(), any())).thenReturn(new byte[]{3});
+        client.join("viewer-1");
+        client.startStreaming(handshake);
+        client.streamFrame(frame, SnowBasis.NONE);
+        client.streamFrame(repeated, SnowBasis.NONE);
+
+        client.join("viewer-2");
+
+        verify(encoder).encodeShared(frame, basis);
+        verify(encoder, never()).encodeShared(repeated, basis);
+    }
+
+    @Test
+    void givenNoViewersLeft_whenFrameIsStreamed_thenNothingIsPublished() throws IOException {
+        client.join("viewer-1");
+        client.leave("viewer-1");
+
+        client.streamFrame(SnowDataFrame.LAST, SnowBasis.NONE);
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void givenLastViewerLeft_whenAskedToContinue_thenBroadcastGoesDownAndRefusesViewers() throws IOException {
+        client.join("viewer-1");
+        client.join("viewer-2");
+
+        client.leave("viewer-1");
+        Assertions.assertTrue(client.continueStreaming());
+        client.leave("viewer-2");
+
+        Assertions.assertFalse(client.continueStreaming());
+        Assertions.assertFalse(client.join("viewer-3"));
+    }
+
+    @Test
+    void whenStreamingEnded_thenBroadcastRefusesViewers() throws IOException {
+        client.stopStreaming();
+
+        Assertions.assertFalse(client.continueStreaming());
+        Assertions.assertFalse(client.join("viewer-1"));
+    }
+
+    @Test
+    void whenBrandNewClient_thenAcceptsRepeatedFramesAndBasisDelta() {
+        Assertions.assertTrue(client.acceptsRepeatedFrames());
+        Assertions.assertTrue(client.acceptsBasisDelta());
+        Assertions.assertEquals(TOPIC, client.topic());
+    }
+
+}
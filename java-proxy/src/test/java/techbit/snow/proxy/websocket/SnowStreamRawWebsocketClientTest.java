@@ -0,0 +1,123 @@
+package techbit.snow.proxy.websocket;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import techbit.snow.proxy.dto.SnowAnimationMetadata;
+import techbit.snow.proxy.dto.SnowBackground;
+import techbit.snow.proxy.dto.SnowBasis;
+import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.stream.SnowHandshake;
+import techbit.snow.proxy.snow.transcoding.StreamEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnowStreamRawWebsocketClientTest {
+    @Mock
+    private WebSocketSession session;
+    @Mock
+    private SnowDataFrame snowDataFrame;
+    @Mock
+    private StreamEncoder encoder;
+    private SnowStreamRawWebsocketClient client;
+
+    @BeforeEach
+    void setup() {
+        client = new SnowStreamRawWebsocketClient(session, encoder);
+    }
+
+    @Test
+    void givenOpenSession_whenBrandNewClient_thenHasActiveStream() {
+        when(session.isOpen()).thenReturn(true);
+
+        Assertions.assertTrue(client.continueStreaming());
+    }
+
+    @Test
+    void givenClosedSession_whenAskedToContinue_thenHasInactiveStream() {
+        when(session.isOpen()).thenReturn(false);
+
+        Assertions.assertFalse(client.continueStreaming());
+    }
+
+    @Test
+    void whenClientDeactivated_thenHasInactiveStream() {
+        client.deactivate();
+
+        Assertions.assertFalse(client.continueStreaming());
+    }
+
+    @Test
+    void whenBrandNewClient_thenAcceptsRepeatedFramesAndBasisDelta() {
+        Assertions.assertTrue(client.acceptsRepeatedFrames());
+        Assertions.assertTrue(client.acceptsBasisDelta());
+    }
+
+    @Test
+    void whenAskedForIdentifier_thenWebsocketSessionIdIsReturned() {
+        when(session.getId()).thenReturn("ws-session");
+
+        Assertions.assertEquals("ws-session", client.identifier());
+    }
+
+    @Test
+    void whenHandshakeIsStreamed_thenItsSharedBytesAreSentAsBinaryMessage() throws IOException {
+        SnowHandshake handshake = mock(SnowHandshake.class);
+        when(handshake.encodedWith(encoder)).thenReturn(new byte[]{1, 2, 3});
+
+        client.startStreaming(handshake);
+
+        verify(session).sendMessage(new BinaryMessage(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void whenMetadataIsStreamed_thenMetadataAndBackgroundAreSentInOneMessage() throws IOException {
+        doAnswer(i -> { i.<OutputStream>getArgument(1).write(1); return null; })
+                .when(encoder).encodeMetadata(any(), any());
+        doAnswer(i -> { i.<OutputStream>getArgument(1).write(2); return null; })
+                .when(encoder).encodeBackground(any(), any());
+
+        client.startStreaming(mock(SnowAnimationMetadata.class), mock(SnowBackground.class));
+
+        verify(session).sendMessage(new BinaryMessage(new byte[]{1, 2}));
+    }
+
+    @Test
+    void whenFrameIsStreamed_thenSharedBytesAreSentAsBinaryMessage() throws IOException {
+        when(encoder.encodeShared(snowDataFrame, SnowBasis.NONE)).thenReturn(new byte[]{4, 5});
+
+        client.streamFrame(snowDataFrame, SnowBasis.NONE);
+
+        verify(session).sendMessage(new BinaryMessage(new byte[]{4, 5}));
+    }
+
+    @Test
+    void givenSendBufferOverflow_whenFrameIsStreamed_thenExceptionIsThrown() throws IOException {
+        when(encoder.encodeShared(snowDataFrame, SnowBasis.NONE)).thenReturn(new byte[]{4, 5});
+        doThrow(new SessionLimitExceededException("too slow", CloseStatus.SESSION_NOT_RELIABLE))
+                .when(session).sendMessage(any());
+
+        assertThrows(IOException.class, () -> client.streamFrame(snowDataFrame, SnowBasis.NONE));
+    }
+
+    @Test
+    void whenStreamingEnded_thenSessionIsClosed() throws IOException {
+        client.stopStreaming();
+
+        verify(session).close(CloseStatus.NORMAL);
+        Assertions.assertFalse(client.continueStreaming());
+    }
+
+}
@@ -12,13 +12,13 @@ import techbit.snow.proxy.dto.SnowAnimationMetadata;
 import techbit.snow.proxy.dto.SnowBackground;
 import techbit.snow.proxy.dto.SnowBasis;
 import techbit.snow.proxy.dto.SnowDataFrame;
+import techbit.snow.proxy.snow.stream.SnowHandshake;
 import techbit.snow.proxy.snow.transcoding.StreamEncoder;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
-import static org.mockito.Mockito.inOrder;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class SnowStreamWebsocketClientTest {
@@ -55,6 +55,16 @@ class SnowStreamWebsocketClientTest {
         Assertions.assertFalse(client.continueStreaming());
     }
 
+    @Test
+    void whenBrandNewTransmitter_thenAcceptsRepeatedFrames() {
+        Assertions.assertTrue(client.acceptsRepeatedFrames());
+    }
+
+    @Test
+    void whenBrandNewTransmitter_thenAcceptsBasisDelta() {
+        Assertions.assertTrue(client.acceptsBasisDelta());
+    }
+
     @Test
     void whenStreamingEnded_thenHasInactiveStream() throws IOException {
         client.stopStreaming();
@@ -75,14 +85,23 @@ class SnowStreamWebsocketClientTest {
 
     @Test
     void whenSnowDataFrameEncodedIntoOutputStream_thenFlushItToWebsocketMessage() throws IOException {
-        when(output.toByteArray()).thenReturn(byteArray);
+        when(encoder.encodeShared(snowDataFrame, SnowBasis.NONE)).thenReturn(byteArray);
 
         client.streamFrame(snowDataFrame, SnowBasis.NONE);
 
-        InOrder inOrder = inOrder(messagingTemplate, output);
-        inOrder.verify(messagingTemplate).convertAndSendToUser(
-                "client-id", "/stream/", byteArray);
-        inOrder.verify(output).reset();
+        verify(messagingTemplate).convertAndSendToUser("client-id", "/stream/", byteArray);
+        verifyNoInteractions(output);
+    }
+
+    @Test
+    void whenHandshakeIsStreamed_thenItsSharedBytesAreSentToWebsocket() throws IOException {
+        SnowHandshake handshake = mock(SnowHandshake.class);
+        when(handshake.encodedWith(encoder)).thenReturn(byteArray);
+
+        client.startStreaming(handshake);
+
+        verify(messagingTemplate).convertAndSendToUser("client-id", "/stream/", byteArray);
+        verifyNoInteractions(output);
     }
 
-}
\ No newline at end of file
+}
@@ -8,6 +8,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.StompWebSocketEndpointRegistration;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistration;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
@@ -22,11 +24,17 @@ class WebSocketConfigTest {
     private MessageBrokerRegistry messageBrokerRegistry;
     @Mock
     private StompEndpointRegistry registry;
+    @Mock
+    private WebSocketHandlerRegistry handlerRegistry;
+    @Mock
+    private WebSocketHandlerRegistration handlerRegistration;
+    @Mock
+    private RawWebsocketHandler rawWebsocketHandler;
     private WebSocketConfig config;
 
     @BeforeEach
     void setup() {
-        config = new WebSocketConfig("");
+        config = new WebSocketConfig("", rawWebsocketHandler);
     }
 
 
@@ -46,8 +54,17 @@ class WebSocketConfigTest {
         config.configureMessageBroker(messageBrokerRegistry);
 
         verify(messageBrokerRegistry).setApplicationDestinationPrefixes(any());
-        verify(messageBrokerRegistry).enableSimpleBroker(any());
+        verify(messageBrokerRegistry).enableSimpleBroker("/user/", "/topic/");
         verify(messageBrokerRegistry).setUserDestinationPrefix(any());
     }
 
-}
\ No newline at end of file
+    @Test
+    void whenRegisteringWebSocketHandlers_thenRawEndpointIsProperlyConfigured() {
+        when(handlerRegistry.addHandler(rawWebsocketHandler, "/ws-raw/*")).thenReturn(handlerRegistration);
+
+        config.registerWebSocketHandlers(handlerRegistry);
+
+        verify(handlerRegistration).setAllowedOrigins(any());
+    }
+
+}
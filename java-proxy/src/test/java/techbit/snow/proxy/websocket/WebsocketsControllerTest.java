@@ -5,16 +5,23 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import techbit.snow.proxy.error.InvalidRequestException;
 import techbit.snow.proxy.error.InvalidSessionException;
 import techbit.snow.proxy.proxy.ProxyService;
 import techbit.snow.proxy.snow.stream.SnowStream;
+import techbit.snow.proxy.snow.transcoding.StreamCodec;
 
 import java.io.IOException;
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.Mockito.*;
@@ -31,20 +38,27 @@ class WebsocketsControllerTest {
     private ProxyService proxyService;
     private Principal user;
     private WebsocketsController controller;
+    private List<Runnable> tasks;
 
 
     @BeforeEach
     void setup() {
         user = new UserPrincipal("UserX");
-        controller = spy(new WebsocketsController(messagingTemplate, proxyService));
+        tasks = new ArrayList<>();
+        controller = spy(new WebsocketsController(messagingTemplate, proxyService, tasks::add));
+    }
+
+    private void runTasks() {
+        tasks.forEach(Runnable::run);
     }
 
     @Test
     void givenValidSession_whenStream_thenDelegateToProxyService() throws SnowStream.ConsumerThreadException, IOException, InterruptedException {
         when(proxyService.hasSession("session-id")).thenReturn(true);
-        when(controller.createClient("UserX")).thenReturn(client);
+        when(controller.createClient("UserX", StreamCodec.BINARY)).thenReturn(client);
 
-        controller.stream("session-id", user);
+        controller.stream("session-id", "binary", user);
+        runTasks();
 
         verify(proxyService).streamSessionTo(
                 eq("session-id"),
@@ -54,7 +68,7 @@ class WebsocketsControllerTest {
 
     @Test
     void givenUnknownSession_whenStream_thenThrowException() {
-        Assertions.assertThrows(InvalidSessionException.class, () -> controller.stream("session-id", user));
+        Assertions.assertThrows(InvalidSessionException.class, () -> controller.stream("session-id", "binary", user));
     }
 
     @Test
@@ -65,13 +79,141 @@ class WebsocketsControllerTest {
 
     @Test
     void givenValidSession_whenSessionDisconnectEventOccurs_thenTransmitterIsDeactivated() throws SnowStream.ConsumerThreadException, IOException, InterruptedException {
-        when(controller.createClient("UserX")).thenReturn(client);
+        when(controller.createClient("UserX", StreamCodec.BINARY)).thenReturn(client);
         when(proxyService.hasSession("session-id")).thenReturn(true);
         when(sessionDisconnectEvent.getUser()).thenReturn(user);
 
-        controller.stream("session-id", user);
+        controller.stream("session-id", "binary", user);
         controller.onApplicationEvent(sessionDisconnectEvent);
 
         verify(client).deactivate();
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenQuantizedCodec_whenStream_thenClientWithQuantizedEncoderIsCreated() throws SnowStream.ConsumerThreadException, IOException, InterruptedException {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        when(controller.createClient("UserX", StreamCodec.QUANTIZED)).thenReturn(client);
+
+        controller.stream("session-id", "quantized", user);
+        runTasks();
+
+        verify(proxyService).streamSessionTo("session-id", client);
+    }
+
+    @Test
+    void givenUnknownCodec_whenStream_thenThrowException() {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+
+        Assertions.assertThrows(InvalidRequestException.class, () -> controller.stream("session-id", "unknown", user));
+    }
+
+    @Test
+    void givenValidSession_whenStream_thenStreamingIsLeftToExecutor() throws SnowStream.ConsumerThreadException, IOException, InterruptedException {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        when(controller.createClient("UserX", StreamCodec.BINARY)).thenReturn(client);
+
+        controller.stream("session-id", "binary", user);
+
+        Assertions.assertEquals(1, tasks.size());
+        verify(proxyService, never()).streamSessionTo(any(), any());
+    }
+
+    @Test
+    void givenStreamingFinished_whenSessionDisconnectEventOccurs_thenClientIsNoLongerTracked() throws SnowStream.ConsumerThreadException, IOException, InterruptedException {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        when(controller.createClient("UserX", StreamCodec.BINARY)).thenReturn(client);
+        when(sessionDisconnectEvent.getUser()).thenReturn(user);
+        doThrow(IOException.class).when(proxyService).streamSessionTo("session-id", client);
+
+        controller.stream("session-id", "binary", user);
+        runTasks();
+        controller.onApplicationEvent(sessionDisconnectEvent);
+
+        verify(client, never()).deactivate();
+    }
+
+    @Test
+    void givenNoThreadsLeft_whenStream_thenClientIsDeactivatedAndNotKept() {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        when(sessionDisconnectEvent.getUser()).thenReturn(user);
+        controller = spy(new WebsocketsController(messagingTemplate, proxyService, task -> {
+            throw new TaskRejectedException("full");
+        }));
+        when(controller.createClient("UserX", StreamCodec.BINARY)).thenReturn(client);
+
+        Assertions.assertThrows(TaskRejectedException.class, () -> controller.stream("session-id", "binary", user));
+        controller.onApplicationEvent(sessionDisconnectEvent);
+
+        verify(client, times(1)).deactivate();
+    }
+
+    @Test
+    void givenManyViewers_whenBroadcast_thenSessionIsStreamedOnceToSharedTopic() throws SnowStream.ConsumerThreadException, IOException, InterruptedException {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        ArgumentCaptor<SnowStreamBroadcastClient> broadcast = ArgumentCaptor.forClass(SnowStreamBroadcastClient.class);
+
+        controller.broadcast("session-id", "binary", user);
+        controller.broadcast("session-id", "binary", new UserPrincipal("UserY"));
+        runTasks();
+
+        Assertions.assertEquals(1, tasks.size());
+        verify(proxyService).streamSessionTo(eq("session-id"), broadcast.capture());
+        Assertions.assertEquals("/topic/session/session-id/binary", broadcast.getValue().topic());
+    }
+
+    @Test
+    void givenDifferentCodecs_whenBroadcast_thenEachCodecHasItsOwnBroadcast() {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+
+        assertDoesNotThrow(() -> controller.broadcast("session-id", "binary", user));
+        assertDoesNotThrow(() -> controller.broadcast("session-id", "quantized", new UserPrincipal("UserY")));
+
+        Assertions.assertEquals(2, tasks.size());
+    }
+
+    @Test
+    void givenUnknownSession_whenBroadcast_thenThrowException() {
+        Assertions.assertThrows(InvalidSessionException.class, () -> controller.broadcast("session-id", "binary", user));
+    }
+
+    @Test
+    void givenLastViewerDisconnected_whenBroadcast_thenNewBroadcastIsStarted() throws IOException {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        when(sessionDisconnectEvent.getUser()).thenReturn(user);
+
+        controller.broadcast("session-id", "binary", user);
+        controller.onApplicationEvent(sessionDisconnectEvent);
+        controller.broadcast("session-id", "binary", new UserPrincipal("UserY"));
+
+        Assertions.assertEquals(2, tasks.size());
+    }
+
+    @Test
+    void givenBroadcastFinished_whenBroadcast_thenNewBroadcastIsStarted() throws IOException {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+
+        controller.broadcast("session-id", "binary", user);
+        runTasks();
+        controller.broadcast("session-id", "binary", new UserPrincipal("UserY"));
+
+        Assertions.assertEquals(2, tasks.size());
+    }
+
+    @Test
+    void givenNoThreadsLeft_whenBroadcast_thenBroadcastIsNotKept() throws IOException {
+        when(proxyService.hasSession("session-id")).thenReturn(true);
+        AtomicBoolean full = new AtomicBoolean(true);
+        controller = new WebsocketsController(messagingTemplate, proxyService, task -> {
+            if (full.get()) {
+                throw new TaskRejectedException("full");
+            }
+            tasks.add(task);
+        });
+
+        Assertions.assertThrows(TaskRejectedException.class, () -> controller.broadcast("session-id", "binary", user));
+        full.set(false);
+        controller.broadcast("session-id", "binary", user);
+
+        Assertions.assertEquals(1, tasks.size());
+    }
+}
@@ -1,5 +1,6 @@
 import {SnowDrawingRefHandler} from "../components/SnowAnimationPlayer/SnowDrawing";
 import SnowDecoder from "../stream/SnowDecoder";
+import {createSnowDecoder} from "../stream/snowCodec";
 import SnowAnimationMetadata from "../dto/SnowAnimationMetadata";
 import SnowBasis, {NoSnowBasis} from "../dto/SnowBasis";
 import SnowBackground, {NoSnowBackground} from "../dto/SnowBackground";
@@ -52,7 +53,7 @@ export class SnowAnimationController {
     private periodicHandler: ReturnType<typeof setInterval>;
     private abortController = new AbortController();
 
-    public constructor(sessionId: string, decoder: SnowDecoder = new SnowDecoder()) {
+    public constructor(sessionId: string, decoder: SnowDecoder = createSnowDecoder()) {
         this.isDestroyed = false;
         this.sessionId = sessionId;
         this.decoder = decoder;
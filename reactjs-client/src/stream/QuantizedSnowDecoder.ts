@@ -0,0 +1,65 @@
+import SnowDataFrame from '../dto/SnowDataFrame';
+import SnowDecoder from './SnowDecoder';
+
+export default class QuantizedSnowDecoder extends SnowDecoder
+{
+
+    protected decodeParticles(data : DataView): [ SnowDataFrame, number ] {
+        let ptr = 0;
+        const frameNum = data.getInt32(ptr, false);
+        ptr += 4;
+
+        const chunkSize = data.getUint32(ptr, false);
+        ptr += 4;
+
+        const isLast = frameNum === -1;
+        const particlesX = new Float32Array(chunkSize);
+        const particlesY = new Float32Array(chunkSize);
+        const flakeShapes = new Uint8Array(chunkSize);
+
+        if (chunkSize > 0) {
+            const scale = 1 << data.getUint8(ptr);
+            ptr += 1;
+
+            for (let i = 0; i < chunkSize; ++i) {
+                particlesX[i] = data.getInt16(ptr, false) / scale;
+                ptr += 2;
+            }
+            for (let i = 0; i < chunkSize; ++i) {
+                particlesY[i] = data.getInt16(ptr, false) / scale;
+                ptr += 2;
+            }
+
+            ptr = this.decodeShapes(data, ptr, flakeShapes);
+        }
+
+        return [ { isEndOfStream: isLast, frameNum, chunkSize, particlesX, particlesY, flakeShapes }, ptr ];
+    }
+
+    private decodeShapes(data : DataView, ptr: number, flakeShapes: Uint8Array): number {
+        const paletteSize = data.getUint8(ptr) + 1;
+        ptr += 1;
+
+        const palette = new Uint8Array(data.buffer, data.byteOffset + ptr, paletteSize);
+        ptr += paletteSize;
+
+        const bitsPerShape = paletteSize > 1 ? 32 - Math.clz32(paletteSize - 1) : 0;
+        if (bitsPerShape === 0) {
+            flakeShapes.fill(palette[0]);
+            return ptr;
+        }
+
+        const mask = (1 << bitsPerShape) - 1;
+        let bits = 0;
+        let numOfBits = 0;
+        for (let i = 0; i < flakeShapes.length; ++i) {
+            if (numOfBits < bitsPerShape) {
+                bits = (bits << 8) | data.getUint8(ptr++);
+                numOfBits += 8;
+            }
+            numOfBits -= bitsPerShape;
+            flakeShapes[i] = palette[(bits >>> numOfBits) & mask];
+        }
+        return ptr;
+    }
+}
@@ -3,8 +3,21 @@ import SnowAnimationMetadata from '../dto/SnowAnimationMetadata';
 import SnowBackground, {NoSnowBackground} from '../dto/SnowBackground';
 import SnowBasis, {NoSnowBasis} from '../dto/SnowBasis';
 
+const REPEATED_FRAME = -1;
+const BASIS_DELTA = -1;
+const BASIS_KEY_SPAN = 0x10000;
+
 export default class SnowDecoder
 {
+    private lastFrame: SnowDataFrame = {
+        isEndOfStream: false,
+        frameNum: 0,
+        chunkSize: 0,
+        particlesX: new Float32Array(0),
+        particlesY: new Float32Array(0),
+        flakeShapes: new Uint8Array(0),
+    };
+    private lastBasis: SnowBasis = NoSnowBasis;
 
     public decodeHeader(data : DataView): [ SnowAnimationMetadata, SnowBackground ] {
         return [
@@ -14,9 +27,20 @@ export default class SnowDecoder
     }
 
     public decodeFrame(data : DataView): [ SnowDataFrame, SnowBasis ] {
+        if (data.getInt32(4, false) === REPEATED_FRAME) {
+            // same particles as in previous frame, followed by number of frame carrying them
+            const frame = { ...this.lastFrame, frameNum: data.getInt32(0, false) };
+            return [ frame, this.decodeBasis(data, 12) ];
+        }
+
+        const [ frame, ptr ] = this.decodeParticles(data);
+        this.lastFrame = frame;
+        return [ frame, this.decodeBasis(data, ptr) ];
+    }
+
+    protected decodeParticles(data : DataView): [ SnowDataFrame, number ] {
         const frame = this.decodeDataFrame(data);
-        const basis = this.decodeBasis(data, frame.chunkSize);
-        return [ frame, basis ];
+        return [ frame, 8 + 9 * frame.chunkSize ]; // after data frame
     }
 
     private decodeMetadata(data : DataView): SnowAnimationMetadata {
@@ -52,7 +76,7 @@ export default class SnowDecoder
         return { width, height, pixels }
     }
 
-    private decodeDataFrame(data : DataView): SnowDataFrame {
+    protected decodeDataFrame(data : DataView): SnowDataFrame {
         let ptr = 0;
         const frameNum = data.getInt32(ptr, false);
         ptr += 4;
@@ -79,15 +103,17 @@ export default class SnowDecoder
         return { isEndOfStream: isLast, frameNum, chunkSize, particlesX, particlesY, flakeShapes };
     }
 
-    private decodeBasis(data : DataView, frameChunkSize: number): SnowBasis {
-        let ptr= 8 + 9 * frameChunkSize; // after data frame
-
+    protected decodeBasis(data : DataView, ptr: number): SnowBasis {
         const numOfPixels = data.getInt32(ptr, false);
         if (numOfPixels === 0) {
             return NoSnowBasis;
         }
         ptr += 4;
 
+        if (numOfPixels === BASIS_DELTA) {
+            return this.lastBasis = this.applyBasisDelta(data, ptr);
+        }
+
         const x = new Uint32Array(numOfPixels);
         const y = new Uint32Array(numOfPixels);
         const pixels = new Uint8Array(numOfPixels);
@@ -105,6 +131,43 @@ export default class SnowDecoder
             ptr += 1;
         }
 
+        return this.lastBasis = { numOfPixels, x, y, pixels };
+    }
+
+    private applyBasisDelta(data : DataView, ptr: number): SnowBasis {
+        const pixelsAt = new Map<number, number>();
+        for (let i = 0; i < this.lastBasis.numOfPixels; ++i) {
+            pixelsAt.set(this.lastBasis.x[i] * BASIS_KEY_SPAN + this.lastBasis.y[i], this.lastBasis.pixels[i]);
+        }
+
+        const numOfChanged = data.getInt32(ptr, false);
+        ptr += 4;
+        for (let i = 0; i < numOfChanged; ++i) {
+            const x = data.getInt32(ptr + 4 * i, false);
+            const y = data.getInt32(ptr + 4 * (numOfChanged + i), false);
+            pixelsAt.set(x * BASIS_KEY_SPAN + y, data.getUint8(ptr + 8 * numOfChanged + i));
+        }
+        ptr += 9 * numOfChanged;
+
+        const numOfRemoved = data.getInt32(ptr, false);
+        ptr += 4;
+        for (let i = 0; i < numOfRemoved; ++i) {
+            const x = data.getInt32(ptr + 4 * i, false);
+            const y = data.getInt32(ptr + 4 * (numOfRemoved + i), false);
+            pixelsAt.delete(x * BASIS_KEY_SPAN + y);
+        }
+
+        const numOfPixels = pixelsAt.size;
+        const x = new Uint32Array(numOfPixels);
+        const y = new Uint32Array(numOfPixels);
+        const pixels = new Uint8Array(numOfPixels);
+        let i = 0;
+        pixelsAt.forEach((pixel, key) => {
+            x[i] = Math.floor(key / BASIS_KEY_SPAN);
+            y[i] = key % BASIS_KEY_SPAN;
+            pixels[i++] = pixel;
+        });
+
         return { numOfPixels, x, y, pixels };
     }
 }
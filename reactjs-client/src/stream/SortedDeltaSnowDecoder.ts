@@ -0,0 +1,61 @@
+import SnowDataFrame from '../dto/SnowDataFrame';
+import SnowDecoder from './SnowDecoder';
+
+export default class SortedDeltaSnowDecoder extends SnowDecoder
+{
+    private ptr = 0;
+
+    protected decodeParticles(data : DataView): [ SnowDataFrame, number ] {
+        const frame = this.decodeSortedFrame(data);
+        return [ frame, this.ptr ];
+    }
+
+    private decodeSortedFrame(data : DataView): SnowDataFrame {
+        const frameNum = data.getInt32(0, false);
+        const chunkSize = data.getUint32(4, false);
+        this.ptr = 8;
+
+        const isLast = frameNum === -1;
+        const particlesX = new Float32Array(chunkSize);
+        const particlesY = new Float32Array(chunkSize);
+        const flakeShapes = new Uint8Array(chunkSize);
+
+        if (chunkSize > 0) {
+            const scale = 1 << data.getUint8(this.ptr++);
+
+            let x = 0;
+            let y = 0;
+            for (let i = 0; i < chunkSize; ++i) {
+                x += this.readZigZagVarInt(data);
+                y += this.readZigZagVarInt(data);
+                particlesX[i] = x / scale;
+                particlesY[i] = y / scale;
+            }
+
+            for (let i = 0; i < chunkSize; ) {
+                const runLength = this.readVarInt(data);
+                const shape = data.getUint8(this.ptr++);
+                flakeShapes.fill(shape, i, i + runLength);
+                i += runLength;
+            }
+        }
+
+        return { isEndOfStream: isLast, frameNum, chunkSize, particlesX, particlesY, flakeShapes };
+    }
+
+    private readZigZagVarInt(data : DataView): number {
+        const value = this.readVarInt(data);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private readVarInt(data : DataView): number {
+        let value = 0;
+        for (let shift = 0; ; shift += 7) {
+            const byte = data.getUint8(this.ptr++);
+            value |= (byte & 0x7F) << shift;
+            if (byte < 0x80) {
+                return value >>> 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+import SnowDecoder from './SnowDecoder';
+import QuantizedSnowDecoder from './QuantizedSnowDecoder';
+import SortedDeltaSnowDecoder from './SortedDeltaSnowDecoder';
+
+const decoders = {
+    "binary": () => new SnowDecoder(),
+    "quantized": () => new QuantizedSnowDecoder(),
+    "sorted-delta": () => new SortedDeltaSnowDecoder(),
+};
+
+export type SnowCodec = keyof typeof decoders;
+
+export const snowCodec: SnowCodec = process.env.REACT_APP_SNOW_CODEC in decoders
+    ? process.env.REACT_APP_SNOW_CODEC as SnowCodec
+    : "binary";
+
+export function createSnowDecoder(codec: SnowCodec = snowCodec): SnowDecoder {
+    return decoders[codec]();
+}
@@ -1,6 +1,8 @@
 import {Client, IFrame, IMessage} from '@stomp/stompjs';
+import {snowCodec} from './snowCodec';
 
 const snowEndpointUrl=process.env.REACT_APP_SNOW_ENDPOINT_URL;
+const snowTransport=process.env.REACT_APP_SNOW_TRANSPORT || 'stomp';
 
 export interface SnowAnimationConfiguration {
     presetName: string,
@@ -21,8 +23,13 @@ export interface DetailsEndpointResponse extends EndpointResponse, SnowAnimation
     exists: boolean,
     message: string,
     streamTextUrl: string,
+    streamBinaryUrl: string,
+    streamSseUrl: string,
     streamWebsocketsStompBrokerUrl: string,
     streamWebsocketsUrl: string,
+    streamWebsocketsBroadcastUrl: string,
+    streamWebsocketsBroadcastTopic: string,
+    streamWebsocketsRawUrl: string,
     duration: number,
 }
 
@@ -114,24 +121,60 @@ async function fetchEndpoint(controller: AbortController, url: string): Promise<
 
 
 export type SnowClientHandler = number;
-const stompClients = new Map<SnowClientHandler, Client>();
-let stompClientsCounter = 0;
+const snowClients = new Map<SnowClientHandler, () => void>();
+let snowClientsCounter = 0;
 
 export function startSnowDataStream(
     startResponse: StartEndpointResponse,
     onMessage: (data: DataView) => void,
     onDisconnect: () => void): SnowClientHandler
+{
+    const stop = snowTransport === 'raw'
+        ? startRawSnowDataStream(startResponse, onMessage, onDisconnect)
+        : startStompSnowDataStream(startResponse, onMessage, onDisconnect, snowTransport === 'stomp-broadcast');
+
+    const handler: SnowClientHandler = snowClientsCounter++;
+    snowClients.set(handler, stop);
+    return handler;
+}
+
+function startStompSnowDataStream(
+    startResponse: StartEndpointResponse,
+    onMessage: (data: DataView) => void,
+    onDisconnect: () => void,
+    broadcast: boolean): () => void
 {
     const stompClient = new Client({
         brokerURL: startResponse.streamWebsocketsStompBrokerUrl,
         onConnect: (frame: IFrame) => {
             const userId = frame.headers['user-name'];
 
+            let received: Promise<void> = Promise.resolve();
+            let caughtUp = false;
+            const receive = (message: IMessage) => {
+                received = received
+                    .then(() => inflateIfDeflated(message.binaryBody))
+                    .then(onMessage);
+            };
             stompClient.subscribe('/user/' + userId + '/stream/',
-                (message: IMessage) => onMessage(new DataView(message.binaryBody.buffer)));
+                (message: IMessage) => {
+                    caughtUp = true;
+                    receive(message);
+                });
+
+            if (broadcast) {
+                // frames published before our handshake arrived are covered by the catch-up on user queue
+                stompClient.subscribe(startResponse.streamWebsocketsBroadcastTopic + snowCodec,
+                    (message: IMessage) => {
+                        if (caughtUp) {
+                            receive(message);
+                        }
+                    });
+            }
 
             stompClient.publish({
-                destination: startResponse.streamWebsocketsUrl,
+                destination: broadcast ? startResponse.streamWebsocketsBroadcastUrl : startResponse.streamWebsocketsUrl,
+                headers: { codec: snowCodec },
             });
         },
         onWebSocketClose:() => {
@@ -144,12 +187,43 @@ export function startSnowDataStream(
 
     stompClient.activate();
 
-    const handler: SnowClientHandler = stompClientsCounter++;
-    stompClients.set(handler, stompClient);
-    return handler;
+    return () => void stompClient.deactivate();
+}
+
+function startRawSnowDataStream(
+    startResponse: StartEndpointResponse,
+    onMessage: (data: DataView) => void,
+    onDisconnect: () => void): () => void
+{
+    const socket = new WebSocket(startResponse.streamWebsocketsRawUrl + '?codec=' + encodeURIComponent(snowCodec));
+    socket.binaryType = 'arraybuffer';
+
+    let received: Promise<void> = Promise.resolve();
+    socket.onmessage = (message: MessageEvent<ArrayBuffer>) => {
+        received = received
+            .then(() => inflateIfDeflated(new Uint8Array(message.data)))
+            .then(onMessage);
+    };
+    socket.onclose = () => {
+        onDisconnect();
+    };
+
+    return () => socket.close();
+}
+
+// zlib header, plain messages always start with a big-endian width or frame number
+const DEFLATE_MARKER = 0x78;
+
+async function inflateIfDeflated(body: Uint8Array): Promise<DataView> {
+    if (body[0] !== DEFLATE_MARKER) {
+        return new DataView(body.buffer, body.byteOffset, body.byteLength);
+    }
+    // eslint-disable-next-line @typescript-eslint/no-explicit-any
+    const inflated = new Blob([body]).stream().pipeThrough(new (window as any).DecompressionStream('deflate'));
+    return new DataView(await new Response(inflated).arrayBuffer());
 }
 
 export function stopSnowDataStream(handler: SnowClientHandler): void {
-    void stompClients.get(handler).deactivate();
-    stompClients.delete(handler);
+    snowClients.get(handler)();
+    snowClients.delete(handler);
 }
\ No newline at end of file